@@ -27,7 +27,12 @@
  */
 package org.hisp.dhis.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -81,6 +86,70 @@ public interface Cache<V>
      */
     Stream<V> getAll();
 
+    /**
+     * Returns the values associated with the {@code keys} in this cache
+     * instance. Keys without cached value are not contained in the returned
+     * map. Note: This method will NOT return the defaultValue in case of
+     * absence of associated cache value.
+     *
+     * @param keys the keys whose associated values are to be retrieved
+     * @return a map of the keys to their cached values
+     */
+    default Map<String, V> getAllIfPresent( Collection<String> keys )
+    {
+        Map<String, V> values = new HashMap<>();
+        for ( String key : keys )
+        {
+            getIfPresent( key ).ifPresent( value -> values.put( key, value ) );
+        }
+        return values;
+    }
+
+    /**
+     * Returns the values mapped to the {@code keys} in this cache instance,
+     * obtaining the values of all keys not cached with a single call to the
+     * {@code bulkLoader}. Loaded values are stored in this cache. This is the
+     * bulk counterpart of {@link #get(String, Function)} for code paths that
+     * need many keys at once. Note: This method will NOT return the
+     * defaultValue in case of absence of associated value.
+     *
+     * @param keys the keys for retrieving the values
+     * @param bulkLoader the function to compute the values of the keys not
+     *        cached, keys without value are left out of the returned map
+     * @return a map of the keys to their current (existing or computed)
+     *         values, keys without value are not contained
+     * @throws IllegalArgumentException if the specified bulkLoader is null
+     */
+    default Map<String, V> getAll( Collection<String> keys, Function<Set<String>, Map<String, V>> bulkLoader )
+    {
+        if ( null == bulkLoader )
+        {
+            throw new IllegalArgumentException( "BulkLoader cannot be null" );
+        }
+
+        Map<String, V> values = getAllIfPresent( keys );
+        Set<String> missingKeys = new LinkedHashSet<>( keys );
+        missingKeys.removeAll( values.keySet() );
+
+        if ( !missingKeys.isEmpty() )
+        {
+            Map<String, V> loaded = new HashMap<>();
+            bulkLoader.apply( missingKeys ).forEach( ( key, value ) -> {
+                if ( key != null && value != null )
+                {
+                    loaded.put( key, value );
+                }
+            } );
+            if ( !loaded.isEmpty() )
+            {
+                putAll( loaded );
+                values.putAll( loaded );
+            }
+        }
+
+        return values;
+    }
+
     /**
      * Associates the {@code value} with the {@code key} in this cache. If the
      * cache previously contained a value associated with the {@code key}, the
@@ -107,6 +176,18 @@ public interface Cache<V>
      */
     void put( String key, V value, long ttlInSeconds );
 
+    /**
+     * Associates each value of the given map with its key in this cache, as
+     * {@link #put(String, Object)} does for a single value.
+     *
+     * @param values the keys and values to store
+     * @throws IllegalArgumentException if any of the specified values is null
+     */
+    default void putAll( Map<String, V> values )
+    {
+        values.forEach( this::put );
+    }
+
     /**
      * Discards any cached value for the {@code key}. The behavior of this
      * operation is undefined for an entry that is being loaded and is otherwise
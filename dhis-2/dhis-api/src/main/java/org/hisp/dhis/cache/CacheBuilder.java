@@ -111,6 +111,15 @@ public interface CacheBuilder<V>
      */
     CacheBuilder<V> forceInMemory();
 
+    /**
+     * Configure the cache instance to hold large values. Local capped caches
+     * may store such values serialised in an off-heap tier to reduce garbage
+     * collection pressure. Values should be {@link java.io.Serializable}.
+     *
+     * @return The builder instance.
+     */
+    CacheBuilder<V> withLargeValues();
+
     /**
      * Configure the cache instance to disable caching.
      *
@@ -160,6 +169,13 @@ public interface CacheBuilder<V>
      */
     boolean isExpiryEnabled();
 
+    /**
+     * Getter for largeValues
+     *
+     * @return the largeValues flag set in the builder
+     */
+    boolean isLargeValues();
+
     /**
      * Getter for expiryInSeconds
      *
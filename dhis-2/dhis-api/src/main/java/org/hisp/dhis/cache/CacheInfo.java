@@ -84,12 +84,27 @@ public final class CacheInfo
         @JsonProperty
         private int highBurdenEntries;
 
+        @JsonProperty
+        private int offHeapEntries;
+
+        @JsonProperty
+        private long offHeapSize;
+
+        @JsonProperty
+        private long offHeapHits;
+
         @JsonProperty
         public String getSizeHumanReadable()
         {
             return humanReadableSize( size );
         }
 
+        @JsonProperty
+        public String getOffHeapSizeHumanReadable()
+        {
+            return humanReadableSize( offHeapSize );
+        }
+
         @JsonProperty
         public long getAverageEntrySize()
         {
@@ -107,6 +122,30 @@ public final class CacheInfo
         {
             return misses == 0 ? Float.MAX_VALUE : hits / (float) misses;
         }
+
+        /**
+         * @return share of all reads served from the heap tier
+         */
+        @JsonProperty
+        public double getHeapHitRate()
+        {
+            return hitRate( hits );
+        }
+
+        /**
+         * @return share of all reads served from the off-heap tier
+         */
+        @JsonProperty
+        public double getOffHeapHitRate()
+        {
+            return hitRate( offHeapHits );
+        }
+
+        private double hitRate( long tierHits )
+        {
+            long reads = hits + offHeapHits + misses;
+            return reads == 0 ? 0d : Math.round( tierHits * 10000d / reads ) / 10000d;
+        }
     }
 
     @Getter
@@ -121,6 +160,15 @@ public final class CacheInfo
 
         @JsonProperty
         private final int hardCapPercentage;
+
+        @JsonProperty
+        private final long offHeapCapSize;
+
+        @JsonProperty
+        public String getOffHeapCapSizeHumanReadable()
+        {
+            return humanReadableSize( offHeapCapSize );
+        }
     }
 
     @Getter
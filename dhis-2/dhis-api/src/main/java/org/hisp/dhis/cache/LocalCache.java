@@ -31,6 +31,10 @@ import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -128,6 +132,12 @@ public class LocalCache<V> implements Cache<V>
         return cache2kInstance.asMap().values().stream();
     }
 
+    @Override
+    public Map<String, V> getAllIfPresent( Collection<String> keys )
+    {
+        return new HashMap<>( cache2kInstance.peekAll( keys ) );
+    }
+
     @Override
     public void put( String key, V value )
     {
@@ -146,6 +156,16 @@ public class LocalCache<V> implements Cache<V>
             e -> e.setValue( value ).setExpiryTime( currentTimeMillis() + SECONDS.toMillis( ttlInSeconds ) ) );
     }
 
+    @Override
+    public void putAll( Map<String, V> values )
+    {
+        if ( values.values().stream().anyMatch( Objects::isNull ) )
+        {
+            throw new IllegalArgumentException( "Value cannot be null" );
+        }
+        cache2kInstance.putAll( values );
+    }
+
     @Override
     public void invalidate( String key )
     {
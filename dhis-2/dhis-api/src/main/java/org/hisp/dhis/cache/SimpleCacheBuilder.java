@@ -58,6 +58,8 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
 
     private boolean disabled;
 
+    private boolean largeValues;
+
     public SimpleCacheBuilder()
     {
         // Applying sensible defaults explicitly
@@ -68,6 +70,7 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         this.defaultValue = null;
         this.expiryEnabled = false;
         this.disabled = false;
+        this.largeValues = false;
         this.initialCapacity = 16;
     }
 
@@ -137,6 +140,12 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         return this;
     }
 
+    public CacheBuilder<V> withLargeValues()
+    {
+        this.largeValues = true;
+        return this;
+    }
+
     /**
      * Creates and returns a {@link LocalCache}. If {@code maximumSize} is 0 or
      * {@code disabled} is true then a NoOpCache instance will be returned which
@@ -184,6 +193,11 @@ public class SimpleCacheBuilder<V> implements CacheBuilder<V>
         return expiryEnabled;
     }
 
+    public boolean isLargeValues()
+    {
+        return largeValues;
+    }
+
     public boolean isDisabled()
     {
         return disabled;
@@ -37,18 +37,36 @@ import java.util.concurrent.Future;
 public interface AsyncTaskExecutor
 {
     /**
-     * Executes a task asynchronously
+     * Executes a task asynchronously on the {@link TaskPool#DEFAULT} pool.
      *
      * @param task The task to be executed
      */
     void executeTask( Runnable task );
 
     /**
-     * Executes a task asynchronously returning a {@link Future} that can be
-     * used to cancel the execution.
+     * Executes a task asynchronously on the {@link TaskPool#DEFAULT} pool
+     * returning a {@link Future} that can be used to cancel the execution.
      *
      * @param task The task to be executed
      * @return a {@link Future} to cancel running execution
      */
     Future<?> executeTaskWithCancelation( Runnable task );
+
+    /**
+     * Executes a task asynchronously on the given pool.
+     *
+     * @param pool The pool to execute the task on
+     * @param task The task to be executed
+     */
+    void executeTask( TaskPool pool, Runnable task );
+
+    /**
+     * Executes a task asynchronously on the given pool returning a
+     * {@link Future} that can be used to cancel the execution.
+     *
+     * @param pool The pool to execute the task on
+     * @param task The task to be executed
+     * @return a {@link Future} to cancel running execution
+     */
+    Future<?> executeTaskWithCancelation( TaskPool pool, Runnable task );
 }
@@ -0,0 +1,572 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column oriented store of values keyed by organisation unit, period,
+ * attribute option combination and item.
+ * <p>
+ * Compared to nested hash maps such as {@link MapMapMap}, the store keeps one
+ * primitive array per key dimension and avoids allocating a map entry, a boxed
+ * key and a nested map per value. Attribute option combos and items are
+ * interned into dictionaries so that each row only holds int references, and
+ * numeric values are kept unboxed in a double column. Rows of the same
+ * organisation unit are chained together so that the values of one
+ * organisation unit can be visited without scanning the whole store.
+ * <p>
+ * Organisation unit and period keys are opaque longs chosen by the caller, for
+ * instance database identifiers or positions in a list. Attribute option combo
+ * keys may be null. This class is not thread-safe.
+ *
+ * @param <T> the item type.
+ */
+public class ColumnarValueStore<T>
+{
+    private static final int NO_ROW = -1;
+
+    private static final int NULL_AOC = -1;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // -------------------------------------------------------------------------
+    // Dictionaries
+    // -------------------------------------------------------------------------
+
+    private final Map<String, Integer> aocIndexes = new HashMap<>();
+
+    private final List<String> aocs = new ArrayList<>();
+
+    private final Map<T, Integer> itemIndexes = new HashMap<>();
+
+    private final List<T> items = new ArrayList<>();
+
+    // -------------------------------------------------------------------------
+    // Columns
+    // -------------------------------------------------------------------------
+
+    private long[] orgUnitColumn;
+
+    private long[] periodColumn;
+
+    private int[] aocColumn;
+
+    private int[] itemColumn;
+
+    private double[] doubleColumn;
+
+    /**
+     * Non-numeric values, allocated on first use. A null element means the
+     * value of the row is held in the double column.
+     */
+    private Object[] objectColumn;
+
+    /**
+     * Next row of the same organisation unit, or {@link #NO_ROW}.
+     */
+    private int[] nextColumn;
+
+    private int size;
+
+    // -------------------------------------------------------------------------
+    // Indexes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Open addressing index of rows by all key dimensions. Holds row + 1, so
+     * that zero marks an empty slot.
+     */
+    private int[] rowIndex;
+
+    /**
+     * Open addressing index of the first and last row by organisation unit.
+     * Slots in {@link #orgUnitHeads} hold row + 1, zero marks an empty slot.
+     */
+    private long[] orgUnitKeys;
+
+    private int[] orgUnitHeads;
+
+    private int[] orgUnitTails;
+
+    private int orgUnitCount;
+
+    public ColumnarValueStore()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    public ColumnarValueStore( int expectedSize )
+    {
+        int capacity = Math.max( expectedSize, DEFAULT_CAPACITY );
+
+        orgUnitColumn = new long[capacity];
+        periodColumn = new long[capacity];
+        aocColumn = new int[capacity];
+        itemColumn = new int[capacity];
+        doubleColumn = new double[capacity];
+        nextColumn = new int[capacity];
+        rowIndex = new int[tableSize( capacity )];
+        orgUnitKeys = new long[DEFAULT_CAPACITY];
+        orgUnitHeads = new int[DEFAULT_CAPACITY];
+        orgUnitTails = new int[DEFAULT_CAPACITY];
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Stores a value, replacing any value already stored for the same keys.
+     *
+     * @param orgUnitKey the organisation unit key.
+     * @param periodKey the period key.
+     * @param aoc the attribute option combo key, may be null.
+     * @param item the item key.
+     * @param value the value.
+     * @return the row holding the value.
+     */
+    public int put( long orgUnitKey, long periodKey, String aoc, T item, Object value )
+    {
+        int aocIndex = internAoc( aoc );
+        int itemIndex = internItem( item );
+
+        int slot = findSlot( orgUnitKey, periodKey, aocIndex, itemIndex );
+
+        if ( rowIndex[slot] != 0 )
+        {
+            int row = rowIndex[slot] - 1;
+
+            setValue( row, value );
+
+            return row;
+        }
+
+        ensureCapacity( size + 1 );
+
+        int row = size++;
+
+        orgUnitColumn[row] = orgUnitKey;
+        periodColumn[row] = periodKey;
+        aocColumn[row] = aocIndex;
+        itemColumn[row] = itemIndex;
+        setValue( row, value );
+
+        if ( (size << 1) > rowIndex.length )
+        {
+            rehashRows( rowIndex.length << 1 );
+        }
+        else
+        {
+            rowIndex[slot] = row + 1;
+        }
+
+        linkOrgUnitRow( orgUnitKey, row );
+
+        return row;
+    }
+
+    /**
+     * Stores all values of the given store, replacing values already stored
+     * for the same keys.
+     *
+     * @param other the store to copy values from.
+     */
+    public void putAll( ColumnarValueStore<T> other )
+    {
+        for ( int row = 0; row < other.size; row++ )
+        {
+            put( other.orgUnitColumn[row], other.periodColumn[row], other.getAoc( row ), other.getItem( row ),
+                other.getValue( row ) );
+        }
+    }
+
+    /**
+     * Gets the row holding the value for the given keys.
+     *
+     * @return the row, or -1 if no value is stored for the keys.
+     */
+    public int indexOf( long orgUnitKey, long periodKey, String aoc, T item )
+    {
+        Integer aocIndex = aoc == null ? Integer.valueOf( NULL_AOC ) : aocIndexes.get( aoc );
+        Integer itemIndex = itemIndexes.get( item );
+
+        if ( aocIndex == null || itemIndex == null )
+        {
+            return NO_ROW;
+        }
+
+        return rowIndex[findSlot( orgUnitKey, periodKey, aocIndex, itemIndex )] - 1;
+    }
+
+    /**
+     * Gets the value for the given keys.
+     *
+     * @return the value, or null if no value is stored for the keys.
+     */
+    public Object get( long orgUnitKey, long periodKey, String aoc, T item )
+    {
+        int row = indexOf( orgUnitKey, periodKey, aoc, item );
+
+        return row == NO_ROW ? null : getValue( row );
+    }
+
+    /**
+     * Gets the value of the given row. Numeric values stored as {@link Double}
+     * are returned as {@link Double}, other values are returned as stored.
+     */
+    public Object getValue( int row )
+    {
+        Object object = objectColumn != null ? objectColumn[row] : null;
+
+        if ( object == null )
+        {
+            return doubleColumn[row];
+        }
+
+        return object == NullValue.INSTANCE ? null : object;
+    }
+
+    /**
+     * Gets the numeric value of the given row without boxing.
+     *
+     * @return the value, or {@link Double#NaN} if the value is not numeric.
+     */
+    public double getDouble( int row )
+    {
+        return objectColumn != null && objectColumn[row] != null ? Double.NaN : doubleColumn[row];
+    }
+
+    /**
+     * Replaces the value of the given row.
+     */
+    public void setValue( int row, Object value )
+    {
+        if ( value instanceof Double )
+        {
+            doubleColumn[row] = (Double) value;
+
+            if ( objectColumn != null )
+            {
+                objectColumn[row] = null;
+            }
+
+            return;
+        }
+
+        if ( objectColumn == null )
+        {
+            objectColumn = new Object[orgUnitColumn.length];
+        }
+
+        objectColumn[row] = value == null ? NullValue.INSTANCE : value;
+    }
+
+    public long getOrgUnitKey( int row )
+    {
+        return orgUnitColumn[row];
+    }
+
+    public long getPeriodKey( int row )
+    {
+        return periodColumn[row];
+    }
+
+    public String getAoc( int row )
+    {
+        return aocColumn[row] == NULL_AOC ? null : aocs.get( aocColumn[row] );
+    }
+
+    public T getItem( int row )
+    {
+        return items.get( itemColumn[row] );
+    }
+
+    /**
+     * Visits the values of an organisation unit in insertion order.
+     *
+     * @param orgUnitKey the organisation unit key.
+     * @param consumer the consumer of the values.
+     */
+    public void forEach( long orgUnitKey, ValueConsumer<T> consumer )
+    {
+        for ( int row = getFirstRow( orgUnitKey ); row != NO_ROW; row = nextColumn[row] )
+        {
+            consumer.accept( periodColumn[row], getAoc( row ), getItem( row ), getValue( row ) );
+        }
+    }
+
+    /**
+     * Gets the values of an organisation unit and period as a map of value maps
+     * by attribute option combo. The returned map is a new, mutable map.
+     *
+     * @param orgUnitKey the organisation unit key.
+     * @param periodKey the period key.
+     * @return the values, or null if no value is stored for the organisation
+     *         unit and period.
+     */
+    public MapMap<String, T, Object> getValueMap( long orgUnitKey, long periodKey )
+    {
+        MapMap<String, T, Object> map = null;
+
+        for ( int row = getFirstRow( orgUnitKey ); row != NO_ROW; row = nextColumn[row] )
+        {
+            if ( periodColumn[row] == periodKey )
+            {
+                map = map == null ? new MapMap<>() : map;
+                map.putEntry( getAoc( row ), getItem( row ), getValue( row ) );
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * Indicates whether any value is stored for the organisation unit.
+     */
+    public boolean containsOrgUnit( long orgUnitKey )
+    {
+        return getFirstRow( orgUnitKey ) != NO_ROW;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Creates a copy of this store. Values are shared, keys and columns are
+     * copied.
+     */
+    public ColumnarValueStore<T> copy()
+    {
+        ColumnarValueStore<T> copy = new ColumnarValueStore<>( size );
+        copy.putAll( this );
+        return copy;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private int internAoc( String aoc )
+    {
+        if ( aoc == null )
+        {
+            return NULL_AOC;
+        }
+
+        return aocIndexes.computeIfAbsent( aoc, k -> {
+            aocs.add( k );
+            return aocs.size() - 1;
+        } );
+    }
+
+    private int internItem( T item )
+    {
+        return itemIndexes.computeIfAbsent( item, k -> {
+            items.add( k );
+            return items.size() - 1;
+        } );
+    }
+
+    private int findSlot( long orgUnitKey, long periodKey, int aocIndex, int itemIndex )
+    {
+        int mask = rowIndex.length - 1;
+        int slot = hash( orgUnitKey, periodKey, aocIndex, itemIndex ) & mask;
+
+        while ( rowIndex[slot] != 0 )
+        {
+            int row = rowIndex[slot] - 1;
+
+            if ( orgUnitColumn[row] == orgUnitKey && periodColumn[row] == periodKey
+                && aocColumn[row] == aocIndex && itemColumn[row] == itemIndex )
+            {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void rehashRows( int tableSize )
+    {
+        rowIndex = new int[tableSize];
+
+        int mask = tableSize - 1;
+
+        for ( int row = 0; row < size; row++ )
+        {
+            int slot = hash( orgUnitColumn[row], periodColumn[row], aocColumn[row], itemColumn[row] ) & mask;
+
+            while ( rowIndex[slot] != 0 )
+            {
+                slot = (slot + 1) & mask;
+            }
+
+            rowIndex[slot] = row + 1;
+        }
+    }
+
+    private int getFirstRow( long orgUnitKey )
+    {
+        return orgUnitHeads[findOrgUnitSlot( orgUnitKey )] - 1;
+    }
+
+    /**
+     * Appends the row to the chain of rows of its organisation unit.
+     */
+    private void linkOrgUnitRow( long orgUnitKey, int row )
+    {
+        nextColumn[row] = NO_ROW;
+
+        int slot = findOrgUnitSlot( orgUnitKey );
+
+        if ( orgUnitHeads[slot] != 0 )
+        {
+            nextColumn[orgUnitTails[slot]] = row;
+            orgUnitTails[slot] = row;
+
+            return;
+        }
+
+        orgUnitKeys[slot] = orgUnitKey;
+        orgUnitHeads[slot] = row + 1;
+        orgUnitTails[slot] = row;
+
+        if ( (++orgUnitCount << 1) > orgUnitKeys.length )
+        {
+            rehashOrgUnits( orgUnitKeys.length << 1 );
+        }
+    }
+
+    private int findOrgUnitSlot( long orgUnitKey )
+    {
+        int mask = orgUnitKeys.length - 1;
+        int slot = hash( orgUnitKey ) & mask;
+
+        while ( orgUnitHeads[slot] != 0 && orgUnitKeys[slot] != orgUnitKey )
+        {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void rehashOrgUnits( int tableSize )
+    {
+        long[] oldKeys = orgUnitKeys;
+        int[] oldHeads = orgUnitHeads;
+        int[] oldTails = orgUnitTails;
+
+        orgUnitKeys = new long[tableSize];
+        orgUnitHeads = new int[tableSize];
+        orgUnitTails = new int[tableSize];
+
+        for ( int i = 0; i < oldKeys.length; i++ )
+        {
+            if ( oldHeads[i] != 0 )
+            {
+                int slot = findOrgUnitSlot( oldKeys[i] );
+
+                orgUnitKeys[slot] = oldKeys[i];
+                orgUnitHeads[slot] = oldHeads[i];
+                orgUnitTails[slot] = oldTails[i];
+            }
+        }
+    }
+
+    private void ensureCapacity( int capacity )
+    {
+        if ( capacity <= orgUnitColumn.length )
+        {
+            return;
+        }
+
+        int newCapacity = Math.max( capacity, orgUnitColumn.length + (orgUnitColumn.length >> 1) );
+
+        orgUnitColumn = Arrays.copyOf( orgUnitColumn, newCapacity );
+        periodColumn = Arrays.copyOf( periodColumn, newCapacity );
+        aocColumn = Arrays.copyOf( aocColumn, newCapacity );
+        itemColumn = Arrays.copyOf( itemColumn, newCapacity );
+        doubleColumn = Arrays.copyOf( doubleColumn, newCapacity );
+        nextColumn = Arrays.copyOf( nextColumn, newCapacity );
+
+        if ( objectColumn != null )
+        {
+            objectColumn = Arrays.copyOf( objectColumn, newCapacity );
+        }
+    }
+
+    private static int tableSize( int capacity )
+    {
+        return Integer.highestOneBit( Math.max( capacity, 2 ) - 1 ) << 2;
+    }
+
+    private static int hash( long orgUnitKey, long periodKey, int aocIndex, int itemIndex )
+    {
+        long h = orgUnitKey * 0x9E3779B97F4A7C15L;
+        h = (h ^ periodKey) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ (((long) aocIndex << 32) | (itemIndex & 0xFFFFFFFFL))) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static int hash( long key )
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Consumer of the values of an organisation unit.
+     */
+    @FunctionalInterface
+    public interface ValueConsumer<T>
+    {
+        void accept( long periodKey, String aoc, T item, Object value );
+    }
+
+    /**
+     * Marks a stored null value in the object column.
+     */
+    private enum NullValue
+    {
+        INSTANCE
+    }
+}
@@ -36,6 +36,7 @@ import lombok.Builder;
 import lombok.Getter;
 
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.SortOrder;
 import org.hisp.dhis.event.EventStatus;
@@ -126,6 +127,10 @@ public class EventDataQueryRequest
 
     private boolean paging;
 
+    private EventCountMode countMode;
+
+    private String after;
+
     /**
      * Copies all properties of this request onto the given request.
      *
@@ -171,6 +176,8 @@ public class EventDataQueryRequest
         queryRequest.page = this.page;
         queryRequest.pageSize = this.pageSize;
         queryRequest.paging = this.paging;
+        queryRequest.countMode = this.countMode;
+        queryRequest.after = this.after;
         return request;
     }
 
@@ -209,6 +216,8 @@ public class EventDataQueryRequest
                 .page( criteria.getPage() )
                 .pageSize( criteria.getPageSize() )
                 .paging( criteria.isPaging() )
+                .countMode( criteria.getCountMode() )
+                .after( criteria.getAfter() )
                 .programStatus( criteria.getProgramStatus() )
                 .relativePeriodDate( criteria.getRelativePeriodDate() )
                 .showHierarchy( criteria.isShowHierarchy() )
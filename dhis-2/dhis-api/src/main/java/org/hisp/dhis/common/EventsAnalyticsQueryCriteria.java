@@ -34,6 +34,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.SortOrder;
 import org.hisp.dhis.event.EventStatus;
@@ -286,4 +287,17 @@ public class EventsAnalyticsQueryCriteria
      * default is true (always paginate).
      */
     private boolean paging = true;
+
+    /**
+     * How to resolve the total number of events for paged queries. Default is
+     * EXACT. ( options: EXACT | CACHED | ESTIMATED | NONE )
+     */
+    private EventCountMode countMode;
+
+    /**
+     * Event identifier to page after, enabling keyset paging on the event
+     * identifier. The identifier of the last event of a page serves as cursor
+     * for the next page. Cannot be combined with sorting.
+     */
+    private String after;
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+/**
+ * Workload classes which are executed on separate thread pools, so that a long
+ * running task of one class does not starve the tasks of the others.
+ *
+ * @see AsyncTaskExecutor
+ * @see org.hisp.dhis.scheduling.JobType#getTaskPool()
+ */
+public enum TaskPool
+{
+    /**
+     * Tasks which do not belong to any of the other pools, such as data
+     * synchronization and cluster leader election.
+     */
+    DEFAULT( Thread.NORM_PRIORITY ),
+
+    /**
+     * Analytics and resource table generation, predictors and other analysis.
+     */
+    ANALYTICS( Thread.NORM_PRIORITY - 1 ),
+
+    /**
+     * Asynchronous metadata, aggregate and tracker data imports.
+     */
+    IMPORT( Thread.NORM_PRIORITY ),
+
+    /**
+     * Messages, notifications and tracker import side effects.
+     */
+    NOTIFICATION( Thread.NORM_PRIORITY + 1 ),
+
+    /**
+     * Housekeeping such as data integrity checks and clean up of resources.
+     */
+    MAINTENANCE( Thread.MIN_PRIORITY );
+
+    private final int threadPriority;
+
+    TaskPool( int threadPriority )
+    {
+        this.threadPriority = threadPriority;
+    }
+
+    public int getThreadPriority()
+    {
+        return threadPriority;
+    }
+}
@@ -116,6 +116,26 @@ public class DataApprovalStatus
         this.state = state;
     }
 
+    /**
+     * Creates a shallow copy of the given status.
+     *
+     * @param status the status to copy.
+     */
+    public DataApprovalStatus( DataApprovalStatus status )
+    {
+        this.state = status.state;
+        this.approvedLevel = status.approvedLevel;
+        this.approvedOrgUnitId = status.approvedOrgUnitId;
+        this.actionLevel = status.actionLevel;
+        this.organisationUnitUid = status.organisationUnitUid;
+        this.organisationUnitName = status.organisationUnitName;
+        this.attributeOptionComboUid = status.attributeOptionComboUid;
+        this.accepted = status.accepted;
+        this.permissions = status.permissions;
+        this.created = status.created;
+        this.creator = status.creator;
+    }
+
     public DataApprovalStatus( DataApprovalState state,
         DataApprovalLevel approvedLevel, int approvedOrgUnitId, DataApprovalLevel actionLevel,
         String organisationUnitUid, String organisationUnitName, String attributeOptionComboUid,
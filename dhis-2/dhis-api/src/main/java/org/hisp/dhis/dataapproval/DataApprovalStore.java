@@ -155,4 +155,26 @@ public interface DataApprovalStore
         CategoryCombo attributeCombo,
         Set<CategoryOptionCombo> attributeOptionCombos, List<DataApprovalLevel> userApprovalLevels,
         Map<Integer, DataApprovalLevel> levelMap );
+
+    /**
+     * Returns data approval statuses like
+     * {@link #getDataApprovalStatuses(DataApprovalWorkflow, Period, Collection, int, CategoryCombo, Set, List, Map)},
+     * but may serve them from a cache local to this instance. The statuses
+     * may hence be stale with respect to approval actions performed on other
+     * instances, and must only be used for read-only listing, never to decide
+     * whether an approval action is permitted.
+     *
+     * @param workflow Data approval workflow to check
+     * @param period Period to look within
+     * @param orgUnits Organisation unit to look for (null means all)
+     * @param orgUnitLevel level for all orgUnits specified (if any)
+     * @param attributeCombo Attribute category combo to look within
+     * @param attributeOptionCombos Attribute option combos (null means all)
+     * @return data approval status objects
+     */
+    List<DataApprovalStatus> getCachedDataApprovalStatuses( DataApprovalWorkflow workflow,
+        Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
+        CategoryCombo attributeCombo,
+        Set<CategoryOptionCombo> attributeOptionCombos, List<DataApprovalLevel> userApprovalLevels,
+        Map<Integer, DataApprovalLevel> levelMap );
 }
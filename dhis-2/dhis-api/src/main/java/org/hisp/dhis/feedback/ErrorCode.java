@@ -116,6 +116,7 @@ public enum ErrorCode
     E2206( "Max results exceeds the allowed max limit: `{0}`" ),
     E2207( "Data start date must be before data end date" ),
     E2208( "Non-numeric data values encountered during outlier value detection" ),
+    E2209( "Outlier value detection exceeded its time limit or was cancelled" ),
 
     /* Followup analysis */
     E2300( "At least one data element or data set must be specified" ),
@@ -310,6 +311,8 @@ public enum ErrorCode
     E7227( "Relationship entity type not supported: `{0}`" ),
     E7228( "Fallback coordinate field is invalid: `{0}` " ),
     E7229( "Operator '{0}' does not allow missing value" ),
+    E7230( "Event to page after is not a valid identifier: `{0}`" ),
+    E7231( "Paging after an event cannot be combined with sorting" ),
 
     /* Org unit analytics */
     E7300( "At least one organisation unit must be specified" ),
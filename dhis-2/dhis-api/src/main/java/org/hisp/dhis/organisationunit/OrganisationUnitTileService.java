@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import org.hisp.dhis.user.User;
+
+/**
+ * Serves organisation unit geometries as GeoJSON tiles addressed by zoom level
+ * and tile column and row in the web mercator tiling scheme. Geometries are
+ * simplified according to the zoom level of the tile.
+ */
+public interface OrganisationUnitTileService
+{
+    int MAX_ZOOM = 22;
+
+    /**
+     * Returns a GeoJSON feature collection of the organisation units with a
+     * geometry intersecting the given tile, restricted to the data view
+     * hierarchy of the given user.
+     *
+     * @param z the zoom level.
+     * @param x the tile column.
+     * @param y the tile row.
+     * @param level the hierarchy level to restrict to, can be null.
+     * @param parent the identifier of the organisation unit to restrict to
+     *        the descendants of, can be null.
+     * @param user the user.
+     * @return a GeoJSON feature collection.
+     * @throws org.hisp.dhis.common.IllegalQueryException if the tile is not
+     *         valid.
+     */
+    String getTile( int z, int x, int y, Integer level, String parent, User user );
+
+    /**
+     * Invalidates all cached tiles. Called when organisation units are added
+     * or deleted, or when their geometries or rendered properties change.
+     */
+    void invalidateTiles();
+}
@@ -28,6 +28,7 @@
 package org.hisp.dhis.outboundmessage;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Halvdan Hoem Grelland
@@ -35,4 +36,16 @@ import java.util.List;
 public interface OutboundMessageBatchService
 {
     List<OutboundMessageResponseSummary> sendBatches( List<OutboundMessageBatch> batches );
+
+    /**
+     * Queues the given batches for delivery and returns immediately. Batches
+     * are delivered by the worker pool of their delivery channel, limited to
+     * the configured send rate of the channel, and retried with exponential
+     * backoff when the delivery fails.
+     *
+     * @param batches the batches to deliver.
+     * @return a future completing with the final summary of each batch, in
+     *         the order of the given batches.
+     */
+    CompletableFuture<List<OutboundMessageResponseSummary>> sendBatchesAsync( List<OutboundMessageBatch> batches );
 }
@@ -136,6 +136,20 @@ public interface ProgramInstanceStore
      */
     List<ProgramInstance> getWithScheduledNotifications( ProgramNotificationTemplate template, Date notificationDate );
 
+    /**
+     * Get the next chunk of ProgramInstances which have notifications with the
+     * given ProgramNotificationTemplate scheduled on the given date, ordered
+     * by id.
+     *
+     * @param template the template.
+     * @param notificationDate the Date for which the notification is scheduled.
+     * @param afterId only ProgramInstances with a greater id are returned.
+     * @param limit the max number of ProgramInstances to return.
+     * @return a list of ProgramInstance.
+     */
+    List<ProgramInstance> getWithScheduledNotifications( ProgramNotificationTemplate template,
+        Date notificationDate, long afterId, int limit );
+
     /**
      * Return all program instance by type.
      * <p>
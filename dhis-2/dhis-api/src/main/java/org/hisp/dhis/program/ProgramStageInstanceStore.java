@@ -129,6 +129,20 @@ public interface ProgramStageInstanceStore
     List<ProgramStageInstance> getWithScheduledNotifications( ProgramNotificationTemplate template,
         Date notificationDate );
 
+    /**
+     * Get the next chunk of ProgramStageInstances which have notifications with the
+     * given ProgramNotificationTemplate scheduled on the given date, ordered
+     * by id.
+     *
+     * @param template the template.
+     * @param notificationDate the Date for which the notification is scheduled.
+     * @param afterId only ProgramStageInstances with a greater id are returned.
+     * @param limit the max number of ProgramStageInstances to return.
+     * @return a list of ProgramStageInstance.
+     */
+    List<ProgramStageInstance> getWithScheduledNotifications( ProgramNotificationTemplate template,
+        Date notificationDate, long afterId, int limit );
+
     /**
      * Set lastSynchronized timestamp to provided timestamp for provided PSIs
      *
@@ -76,8 +76,26 @@ public interface ProgramMessageService
      */
     BatchResponseStatus sendMessages( List<ProgramMessage> programMessages );
 
+    /**
+     * Saves the messages with status {@link ProgramMessageStatus#OUTBOUND} and
+     * queues them for delivery once the current transaction commits. The
+     * status of the messages is updated to SENT or FAILED when the delivery
+     * completes.
+     *
+     * @param programMessages the ProgramMessage.
+     */
     void sendMessagesAsync( List<ProgramMessage> programMessages );
 
+    /**
+     * Queues again the messages which are still
+     * {@link ProgramMessageStatus#OUTBOUND} after the recovery delay, for
+     * instance because the server restarted before they were delivered.
+     * Messages are claimed so that a message is queued by one server only.
+     *
+     * @return the number of messages queued.
+     */
+    int resendOutboundMessages();
+
     // -------------------------------------------------------------------------
     // GET
     // -------------------------------------------------------------------------
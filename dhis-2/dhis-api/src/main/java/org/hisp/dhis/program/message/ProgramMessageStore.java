@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.program.message;
 
+import java.util.Date;
 import java.util.List;
 
 import org.hisp.dhis.common.IdentifiableObjectStore;
@@ -42,5 +43,18 @@ public interface ProgramMessageStore
 
     List<ProgramMessage> getAllOutboundMessages();
 
+    /**
+     * Claims program messages with status
+     * {@link ProgramMessageStatus#OUTBOUND} which were processed before the
+     * given date, by setting their processed date to now. Rows locked by a
+     * concurrent claim are skipped, so that a message is claimed by one server
+     * only.
+     *
+     * @param processedBefore the latest processed date of claimed messages.
+     * @param limit the max number of messages to claim.
+     * @return the claimed messages.
+     */
+    List<ProgramMessage> claimOutboundMessages( Date processedBefore, int limit );
+
     boolean exists( String uid );
 }
@@ -29,6 +29,7 @@ package org.hisp.dhis.scheduling;
 
 import java.util.Map;
 
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.scheduling.parameters.AnalyticsJobParameters;
 import org.hisp.dhis.scheduling.parameters.ContinuousAnalyticsJobParameters;
 import org.hisp.dhis.scheduling.parameters.DataSynchronizationJobParameters;
@@ -75,6 +76,7 @@ public enum JobType
     SMS_SEND( false, SchedulingType.CRON, SmsJobParameters.class, null ),
     SEND_SCHEDULED_MESSAGE( true ),
     PROGRAM_NOTIFICATIONS( true ),
+    RESEND_OUTBOUND_PROGRAM_MESSAGES( false ),
     VALIDATION_RESULTS_NOTIFICATION( false ),
     CREDENTIALS_EXPIRY_ALERT( false ),
     MONITORING( true, SchedulingType.CRON, MonitoringJobParameters.class, ImmutableMap.of(
@@ -173,4 +175,51 @@ public enum JobType
     {
         return relativeApiElements;
     }
+
+    /**
+     * @return the pool jobs of this type are executed on.
+     */
+    public TaskPool getTaskPool()
+    {
+        switch ( this )
+        {
+        case RESOURCE_TABLE:
+        case ANALYTICS_TABLE:
+        case CONTINUOUS_ANALYTICS_TABLE:
+        case MONITORING:
+        case PUSH_ANALYSIS:
+        case PREDICTOR:
+        case ANALYTICSTABLE_UPDATE:
+            return TaskPool.ANALYTICS;
+        case TRACKER_IMPORT_JOB:
+        case COMPLETE_DATA_SET_REGISTRATION_IMPORT:
+        case DATAVALUE_IMPORT_INTERNAL:
+        case METADATA_IMPORT:
+        case DATAVALUE_IMPORT:
+        case EVENT_IMPORT:
+        case ENROLLMENT_IMPORT:
+        case TEI_IMPORT:
+        case GML_IMPORT:
+            return TaskPool.IMPORT;
+        case SMS_SEND:
+        case SEND_SCHEDULED_MESSAGE:
+        case PROGRAM_NOTIFICATIONS:
+        case VALIDATION_RESULTS_NOTIFICATION:
+        case CREDENTIALS_EXPIRY_ALERT:
+        case DATA_SET_NOTIFICATION:
+        case TRACKER_IMPORT_NOTIFICATION_JOB:
+        case TRACKER_IMPORT_RULE_ENGINE_JOB:
+        case ACCOUNT_EXPIRY_ALERT:
+            return TaskPool.NOTIFICATION;
+        case DATA_STATISTICS:
+        case DATA_INTEGRITY:
+        case FILE_RESOURCE_CLEANUP:
+        case IMAGE_PROCESSING:
+        case REMOVE_USED_OR_EXPIRED_RESERVED_VALUES:
+        case DISABLE_INACTIVE_USERS:
+            return TaskPool.MAINTENANCE;
+        default:
+            return TaskPool.DEFAULT;
+        }
+    }
 }
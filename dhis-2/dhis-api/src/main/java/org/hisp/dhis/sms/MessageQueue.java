@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.sms;
 
+import java.util.List;
+
 import org.hisp.dhis.sms.incoming.IncomingSms;
 
 public interface MessageQueue
@@ -35,6 +37,20 @@ public interface MessageQueue
 
     IncomingSms get();
 
+    /**
+     * Returns, without removing them, up to the given number of messages from
+     * the head of the queue in the order they were received.
+     *
+     * @param max the maximum number of messages to return.
+     * @return a list of messages, empty if the queue is empty.
+     */
+    List<IncomingSms> get( int max );
+
+    /**
+     * @return the number of messages waiting in the queue.
+     */
+    int size();
+
     void remove( IncomingSms message );
 
     void initialize();
@@ -41,6 +41,13 @@ public interface IncomingSmsService
 
     void update( IncomingSms sms );
 
+    /**
+     * Updates the given messages in a single transaction.
+     *
+     * @param messages the messages to update.
+     */
+    void updateAll( List<IncomingSms> messages );
+
     IncomingSms get( long id );
 
     IncomingSms get( String uid );
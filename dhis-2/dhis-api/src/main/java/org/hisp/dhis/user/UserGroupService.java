@@ -29,6 +29,7 @@ package org.hisp.dhis.user;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface UserGroupService
 {
@@ -85,4 +86,14 @@ public interface UserGroupService
      * UserGroup does not exist
      */
     String getDisplayName( String uid );
+
+    /**
+     * Get the display names of the given user groups. Cached names are looked
+     * up in bulk and all names not cached are loaded with a single query.
+     *
+     * @param uids the user group uids
+     * @return a map of user group uid to display name, uids of user groups
+     *         which do not exist are not contained
+     */
+    Map<String, String> getDisplayNames( Collection<String> uids );
 }
@@ -30,6 +30,7 @@ package org.hisp.dhis.user;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -490,4 +491,14 @@ public interface UserService
      * User doesn't exist
      */
     String getDisplayName( String userUid );
+
+    /**
+     * Get the display names of the given users. Cached names are looked up in
+     * bulk and all names not cached are loaded with a single query.
+     *
+     * @param userUids the user uids
+     * @return a map of user uid to display name, uids of users which do not
+     *         exist are not contained
+     */
+    Map<String, String> getDisplayNames( Collection<String> userUids );
 }
@@ -27,8 +27,10 @@
  */
 package org.hisp.dhis.user;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.annotation.Nullable;
@@ -135,4 +137,14 @@ public interface UserStore
     Set<String> findNotifiableUsersWithLastLoginBetween( Date from, Date to );
 
     String getDisplayName( String userUid );
+
+    /**
+     * Get the display names of the users with the given uids in a single
+     * query.
+     *
+     * @param userUids the user uids
+     * @return a map of user uid to display name, uids of users which do not
+     *         exist are not contained
+     */
+    Map<String, String> getDisplayNames( Collection<String> userUids );
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.visualization;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.user.User;
+
+/**
+ * Cache of encoded chart and map images. Images are keyed on the rendered
+ * object and its last update, the rendering parameters, the user and its data
+ * access profile and the last analytics table update, so that identical
+ * renders between two analytics table updates are served without querying
+ * analytics again.
+ */
+public interface RenderedImageCache
+{
+    /**
+     * Renders an encoded image.
+     */
+    @FunctionalInterface
+    interface ImageRenderer
+    {
+        byte[] render()
+            throws IOException;
+    }
+
+    /**
+     * Returns the cached image for the given object and rendering parameters,
+     * or renders and caches the image if not present. Images are rendered
+     * directly when the cache is disabled.
+     *
+     * @param object the rendered visualization, event chart or map.
+     * @param parameters the rendering parameters, such as size, date and
+     *        organisation unit, null values allowed.
+     * @param user the user the image is rendered for, can be null.
+     * @param renderer the renderer of the encoded image. A null image is
+     *        returned as is and not cached.
+     * @return the encoded image, or null.
+     * @throws IOException if rendering the image failed.
+     */
+    byte[] getImage( IdentifiableObject object, List<Object> parameters, User user, ImageRenderer renderer )
+        throws IOException;
+}
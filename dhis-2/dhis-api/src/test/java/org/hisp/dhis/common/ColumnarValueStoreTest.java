@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class ColumnarValueStoreTest
+{
+    @Test
+    public void testPutAndGet()
+    {
+        ColumnarValueStore<String> store = new ColumnarValueStore<>();
+
+        store.put( 1L, 10L, "aocA", "itemA", 1.0 );
+        store.put( 1L, 10L, "aocB", "itemA", 2.0 );
+        store.put( 2L, 10L, "aocA", "itemA", "text" );
+        store.put( 2L, 11L, null, "itemB", true );
+
+        assertEquals( 4, store.size() );
+        assertEquals( 1.0, store.get( 1L, 10L, "aocA", "itemA" ) );
+        assertEquals( 2.0, store.get( 1L, 10L, "aocB", "itemA" ) );
+        assertEquals( "text", store.get( 2L, 10L, "aocA", "itemA" ) );
+        assertEquals( true, store.get( 2L, 11L, null, "itemB" ) );
+        assertNull( store.get( 1L, 11L, "aocA", "itemA" ) );
+        assertNull( store.get( 1L, 10L, "aocC", "itemA" ) );
+        assertNull( store.get( 1L, 10L, "aocA", "itemC" ) );
+        assertEquals( -1, store.indexOf( 3L, 10L, "aocA", "itemA" ) );
+    }
+
+    @Test
+    public void testPutReplacesValue()
+    {
+        ColumnarValueStore<String> store = new ColumnarValueStore<>();
+
+        int row = store.put( 1L, 10L, "aocA", "itemA", 1.0 );
+
+        assertEquals( row, store.put( 1L, 10L, "aocA", "itemA", "text" ) );
+        assertEquals( "text", store.getValue( row ) );
+        assertEquals( Double.NaN, store.getDouble( row ), 0.0 );
+
+        store.put( 1L, 10L, "aocA", "itemA", 3.0 );
+
+        assertEquals( 1, store.size() );
+        assertEquals( 3.0, store.getValue( row ) );
+        assertEquals( 3.0, store.getDouble( row ), 0.0 );
+
+        store.put( 1L, 10L, "aocA", "itemA", null );
+
+        assertNull( store.getValue( row ) );
+        assertEquals( row, store.indexOf( 1L, 10L, "aocA", "itemA" ) );
+    }
+
+    @Test
+    public void testGrowth()
+    {
+        ColumnarValueStore<Integer> store = new ColumnarValueStore<>();
+
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            store.put( i % 97, i % 3, "aoc" + (i % 5), i, (double) i );
+        }
+
+        assertEquals( 10_000, store.size() );
+
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            assertEquals( (double) i, store.get( i % 97, i % 3, "aoc" + (i % 5), i ) );
+        }
+    }
+
+    @Test
+    public void testForEachByOrgUnit()
+    {
+        ColumnarValueStore<String> store = new ColumnarValueStore<>();
+
+        store.put( 1L, 10L, "aocA", "itemA", 1.0 );
+        store.put( 2L, 10L, "aocA", "itemA", 2.0 );
+        store.put( 1L, 11L, "aocB", "itemB", 3.0 );
+
+        List<Object> values = new ArrayList<>();
+
+        store.forEach( 1L, ( periodKey, aoc, item, value ) -> values.add( value ) );
+
+        assertEquals( ImmutableList.of( 1.0, 3.0 ), values );
+        assertTrue( store.containsOrgUnit( 2L ) );
+        assertFalse( store.containsOrgUnit( 3L ) );
+    }
+
+    @Test
+    public void testGetValueMap()
+    {
+        ColumnarValueStore<String> store = new ColumnarValueStore<>();
+
+        store.put( 1L, 10L, "aocA", "itemA", 1.0 );
+        store.put( 1L, 10L, "aocB", "itemB", 2.0 );
+        store.put( 1L, 11L, "aocA", "itemA", 3.0 );
+
+        MapMap<String, String, Object> expected = new MapMap<>();
+        expected.putEntry( "aocA", "itemA", 1.0 );
+        expected.putEntry( "aocB", "itemB", 2.0 );
+
+        assertEquals( expected, store.getValueMap( 1L, 10L ) );
+        assertNull( store.getValueMap( 2L, 10L ) );
+    }
+
+    @Test
+    public void testCopy()
+    {
+        ColumnarValueStore<String> store = new ColumnarValueStore<>();
+
+        store.put( 1L, 10L, "aocA", "itemA", 1.0 );
+
+        ColumnarValueStore<String> copy = store.copy();
+        copy.put( 1L, 10L, "aocA", "itemA", 2.0 );
+        copy.put( 2L, 10L, "aocA", "itemA", 3.0 );
+
+        assertEquals( 1, store.size() );
+        assertEquals( 1.0, store.get( 1L, 10L, "aocA", "itemA" ) );
+        assertEquals( 2, copy.size() );
+        assertEquals( 2.0, copy.get( 1L, 10L, "aocA", "itemA" ) );
+    }
+}
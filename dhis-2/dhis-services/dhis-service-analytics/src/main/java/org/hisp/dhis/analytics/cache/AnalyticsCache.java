@@ -33,6 +33,7 @@ import static org.apache.commons.logging.LogFactory.getLog;
 import java.time.Duration;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 import org.apache.commons.logging.Log;
 import org.hisp.dhis.analytics.DataQueryParams;
@@ -52,6 +53,8 @@ public class AnalyticsCache
 
     private final Cache<Grid> queryCache;
 
+    private final Cache<Long> countCache;
+
     private final AnalyticsCacheSettings analyticsCacheSettings;
 
     /**
@@ -68,6 +71,8 @@ public class AnalyticsCache
         long initialExpirationTime = analyticsCacheSettings.fixedExpirationTimeOrDefault();
         this.queryCache = cacheProvider.createAnalyticsResponseCache(
             Duration.ofSeconds( initialExpirationTime ) );
+        this.countCache = cacheProvider.createAnalyticsCountCache(
+            Duration.ofSeconds( initialExpirationTime ) );
 
         log.info( String.format( "Analytics server-side cache is enabled with expiration time: %d s",
             initialExpirationTime ) );
@@ -122,17 +127,7 @@ public class AnalyticsCache
      */
     public void put( final DataQueryParams params, final Grid grid )
     {
-        if ( analyticsCacheSettings.isProgressiveCachingEnabled() )
-        {
-            // Uses the progressive TTL
-            put( params.getKey(), grid,
-                analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() ) );
-        }
-        else
-        {
-            // Respects the fixed (predefined) caching TTL
-            put( params.getKey(), grid, analyticsCacheSettings.fixedExpirationTimeOrDefault() );
-        }
+        put( params.getKey(), grid, getExpirationTime( params ) );
     }
 
     /**
@@ -148,12 +143,44 @@ public class AnalyticsCache
         queryCache.put( key, grid, ttlInSeconds );
     }
 
+    /**
+     * This method tries to retrieve, from the cache, the count of records
+     * related to the given DataQueryParams. If the count is not found in the
+     * cache, it will be fetched by the function provided and cached with the
+     * same TTL rules as Grids.
+     *
+     * Note that the key of the given DataQueryParams should not contain paging
+     * properties, so the count can be shared between pages.
+     *
+     * @param params the current DataQueryParams.
+     * @param function that counts records based on the given DataQueryParams.
+     * @return the cached or fetched count.
+     */
+    public long getOrFetchCount( final DataQueryParams params, final ToLongFunction<DataQueryParams> function )
+    {
+        final Optional<Long> cachedCount = countCache.get( params.getKey() );
+
+        if ( cachedCount.isPresent() )
+        {
+            return cachedCount.get();
+        }
+        else
+        {
+            final long count = function.applyAsLong( params );
+
+            countCache.put( params.getKey(), count, getExpirationTime( params ) );
+
+            return count;
+        }
+    }
+
     /**
      * Clears the current cache by removing all existing entries.
      */
     public void invalidateAll()
     {
         queryCache.invalidateAll();
+        countCache.invalidateAll();
 
         log.info( "Analytics cache cleared" );
     }
@@ -162,4 +189,26 @@ public class AnalyticsCache
     {
         return analyticsCacheSettings.isCachingEnabled();
     }
+
+    /**
+     * Returns the TTL in seconds for cached objects related to the given
+     * DataQueryParams, accordingly to the settings available at
+     * {@link AnalyticsCacheSettings}.
+     *
+     * @param params the DataQueryParams.
+     * @return the expiration time in seconds.
+     */
+    private long getExpirationTime( final DataQueryParams params )
+    {
+        if ( analyticsCacheSettings.isProgressiveCachingEnabled() )
+        {
+            // Uses the progressive TTL
+            return analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() );
+        }
+        else
+        {
+            // Respects the fixed (predefined) caching TTL
+            return analyticsCacheSettings.fixedExpirationTimeOrDefault();
+        }
+    }
 }
@@ -43,5 +43,15 @@ public interface EventAnalyticsManager
 
     long getEventCount( EventQueryParams params );
 
+    /**
+     * Returns the number of events matching the given query as estimated by the
+     * database query planner. This is considerably cheaper than an exact count
+     * for large analytics tables, but may deviate from the actual count.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @return the estimated count of events.
+     */
+    long getEstimatedEventCount( EventQueryParams params );
+
     Rectangle getRectangle( EventQueryParams params );
 }
@@ -45,6 +45,7 @@ import java.util.stream.Collectors;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.QueryKey;
@@ -153,6 +154,16 @@ public class EventQueryParams
      */
     private boolean paging;
 
+    /**
+     * The mode for resolving the total number of events for paged queries.
+     */
+    private EventCountMode countMode;
+
+    /**
+     * The event identifier to page after when using keyset paging.
+     */
+    private String after;
+
     /**
      * The value sort order.
      */
@@ -295,6 +306,8 @@ public class EventQueryParams
         params.page = this.page;
         params.pageSize = this.pageSize;
         params.paging = this.paging;
+        params.countMode = this.countMode;
+        params.after = this.after;
         params.sortOrder = this.sortOrder;
         params.limit = this.limit;
         params.outputType = this.outputType;
@@ -404,6 +417,8 @@ public class EventQueryParams
             .addIgnoreNull( "page", page )
             .addIgnoreNull( "pageSize", pageSize )
             .addIgnoreNull( "paging", paging )
+            .addIgnoreNull( "countMode", countMode )
+            .addIgnoreNull( "after", after )
             .addIgnoreNull( "sortOrder", sortOrder )
             .addIgnoreNull( "limit", limit )
             .addIgnoreNull( "outputType", outputType )
@@ -759,6 +774,23 @@ public class EventQueryParams
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
     }
 
+    /**
+     * Returns the event count mode, defaults to {@link EventCountMode#EXACT}.
+     */
+    public EventCountMode getCountModeWithDefault()
+    {
+        return countMode != null ? countMode : EventCountMode.EXACT;
+    }
+
+    /**
+     * Indicates whether keyset paging on the event identifier should be used,
+     * i.e. whether an event identifier to page after is specified.
+     */
+    public boolean isKeysetPaging()
+    {
+        return isPaging() && after != null;
+    }
+
     public boolean hasSortOrder()
     {
         return sortOrder != null;
@@ -939,6 +971,16 @@ public class EventQueryParams
         return paging;
     }
 
+    public EventCountMode getCountMode()
+    {
+        return countMode;
+    }
+
+    public String getAfter()
+    {
+        return after;
+    }
+
     public SortOrder getSortOrder()
     {
         return sortOrder;
@@ -1232,6 +1274,18 @@ public class EventQueryParams
             return this;
         }
 
+        public Builder withCountMode( EventCountMode countMode )
+        {
+            this.params.countMode = countMode;
+            return this;
+        }
+
+        public Builder withAfter( String after )
+        {
+            this.params.after = after;
+            return this;
+        }
+
         public Builder withPartitions( Partitions partitions )
         {
             this.params.partitions = partitions;
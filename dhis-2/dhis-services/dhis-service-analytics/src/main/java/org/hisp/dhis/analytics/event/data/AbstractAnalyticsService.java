@@ -45,6 +45,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -130,6 +131,15 @@ public abstract class AbstractAnalyticsService
 
         long count = addEventData( grid, params );
 
+        boolean lastPage = true;
+
+        if ( isCountSkipped( params ) && grid.getHeight() > params.getPageSizeWithDefault() )
+        {
+            grid.limitGrid( params.getPageSizeWithDefault() );
+
+            lastPage = false;
+        }
+
         // ---------------------------------------------------------------------
         // Meta-data
         // ---------------------------------------------------------------------
@@ -149,7 +159,13 @@ public abstract class AbstractAnalyticsService
         // Paging
         // ---------------------------------------------------------------------
 
-        if ( params.isPaging() )
+        if ( isCountSkipped( params ) )
+        {
+            Pager pager = new SlimPager( params.getPageWithDefault(), params.getPageSizeWithDefault(), lastPage );
+
+            grid.getMetaData().put( PAGER.getKey(), pager );
+        }
+        else if ( params.isPaging() )
         {
             Pager pager = new Pager( params.getPageWithDefault(), count, params.getPageSizeWithDefault() );
 
@@ -159,6 +175,19 @@ public abstract class AbstractAnalyticsService
         return grid;
     }
 
+    /**
+     * Indicates whether the total count is skipped for the given paged query,
+     * in which case one row more than the page size is fetched to determine
+     * whether the page is the last page.
+     *
+     * @param params the {@link EventQueryParams}.
+     */
+    protected boolean isCountSkipped( EventQueryParams params )
+    {
+        return params.isPaging() && params.getPageSizeWithDefault() > 0
+            && EventCountMode.NONE == params.getCountModeWithDefault();
+    }
+
     protected abstract Grid createGridWithHeaders( EventQueryParams params );
 
     protected abstract long addEventData( Grid grid, EventQueryParams params );
@@ -46,6 +46,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.SortOrder;
 import org.hisp.dhis.analytics.event.EventQueryParams;
@@ -125,7 +126,16 @@ public abstract class AbstractJdbcEventAnalyticsManager
 
         if ( params.isPaging() )
         {
-            sql += "limit " + params.getPageSizeWithDefault() + " offset " + params.getOffset();
+            int limit = EventCountMode.NONE == params.getCountModeWithDefault()
+                ? params.getPageSizeWithDefault() + 1
+                : params.getPageSizeWithDefault();
+
+            sql += "limit " + limit;
+
+            if ( !params.isKeysetPaging() )
+            {
+                sql += " offset " + params.getOffset();
+            }
         }
         else if ( maxLimit > 0 )
         {
@@ -150,6 +160,10 @@ public abstract class AbstractJdbcEventAnalyticsManager
 
             sql = TextUtils.removeLastComma( sql ) + " ";
         }
+        else if ( params.isKeysetPaging() )
+        {
+            sql += "order by " + quoteAlias( "psi" ) + " asc ";
+        }
 
         return sql;
     }
@@ -61,6 +61,7 @@ import java.util.Map;
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.EventAnalyticsDimensionalItem;
 import org.hisp.dhis.analytics.Rectangle;
 import org.hisp.dhis.analytics.cache.AnalyticsCache;
@@ -767,7 +768,7 @@ public class DefaultEventAnalyticsService
         {
             if ( params.isPaging() )
             {
-                count += eventAnalyticsManager.getEventCount( params );
+                count += getEventCount( params );
             }
 
             eventAnalyticsManager.getEvents( params, grid, queryValidator.getMaxLimit() );
@@ -777,4 +778,40 @@ public class DefaultEventAnalyticsService
 
         return count;
     }
+
+    /**
+     * Returns the total number of events matching the given paged event query,
+     * resolved according to the {@link EventCountMode} of the query.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @return the count of events.
+     */
+    private long getEventCount( EventQueryParams params )
+    {
+        EventQueryParams countParams = new EventQueryParams.Builder( params )
+            .withPage( null )
+            .withPageSize( null )
+            .withAfter( null )
+            .build();
+
+        EventCountMode countMode = params.getCountModeWithDefault();
+
+        if ( EventCountMode.NONE == countMode )
+        {
+            return 0;
+        }
+        else if ( EventCountMode.ESTIMATED == countMode )
+        {
+            return eventAnalyticsManager.getEstimatedEventCount( countParams );
+        }
+        else if ( EventCountMode.CACHED == countMode && analyticsCache.isEnabled() )
+        {
+            return analyticsCache.getOrFetchCount( countParams,
+                p -> eventAnalyticsManager.getEventCount( countParams ) );
+        }
+        else
+        {
+            return eventAnalyticsManager.getEventCount( countParams );
+        }
+    }
 }
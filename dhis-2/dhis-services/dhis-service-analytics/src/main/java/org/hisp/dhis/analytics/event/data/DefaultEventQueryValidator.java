@@ -38,6 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
+import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.common.MaintenanceModeException;
 import org.hisp.dhis.common.QueryFilter;
@@ -137,6 +138,14 @@ public class DefaultEventQueryValidator
         {
             error = new ErrorMessage( ErrorCode.E7208, params.getPageSize() );
         }
+        else if ( params.getAfter() != null && !CodeGenerator.isValidUid( params.getAfter() ) )
+        {
+            error = new ErrorMessage( ErrorCode.E7230, params.getAfter() );
+        }
+        else if ( params.isKeysetPaging() && params.isSorting() )
+        {
+            error = new ErrorMessage( ErrorCode.E7231 );
+        }
         else if ( params.hasLimit() && getMaxLimit() > 0 && params.getLimit() > getMaxLimit() )
         {
             error = new ErrorMessage( ErrorCode.E7209, params.getLimit(), getMaxLimit() );
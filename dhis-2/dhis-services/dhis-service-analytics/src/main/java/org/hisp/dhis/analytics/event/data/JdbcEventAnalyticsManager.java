@@ -49,6 +49,8 @@ import static org.postgresql.util.PSQLState.DIVISION_BY_ZERO;
 
 import java.util.Date;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -109,6 +111,8 @@ public class JdbcEventAnalyticsManager
 {
     protected static final String OPEN_IN = " in (";
 
+    private static final Pattern PLAN_ROWS_PATTERN = Pattern.compile( "rows=(\\d+)" );
+
     private final EventTimeFieldSqlRenderer timeFieldSqlRenderer;
 
     public JdbcEventAnalyticsManager( JdbcTemplate jdbcTemplate, StatementBuilder statementBuilder,
@@ -247,6 +251,52 @@ public class JdbcEventAnalyticsManager
         return count;
     }
 
+    @Override
+    public long getEstimatedEventCount( EventQueryParams params )
+    {
+        String sql = "explain select psi ";
+
+        sql += getFromClause( params );
+
+        sql += getWhereClause( params );
+
+        long count = 0;
+
+        try
+        {
+            log.debug( "Analytics event count estimate SQL: " + sql );
+
+            List<String> plan = jdbcTemplate.queryForList( sql, String.class );
+
+            count = plan.isEmpty() ? 0 : getPlanRows( plan.get( 0 ) );
+        }
+        catch ( BadSqlGrammarException ex )
+        {
+            log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
+        }
+        catch ( DataAccessResourceFailureException ex )
+        {
+            log.warn( E7131.getMessage(), ex );
+            throw new QueryRuntimeException( E7131, ex );
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the number of rows estimated for the top node of a query plan,
+     * or 0 if the plan node does not contain a row estimate.
+     *
+     * @param planNode the top node of a query plan in text format.
+     * @return the estimated number of rows.
+     */
+    static long getPlanRows( String planNode )
+    {
+        Matcher matcher = PLAN_ROWS_PATTERN.matcher( planNode );
+
+        return matcher.find() ? Long.parseLong( matcher.group( 1 ) ) : 0;
+    }
+
     @Override
     public Rectangle getRectangle( EventQueryParams params )
     {
@@ -566,6 +616,12 @@ public class JdbcEventAnalyticsManager
                 " && ST_MakeEnvelope(" + params.getBbox() + ",4326) ";
         }
 
+        if ( params.isKeysetPaging() )
+        {
+            sql += hlp.whereAnd() + " " + quoteAlias( "psi" ) + " > " +
+                statementBuilder.encode( params.getAfter() ) + " ";
+        }
+
         // ---------------------------------------------------------------------
         // Partitions restriction to allow constraint exclusion
         // ---------------------------------------------------------------------
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +48,8 @@ import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.table.queue.AnalyticsTableTask;
+import org.hisp.dhis.analytics.table.queue.AnalyticsTableTaskQueue;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -80,9 +83,12 @@ public class DefaultAnalyticsTableService
 
     private SystemSettingManager systemSettingManager;
 
+    private AnalyticsTableTaskQueue taskQueue;
+
     public DefaultAnalyticsTableService( AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsTableTaskQueue taskQueue )
     {
         checkNotNull( tableManager );
         checkNotNull( organisationUnitService );
@@ -90,6 +96,7 @@ public class DefaultAnalyticsTableService
         checkNotNull( resourceTableService );
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
+        checkNotNull( taskQueue );
 
         this.tableManager = tableManager;
         this.organisationUnitService = organisationUnitService;
@@ -97,6 +104,7 @@ public class DefaultAnalyticsTableService
         this.resourceTableService = resourceTableService;
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
+        this.taskQueue = taskQueue;
     }
 
     // -------------------------------------------------------------------------
@@ -187,7 +195,7 @@ public class DefaultAnalyticsTableService
 
         notifier.notify( jobId, "Creating indexes" );
 
-        createIndexes( tables );
+        createIndexes( params, tables );
 
         clock.logTime( "Created indexes" );
         notifier.notify( jobId, "Analyzing analytics tables" );
@@ -253,7 +261,8 @@ public class DefaultAnalyticsTableService
     }
 
     /**
-     * Populates the given analytics tables.
+     * Populates the given analytics tables. Partitions are distributed across
+     * the cluster if distributed analytics table updates are enabled.
      *
      * @param tables the list of {@link AnalyticsTable}.
      */
@@ -261,6 +270,14 @@ public class DefaultAnalyticsTableService
     {
         List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
 
+        if ( taskQueue.isEnabled() )
+        {
+            taskQueue.execute( getAnalyticsTableType(), params, tables,
+                partitions.stream().map( AnalyticsTableTask::populate ).collect( Collectors.toList() ),
+                getProcessNo() );
+            return;
+        }
+
         int taskNo = Math.min( getProcessNo(), partitions.size() );
 
         log.info( "Populate table task number: " + taskNo );
@@ -342,16 +359,25 @@ public class DefaultAnalyticsTableService
     }
 
     /**
-     * Creates indexes on the given analytics tables.
+     * Creates indexes on the given analytics tables. Indexes are distributed
+     * across the cluster if distributed analytics table updates are enabled.
      *
+     * @param params the {@link AnalyticsTableUpdateParams}.
      * @param tables the list of {@link AnalyticsTable}.
      */
-    private void createIndexes( List<AnalyticsTable> tables )
+    private void createIndexes( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
     {
         ConcurrentLinkedQueue<AnalyticsIndex> indexes = getIndexes( tables );
 
         log.info( "No of analytics table indexes: " + indexes.size() );
 
+        if ( taskQueue.isEnabled() )
+        {
+            taskQueue.execute( getAnalyticsTableType(), params, tables,
+                indexes.stream().map( AnalyticsTableTask::index ).collect( Collectors.toList() ), getProcessNo() );
+            return;
+        }
+
         List<Future<?>> futures = new ArrayList<>();
 
         for ( int i = 0; i < getProcessNo(); i++ )
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.common.CodeGenerator;
+
+/**
+ * A distributed update of one analytics table type. Holds the parts of the
+ * {@link AnalyticsTableUpdateParams} which determine the analytics tables and
+ * partitions, so that every node resolves the same partitions as the node
+ * which published the run.
+ */
+@Getter
+@AllArgsConstructor
+public class AnalyticsTableRun
+{
+    private final String runId;
+
+    private final AnalyticsTableType tableType;
+
+    private final Integer lastYears;
+
+    private final Set<String> skipPrograms;
+
+    private final Date startTime;
+
+    private final Date lastSuccessfulUpdate;
+
+    /**
+     * Maximum number of tasks of this run which may be running at the same
+     * time across the cluster.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Creates a new run with a generated identifier.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param maxConcurrency the maximum number of concurrent tasks.
+     * @return a new run.
+     */
+    public static AnalyticsTableRun of( AnalyticsTableType tableType, AnalyticsTableUpdateParams params,
+        int maxConcurrency )
+    {
+        return new AnalyticsTableRun( CodeGenerator.generateUid(), tableType, params.getLastYears(),
+            new HashSet<>( params.getSkipPrograms() ), params.getStartTime(), params.getLastSuccessfulUpdate(),
+            maxConcurrency );
+    }
+
+    /**
+     * Returns the update parameters of this run.
+     *
+     * @return an {@link AnalyticsTableUpdateParams}.
+     */
+    public AnalyticsTableUpdateParams toParams()
+    {
+        return AnalyticsTableUpdateParams.newBuilder()
+            .withLastYears( lastYears )
+            .withSkipPrograms( new HashSet<>( skipPrograms ) )
+            .withStartTime( startTime )
+            .withLastSuccessfulUpdate( lastSuccessfulUpdate )
+            .build();
+    }
+}
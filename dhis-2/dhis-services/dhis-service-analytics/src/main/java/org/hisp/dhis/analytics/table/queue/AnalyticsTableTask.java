@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import org.hisp.dhis.analytics.AnalyticsIndex;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.IndexType;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Unit of work of a distributed analytics table update, either the population
+ * of a table partition or the creation of an index. A task refers to tables
+ * by name only so that it can be executed by any node of the cluster.
+ */
+@Getter
+@AllArgsConstructor
+public class AnalyticsTableTask
+{
+    /**
+     * Identifier of the task, assigned by the store.
+     */
+    private final long id;
+
+    /**
+     * Identifier of the {@link AnalyticsTableRun} the task belongs to.
+     */
+    private final String runId;
+
+    private final AnalyticsTableTaskType type;
+
+    /**
+     * Name of the temporary partition table to populate or index.
+     */
+    private final String tableName;
+
+    /**
+     * Columns to index, only for {@link AnalyticsTableTaskType#INDEX}.
+     */
+    private final List<String> indexColumns;
+
+    /**
+     * Index type, only for {@link AnalyticsTableTaskType#INDEX}.
+     */
+    private final IndexType indexType;
+
+    /**
+     * Number of times the task has been claimed, including the current claim.
+     */
+    private final int attempts;
+
+    /**
+     * Creates a task which populates the given partition.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return a new task.
+     */
+    public static AnalyticsTableTask populate( AnalyticsTablePartition partition )
+    {
+        return new AnalyticsTableTask( 0, null, AnalyticsTableTaskType.POPULATE, partition.getTempTableName(),
+            null, null, 0 );
+    }
+
+    /**
+     * Creates a task which creates the given index.
+     *
+     * @param index the {@link AnalyticsIndex}.
+     * @return a new task.
+     */
+    public static AnalyticsTableTask index( AnalyticsIndex index )
+    {
+        return new AnalyticsTableTask( 0, null, AnalyticsTableTaskType.INDEX, index.getTable(),
+            index.getColumns(), index.getType(), 0 );
+    }
+
+    /**
+     * Returns the index described by this task.
+     *
+     * @return an {@link AnalyticsIndex}.
+     */
+    public AnalyticsIndex toIndex()
+    {
+        return new AnalyticsIndex( tableName, indexColumns, indexType );
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper( this )
+            .add( "id", id )
+            .add( "run", runId )
+            .add( "type", type )
+            .add( "table", tableName )
+            .add( "columns", indexColumns )
+            .add( "attempts", attempts )
+            .toString();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+
+/**
+ * Distributes analytics table tasks across the nodes of the cluster. The node
+ * running the analytics table job publishes the tasks of a phase, takes part
+ * in processing them and waits for all of them to complete before continuing
+ * with the next phase, while every other node claims tasks as they appear.
+ */
+public interface AnalyticsTableTaskQueue
+{
+    /**
+     * Indicates whether distributed analytics table updates are enabled.
+     *
+     * @return true if enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Publishes the given tasks and blocks until all of them are completed.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the analytics tables being updated.
+     * @param tasks the list of {@link AnalyticsTableTask} to execute.
+     * @param maxConcurrency the maximum number of tasks running at the same
+     *        time across the cluster.
+     * @throws IllegalStateException if a task failed on all attempts.
+     */
+    void execute( AnalyticsTableType tableType, AnalyticsTableUpdateParams params, List<AnalyticsTable> tables,
+        List<AnalyticsTableTask> tasks, int maxConcurrency );
+}
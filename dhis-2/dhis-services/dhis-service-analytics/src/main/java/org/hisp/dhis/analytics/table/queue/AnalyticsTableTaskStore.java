@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Database-backed work queue of {@link AnalyticsTableTask}, shared by all
+ * nodes of the cluster. Tasks are claimed under a lease which the claiming
+ * node renews while executing the task. A task whose lease has expired, for
+ * instance because the node went down, can be claimed again by any node.
+ */
+public interface AnalyticsTableTaskStore
+{
+    /**
+     * Saves the given run together with its tasks as pending.
+     *
+     * @param run the {@link AnalyticsTableRun}.
+     * @param tasks the list of {@link AnalyticsTableTask}.
+     */
+    void saveRun( AnalyticsTableRun run, List<AnalyticsTableTask> tasks );
+
+    /**
+     * Returns the run with the given identifier.
+     *
+     * @param runId the run identifier.
+     * @return the {@link AnalyticsTableRun}, or null if it does not exist.
+     */
+    AnalyticsTableRun getRun( String runId );
+
+    /**
+     * Returns the identifiers of runs which have tasks which can be claimed.
+     *
+     * @param maxAttempts the maximum number of attempts per task.
+     * @return a list of run identifiers.
+     */
+    List<String> getClaimableRuns( int maxAttempts );
+
+    /**
+     * Claims the next pending task of the given run, or a running task whose
+     * lease has expired. Tasks locked by other nodes are skipped. No task is
+     * claimed if the number of running tasks has reached the maximum
+     * concurrency of the run.
+     *
+     * @param runId the run identifier.
+     * @param owner the identifier of the claiming node.
+     * @param leaseSeconds the lease duration in seconds.
+     * @param maxAttempts the maximum number of attempts per task.
+     * @return the claimed {@link AnalyticsTableTask}, or null if none.
+     */
+    AnalyticsTableTask claimTask( String runId, String owner, int leaseSeconds, int maxAttempts );
+
+    /**
+     * Extends the lease of the given task.
+     *
+     * @param taskId the task identifier.
+     * @param owner the identifier of the node holding the lease.
+     * @param leaseSeconds the lease duration in seconds.
+     * @return true if the lease was extended, false if the lease was lost.
+     */
+    boolean renewLease( long taskId, String owner, int leaseSeconds );
+
+    /**
+     * Marks the given task as done.
+     *
+     * @param taskId the task identifier.
+     * @param owner the identifier of the node holding the lease.
+     * @return true if the task was completed, false if the lease was lost.
+     */
+    boolean completeTask( long taskId, String owner );
+
+    /**
+     * Releases the given task after a failure. The task becomes pending again
+     * if it has attempts left, and failed otherwise.
+     *
+     * @param taskId the task identifier.
+     * @param owner the identifier of the node holding the lease.
+     * @param error the error message.
+     * @param maxAttempts the maximum number of attempts per task.
+     */
+    void failTask( long taskId, String owner, String error, int maxAttempts );
+
+    /**
+     * Returns the number of tasks by status for the given run.
+     *
+     * @param runId the run identifier.
+     * @return a mapping of status to number of tasks.
+     */
+    Map<AnalyticsTableTaskStatus, Integer> getTaskCounts( String runId );
+
+    /**
+     * Returns the error of a failed task of the given run.
+     *
+     * @param runId the run identifier.
+     * @return the error message, or null if no task failed.
+     */
+    String getFailure( String runId );
+
+    /**
+     * Deletes the given run and its tasks.
+     *
+     * @param runId the run identifier.
+     */
+    void deleteRun( String runId );
+}
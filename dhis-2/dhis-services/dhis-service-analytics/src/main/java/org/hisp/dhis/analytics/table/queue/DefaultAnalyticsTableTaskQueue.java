@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.leader.election.LeaderManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Default implementation of {@link AnalyticsTableTaskQueue} backed by the
+ * {@link AnalyticsTableTaskStore}. When enabled, every node polls the store
+ * for runs with claimable tasks and processes them with a fixed number of
+ * worker threads. A heartbeat renews the lease of each task while it is
+ * executed, so that tasks of a node which goes down are claimed again by
+ * another node once their lease expires.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.analytics.table.queue.AnalyticsTableTaskQueue" )
+public class DefaultAnalyticsTableTaskQueue
+    implements AnalyticsTableTaskQueue
+{
+    private static final int LEASE_SECONDS = 120;
+
+    private static final int HEARTBEAT_SECONDS = 30;
+
+    private static final int POLL_SECONDS = 5;
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AnalyticsTableTaskStore taskStore;
+
+    private final Map<AnalyticsTableType, AnalyticsTableManager> tableManagers;
+
+    private final LeaderManager leaderManager;
+
+    private final DhisConfigurationProvider config;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Analytics tables resolved for a run, by run identifier.
+     */
+    private final Cache<String, List<AnalyticsTable>> runTables = CacheBuilder.newBuilder()
+        .expireAfterAccess( 1, TimeUnit.HOURS )
+        .build();
+
+    /**
+     * Runs currently processed by the worker threads of this node.
+     */
+    private final Set<String> activeRuns = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService workers;
+
+    public DefaultAnalyticsTableTaskQueue( AnalyticsTableTaskStore taskStore,
+        List<AnalyticsTableManager> tableManagers, LeaderManager leaderManager, DhisConfigurationProvider config,
+        JdbcTemplate jdbcTemplate )
+    {
+        checkNotNull( taskStore );
+        checkNotNull( tableManagers );
+        checkNotNull( leaderManager );
+        checkNotNull( config );
+        checkNotNull( jdbcTemplate );
+
+        this.taskStore = taskStore;
+        this.tableManagers = tableManagers.stream()
+            .collect( Collectors.toMap( AnalyticsTableManager::getAnalyticsTableType, Function.identity() ) );
+        this.leaderManager = leaderManager;
+        this.config = config;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        scheduler = Executors.newScheduledThreadPool( 2, threadFactory( "analytics-table-queue-%d" ) );
+
+        if ( isEnabled() )
+        {
+            int workerNo = getWorkerNo();
+
+            workers = Executors.newFixedThreadPool( workerNo, threadFactory( "analytics-table-worker-%d" ) );
+
+            scheduler.scheduleWithFixedDelay( this::pollRuns, POLL_SECONDS, POLL_SECONDS, TimeUnit.SECONDS );
+
+            log.info( "Distributed analytics table updates enabled with {} worker threads", workerNo );
+        }
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        scheduler.shutdownNow();
+
+        if ( workers != null )
+        {
+            workers.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // AnalyticsTableTaskQueue implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isEnabled()
+    {
+        return config.isEnabled( ConfigurationKey.ANALYTICS_TABLE_DISTRIBUTED );
+    }
+
+    @Override
+    public void execute( AnalyticsTableType tableType, AnalyticsTableUpdateParams params, List<AnalyticsTable> tables,
+        List<AnalyticsTableTask> tasks, int maxConcurrency )
+    {
+        if ( tasks.isEmpty() )
+        {
+            return;
+        }
+
+        AnalyticsTableRun run = AnalyticsTableRun.of( tableType, params, maxConcurrency );
+        String runId = run.getRunId();
+
+        runTables.put( runId, tables );
+        taskStore.saveRun( run, tasks );
+
+        log.info( "Published analytics table run: '{}' with {} tasks", runId, tasks.size() );
+
+        ExecutorService executor = Executors.newFixedThreadPool( maxConcurrency,
+            threadFactory( "analytics-table-run-%d" ) );
+
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+
+            for ( int i = 0; i < maxConcurrency; i++ )
+            {
+                futures.add( executor.submit( () -> processRun( runId, true ) ) );
+            }
+
+            ConcurrentUtils.waitForCompletion( futures );
+
+            String failure = taskStore.getFailure( runId );
+
+            if ( failure != null )
+            {
+                throw new IllegalStateException( "Analytics table task failed: " + failure );
+            }
+
+            log.info( "Completed analytics table run: '{}'", runId );
+        }
+        finally
+        {
+            executor.shutdownNow();
+            taskStore.deleteRun( runId );
+            runTables.invalidate( runId );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Starts worker threads for runs published by other nodes which have
+     * claimable tasks.
+     */
+    private void pollRuns()
+    {
+        try
+        {
+            for ( String runId : taskStore.getClaimableRuns( MAX_ATTEMPTS ) )
+            {
+                if ( activeRuns.add( runId ) )
+                {
+                    int workerNo = getWorkerNo();
+                    AtomicInteger remaining = new AtomicInteger( workerNo );
+
+                    for ( int i = 0; i < workerNo; i++ )
+                    {
+                        workers.submit( () -> {
+                            try
+                            {
+                                processRun( runId, false );
+                            }
+                            finally
+                            {
+                                if ( remaining.decrementAndGet() == 0 )
+                                {
+                                    activeRuns.remove( runId );
+                                }
+                            }
+                        } );
+                    }
+                }
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( "Polling for analytics table tasks failed", ex );
+        }
+    }
+
+    /**
+     * Claims and executes tasks of the given run until no task can be claimed.
+     *
+     * @param runId the run identifier.
+     * @param untilComplete whether to keep waiting while tasks are running on
+     *        other nodes, as their leases may expire.
+     */
+    private void processRun( String runId, boolean untilComplete )
+    {
+        while ( !Thread.currentThread().isInterrupted() )
+        {
+            AnalyticsTableTask task = taskStore.claimTask( runId, getNodeId(), LEASE_SECONDS, MAX_ATTEMPTS );
+
+            if ( task != null )
+            {
+                executeTask( task );
+            }
+            else if ( !untilComplete || isFinished( runId ) )
+            {
+                return;
+            }
+            else
+            {
+                try
+                {
+                    TimeUnit.SECONDS.sleep( POLL_SECONDS );
+                }
+                catch ( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private boolean isFinished( String runId )
+    {
+        Map<AnalyticsTableTaskStatus, Integer> counts = taskStore.getTaskCounts( runId );
+
+        return counts.containsKey( AnalyticsTableTaskStatus.FAILED ) ||
+            (!counts.containsKey( AnalyticsTableTaskStatus.PENDING ) &&
+                !counts.containsKey( AnalyticsTableTaskStatus.RUNNING ));
+    }
+
+    private void executeTask( AnalyticsTableTask task )
+    {
+        AnalyticsTableRun run = taskStore.getRun( task.getRunId() );
+
+        if ( run == null )
+        {
+            return;
+        }
+
+        AnalyticsTableManager tableManager = tableManagers.get( run.getTableType() );
+
+        ScheduledFuture<?> heartbeat = scheduler.scheduleAtFixedRate( () -> renewLease( task ),
+            HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS );
+
+        try
+        {
+            log.debug( "Executing analytics table task: {}", task );
+
+            if ( AnalyticsTableTaskType.POPULATE == task.getType() )
+            {
+                populateTable( run, tableManager, task );
+            }
+            else
+            {
+                createIndex( tableManager, task );
+            }
+
+            if ( !taskStore.completeTask( task.getId(), getNodeId() ) )
+            {
+                log.warn( "Lease lost before completion of analytics table task: {}", task );
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Analytics table task failed: " + task, ex );
+
+            taskStore.failTask( task.getId(), getNodeId(), ExceptionUtils.getRootCauseMessage( ex ), MAX_ATTEMPTS );
+        }
+        finally
+        {
+            heartbeat.cancel( false );
+        }
+    }
+
+    private void populateTable( AnalyticsTableRun run, AnalyticsTableManager tableManager, AnalyticsTableTask task )
+    {
+        AnalyticsTableUpdateParams params = run.toParams();
+
+        AnalyticsTablePartition partition = PartitionUtils.getTablePartitions( getTables( run, tableManager, params ) )
+            .stream()
+            .filter( p -> p.getTempTableName().equals( task.getTableName() ) )
+            .findFirst()
+            .orElseThrow( () -> new IllegalStateException( "Partition not found: " + task.getTableName() ) );
+
+        if ( task.getAttempts() > 1 )
+        {
+            // Remove rows written by an earlier, interrupted attempt
+
+            jdbcTemplate.execute( "truncate table " + partition.getTempTableName() );
+        }
+
+        ConcurrentUtils.waitForCompletion( Collections.<Future<?>> singletonList( tableManager
+            .populateTablesAsync( params, new ConcurrentLinkedQueue<>( Collections.singletonList( partition ) ) ) ) );
+    }
+
+    private void createIndex( AnalyticsTableManager tableManager, AnalyticsTableTask task )
+    {
+        ConcurrentUtils.waitForCompletion( Collections.<Future<?>> singletonList( tableManager
+            .createIndexesAsync( new ConcurrentLinkedQueue<>( Collections.singletonList( task.toIndex() ) ) ) ) );
+    }
+
+    /**
+     * Returns the analytics tables of the given run. Tables are resolved once
+     * per run and node, using the parameters of the run so that all nodes
+     * resolve the same partitions.
+     */
+    private List<AnalyticsTable> getTables( AnalyticsTableRun run, AnalyticsTableManager tableManager,
+        AnalyticsTableUpdateParams params )
+    {
+        try
+        {
+            return runTables.get( run.getRunId(), () -> tableManager.getAnalyticsTables( params ) );
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new IllegalStateException( "Failed to resolve analytics tables", ex.getCause() );
+        }
+    }
+
+    private void renewLease( AnalyticsTableTask task )
+    {
+        try
+        {
+            if ( !taskStore.renewLease( task.getId(), getNodeId(), LEASE_SECONDS ) )
+            {
+                log.warn( "Lease lost for analytics table task: {}", task );
+            }
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( "Failed to renew lease for analytics table task: " + task, ex );
+        }
+    }
+
+    private String getNodeId()
+    {
+        return leaderManager.getCurrentNodeUuid();
+    }
+
+    private int getWorkerNo()
+    {
+        return Math.max( 1, Integer.parseInt( config.getProperty( ConfigurationKey.ANALYTICS_TABLE_WORKERS ) ) );
+    }
+
+    private static ThreadFactory threadFactory( String nameFormat )
+    {
+        return new ThreadFactoryBuilder().setNameFormat( nameFormat ).setDaemon( true ).build();
+    }
+}
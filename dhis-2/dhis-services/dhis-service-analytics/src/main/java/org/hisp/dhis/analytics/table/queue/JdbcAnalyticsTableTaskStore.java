@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import lombok.RequiredArgsConstructor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.IndexType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * PostgreSQL implementation of {@link AnalyticsTableTaskStore}. Tasks are
+ * claimed with <code>for update skip locked</code> so that concurrent nodes
+ * never claim the same task.
+ */
+@Repository( "org.hisp.dhis.analytics.table.queue.AnalyticsTableTaskStore" )
+@RequiredArgsConstructor
+public class JdbcAnalyticsTableTaskStore
+    implements AnalyticsTableTaskStore
+{
+    private static final String SEPARATOR = ",";
+
+    private static final String CLAIMABLE = "(t.status = 'PENDING' " +
+        "or (t.status = 'RUNNING' and t.leaseexpiry < now())) and t.attempts < ? ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public void saveRun( AnalyticsTableRun run, List<AnalyticsTableTask> tasks )
+    {
+        jdbcTemplate.update(
+            "insert into analyticstablerun " +
+                "(runid, tabletype, lastyears, skipprograms, starttime, lastsuccessfulupdate, maxconcurrency) " +
+                "values (?, ?, ?, ?, ?, ?, ?)",
+            run.getRunId(), run.getTableType().name(), run.getLastYears(),
+            StringUtils.join( run.getSkipPrograms(), SEPARATOR ), toTimestamp( run.getStartTime() ),
+            toTimestamp( run.getLastSuccessfulUpdate() ), run.getMaxConcurrency() );
+
+        jdbcTemplate.batchUpdate(
+            "insert into analyticstabletask (runid, tasktype, tablename, indexcolumns, indextype, status) " +
+                "values (?, ?, ?, ?, ?, 'PENDING')",
+            tasks, 1000, ( ps, task ) -> {
+                ps.setString( 1, run.getRunId() );
+                ps.setString( 2, task.getType().name() );
+                ps.setString( 3, task.getTableName() );
+                ps.setString( 4, task.getIndexColumns() != null
+                    ? StringUtils.join( task.getIndexColumns(), SEPARATOR )
+                    : null );
+                ps.setString( 5, task.getIndexType() != null ? task.getIndexType().name() : null );
+            } );
+    }
+
+    @Override
+    public AnalyticsTableRun getRun( String runId )
+    {
+        List<AnalyticsTableRun> runs = jdbcTemplate.query(
+            "select runid, tabletype, lastyears, skipprograms, starttime, lastsuccessfulupdate, maxconcurrency " +
+                "from analyticstablerun where runid = ?",
+            ( rs, rowNum ) -> new AnalyticsTableRun(
+                rs.getString( "runid" ),
+                AnalyticsTableType.valueOf( rs.getString( "tabletype" ) ),
+                (Integer) rs.getObject( "lastyears" ),
+                new HashSet<>( Arrays.asList(
+                    StringUtils.split( StringUtils.defaultString( rs.getString( "skipprograms" ) ), SEPARATOR ) ) ),
+                rs.getTimestamp( "starttime" ),
+                rs.getTimestamp( "lastsuccessfulupdate" ),
+                rs.getInt( "maxconcurrency" ) ),
+            runId );
+
+        return runs.isEmpty() ? null : runs.get( 0 );
+    }
+
+    @Override
+    public List<String> getClaimableRuns( int maxAttempts )
+    {
+        return jdbcTemplate.queryForList(
+            "select distinct t.runid from analyticstabletask t where " + CLAIMABLE,
+            String.class, maxAttempts );
+    }
+
+    @Override
+    public AnalyticsTableTask claimTask( String runId, String owner, int leaseSeconds, int maxAttempts )
+    {
+        // Fail tasks which lost their lease on the last permitted attempt
+
+        jdbcTemplate.update(
+            "update analyticstabletask set status = 'FAILED', error = 'Lease expired on last attempt' " +
+                "where runid = ? and status = 'RUNNING' and leaseexpiry < now() and attempts >= ?",
+            runId, maxAttempts );
+
+        List<AnalyticsTableTask> tasks = jdbcTemplate.query(
+            "update analyticstabletask set status = 'RUNNING', owner = ?, " +
+                "leaseexpiry = now() + ? * interval '1 second', attempts = attempts + 1 " +
+                "where taskid = (" +
+                "select t.taskid from analyticstabletask t " +
+                "where t.runid = ? and " + CLAIMABLE +
+                "and (select count(*) from analyticstabletask r where r.runid = t.runid " +
+                "and r.status = 'RUNNING' and r.leaseexpiry >= now()) < " +
+                "(select maxconcurrency from analyticstablerun where runid = t.runid) " +
+                "order by t.taskid limit 1 for update skip locked) " +
+                "returning taskid, runid, tasktype, tablename, indexcolumns, indextype, attempts",
+            this::mapTask, owner, leaseSeconds, runId, maxAttempts );
+
+        return tasks.isEmpty() ? null : tasks.get( 0 );
+    }
+
+    @Override
+    public boolean renewLease( long taskId, String owner, int leaseSeconds )
+    {
+        return jdbcTemplate.update(
+            "update analyticstabletask set leaseexpiry = now() + ? * interval '1 second' " +
+                "where taskid = ? and owner = ? and status = 'RUNNING'",
+            leaseSeconds, taskId, owner ) > 0;
+    }
+
+    @Override
+    public boolean completeTask( long taskId, String owner )
+    {
+        return jdbcTemplate.update(
+            "update analyticstabletask set status = 'DONE', leaseexpiry = null " +
+                "where taskid = ? and owner = ? and status = 'RUNNING'",
+            taskId, owner ) > 0;
+    }
+
+    @Override
+    public void failTask( long taskId, String owner, String error, int maxAttempts )
+    {
+        jdbcTemplate.update(
+            "update analyticstabletask set " +
+                "status = case when attempts >= ? then 'FAILED' else 'PENDING' end, " +
+                "owner = null, leaseexpiry = null, error = ? " +
+                "where taskid = ? and owner = ? and status = 'RUNNING'",
+            maxAttempts, error, taskId, owner );
+    }
+
+    @Override
+    public Map<AnalyticsTableTaskStatus, Integer> getTaskCounts( String runId )
+    {
+        Map<AnalyticsTableTaskStatus, Integer> counts = new EnumMap<>( AnalyticsTableTaskStatus.class );
+
+        jdbcTemplate.query( "select status, count(*) as cnt from analyticstabletask where runid = ? group by status",
+            (RowCallbackHandler) rs -> counts.put( AnalyticsTableTaskStatus.valueOf( rs.getString( "status" ) ),
+                rs.getInt( "cnt" ) ),
+            runId );
+
+        return counts;
+    }
+
+    @Override
+    public String getFailure( String runId )
+    {
+        List<String> errors = jdbcTemplate.queryForList(
+            "select error from analyticstabletask where runid = ? and status = 'FAILED' limit 1",
+            String.class, runId );
+
+        return errors.isEmpty() ? null : errors.get( 0 );
+    }
+
+    @Override
+    public void deleteRun( String runId )
+    {
+        jdbcTemplate.update( "delete from analyticstablerun where runid = ?", runId );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private AnalyticsTableTask mapTask( ResultSet rs, int rowNum )
+        throws SQLException
+    {
+        String indexColumns = rs.getString( "indexcolumns" );
+        String indexType = rs.getString( "indextype" );
+
+        return new AnalyticsTableTask(
+            rs.getLong( "taskid" ),
+            rs.getString( "runid" ),
+            AnalyticsTableTaskType.valueOf( rs.getString( "tasktype" ) ),
+            rs.getString( "tablename" ),
+            indexColumns != null ? Arrays.asList( indexColumns.split( SEPARATOR ) ) : null,
+            indexType != null ? IndexType.valueOf( indexType ) : null,
+            rs.getInt( "attempts" ) );
+    }
+
+    private static Timestamp toTimestamp( Date date )
+    {
+        return date != null ? new Timestamp( date.getTime() ) : null;
+    }
+}
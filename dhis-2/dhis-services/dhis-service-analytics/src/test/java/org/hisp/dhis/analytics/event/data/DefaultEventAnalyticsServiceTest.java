@@ -31,14 +31,20 @@ import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
 import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
 import static org.hisp.dhis.DhisConvenienceTest.createProgram;
 import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.Partitions;
 import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.analytics.data.handler.SchemaIdResponseMapper;
@@ -48,7 +54,10 @@ import org.hisp.dhis.analytics.event.EventDataQueryService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryPlanner;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
+import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.IdScheme;
+import org.hisp.dhis.common.Pager;
+import org.hisp.dhis.common.SlimPager;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.Program;
@@ -61,6 +70,7 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
 
 /**
@@ -160,6 +170,107 @@ public class DefaultEventAnalyticsServiceTest
         verify( schemaIdResponseMapper, never() ).getSchemeIdResponseMap( mockParams );
     }
 
+    @Test
+    public void testEstimatedEventCount()
+    {
+        // Given mock variables
+        final OrganisationUnit mockOrgUnit = createOrganisationUnit( 'A' );
+        final Program mockProgram = createProgram( 'A', null, null, Sets.newHashSet( mockOrgUnit ), null );
+        final EventQueryParams mockParams = new EventQueryParams.Builder(
+            mockEventQueryParams( mockOrgUnit, mockProgram, null ) )
+                .withPartitions( new Partitions().add( 2000 ) )
+                .withPaging( true )
+                .withCountMode( EventCountMode.ESTIMATED )
+                .build();
+
+        // Given mock calls
+        doNothing().when( securityManager ).decideAccessEventQuery( mockParams );
+        when( securityManager.withUserConstraints( mockParams ) ).thenReturn( mockParams );
+        doNothing().when( eventQueryValidator ).validate( mockParams );
+        when( queryPlanner.planEventQuery( any( EventQueryParams.class ) ) ).thenReturn( mockParams );
+        when( eventAnalyticsManager.getEstimatedEventCount( any( EventQueryParams.class ) ) ).thenReturn( 120L );
+
+        // When
+        final Grid grid = defaultEventAnalyticsService.getEvents( mockParams );
+
+        // Then
+        verify( eventAnalyticsManager, never() ).getEventCount( any( EventQueryParams.class ) );
+        assertEquals( 120L,
+            ((Pager) grid.getMetaData().get( AnalyticsMetaDataKey.PAGER.getKey() )).getTotal() );
+    }
+
+    @Test
+    public void testSkippedEventCountWithMorePages()
+        throws Exception
+    {
+        final Grid grid = getEventsWithSkippedCount( 11 );
+
+        verify( eventAnalyticsManager, never() ).getEventCount( any( EventQueryParams.class ) );
+        verify( eventAnalyticsManager, never() ).getEstimatedEventCount( any( EventQueryParams.class ) );
+
+        final SlimPager pager = (SlimPager) grid.getMetaData().get( AnalyticsMetaDataKey.PAGER.getKey() );
+
+        assertEquals( 10, grid.getHeight() );
+        assertEquals( 2, pager.getPage() );
+        assertEquals( 10, pager.getPageSize() );
+        assertFalse( pager.isLastPage() );
+
+        final String json = new ObjectMapper().writeValueAsString( pager );
+
+        assertTrue( json.contains( "\"lastPage\":false" ) );
+        assertFalse( json.contains( "\"total\"" ) );
+        assertFalse( json.contains( "\"pageCount\"" ) );
+    }
+
+    @Test
+    public void testSkippedEventCountOnLastPage()
+    {
+        final Grid grid = getEventsWithSkippedCount( 4 );
+
+        verify( eventAnalyticsManager, never() ).getEventCount( any( EventQueryParams.class ) );
+
+        final SlimPager pager = (SlimPager) grid.getMetaData().get( AnalyticsMetaDataKey.PAGER.getKey() );
+
+        assertEquals( 4, grid.getHeight() );
+        assertTrue( pager.isLastPage() );
+    }
+
+    /**
+     * Runs a query for page 2 with page size 10 and count mode
+     * {@link EventCountMode#NONE}, where the manager returns the given number
+     * of rows.
+     */
+    private Grid getEventsWithSkippedCount( final int rows )
+    {
+        final OrganisationUnit mockOrgUnit = createOrganisationUnit( 'A' );
+        final Program mockProgram = createProgram( 'A', null, null, Sets.newHashSet( mockOrgUnit ), null );
+        final EventQueryParams mockParams = new EventQueryParams.Builder(
+            mockEventQueryParams( mockOrgUnit, mockProgram, null ) )
+                .withPartitions( new Partitions().add( 2000 ) )
+                .withPage( 2 )
+                .withPageSize( 10 )
+                .withCountMode( EventCountMode.NONE )
+                .build();
+
+        doNothing().when( securityManager ).decideAccessEventQuery( mockParams );
+        when( securityManager.withUserConstraints( mockParams ) ).thenReturn( mockParams );
+        doNothing().when( eventQueryValidator ).validate( mockParams );
+        when( queryPlanner.planEventQuery( any( EventQueryParams.class ) ) ).thenReturn( mockParams );
+        when( eventAnalyticsManager.getEvents( any( EventQueryParams.class ), any( Grid.class ), anyInt() ) )
+            .thenAnswer( invocation -> {
+                Grid grid = invocation.getArgument( 1 );
+
+                for ( int i = 0; i < rows; i++ )
+                {
+                    grid.addRow().addValue( "event" + i );
+                }
+
+                return grid;
+            } );
+
+        return defaultEventAnalyticsService.getEvents( mockParams );
+    }
+
     private EventQueryParams mockEventQueryParams( final OrganisationUnit mockOrgUnit, final Program mockProgram,
         final IdScheme scheme )
     {
@@ -58,6 +58,7 @@ import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.EventCountMode;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.data.programindicator.DefaultProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.common.BaseDimensionalObject;
@@ -329,6 +330,66 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         assertSql( expected, sql.getValue() );
     }
 
+    @Test
+    public void verifyGetEventsWithKeysetPaging()
+    {
+        mockEmptyRowSet();
+
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams() )
+            .withPageSize( 50 )
+            .withAfter( "evabcdefghA" )
+            .build();
+
+        subject.getEvents( params, createGrid(), 100 );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        String expected = " as ax where ax.\"monthly\" in ('2000Q1') and (ax.\"uidlevel1\" = 'ouabcdefghA' ) "
+            + "and ax.\"psi\" > 'evabcdefghA' order by ax.\"psi\" asc limit 50";
+
+        assertThat( sql.getValue(), containsString( expected ) );
+        assertThat( sql.getValue(), not( containsString( "offset" ) ) );
+    }
+
+    @Test
+    public void verifyGetEventsWithKeysetPagingAndSkippedCount()
+    {
+        mockEmptyRowSet();
+
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams() )
+            .withPageSize( 50 )
+            .withAfter( "evabcdefghA" )
+            .withCountMode( EventCountMode.NONE )
+            .build();
+
+        subject.getEvents( params, createGrid(), 100 );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), containsString( "ax.\"psi\" > 'evabcdefghA' order by ax.\"psi\" asc limit 51" ) );
+        assertThat( sql.getValue(), not( containsString( "offset" ) ) );
+    }
+
+    @Test
+    public void verifyGetEventsWithOffsetPagingAndSkippedCount()
+    {
+        mockEmptyRowSet();
+
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams() )
+            .withPage( 3 )
+            .withPageSize( 50 )
+            .withCountMode( EventCountMode.NONE )
+            .build();
+
+        subject.getEvents( params, createGrid(), 100 );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), containsString( "limit 51 offset 100" ) );
+        assertThat( sql.getValue(), not( containsString( "ax.\"psi\" >" ) ) );
+        assertThat( sql.getValue(), not( containsString( "order by" ) ) );
+    }
+
     @Test
     public void verifyGetAggregatedEventQuery()
     {
@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics.event.data;
 import static org.hisp.dhis.analytics.event.data.JdbcEventAnalyticsManager.ExceptionHandler.handle;
 import static org.hisp.dhis.feedback.ErrorCode.E7132;
 import static org.hisp.dhis.feedback.ErrorCode.E7133;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.postgresql.util.PSQLState.BAD_DATETIME_FORMAT;
 import static org.postgresql.util.PSQLState.DIVISION_BY_ZERO;
@@ -93,6 +94,14 @@ public class JdbcEventAnalyticsManagerTest
         assertThrows( E7133.getMessage(), QueryRuntimeException.class, () -> handle( aNonPSQLExceptionCause ) );
     }
 
+    @Test
+    public void testGetPlanRows()
+    {
+        assertEquals( 2485612L, JdbcEventAnalyticsManager.getPlanRows(
+            "Append  (cost=0.00..98213.65 rows=2485612 width=12)" ) );
+        assertEquals( 0L, JdbcEventAnalyticsManager.getPlanRows( "Result  (cost=0.00..0.01 width=0)" ) );
+    }
+
     private DataIntegrityViolationException mockDataIntegrityExceptionDivisionByZero()
     {
         final PSQLException psqlException = new PSQLException( "ERROR: division by zero", DIVISION_BY_ZERO );
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.hisp.dhis.analytics.AnalyticsIndex;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.IndexType;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.leader.election.LeaderManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class DefaultAnalyticsTableTaskQueueTest
+{
+    private static final String NODE = "node-a";
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private AnalyticsTableTaskStore taskStore;
+
+    @Mock
+    private AnalyticsTableManager tableManager;
+
+    @Mock
+    private LeaderManager leaderManager;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AnalyticsTableUpdateParams params;
+
+    private AnalyticsTable table;
+
+    private DefaultAnalyticsTableTaskQueue subject;
+
+    @Before
+    public void setUp()
+    {
+        when( tableManager.getAnalyticsTableType() ).thenReturn( AnalyticsTableType.DATA_VALUE );
+        when( leaderManager.getCurrentNodeUuid() ).thenReturn( NODE );
+
+        params = AnalyticsTableUpdateParams.newBuilder().build();
+
+        table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+        table.addPartitionTable( 2020, new Date(), new Date() );
+
+        subject = new DefaultAnalyticsTableTaskQueue( taskStore, Collections.singletonList( tableManager ),
+            leaderManager, config, jdbcTemplate );
+        subject.init();
+    }
+
+    @After
+    public void tearDown()
+    {
+        subject.destroy();
+    }
+
+    @Test
+    public void testExecuteCompletesClaimedTasks()
+    {
+        AnalyticsTableTask task = new AnalyticsTableTask( 1, "runA", AnalyticsTableTaskType.INDEX,
+            "analytics_temp_2020", Lists.newArrayList( "ou" ), IndexType.BTREE, 1 );
+
+        when( taskStore.claimTask( anyString(), eq( NODE ), anyInt(), anyInt() ) )
+            .thenReturn( task, (AnalyticsTableTask) null );
+        when( taskStore.getRun( "runA" ) ).thenReturn( getRun() );
+        when( taskStore.getTaskCounts( anyString() ) )
+            .thenReturn( ImmutableMap.of( AnalyticsTableTaskStatus.DONE, 1 ) );
+        when( tableManager.createIndexesAsync( any() ) ).then( invocation -> ConcurrentUtils.getImmediateFuture() );
+
+        subject.execute( AnalyticsTableType.DATA_VALUE, params, Collections.singletonList( table ),
+            Collections.singletonList( AnalyticsTableTask.index( task.toIndex() ) ), 1 );
+
+        ArgumentCaptor<ConcurrentLinkedQueue<AnalyticsIndex>> indexes = ArgumentCaptor.forClass(
+            ConcurrentLinkedQueue.class );
+
+        verify( tableManager ).createIndexesAsync( indexes.capture() );
+        assertEquals( "analytics_temp_2020", indexes.getValue().peek().getTable() );
+        verify( taskStore ).completeTask( 1, NODE );
+        verify( taskStore ).deleteRun( anyString() );
+    }
+
+    @Test
+    public void testRetriedPopulateTaskTruncatesPartition()
+    {
+        AnalyticsTableTask task = new AnalyticsTableTask( 2, "runA", AnalyticsTableTaskType.POPULATE,
+            "analytics_temp_2020", null, null, 2 );
+
+        when( taskStore.claimTask( anyString(), eq( NODE ), anyInt(), anyInt() ) )
+            .thenReturn( task, (AnalyticsTableTask) null );
+        when( taskStore.getRun( "runA" ) ).thenReturn( getRun() );
+        when( taskStore.getTaskCounts( anyString() ) )
+            .thenReturn( ImmutableMap.of( AnalyticsTableTaskStatus.DONE, 1 ) );
+        when( tableManager.getAnalyticsTables( any() ) ).thenReturn( Collections.singletonList( table ) );
+        when( tableManager.populateTablesAsync( any(), any() ) )
+            .then( invocation -> ConcurrentUtils.getImmediateFuture() );
+
+        List<AnalyticsTablePartition> partitions = table.getTablePartitions();
+
+        subject.execute( AnalyticsTableType.DATA_VALUE, params, Collections.singletonList( table ),
+            Collections.singletonList( AnalyticsTableTask.populate( partitions.get( 0 ) ) ), 1 );
+
+        verify( jdbcTemplate ).execute( "truncate table analytics_temp_2020" );
+        verify( tableManager ).populateTablesAsync( any(), any() );
+        verify( taskStore ).completeTask( 2, NODE );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testExecuteFailsWhenTaskFails()
+    {
+        AnalyticsTableTask task = new AnalyticsTableTask( 3, "runA", AnalyticsTableTaskType.INDEX,
+            "analytics_temp_2020", Lists.newArrayList( "ou" ), IndexType.BTREE, 3 );
+
+        when( taskStore.claimTask( anyString(), eq( NODE ), anyInt(), anyInt() ) )
+            .thenReturn( task, (AnalyticsTableTask) null );
+        when( taskStore.getRun( "runA" ) ).thenReturn( getRun() );
+        when( taskStore.getTaskCounts( anyString() ) )
+            .thenReturn( ImmutableMap.of( AnalyticsTableTaskStatus.FAILED, 1 ) );
+        when( taskStore.getFailure( anyString() ) ).thenReturn( "Index creation failed" );
+        when( tableManager.createIndexesAsync( any() ) )
+            .thenThrow( new IllegalArgumentException( "Index creation failed" ) );
+
+        try
+        {
+            subject.execute( AnalyticsTableType.DATA_VALUE, params, Collections.singletonList( table ),
+                Collections.singletonList( AnalyticsTableTask.index( task.toIndex() ) ), 1 );
+        }
+        finally
+        {
+            verify( taskStore ).failTask( eq( 3L ), eq( NODE ), anyString(), anyInt() );
+            verify( taskStore, never() ).completeTask( 3, NODE );
+            verify( taskStore ).deleteRun( anyString() );
+        }
+    }
+
+    private AnalyticsTableRun getRun()
+    {
+        return new AnalyticsTableRun( "runA", AnalyticsTableType.DATA_VALUE, null, Collections.emptySet(),
+            params.getStartTime(), null, 1 );
+    }
+}
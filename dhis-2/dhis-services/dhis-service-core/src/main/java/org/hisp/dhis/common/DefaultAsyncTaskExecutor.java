@@ -27,36 +27,52 @@
  */
 package org.hisp.dhis.common;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 import java.util.concurrent.Future;
 
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.stereotype.Service;
 
 /**
- * A mere DHIS2 front for springs {@link AsyncListenableTaskExecutor}.
+ * A mere DHIS2 front for springs {@link AsyncListenableTaskExecutor}, executing
+ * tasks on the pools held by {@link TaskSchedulers}.
  *
  * @author Jan Bernitt
  */
 @Service
 public class DefaultAsyncTaskExecutor implements AsyncTaskExecutor
 {
-    private final AsyncListenableTaskExecutor jobExecutor;
+    private final TaskSchedulers taskSchedulers;
 
-    public DefaultAsyncTaskExecutor( @Qualifier( "taskScheduler" ) AsyncListenableTaskExecutor jobExecutor )
+    public DefaultAsyncTaskExecutor( TaskSchedulers taskSchedulers )
     {
-        this.jobExecutor = jobExecutor;
+        checkNotNull( taskSchedulers );
+
+        this.taskSchedulers = taskSchedulers;
     }
 
     @Override
     public void executeTask( Runnable job )
     {
-        jobExecutor.execute( job );
+        executeTask( TaskPool.DEFAULT, job );
     }
 
     @Override
     public Future<?> executeTaskWithCancelation( Runnable task )
     {
-        return jobExecutor.submitListenable( task );
+        return executeTaskWithCancelation( TaskPool.DEFAULT, task );
+    }
+
+    @Override
+    public void executeTask( TaskPool pool, Runnable task )
+    {
+        taskSchedulers.execute( pool, task );
+    }
+
+    @Override
+    public Future<?> executeTaskWithCancelation( TaskPool pool, Runnable task )
+    {
+        return taskSchedulers.submitListenable( pool, task );
     }
 }
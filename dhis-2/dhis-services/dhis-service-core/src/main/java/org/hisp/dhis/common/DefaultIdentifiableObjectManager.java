@@ -56,6 +56,7 @@ import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.exception.InvalidIdentifierReferenceException;
+import org.hisp.dhis.common.index.MetadataNameIndex;
 import org.hisp.dhis.hibernate.HibernateProxyUtils;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
@@ -104,6 +105,8 @@ public class DefaultIdentifiableObjectManager
 
     protected final SchemaService schemaService;
 
+    private final MetadataNameIndex metadataNameIndex;
+
     private Map<Class<? extends IdentifiableObject>, IdentifiableObjectStore<? extends IdentifiableObject>> identifiableObjectStoreMap;
 
     private Map<Class<? extends DimensionalObject>, GenericDimensionalObjectStore<? extends DimensionalObject>> dimensionalObjectStoreMap;
@@ -112,7 +115,7 @@ public class DefaultIdentifiableObjectManager
         Set<IdentifiableObjectStore<? extends IdentifiableObject>> identifiableObjectStores,
         Set<GenericDimensionalObjectStore<? extends DimensionalObject>> dimensionalObjectStores,
         SessionFactory sessionFactory, CurrentUserService currentUserService, SchemaService schemaService,
-        CacheProvider cacheProvider )
+        CacheProvider cacheProvider, MetadataNameIndex metadataNameIndex )
     {
         checkNotNull( identifiableObjectStores );
         checkNotNull( dimensionalObjectStores );
@@ -120,6 +123,7 @@ public class DefaultIdentifiableObjectManager
         checkNotNull( currentUserService );
         checkNotNull( schemaService );
         checkNotNull( cacheProvider );
+        checkNotNull( metadataNameIndex );
 
         this.identifiableObjectStores = identifiableObjectStores;
         this.dimensionalObjectStores = dimensionalObjectStores;
@@ -127,6 +131,7 @@ public class DefaultIdentifiableObjectManager
         this.currentUserService = currentUserService;
         this.schemaService = schemaService;
         this.defaultObjectCache = cacheProvider.createDefaultObjectCache();
+        this.metadataNameIndex = metadataNameIndex;
     }
 
     // --------------------------------------------------------------------------
@@ -789,6 +794,18 @@ public class DefaultIdentifiableObjectManager
             return new ArrayList<>();
         }
 
+        if ( metadataNameIndex.isIndexed( type ) )
+        {
+            List<Long> ids = metadataNameIndex.getIdsLikeName( type, words, currentUserService.getCurrentUser(),
+                first, max );
+
+            Map<Long, IdentifiableObject> objects = store.getById( ids ).stream()
+                .collect( Collectors.toMap( IdentifiableObject::getId, o -> o ) );
+
+            return ids.stream().map( objects::get ).filter( Objects::nonNull ).map( o -> (T) o )
+                .collect( Collectors.toList() );
+        }
+
         return (List<T>) store.getAllLikeName( words, first, max );
     }
 
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import com.google.common.collect.ImmutableMap;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Holds a separately sized {@link ThreadPoolTaskScheduler} for each
+ * {@link TaskPool}. The {@link TaskPool#DEFAULT} pool is the shared
+ * {@code taskScheduler} bean, the others are sized by the
+ * {@code executor.<pool>.pool_size} settings in {@code dhis.conf}.
+ * <p>
+ * Tasks submitted through {@link #execute(TaskPool, Runnable)} or
+ * {@link #submitListenable(TaskPool, Runnable)} are counted until they start,
+ * and are rejected once the {@code executor.<pool>.queue_limit} is reached.
+ * <p>
+ * The number of active and queued tasks of each pool is exposed by the
+ * {@code executor.*} gauges tagged with the pool name.
+ */
+@Slf4j
+@Component
+public class TaskSchedulers
+    implements DisposableBean
+{
+    private static final Map<TaskPool, ConfigurationKey> POOL_SIZE_KEYS = ImmutableMap.of(
+        TaskPool.ANALYTICS, ConfigurationKey.EXECUTOR_ANALYTICS_POOL_SIZE,
+        TaskPool.IMPORT, ConfigurationKey.EXECUTOR_IMPORT_POOL_SIZE,
+        TaskPool.NOTIFICATION, ConfigurationKey.EXECUTOR_NOTIFICATION_POOL_SIZE,
+        TaskPool.MAINTENANCE, ConfigurationKey.EXECUTOR_MAINTENANCE_POOL_SIZE );
+
+    private static final Map<TaskPool, ConfigurationKey> QUEUE_LIMIT_KEYS = ImmutableMap.of(
+        TaskPool.ANALYTICS, ConfigurationKey.EXECUTOR_ANALYTICS_QUEUE_LIMIT,
+        TaskPool.IMPORT, ConfigurationKey.EXECUTOR_IMPORT_QUEUE_LIMIT,
+        TaskPool.NOTIFICATION, ConfigurationKey.EXECUTOR_NOTIFICATION_QUEUE_LIMIT,
+        TaskPool.MAINTENANCE, ConfigurationKey.EXECUTOR_MAINTENANCE_QUEUE_LIMIT );
+
+    private final Map<TaskPool, ThreadPoolTaskScheduler> schedulers = new EnumMap<>( TaskPool.class );
+
+    private final Map<TaskPool, Integer> queueLimits = new EnumMap<>( TaskPool.class );
+
+    private final Map<TaskPool, AtomicInteger> waitingTasks = new EnumMap<>( TaskPool.class );
+
+    public TaskSchedulers( @Qualifier( "taskScheduler" ) ThreadPoolTaskScheduler taskScheduler,
+        DhisConfigurationProvider config, MeterRegistry meterRegistry )
+    {
+        checkNotNull( taskScheduler );
+        checkNotNull( config );
+        checkNotNull( meterRegistry );
+
+        schedulers.put( TaskPool.DEFAULT, taskScheduler );
+
+        for ( TaskPool pool : TaskPool.values() )
+        {
+            waitingTasks.put( pool, new AtomicInteger() );
+        }
+
+        for ( TaskPool pool : POOL_SIZE_KEYS.keySet() )
+        {
+            int poolSize = Integer.parseInt( config.getProperty( POOL_SIZE_KEYS.get( pool ) ) );
+            int queueLimit = Integer.parseInt( config.getProperty( QUEUE_LIMIT_KEYS.get( pool ) ) );
+
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setPoolSize( poolSize );
+            scheduler.setThreadPriority( pool.getThreadPriority() );
+            scheduler.setThreadNamePrefix( pool.name().toLowerCase() + "TaskScheduler-" );
+            scheduler.initialize();
+
+            schedulers.put( pool, scheduler );
+            queueLimits.put( pool, queueLimit );
+
+            log.info( "Task pool '{}' initialized with {} threads and queue limit {}", pool, poolSize, queueLimit );
+        }
+
+        schedulers.forEach( ( pool, scheduler ) -> new ExecutorServiceMetrics(
+            scheduler.getScheduledExecutor(), pool.name().toLowerCase(), Collections.emptyList() )
+                .bindTo( meterRegistry ) );
+    }
+
+    /**
+     * Returns the scheduler of the given pool.
+     *
+     * @param pool the {@link TaskPool}.
+     * @return the {@link ThreadPoolTaskScheduler} of the pool.
+     */
+    public ThreadPoolTaskScheduler getScheduler( TaskPool pool )
+    {
+        return schedulers.get( pool );
+    }
+
+    /**
+     * Returns the configured number of threads of the given pool. Unlike
+     * {@link ThreadPoolTaskScheduler#getPoolSize()} this does not depend on
+     * how many threads have been started so far.
+     *
+     * @param pool the {@link TaskPool}.
+     * @return the number of threads of the pool.
+     */
+    public int getPoolSize( TaskPool pool )
+    {
+        return getScheduler( pool ).getScheduledThreadPoolExecutor().getCorePoolSize();
+    }
+
+    /**
+     * Executes the given task on the given pool, provided the number of tasks
+     * submitted through this method or
+     * {@link #submitListenable(TaskPool, Runnable)} and still waiting for a
+     * thread is below the queue limit of the pool. Scheduled triggers such as
+     * cron jobs do not count against the limit.
+     *
+     * @param pool the {@link TaskPool}.
+     * @param task the task to execute.
+     * @throws TaskRejectedException if the queue of the pool is full.
+     */
+    public void execute( TaskPool pool, Runnable task )
+        throws TaskRejectedException
+    {
+        QueuedTask queuedTask = reserve( pool, task );
+
+        try
+        {
+            getScheduler( pool ).execute( queuedTask );
+        }
+        catch ( TaskRejectedException e )
+        {
+            queuedTask.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Submits the given task to the given pool. The queue limit is applied as
+     * by {@link #execute(TaskPool, Runnable)}.
+     *
+     * @param pool the {@link TaskPool}.
+     * @param task the task to submit.
+     * @return a future of the task, which can be used to cancel it.
+     * @throws TaskRejectedException if the queue of the pool is full.
+     */
+    public ListenableFuture<?> submitListenable( TaskPool pool, Runnable task )
+        throws TaskRejectedException
+    {
+        QueuedTask queuedTask = reserve( pool, task );
+
+        try
+        {
+            ListenableFuture<?> future = getScheduler( pool ).submitListenable( queuedTask );
+
+            // a task cancelled while waiting never runs, so it gives back its
+            // slot once the future is done
+            future.addCallback( result -> queuedTask.release(), ex -> queuedTask.release() );
+
+            return future;
+        }
+        catch ( TaskRejectedException e )
+        {
+            queuedTask.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of tasks of the given pool which were submitted with
+     * a queue limit and are still waiting for a thread.
+     *
+     * @param pool the {@link TaskPool}.
+     * @return the number of waiting tasks.
+     */
+    public int getWaitingTasks( TaskPool pool )
+    {
+        return waitingTasks.get( pool ).get();
+    }
+
+    /**
+     * Runs the given tasks on the calling thread together with up to one
+     * helper per thread of the given pool, and returns their results in the
+     * order of the tasks. The calling thread takes tasks as well, so all tasks
+     * complete even when the pool is busy or its queue is full, and when the
+     * caller itself runs on a thread of the pool. Helpers which have not
+     * started by the time all tasks are taken are cancelled.
+     * <p>
+     * Once a task fails no further tasks are started, and the failure is
+     * thrown after the running tasks are done.
+     *
+     * @param pool the {@link TaskPool} to run the helpers on.
+     * @param tasks the tasks to run.
+     * @param <T> the result type of the tasks.
+     * @return the results of the tasks, in the order of the tasks.
+     */
+    public <T> List<T> invokeAll( TaskPool pool, List<Supplier<T>> tasks )
+    {
+        AtomicInteger nextTask = new AtomicInteger();
+        AtomicReferenceArray<T> results = new AtomicReferenceArray<>( tasks.size() );
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            int i;
+
+            while ( failure.get() == null && (i = nextTask.getAndIncrement()) < tasks.size() )
+            {
+                try
+                {
+                    results.set( i, tasks.get( i ).get() );
+                }
+                catch ( Throwable ex )
+                {
+                    failure.compareAndSet( null, ex );
+                }
+            }
+        };
+
+        int helperCount = Math.min( tasks.size() - 1, getPoolSize( pool ) );
+
+        List<ListenableFuture<?>> helpers = new ArrayList<>();
+
+        for ( int i = 0; i < helperCount; i++ )
+        {
+            try
+            {
+                helpers.add( submitListenable( pool, worker ) );
+            }
+            catch ( TaskRejectedException ex )
+            {
+                log.debug( "Task pool '{}' is full, running {} helpers", pool, helpers.size() );
+                break;
+            }
+        }
+
+        worker.run();
+
+        // only cancels helpers which have not started, running helpers are
+        // awaited as they may still be working on a task
+
+        helpers.forEach( helper -> helper.cancel( false ) );
+
+        for ( ListenableFuture<?> helper : helpers )
+        {
+            awaitHelper( helper );
+        }
+
+        Throwable ex = failure.get();
+
+        if ( ex instanceof RuntimeException )
+        {
+            throw (RuntimeException) ex;
+        }
+
+        if ( ex instanceof Error )
+        {
+            throw (Error) ex;
+        }
+
+        List<T> list = new ArrayList<>( tasks.size() );
+
+        for ( int i = 0; i < tasks.size(); i++ )
+        {
+            list.add( results.get( i ) );
+        }
+
+        return list;
+    }
+
+    private void awaitHelper( ListenableFuture<?> helper )
+    {
+        if ( helper.isCancelled() )
+        {
+            return;
+        }
+
+        try
+        {
+            helper.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Interrupted while waiting for tasks", ex );
+        }
+        catch ( CancellationException | ExecutionException ex )
+        {
+            // the helper catches all task failures, nothing left to report
+        }
+    }
+
+    private QueuedTask reserve( TaskPool pool, Runnable task )
+    {
+        AtomicInteger waiting = waitingTasks.get( pool );
+
+        int queueLimit = queueLimits.getOrDefault( pool, 0 );
+
+        int current;
+
+        do
+        {
+            current = waiting.get();
+
+            if ( queueLimit > 0 && current >= queueLimit )
+            {
+                throw new TaskRejectedException( String.format(
+                    "Task pool '%s' has reached its queue limit of %d tasks", pool, queueLimit ) );
+            }
+        }
+        while ( !waiting.compareAndSet( current, current + 1 ) );
+
+        return new QueuedTask( waiting, task );
+    }
+
+    /**
+     * Task holding a slot of the queue of its pool until it starts.
+     */
+    private static final class QueuedTask
+        implements Runnable
+    {
+        private final AtomicInteger waiting;
+
+        private final Runnable task;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private QueuedTask( AtomicInteger waiting, Runnable task )
+        {
+            this.waiting = waiting;
+            this.task = task;
+        }
+
+        @Override
+        public void run()
+        {
+            release();
+            task.run();
+        }
+
+        private void release()
+        {
+            if ( released.compareAndSet( false, true ) )
+            {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        schedulers.forEach( ( pool, scheduler ) -> {
+            if ( pool != TaskPool.DEFAULT )
+            {
+                scheduler.shutdown();
+            }
+        } );
+    }
+}
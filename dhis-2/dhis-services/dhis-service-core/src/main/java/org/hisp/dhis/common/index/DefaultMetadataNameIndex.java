@@ -0,0 +1,560 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common.index;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.NameableObject;
+import org.hisp.dhis.dashboard.Dashboard;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.hibernate.HibernateProxyUtils;
+import org.hisp.dhis.schema.Property;
+import org.hisp.dhis.schema.Schema;
+import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.security.acl.AclService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserGroup;
+import org.hisp.dhis.user.sharing.Sharing;
+import org.hisp.dhis.user.sharing.UserAccess;
+import org.hisp.dhis.user.sharing.UserGroupAccess;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Default implementation of {@link MetadataNameIndex}. Each type is loaded
+ * with a single query in a stateless session. Sharing is checked in memory
+ * with the same rules as the sharing predicates of
+ * {@link org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore}.
+ */
+@Slf4j
+@Component( "org.hisp.dhis.common.index.MetadataNameIndex" )
+public class DefaultMetadataNameIndex
+    implements MetadataNameIndex
+{
+    /**
+     * Types with more objects than this are not indexed.
+     */
+    static final int MAX_TYPE_SIZE = 100_000;
+
+    /**
+     * Property filters matching more objects than this fall back to the
+     * database, to keep the list of identifiers in the query short.
+     */
+    static final int MAX_MATCHES = 1_000;
+
+    private static final List<String> PROPERTIES = ImmutableList.of( "name", "shortName", "code" );
+
+    private static final String READ_ACCESS = AclService.LIKE_READ_METADATA.replace( "%", "" );
+
+    private static final Comparator<Entry> NAME_ORDER = Comparator
+        .comparing( Entry::getName, String.CASE_INSENSITIVE_ORDER ).thenComparing( Entry::getId );
+
+    private final SessionFactory sessionFactory;
+
+    private final SchemaService schemaService;
+
+    private final AclService aclService;
+
+    private final boolean enabled;
+
+    private final Map<Class<?>, TypeIndex> indexes = new ConcurrentHashMap<>();
+
+    public DefaultMetadataNameIndex( SessionFactory sessionFactory, SchemaService schemaService,
+        AclService aclService, DhisConfigurationProvider config )
+    {
+        checkNotNull( sessionFactory );
+        checkNotNull( schemaService );
+        checkNotNull( aclService );
+        checkNotNull( config );
+
+        this.sessionFactory = sessionFactory;
+        this.schemaService = schemaService;
+        this.aclService = aclService;
+        this.enabled = config.isEnabled( ConfigurationKey.METADATA_NAME_INDEX );
+    }
+
+    // -------------------------------------------------------------------------
+    // MetadataNameIndex implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isIndexed( Class<?> type )
+    {
+        return getTypeIndex( type ) != null;
+    }
+
+    @Override
+    public List<Long> getIdsLikeName( Class<? extends IdentifiableObject> type, Set<String> words, User user,
+        int first, int max )
+    {
+        TypeIndex index = getTypeIndex( type );
+
+        if ( index == null )
+        {
+            return null;
+        }
+
+        List<String> lowerWords = words.stream().map( String::toLowerCase ).collect( Collectors.toList() );
+
+        boolean checkSharing = user != null && (index.isForceAcl() || (index.isShareable() && !user.isSuper()));
+
+        Set<String> userGroups = checkSharing ? getUids( user.getGroups() ) : Collections.emptySet();
+
+        return index.getEntries().values().stream()
+            .filter( entry -> entry.getName() != null
+                && lowerWords.stream().allMatch( entry.getLowerName()::contains ) )
+            .filter( entry -> !checkSharing || canRead( entry.getSharing(), user.getUid(), userGroups ) )
+            .sorted( NAME_ORDER )
+            .skip( first )
+            .limit( max )
+            .map( Entry::getId )
+            .collect( Collectors.toList() );
+    }
+
+    @Override
+    public List<Long> getIds( Class<?> type, String property, Predicate<Object> matcher )
+    {
+        TypeIndex index = getTypeIndex( type );
+
+        if ( index == null || !index.getProperties().contains( property ) )
+        {
+            return null;
+        }
+
+        List<Long> ids = new ArrayList<>();
+
+        for ( Entry entry : index.getEntries().values() )
+        {
+            if ( matcher.test( entry.getValue( property ) ) )
+            {
+                if ( ids.size() == MAX_MATCHES )
+                {
+                    return null;
+                }
+
+                ids.add( entry.getId() );
+            }
+        }
+
+        return ids;
+    }
+
+    @Override
+    public void update( IdentifiableObject object )
+    {
+        TypeIndex index = indexes.get( HibernateProxyUtils.getRealClass( object ) );
+
+        if ( index != null )
+        {
+            Sharing sharing = object.getSharing();
+
+            index.put( new Entry( object.getId(), object.getName(),
+                object instanceof NameableObject ? ((NameableObject) object).getShortName() : null, object.getCode(),
+                sharing != null ? sharing.copy() : null ) );
+        }
+    }
+
+    @Override
+    public void remove( IdentifiableObject object )
+    {
+        TypeIndex index = indexes.get( HibernateProxyUtils.getRealClass( object ) );
+
+        if ( index != null )
+        {
+            index.remove( object.getId() );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the loaded index of the given type, loading it if this is the
+     * first request for the type. Returns null if the index is disabled, if
+     * the type is not indexed or if another thread is still loading it.
+     */
+    private TypeIndex getTypeIndex( Class<?> type )
+    {
+        if ( !enabled || type == null )
+        {
+            return null;
+        }
+
+        TypeIndex index = indexes.get( type );
+
+        if ( index == null )
+        {
+            TypeIndex created = createTypeIndex( type );
+
+            index = indexes.putIfAbsent( type, created );
+
+            if ( index == null )
+            {
+                index = created;
+
+                load( index );
+            }
+        }
+
+        return index.isLoaded() ? index : null;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private TypeIndex createTypeIndex( Class<?> type )
+    {
+        Schema schema = schemaService.getDynamicSchema( type );
+
+        if ( schema == null || !schema.isPersisted() || !schema.isIdentifiableObject()
+            || schema.getPersistedProperty( "name" ) == null )
+        {
+            return new TypeIndex( type, Collections.emptyList(), false, false, State.NOT_INDEXED );
+        }
+
+        List<String> properties = new ArrayList<>();
+
+        for ( String name : PROPERTIES )
+        {
+            Property property = schema.getPersistedProperty( name );
+
+            if ( property != null && name.equals( property.getFieldName() ) )
+            {
+                properties.add( name );
+            }
+        }
+
+        return new TypeIndex( type, properties,
+            aclService.isClassShareable( (Class<? extends IdentifiableObject>) type ),
+            Dashboard.class.isAssignableFrom( type ), State.LOADING );
+    }
+
+    private void load( TypeIndex index )
+    {
+        if ( index.getState() != State.LOADING )
+        {
+            return;
+        }
+
+        String entity = index.getType().getName();
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+
+        try
+        {
+            long count = (Long) session.createQuery( "select count(*) from " + entity ).uniqueResult();
+
+            if ( count > MAX_TYPE_SIZE )
+            {
+                log.info( "Not indexing names of {}, {} objects exceed the max of {}", entity, count, MAX_TYPE_SIZE );
+
+                index.setState( State.NOT_INDEXED );
+                return;
+            }
+
+            StringBuilder hql = new StringBuilder( "select e.id" );
+
+            index.getProperties().forEach( property -> hql.append( ", e." ).append( property ) );
+
+            if ( index.isShareable() )
+            {
+                hql.append( ", e.sharing" );
+            }
+
+            hql.append( " from " ).append( entity ).append( " e" );
+
+            List<?> rows = session.createQuery( hql.toString() ).list();
+
+            List<Entry> entries = new ArrayList<>( rows.size() );
+
+            for ( Object row : rows )
+            {
+                entries.add( toEntry( index, (Object[]) row ) );
+            }
+
+            index.load( entries );
+
+            log.info( "Indexed names of {} {} objects", entries.size(), entity );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( "Failed to index names of " + entity, ex );
+
+            indexes.remove( index.getType() );
+        }
+        finally
+        {
+            session.close();
+        }
+    }
+
+    private Entry toEntry( TypeIndex index, Object[] row )
+    {
+        Map<String, String> values = new HashMap<>();
+
+        int column = 1;
+
+        for ( String property : index.getProperties() )
+        {
+            values.put( property, (String) row[column++] );
+        }
+
+        Sharing sharing = index.isShareable() ? (Sharing) row[column] : null;
+
+        return new Entry( (Long) row[0], values.get( "name" ), values.get( "shortName" ), values.get( "code" ),
+            sharing );
+    }
+
+    /**
+     * Checks read access in the same way as the sharing predicates of the
+     * identifiable object store: objects are readable when public access
+     * allows reading, when they have no owner, when the user owns them or
+     * when the user or one of its groups has been given read access.
+     */
+    static boolean canRead( Sharing sharing, String userUid, Set<String> userGroups )
+    {
+        if ( sharing == null )
+        {
+            return true;
+        }
+
+        String publicAccess = sharing.getPublicAccess();
+        String owner = sharing.getOwner();
+
+        if ( publicAccess == null || "null".equals( publicAccess ) || publicAccess.startsWith( READ_ACCESS )
+            || owner == null || "null".equals( owner ) || owner.equals( userUid ) )
+        {
+            return true;
+        }
+
+        UserAccess userAccess = sharing.getUsers().get( userUid );
+
+        if ( userAccess != null && userAccess.getAccess() != null && userAccess.getAccess().startsWith( READ_ACCESS ) )
+        {
+            return true;
+        }
+
+        for ( String userGroup : userGroups )
+        {
+            UserGroupAccess userGroupAccess = sharing.getUserGroups().get( userGroup );
+
+            if ( userGroupAccess != null && userGroupAccess.getAccess() != null
+                && userGroupAccess.getAccess().startsWith( READ_ACCESS ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Set<String> getUids( Collection<UserGroup> userGroups )
+    {
+        Set<String> uids = new HashSet<>();
+
+        if ( userGroups != null )
+        {
+            userGroups.forEach( userGroup -> uids.add( userGroup.getUid() ) );
+        }
+
+        return uids;
+    }
+
+    private enum State
+    {
+        LOADING,
+        LOADED,
+        NOT_INDEXED
+    }
+
+    /**
+     * Name, short name, code and sharing of a single object.
+     */
+    @Getter
+    static class Entry
+    {
+        private final long id;
+
+        private final String name;
+
+        private final String lowerName;
+
+        private final String shortName;
+
+        private final String code;
+
+        private final Sharing sharing;
+
+        Entry( long id, String name, String shortName, String code, Sharing sharing )
+        {
+            this.id = id;
+            this.name = name;
+            this.lowerName = name != null ? name.toLowerCase() : null;
+            this.shortName = shortName;
+            this.code = code;
+            this.sharing = sharing;
+        }
+
+        String getValue( String property )
+        {
+            switch ( property )
+            {
+            case "name":
+                return name;
+            case "shortName":
+                return shortName;
+            case "code":
+                return code;
+            default:
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Entries of a single type. Writes are synchronized so that deletes
+     * committed while the type is loading are not undone by the load.
+     */
+    private static class TypeIndex
+    {
+        private final Class<?> type;
+
+        private final List<String> properties;
+
+        private final boolean shareable;
+
+        private final boolean forceAcl;
+
+        private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        private final Set<Long> removed = new HashSet<>();
+
+        private volatile State state;
+
+        TypeIndex( Class<?> type, List<String> properties, boolean shareable, boolean forceAcl, State state )
+        {
+            this.type = type;
+            this.properties = properties;
+            this.shareable = shareable;
+            this.forceAcl = forceAcl;
+            this.state = state;
+        }
+
+        Class<?> getType()
+        {
+            return type;
+        }
+
+        List<String> getProperties()
+        {
+            return properties;
+        }
+
+        boolean isShareable()
+        {
+            return shareable;
+        }
+
+        boolean isForceAcl()
+        {
+            return forceAcl;
+        }
+
+        Map<Long, Entry> getEntries()
+        {
+            return entries;
+        }
+
+        State getState()
+        {
+            return state;
+        }
+
+        void setState( State state )
+        {
+            this.state = state;
+        }
+
+        boolean isLoaded()
+        {
+            return state == State.LOADED;
+        }
+
+        synchronized void load( List<Entry> loaded )
+        {
+            for ( Entry entry : loaded )
+            {
+                if ( !removed.contains( entry.getId() ) )
+                {
+                    entries.putIfAbsent( entry.getId(), entry );
+                }
+            }
+
+            removed.clear();
+            state = State.LOADED;
+        }
+
+        synchronized void put( Entry entry )
+        {
+            if ( state != State.NOT_INDEXED )
+            {
+                entries.put( entry.getId(), entry );
+            }
+        }
+
+        synchronized void remove( long id )
+        {
+            entries.remove( id );
+
+            if ( state == State.LOADING )
+            {
+                removed.add( id );
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common.index;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.user.User;
+
+/**
+ * In-memory index of the name, short name and code of metadata objects
+ * together with their sharing. The index of a type is loaded on first use and
+ * kept up to date from committed inserts, updates and deletes, so that name
+ * searches and name and code filters can be resolved without scanning the
+ * table of the type.
+ * <p>
+ * Types without a persisted name and types with more objects than the index
+ * accepts are not indexed. Callers must fall back to a database query for
+ * these.
+ */
+public interface MetadataNameIndex
+{
+    /**
+     * Indicates whether the index is enabled and covers the given type. Loads
+     * the index of the type if not loaded yet.
+     *
+     * @param type the object type.
+     * @return true if the type is indexed.
+     */
+    boolean isIndexed( Class<?> type );
+
+    /**
+     * Returns the identifiers of objects of the given type which name contains
+     * all the given words ignoring case, and which are readable for the given
+     * user. Identifiers are ordered by name.
+     *
+     * @param type the object type.
+     * @param words the words to match.
+     * @param user the user, or null to skip sharing checks.
+     * @param first the first result.
+     * @param max the max number of results.
+     * @return the identifiers, or null if the type is not indexed.
+     */
+    List<Long> getIdsLikeName( Class<? extends IdentifiableObject> type, Set<String> words, User user, int first,
+        int max );
+
+    /**
+     * Returns the identifiers of objects of the given type which value of the
+     * given property is accepted by the given matcher. Sharing is not checked.
+     *
+     * @param type the object type.
+     * @param property the field name of the property, one of name, short name
+     *        and code.
+     * @param matcher the matcher of property values.
+     * @return the identifiers, or null if the type or the property is not
+     *         indexed or if too many objects match.
+     */
+    List<Long> getIds( Class<?> type, String property, Predicate<Object> matcher );
+
+    /**
+     * Adds or updates the given object in the index of its type, if loaded.
+     *
+     * @param object the object.
+     */
+    void update( IdentifiableObject object );
+
+    /**
+     * Removes the given object from the index of its type, if loaded.
+     *
+     * @param object the object.
+     */
+    void remove( IdentifiableObject object );
+}
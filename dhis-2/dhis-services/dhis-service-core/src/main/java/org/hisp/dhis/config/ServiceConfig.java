@@ -30,6 +30,7 @@ package org.hisp.dhis.config;
 import java.util.*;
 
 import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.DefaultResourceBundleManager;
 import org.hisp.dhis.i18n.ui.resourcebundle.ResourceBundleManager;
@@ -75,13 +76,13 @@ public class ServiceConfig
 
     @Bean( "org.hisp.dhis.outboundmessage.OutboundMessageService" )
     public DefaultOutboundMessageBatchService defaultOutboundMessageBatchService( SmsMessageSender smsMessageSender,
-        EmailMessageSender emailMessageSender )
+        EmailMessageSender emailMessageSender, DhisConfigurationProvider dhisConfigurationProvider )
     {
         Map<DeliveryChannel, MessageSender> channels = new HashMap<>();
         channels.put( DeliveryChannel.SMS, smsMessageSender );
         channels.put( DeliveryChannel.EMAIL, emailMessageSender );
 
-        DefaultOutboundMessageBatchService service = new DefaultOutboundMessageBatchService();
+        DefaultOutboundMessageBatchService service = new DefaultOutboundMessageBatchService( dhisConfigurationProvider );
 
         service.setMessageSenders( channels );
 
@@ -37,8 +37,10 @@ import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.i18n.I18nLocaleService;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.organisationunit.OrganisationUnitSpatialIndex;
 import org.hisp.dhis.period.PeriodStore;
 import org.hisp.dhis.period.PeriodTypePopulator;
+import org.hisp.dhis.program.message.ProgramMessageService;
 import org.hisp.dhis.scheduling.JobConfigurationService;
 import org.hisp.dhis.scheduling.SchedulingManager;
 import org.hisp.dhis.setting.SystemSettingManager;
@@ -46,13 +48,18 @@ import org.hisp.dhis.startup.ConfigurationPopulator;
 import org.hisp.dhis.startup.DefaultAdminUserPopulator;
 import org.hisp.dhis.startup.I18nLocalePopulator;
 import org.hisp.dhis.startup.ModelUpgrader;
+import org.hisp.dhis.startup.OrganisationUnitSpatialIndexPopulator;
+import org.hisp.dhis.startup.OutboundProgramMessageResender;
 import org.hisp.dhis.startup.SchedulerStart;
 import org.hisp.dhis.startup.SettingUpgrader;
+import org.hisp.dhis.startup.TrackedEntityAttributeValueTokenIndexPopulator;
 import org.hisp.dhis.startup.TwoFAPopulator;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Luciano Fiandesio
@@ -66,6 +73,7 @@ public class StartupConfig
         PeriodTypePopulator populator = new PeriodTypePopulator( periodStore, sessionFactory );
         populator.setName( "PeriodTypePopulator" );
         populator.setRunlevel( 3 );
+        populator.setParallel( true );
         return populator;
     }
 
@@ -75,6 +83,7 @@ public class StartupConfig
         TwoFAPopulator populator = new TwoFAPopulator( userService, currentUserService );
         populator.setName( "TwoFAPopulator" );
         populator.setRunlevel( 3 );
+        populator.setParallel( true );
         populator.setSkipInTests( true );
         return populator;
     }
@@ -143,6 +152,41 @@ public class StartupConfig
         return upgrader;
     }
 
+    @Bean( "org.hisp.dhis.startup.OrganisationUnitSpatialIndexPopulator" )
+    public OrganisationUnitSpatialIndexPopulator organisationUnitSpatialIndexPopulator(
+        OrganisationUnitSpatialIndex spatialIndex )
+    {
+        OrganisationUnitSpatialIndexPopulator populator = new OrganisationUnitSpatialIndexPopulator( spatialIndex );
+        populator.setName( "OrganisationUnitSpatialIndexPopulator" );
+        populator.setRunlevel( 14 );
+        populator.setSkipInTests( true );
+        populator.setDeferred( true );
+        return populator;
+    }
+
+    @Bean( "org.hisp.dhis.startup.TrackedEntityAttributeValueTokenIndexPopulator" )
+    public TrackedEntityAttributeValueTokenIndexPopulator trackedEntityAttributeValueTokenIndexPopulator(
+        JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, DhisConfigurationProvider config )
+    {
+        TrackedEntityAttributeValueTokenIndexPopulator populator = new TrackedEntityAttributeValueTokenIndexPopulator(
+            jdbcTemplate, transactionTemplate, config );
+        populator.setName( "TrackedEntityAttributeValueTokenIndexPopulator" );
+        populator.setRunlevel( 14 );
+        populator.setSkipInTests( true );
+        return populator;
+    }
+
+    @Bean( "org.hisp.dhis.startup.OutboundProgramMessageResender" )
+    public OutboundProgramMessageResender outboundProgramMessageResender(
+        ProgramMessageService programMessageService )
+    {
+        OutboundProgramMessageResender resender = new OutboundProgramMessageResender( programMessageService );
+        resender.setName( "OutboundProgramMessageResender" );
+        resender.setRunlevel( 15 );
+        resender.setSkipInTests( true );
+        return resender;
+    }
+
     @Bean
     public SchedulerStart schedulerStart( SystemSettingManager systemSettingManager,
         JobConfigurationService jobConfigurationService, SchedulingManager schedulingManager,
@@ -498,19 +498,10 @@ public class DefaultDataApprovalService
     {
         Map<String, DataApprovalStatus> statusMap = getStatusMap( dataApprovalList );
 
-        DataApprovalPermissionsEvaluator permissionsEvaluator = makePermissionsEvaluator();
-
         Map<DataApproval, DataApprovalStatus> returnMap = new HashMap<>();
 
         for ( DataApproval da : dataApprovalList )
         {
-            DataApprovalStatus status = statusMap.get( daKey( da ) );
-
-            if ( status != null )
-            {
-                permissionsEvaluator.evaluatePermissions( status, da.getWorkflow() );
-            }
-
             returnMap.put( da, statusMap.get( daKey( da ) ) );
         }
 
@@ -570,7 +561,10 @@ public class DefaultDataApprovalService
     public List<DataApprovalStatus> getUserDataApprovalsAndPermissions( DataApprovalWorkflow workflow,
         Period period, OrganisationUnit orgUnit, CategoryCombo attributeCombo )
     {
-        List<DataApprovalStatus> statusList = dataApprovalStore.getDataApprovalStatuses(
+        // Read-only listing, permissions are evaluated again from uncached
+        // statuses when an approval action is performed
+
+        List<DataApprovalStatus> statusList = dataApprovalStore.getCachedDataApprovalStatuses(
             workflow, period, orgUnit == null ? null : Lists.newArrayList( orgUnit ),
             orgUnit == null ? 0 : orgUnit.getHierarchyLevel(), attributeCombo, null, dataApprovalLevelService
                 .getUserDataApprovalLevelsOrLowestLevel( currentUserService.getCurrentUser(), workflow ),
@@ -672,7 +666,12 @@ public class DefaultDataApprovalService
 
     /**
      * Returns a mapping from data approval key to data approval status for the
-     * given list of data approvals.
+     * given list of data approvals. The statuses for all organisation units of
+     * the same level are fetched together, so the number of queries depends on
+     * the number of distinct workflows, periods and levels only.
+     *
+     * Organisation units outside the data view hierarchy of the current user
+     * are left out, as they have no approval status for the user.
      */
     private Map<String, DataApprovalStatus> getStatusMap( List<DataApproval> dataApprovalList )
     {
@@ -680,6 +679,9 @@ public class DefaultDataApprovalService
 
         DataApprovalPermissionsEvaluator evaluator = makePermissionsEvaluator();
 
+        Set<OrganisationUnit> userOrgUnits = currentUserService.getCurrentUser()
+            .getDataViewOrganisationUnitsWithFallback();
+
         ListMap<String, DataApproval> listMap = getIndexedListMap( dataApprovalList );
 
         for ( Map.Entry<String, List<DataApproval>> entry : listMap.entrySet() )
@@ -687,8 +689,14 @@ public class DefaultDataApprovalService
             List<DataApproval> dataApprovals = entry.getValue();
 
             Set<OrganisationUnit> orgUnits = dataApprovals.stream().map( DataApproval::getOrganisationUnit )
+                .filter( ou -> ou.isDescendant( userOrgUnits ) )
                 .collect( Collectors.toSet() );
 
+            if ( orgUnits.isEmpty() )
+            {
+                continue;
+            }
+
             DataApproval da = dataApprovals.get( 0 );
 
             List<DataApprovalStatus> statuses = dataApprovalStore.getDataApprovalStatuses( da.getWorkflow(),
@@ -730,14 +738,15 @@ public class DefaultDataApprovalService
     }
 
     /**
-     * Returns a key consisting of organisation unit, period, and workflow.
-     * Approval status with these three values in common can be fetched in one
-     * call for many values of attributeOptionCombo.
+     * Returns a key consisting of organisation unit level, period, and
+     * workflow. Approval status with these three values in common can be
+     * fetched in one call for many organisation units and values of
+     * attributeOptionCombo.
      */
     private String statusKey( DataApproval approval )
     {
         return approval == null ? null
-            : approval.getOrganisationUnit().getId() +
+            : approval.getOrganisationUnit().getHierarchyLevel() +
                 IdentifiableObjectUtils.SEPARATOR + approval.getPeriod().getId() +
                 IdentifiableObjectUtils.SEPARATOR + approval.getWorkflow().getId();
     }
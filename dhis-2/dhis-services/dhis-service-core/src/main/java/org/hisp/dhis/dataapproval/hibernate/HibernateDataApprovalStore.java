@@ -38,6 +38,7 @@ import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_WAITING;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +56,7 @@ import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.dataapproval.DataApproval;
 import org.hisp.dhis.dataapproval.DataApprovalLevel;
@@ -97,6 +99,8 @@ public class HibernateDataApprovalStore
 
     private final Cache<Boolean> isApprovedCache;
 
+    private final Cache<List<DataApprovalStatus>> approvalStatusCache;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -132,6 +136,7 @@ public class HibernateDataApprovalStore
         this.systemSettingManager = systemSettingManager;
         this.statementBuilder = statementBuilder;
         this.isApprovedCache = cacheProvider.createIsDataApprovedCache();
+        this.approvalStatusCache = cacheProvider.createDataApprovalStatusCache();
     }
 
     @Override
@@ -148,6 +153,7 @@ public class HibernateDataApprovalStore
     public void addDataApproval( DataApproval dataApproval )
     {
         isApprovedCache.invalidateAll();
+        approvalStatusCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -158,6 +164,7 @@ public class HibernateDataApprovalStore
     public void updateDataApproval( DataApproval dataApproval )
     {
         isApprovedCache.invalidateAll();
+        approvalStatusCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -168,6 +175,7 @@ public class HibernateDataApprovalStore
     public void deleteDataApproval( DataApproval dataApproval )
     {
         isApprovedCache.invalidateAll();
+        approvalStatusCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -178,6 +186,7 @@ public class HibernateDataApprovalStore
     public void deleteDataApprovals( OrganisationUnit organisationUnit )
     {
         isApprovedCache.invalidateAll();
+        approvalStatusCache.invalidateAll();
 
         String hql = "delete from DataApproval d where d.organisationUnit = :unit";
 
@@ -250,6 +259,58 @@ public class HibernateDataApprovalStore
         return jdbcTemplate.queryForList( sql ).size() > 0;
     }
 
+    @Override
+    public List<DataApprovalStatus> getCachedDataApprovalStatuses( DataApprovalWorkflow workflow,
+        Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
+        CategoryCombo attributeCombo, Set<CategoryOptionCombo> attributeOptionCombos,
+        List<DataApprovalLevel> userApprovalLevels, Map<Integer, DataApprovalLevel> levelMap )
+    {
+        String cacheKey = getStatusCacheKey( workflow, period, orgUnits, orgUnitLevel, attributeCombo,
+            attributeOptionCombos, userApprovalLevels );
+
+        List<DataApprovalStatus> statuses = approvalStatusCache.get( cacheKey,
+            key -> getDataApprovalStatuses( workflow, period, orgUnits, orgUnitLevel, attributeCombo,
+                attributeOptionCombos, userApprovalLevels, levelMap ) )
+            .orElseGet( ArrayList::new );
+
+        // Callers set permissions and approval details on the statuses, so
+        // return copies to keep the cached statuses unchanged
+
+        return statuses.stream()
+            .map( DataApprovalStatus::new )
+            .collect( Collectors.toList() );
+    }
+
+    /**
+     * Returns a cache key for approval statuses, consisting of the current
+     * user and the identifiers of all query parameters. The statuses depend on
+     * the user through data view org units, sharing and category dimension
+     * constraints.
+     */
+    private String getStatusCacheKey( DataApprovalWorkflow workflow, Period period,
+        Collection<OrganisationUnit> orgUnits, int orgUnitLevel, CategoryCombo attributeCombo,
+        Set<CategoryOptionCombo> attributeOptionCombos, List<DataApprovalLevel> userApprovalLevels )
+    {
+        return StringUtils.joinWith( ":",
+            currentUserService.getCurrentUsername(),
+            workflow.getUid(),
+            period.getPeriodType().getName(),
+            period.getIsoDate(),
+            orgUnitLevel,
+            orgUnits == null ? null : getSortedUids( orgUnits ),
+            attributeCombo == null ? null : attributeCombo.getUid(),
+            attributeOptionCombos == null ? null : getSortedUids( attributeOptionCombos ),
+            userApprovalLevels == null ? null : getSortedUids( userApprovalLevels ) );
+    }
+
+    private String getSortedUids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects.stream()
+            .map( o -> o == null ? null : o.getUid() )
+            .sorted( Comparator.nullsFirst( Comparator.naturalOrder() ) )
+            .collect( Collectors.joining( "," ) );
+    }
+
     @Override
     public List<DataApprovalStatus> getDataApprovalStatuses( DataApprovalWorkflow workflow,
         Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
@@ -415,7 +476,10 @@ public class HibernateDataApprovalStore
         {
             orgUnitIds = StringUtils.join( IdentifiableObjectUtils.getIdentifiers( orgUnits ), "," );
 
-            highestApprovedOrgUnitCompare = "da.organisationunitid in (" + orgUnitIds + ") ";
+            // Each org unit only has the approvals made for itself, also when
+            // several org units are fetched together
+
+            highestApprovedOrgUnitCompare = "da.organisationunitid = o.organisationunitid ";
         }
         else
         {
@@ -36,12 +36,18 @@ import java.util.Date;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
-import lombok.AllArgsConstructor;
+import java.util.Optional;
+import java.util.function.Function;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
 import org.hibernate.query.Query;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.schema.RelativePropertyContext;
 import org.hisp.dhis.schema.Schema;
@@ -59,7 +65,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * @author Jan Bernitt
  */
 @Service
-@AllArgsConstructor
 public class DefaultGistService implements GistService
 {
 
@@ -81,6 +86,24 @@ public class DefaultGistService implements GistService
 
     private final ObjectMapper jsonMapper;
 
+    /**
+     * HQL of previously built queries by {@link GistBuilder#createCacheKey()}.
+     */
+    private final Cache<String> hqlCache;
+
+    public DefaultGistService( SessionFactory sessionFactory, SchemaService schemaService, UserService userService,
+        CurrentUserService currentUserService, AclService aclService, ObjectMapper jsonMapper,
+        CacheProvider cacheProvider )
+    {
+        this.sessionFactory = sessionFactory;
+        this.schemaService = schemaService;
+        this.userService = userService;
+        this.currentUserService = currentUserService;
+        this.aclService = aclService;
+        this.jsonMapper = jsonMapper;
+        this.hqlCache = cacheProvider.createGistHqlCache();
+    }
+
     private Session getSession()
     {
         return sessionFactory.getCurrentSession();
@@ -100,8 +123,9 @@ public class DefaultGistService implements GistService
         new GistValidator( query, context, access ).validateQuery();
         GistBuilder queryBuilder = createFetchBuilder( query, context, access,
             this::getUserGroupIdsByUserId );
+        String hql = getCachedHQL( "fetch:", queryBuilder, GistBuilder::buildFetchHQL );
         List<Object[]> rows = fetchWithParameters( query, queryBuilder,
-            getSession().createQuery( queryBuilder.buildFetchHQL(), Object[].class ) );
+            getSession().createQuery( hql, Object[].class ) );
         queryBuilder.transform( rows );
         return rows;
     }
@@ -128,8 +152,14 @@ public class DefaultGistService implements GistService
                 RelativePropertyContext context = createPropertyContext( query );
                 GistBuilder countBuilder = createCountBuilder( query, context, access,
                     this::getUserGroupIdsByUserId );
-                total = countWithParameters( countBuilder,
-                    getSession().createQuery( countBuilder.buildCountHQL(), Long.class ) );
+                total = query.isTotalEstimate() && countBuilder.isTotalEstimable()
+                    ? estimateTotal( query.getElementType() )
+                    : null;
+                if ( total == null )
+                {
+                    String hql = getCachedHQL( "count:", countBuilder, GistBuilder::buildCountHQL );
+                    total = countWithParameters( countBuilder, getSession().createQuery( hql, Long.class ) );
+                }
             }
         }
         if ( schema.haveApiEndpoint() )
@@ -137,12 +167,26 @@ public class DefaultGistService implements GistService
             URI baseURL = GistPager.computeBaseURL( query, params, schemaService::getDynamicSchema );
             if ( page > 1 )
             {
-                prev = UriComponentsBuilder.fromUri( baseURL ).replaceQueryParam( "page", page - 1 ).build().toString();
+                UriComponentsBuilder prevURL = UriComponentsBuilder.fromUri( baseURL )
+                    .replaceQueryParam( "page", page - 1 );
+                if ( query.isKeysetPaging() )
+                {
+                    // previous page uses offset, next page continues keyset
+                    prevURL.replaceQueryParam( "after", "" );
+                }
+                prev = prevURL.build().toString();
             }
             if ( total != null && query.getPageOffset() + rows.size() < total
                 || total == null && query.getPageSize() == rows.size() )
             {
-                next = UriComponentsBuilder.fromUri( baseURL ).replaceQueryParam( "page", page + 1 ).build().toString();
+                UriComponentsBuilder nextURL = UriComponentsBuilder.fromUri( baseURL )
+                    .replaceQueryParam( "page", page + 1 );
+                if ( query.isKeysetPaging() && !rows.isEmpty() )
+                {
+                    Object[] lastRow = (Object[]) rows.get( rows.size() - 1 );
+                    nextURL.replaceQueryParam( "after", lastRow[lastRow.length - 1] );
+                }
+                next = nextURL.build().toString();
             }
         }
         return new GistPager( page, query.getPageSize(), total, prev, next );
@@ -216,11 +260,65 @@ public class DefaultGistService implements GistService
         return new RelativePropertyContext( query.getElementType(), schemaService::getDynamicSchema );
     }
 
+    /**
+     * Returns the HQL for the query of the builder, reusing HQL built before
+     * for queries of the same shape. The builder is always prepared to
+     * transform the result rows.
+     */
+    private String getCachedHQL( String type, GistBuilder builder, Function<GistBuilder, String> buildHQL )
+    {
+        String key = builder.createCacheKey();
+        if ( key == null )
+        {
+            return buildHQL.apply( builder );
+        }
+        Optional<String> cached = hqlCache.getIfPresent( type + key );
+        if ( cached.isPresent() )
+        {
+            builder.prepareTransform();
+            return cached.get();
+        }
+        String hql = buildHQL.apply( builder );
+        hqlCache.put( type + key, hql );
+        return hql;
+    }
+
+    /**
+     * Estimates the number of rows in the table of the given type from the
+     * table statistics of the database.
+     *
+     * @return the estimate, or null if no statistics are available or the
+     *         database is not PostgreSQL
+     */
+    private Integer estimateTotal( Class<?> elementType )
+    {
+        SessionFactoryImplementor factory = sessionFactory.unwrap( SessionFactoryImplementor.class );
+        if ( !(factory.getJdbcServices().getDialect() instanceof PostgreSQL81Dialect) )
+        {
+            return null;
+        }
+        EntityPersister persister = factory.getMetamodel().entityPersister( elementType );
+        if ( !(persister instanceof AbstractEntityPersister) )
+        {
+            return null;
+        }
+        String table = ((AbstractEntityPersister) persister).getTableName();
+        List<?> estimate = getSession()
+            .createNativeQuery( "select cast(reltuples as bigint) from pg_class where relname = :table" )
+            .setParameter( "table", table.toLowerCase() )
+            .list();
+        if ( estimate.isEmpty() || ((Number) estimate.get( 0 )).longValue() <= 0 )
+        {
+            return null;
+        }
+        return (int) Math.min( Integer.MAX_VALUE, ((Number) estimate.get( 0 )).longValue() );
+    }
+
     private <T> List<T> fetchWithParameters( GistQuery gistQuery, GistBuilder builder, Query<T> query )
     {
         builder.addFetchParameters( query::setParameter, this::parseFilterArgument );
         query.setMaxResults( Math.max( 1, gistQuery.getPageSize() ) );
-        query.setFirstResult( gistQuery.getPageOffset() );
+        query.setFirstResult( gistQuery.isAfterElement() ? 0 : gistQuery.getPageOffset() );
         query.setCacheable( false );
         return query.list();
     }
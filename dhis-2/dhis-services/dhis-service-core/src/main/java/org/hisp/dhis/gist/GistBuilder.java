@@ -61,8 +61,10 @@ import lombok.RequiredArgsConstructor;
 import org.hisp.dhis.attribute.AttributeValue;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.gist.GistQuery.Comparison;
+import org.hisp.dhis.gist.GistQuery.Direction;
 import org.hisp.dhis.gist.GistQuery.Field;
 import org.hisp.dhis.gist.GistQuery.Filter;
+import org.hisp.dhis.gist.GistQuery.Order;
 import org.hisp.dhis.gist.GistQuery.Owner;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
@@ -286,11 +288,78 @@ final class GistBuilder
      * HQL query building...
      */
 
+    /**
+     * Sets up the post processing of result rows without building the HQL.
+     * This is used when the HQL for the query has been built before.
+     */
+    public void prepareTransform()
+    {
+        createFieldsHQL();
+    }
+
+    /**
+     * A key for the HQL built for the query. Queries with equal keys result in
+     * the same HQL as they only differ in the parameter values.
+     *
+     * @return the key, or null if the HQL should not be reused
+     */
+    public String createCacheKey()
+    {
+        if ( query.getFilters().stream().anyMatch( f -> f.getOperator().isAccessCompare() ) )
+        {
+            // access filters inline the groups of the user filtered by
+            return null;
+        }
+        StringBuilder key = new StringBuilder( query.getElementType().getName() );
+        Owner owner = query.getOwner();
+        if ( owner != null )
+        {
+            key.append( '|' ).append( owner.getType().getName() ).append( '.' )
+                .append( owner.getCollectionProperty() ).append( query.isInverse() ? "!" : "" );
+        }
+        key.append( '|' );
+        for ( Field f : query.getFields() )
+        {
+            key.append( f.getPropertyPath() ).append( ':' ).append( f.getTransformation() )
+                .append( ':' ).append( f.getTransformationArgument() )
+                .append( f.isAttribute() ? ":a" : "" ).append( ',' );
+        }
+        key.append( '|' ).append( query.isAnyFilter() ? "or" : "and" );
+        for ( Filter f : query.getFilters() )
+        {
+            key.append( f.getPropertyPath() ).append( ':' ).append( f.getOperator() )
+                .append( f.isAttribute() ? ":a" : "" ).append( ',' );
+        }
+        key.append( '|' ).append( query.getOrders() );
+        key.append( '|' ).append( query.isKeysetPaging() ).append( query.isAfterElement() );
+        key.append( '|' ).append( access.isSuperuser() ? "superuser" : access.createAccessFilterHQL( "e" ) );
+        return key.toString();
+    }
+
+    /**
+     * @return true, if the total number of matches equals the number of rows
+     *         in the element table so that it can be estimated from the table
+     *         statistics
+     */
+    public boolean isTotalEstimable()
+    {
+        return query.getOwner() == null && query.getFilters().isEmpty() && !isFilterBySharing( context );
+    }
+
     public String buildFetchHQL()
     {
         String fields = createFieldsHQL();
+        if ( query.isKeysetPaging() )
+        {
+            // the UID of the last row is the cursor for the next page
+            fields += ", e.uid";
+        }
         String accessFilters = createAccessFilterHQL( context, "e" );
         String userFilters = createFiltersHQL();
+        if ( query.isAfterElement() )
+        {
+            userFilters = "(" + userFilters + ") and (" + createKeysetFilterHQL() + ")";
+        }
         String orders = createOrdersHQL();
         String elementTable = query.getElementType().getSimpleName();
         Owner owner = query.getOwner();
@@ -794,9 +863,43 @@ final class GistBuilder
 
     private String createOrdersHQL()
     {
-        return join( query.getOrders(), ",", "e.id asc",
+        String orders = join( query.getOrders(), ",", "e.id asc",
             ( index, order ) -> " e." + getMemberPath( order.getPropertyPath() ) + " "
                 + order.getDirection().name().toLowerCase() );
+        // keyset paging needs a total order, the id breaks ties
+        return query.isKeysetPaging() && !query.getOrders().isEmpty() ? orders + ", e.id asc" : orders;
+    }
+
+    /**
+     * Creates the condition for elements following the
+     * {@link GistQuery#getAfter()} element in the order of the query. Each
+     * order property is compared with the value of the after element so that
+     * the database can seek to the start of the page using an index.
+     */
+    private String createKeysetFilterHQL()
+    {
+        List<String> members = new ArrayList<>();
+        List<String> operators = new ArrayList<>();
+        for ( Order order : query.getOrders() )
+        {
+            members.add( getMemberPath( order.getPropertyPath() ) );
+            operators.add( order.getDirection() == Direction.DESC ? "<" : ">" );
+        }
+        members.add( ID_PROPERTY );
+        operators.add( ">" );
+        String elementTable = query.getElementType().getSimpleName();
+        String condition = null;
+        for ( int i = members.size() - 1; i >= 0; i-- )
+        {
+            String member = "e." + members.get( i );
+            String afterValue = String.format( "(select k_%1$d.%2$s from %3$s k_%1$d where k_%1$d.uid = :AfterId)",
+                i, members.get( i ), elementTable );
+            String compare = member + " " + operators.get( i ) + " " + afterValue;
+            condition = condition == null
+                ? compare
+                : String.format( "%s or (%s = %s and (%s))", compare, member, afterValue, condition );
+        }
+        return condition;
     }
 
     private String createOperatorLeftSideHQL( Comparison operator )
@@ -892,6 +995,10 @@ final class GistBuilder
                 dest.accept( "p_" + field.getPropertyPath(), field.getTransformationArgument() );
             }
         }
+        if ( query.isAfterElement() )
+        {
+            dest.accept( "AfterId", query.getAfter() );
+        }
         addCountParameters( dest, argumentParser );
     }
 
@@ -120,6 +120,23 @@ public final class GistQuery
     @JsonProperty
     private final boolean total;
 
+    /**
+     * Use an estimate for the total match count when it can be determined
+     * cheaply ({@code total=estimate}). Default false.
+     */
+    @JsonProperty
+    private final boolean totalEstimate;
+
+    /**
+     * Keyset paging: the UID of the last element of the previous page. When
+     * non-empty the page starts right after this element in query order
+     * instead of at the {@link #pageOffset}. An empty value requests keyset
+     * paging starting from the {@link #pageOffset}. When {@code null} paging
+     * is offset based only.
+     */
+    @JsonProperty
+    private final String after;
+
     private final String contextRoot;
 
     private final Locale translationLocale;
@@ -209,14 +226,34 @@ public final class GistQuery
         return isAbsoluteUrls() ? getContextRoot() : "";
     }
 
+    /**
+     * @return true, if the next page links should use keyset paging
+     */
+    public boolean isKeysetPaging()
+    {
+        return after != null;
+    }
+
+    /**
+     * @return true, if the page starts after the element given by
+     *         {@link #after} instead of at the {@link #pageOffset}
+     */
+    public boolean isAfterElement()
+    {
+        return after != null && !after.isEmpty();
+    }
+
     public GistQuery with( NamedParams params )
     {
         int page = abs( params.getInt( "page", 1 ) );
         int size = Math.min( 1000, abs( params.getInt( "pageSize", 50 ) ) );
+        boolean totalEstimate = "estimate".equalsIgnoreCase( params.getString( "total", "" ) );
         return toBuilder().pageSize( size ).pageOffset( Math.max( 0, page - 1 ) * size )
+            .after( params.getString( "after", null ) )
             .translate( params.getBoolean( "translate", true ) )
             .inverse( params.getBoolean( "inverse", false ) )
-            .total( params.getBoolean( "total", false ) )
+            .total( totalEstimate || params.getBoolean( "total", false ) )
+            .totalEstimate( totalEstimate )
             .absoluteUrls( params.getBoolean( "absoluteUrls", false ) )
             .headless( params.getBoolean( "headless", false ) )
             .describe( params.getBoolean( "describe", false ) )
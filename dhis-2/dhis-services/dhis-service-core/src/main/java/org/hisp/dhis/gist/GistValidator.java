@@ -34,10 +34,12 @@ import java.util.List;
 
 import lombok.AllArgsConstructor;
 
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.PrimaryKeyObject;
 import org.hisp.dhis.gist.GistQuery.Comparison;
 import org.hisp.dhis.gist.GistQuery.Field;
 import org.hisp.dhis.gist.GistQuery.Filter;
+import org.hisp.dhis.gist.GistQuery.Order;
 import org.hisp.dhis.gist.GistQuery.Owner;
 import org.hisp.dhis.hibernate.exception.ReadAccessDeniedException;
 import org.hisp.dhis.schema.Property;
@@ -66,6 +68,34 @@ final class GistValidator
         query.getFilters().forEach( filter -> validateFilter( filter, context ) );
         query.getOrders().forEach( order -> validateOrder( context.resolveMandatory( order.getPropertyPath() ) ) );
         query.getFields().forEach( field -> validateField( field, context ) );
+        validateKeysetPaging();
+    }
+
+    /**
+     * Keyset paging compares the order properties of the elements with those
+     * of the {@link GistQuery#getAfter()} element. This requires identifiable
+     * elements and order properties that are never null.
+     */
+    private void validateKeysetPaging()
+    {
+        if ( !query.isKeysetPaging() )
+        {
+            return;
+        }
+        if ( !IdentifiableObject.class.isAssignableFrom( query.getElementType() ) )
+        {
+            throw new IllegalArgumentException( String.format( "Keyset paging is not supported for type %s.",
+                query.getElementType().getSimpleName() ) );
+        }
+        for ( Order order : query.getOrders() )
+        {
+            Property property = context.resolveMandatory( order.getPropertyPath() );
+            if ( !isNonNestedPath( order.getPropertyPath() ) || !property.isRequired() )
+            {
+                throw createIllegalProperty( property,
+                    "Property `%s` cannot be used as order property with keyset paging." );
+            }
+        }
     }
 
     /**
@@ -49,6 +49,8 @@ import org.hisp.dhis.util.DateUtils;
 import org.joda.time.DateTime;
 import org.joda.time.Days;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 
@@ -119,6 +121,15 @@ public abstract class BaseNotificationMessageRenderer<T>
         .put( ExpressionType.DATA_ELEMENT, ( entity, keys ) -> resolveDataElementValues( keys, entity ) )
         .build();
 
+    /**
+     * The expressions found in a template only depend on its text, so they are
+     * extracted once per distinct subject and message text rather than for
+     * every rendered entity.
+     */
+    private final Cache<String, Map<ExpressionType, Set<String>>> expressionsByTemplate = CacheBuilder.newBuilder()
+        .maximumSize( 1000 )
+        .build();
+
     protected enum ExpressionType
     {
         VARIABLE( VARIABLE_PATTERN, VARIABLE_CONTENT_PATTERN ),
@@ -154,7 +165,8 @@ public abstract class BaseNotificationMessageRenderer<T>
     {
         final String collatedTemplate = template.getSubjectTemplate() + " " + template.getMessageTemplate();
 
-        Map<String, String> expressionToValueMap = extractExpressionsByType( collatedTemplate ).entrySet().stream()
+        Map<String, String> expressionToValueMap = expressionsByTemplate.asMap()
+            .computeIfAbsent( collatedTemplate, this::extractExpressionsByType ).entrySet().stream()
             .map( entry -> resolveValuesFromExpressions( entry.getValue(), entry.getKey(), entity ) )
             .collect( HashMap::new, Map::putAll, Map::putAll );
 
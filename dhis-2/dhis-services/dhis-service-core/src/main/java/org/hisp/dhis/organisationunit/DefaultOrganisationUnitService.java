@@ -39,7 +39,9 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
@@ -101,10 +103,13 @@ public class DefaultOrganisationUnitService
 
     private final UserSettingService userSettingService;
 
+    private final OrganisationUnitSpatialIndex spatialIndex;
+
     public DefaultOrganisationUnitService( OrganisationUnitStore organisationUnitStore,
         DataSetService dataSetService, OrganisationUnitLevelStore organisationUnitLevelStore,
         CurrentUserService currentUserService, ConfigurationService configurationService,
-        UserSettingService userSettingService, CacheProvider cacheProvider )
+        UserSettingService userSettingService, CacheProvider cacheProvider,
+        OrganisationUnitSpatialIndex spatialIndex )
     {
         checkNotNull( organisationUnitStore );
         checkNotNull( dataSetService );
@@ -113,6 +118,7 @@ public class DefaultOrganisationUnitService
         checkNotNull( configurationService );
         checkNotNull( userSettingService );
         checkNotNull( cacheProvider );
+        checkNotNull( spatialIndex );
 
         this.organisationUnitStore = organisationUnitStore;
         this.dataSetService = dataSetService;
@@ -120,6 +126,7 @@ public class DefaultOrganisationUnitService
         this.currentUserService = currentUserService;
         this.configurationService = configurationService;
         this.userSettingService = userSettingService;
+        this.spatialIndex = spatialIndex;
         this.inUserOrgUnitHierarchyCache = cacheProvider.createInUserOrgUnitHierarchyCache();
         this.inUserOrgUnitSearchHierarchyCache = cacheProvider.createInUserSearchOrgUnitHierarchyCache();
         this.userCaptureOrgCountThresholdCache = cacheProvider.createUserCaptureOrgUnitThresholdCache();
@@ -857,6 +864,11 @@ public class DefaultOrganisationUnitService
     public List<OrganisationUnit> getOrganisationUnitWithinDistance( double longitude, double latitude,
         double distance )
     {
+        if ( spatialIndex.isLoaded() )
+        {
+            return organisationUnitStore.getById( spatialIndex.getWithinDistance( longitude, latitude, distance ) );
+        }
+
         List<OrganisationUnit> objects = organisationUnitStore
             .getWithinCoordinateArea( GeoUtils.getBoxShape( longitude, latitude, distance ) );
 
@@ -896,6 +908,11 @@ public class DefaultOrganisationUnitService
     {
         List<OrganisationUnit> orgUnits = new ArrayList<>();
 
+        if ( GeoUtils.checkGeoJsonPointValid( longitude, latitude ) && spatialIndex.isLoaded() )
+        {
+            return getOrganisationUnitByCoordinateFromIndex( longitude, latitude, topOrgUnitUid, targetLevel );
+        }
+
         if ( GeoUtils.checkGeoJsonPointValid( longitude, latitude ) )
         {
             OrganisationUnit topOrgUnit = null;
@@ -967,6 +984,46 @@ public class DefaultOrganisationUnitService
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Finds the lowest level organisation units covering the coordinate using
+     * the spatial index, in the same way as the database search: the top
+     * organisation unit is the single unit at the highest level above the
+     * lowest level which covers the coordinate.
+     */
+    private List<OrganisationUnit> getOrganisationUnitByCoordinateFromIndex( double longitude, double latitude,
+        String topOrgUnitUid, Integer targetLevel )
+    {
+        OrganisationUnit topOrgUnit = null;
+
+        if ( topOrgUnitUid != null && !topOrgUnitUid.isEmpty() )
+        {
+            topOrgUnit = getOrganisationUnit( topOrgUnitUid );
+        }
+        else
+        {
+            int stopLevel = getNumberOfOrganisationalLevels() - 1;
+
+            NavigableMap<Integer, List<Long>> orgUnitsByLevel = stopLevel < 1 ? new TreeMap<>()
+                : spatialIndex.getCovering( longitude, latitude, null, null ).subMap( 1, true, stopLevel, true );
+
+            if ( !orgUnitsByLevel.isEmpty() && orgUnitsByLevel.firstEntry().getValue().size() == 1 )
+            {
+                topOrgUnit = getOrganisationUnit( orgUnitsByLevel.firstEntry().getValue().get( 0 ) );
+            }
+        }
+
+        if ( topOrgUnit == null )
+        {
+            return new ArrayList<>();
+        }
+
+        NavigableMap<Integer, List<Long>> orgUnitsByLevel = spatialIndex.getCovering( longitude, latitude,
+            targetLevel, topOrgUnit.getPath() );
+
+        return orgUnitsByLevel.isEmpty() ? new ArrayList<>()
+            : organisationUnitStore.getById( orgUnitsByLevel.lastEntry().getValue() );
+    }
+
     /**
      * Searches organisation units until finding one with polygon containing
      * point.
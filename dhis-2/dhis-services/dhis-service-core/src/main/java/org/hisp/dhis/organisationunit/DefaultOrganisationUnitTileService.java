@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.system.util.GeoUtils;
+import org.hisp.dhis.user.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Serves organisation unit geometries as GeoJSON tiles. The simplified
+ * geometries of each zoom tier are maintained by the database in the
+ * {@code organisationunitgeometrytier} table whenever a geometry changes, and
+ * rendered tiles are cached per user data view hierarchy until an organisation
+ * unit change invalidates them.
+ * <p>
+ * Features are not clipped to the tile, so a feature spanning several tiles
+ * is included in each of them with the same identifier.
+ */
+@Service( "org.hisp.dhis.organisationunit.OrganisationUnitTileService" )
+public class DefaultOrganisationUnitTileService
+    implements OrganisationUnitTileService
+{
+    private static final int GEOJSON_DECIMALS = 6;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper jsonMapper;
+
+    private final Cache<String> tileCache;
+
+    public DefaultOrganisationUnitTileService( @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate,
+        ObjectMapper jsonMapper, CacheProvider cacheProvider )
+    {
+        checkNotNull( jdbcTemplate );
+        checkNotNull( jsonMapper );
+        checkNotNull( cacheProvider );
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonMapper = jsonMapper;
+        this.tileCache = cacheProvider.createGeoFeatureTileCache();
+    }
+
+    // -------------------------------------------------------------------------
+    // OrganisationUnitTileService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getTile( int z, int x, int y, Integer level, String parent, User user )
+    {
+        validateTile( z, x, y );
+
+        if ( parent != null && !CodeGenerator.isValidUid( parent ) )
+        {
+            throw new IllegalQueryException( "Parent is not a valid identifier: " + parent );
+        }
+
+        List<String> roots = getRootPaths( user );
+
+        String key = z + "/" + x + "/" + y + ":" + level + ":" + parent + ":"
+            + (roots == null ? "all" : String.join( ",", roots ));
+
+        return tileCache.get( key, k -> renderTile( z, x, y, level, parent, roots ) ).orElse( null );
+    }
+
+    @Override
+    public void invalidateTiles()
+    {
+        tileCache.invalidateAll();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the sorted paths of the data view hierarchy of the given user,
+     * or null if the user can view all organisation units.
+     */
+    private List<String> getRootPaths( User user )
+    {
+        if ( user == null || user.isSuper() )
+        {
+            return null;
+        }
+
+        return user.getDataViewOrganisationUnitsWithFallback().stream()
+            .map( OrganisationUnit::getPath )
+            .sorted()
+            .collect( Collectors.toList() );
+    }
+
+    private String renderTile( int z, int x, int y, Integer level, String parent, List<String> roots )
+    {
+        if ( roots != null && roots.isEmpty() )
+        {
+            return renderFeatures( new StringWriter(), generator -> {
+            } );
+        }
+
+        double[] bounds = getTileBounds( z, x, y );
+        Integer tier = getTier( z );
+
+        List<Object> args = new ArrayList<>();
+
+        String sql = "select ou.uid, ou.code, ou.name, ou.hierarchylevel, p.uid as parentuid, " +
+            "ST_AsGeoJSON(" + (tier != null ? "coalesce(t.geometry, ou.geometry)" : "ou.geometry") + ", "
+            + GEOJSON_DECIMALS + ") as geojson " +
+            "from organisationunit ou " +
+            "left join organisationunit p on ou.parentid = p.organisationunitid ";
+
+        if ( tier != null )
+        {
+            sql += "left join organisationunitgeometrytier t " +
+                "on t.organisationunitid = ou.organisationunitid and t.tier = ? ";
+            args.add( tier );
+        }
+
+        sql += "where ou.geometry && ST_MakeEnvelope(?, ?, ?, ?, " + GeoUtils.SRID + ") ";
+        args.add( bounds[0] );
+        args.add( bounds[1] );
+        args.add( bounds[2] );
+        args.add( bounds[3] );
+
+        if ( level != null )
+        {
+            sql += "and ou.hierarchylevel = ? ";
+            args.add( level );
+        }
+
+        if ( parent != null )
+        {
+            sql += "and ou.path like (select path from organisationunit where uid = ?) || '%' ";
+            args.add( parent );
+        }
+
+        if ( roots != null )
+        {
+            sql += "and (" + roots.stream().map( r -> "ou.path like ?" ).collect( Collectors.joining( " or " ) )
+                + ") ";
+            roots.forEach( r -> args.add( r + "%" ) );
+        }
+
+        String query = sql + "order by ou.hierarchylevel, ou.uid";
+
+        return renderFeatures( new StringWriter(), generator -> jdbcTemplate.query( query, rs -> {
+            try
+            {
+                generator.writeStartObject();
+                generator.writeStringField( "type", "Feature" );
+                generator.writeStringField( "id", rs.getString( "uid" ) );
+                generator.writeFieldName( "geometry" );
+                generator.writeRawValue( rs.getString( "geojson" ) );
+                generator.writeObjectFieldStart( "properties" );
+                generator.writeStringField( "name", rs.getString( "name" ) );
+                writeStringFieldIfNotNull( generator, "code", rs.getString( "code" ) );
+                generator.writeNumberField( "level", rs.getInt( "hierarchylevel" ) );
+                writeStringFieldIfNotNull( generator, "parent", rs.getString( "parentuid" ) );
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            catch ( IOException ex )
+            {
+                throw new UncheckedIOException( ex );
+            }
+        }, args.toArray() ) );
+    }
+
+    private String renderFeatures( StringWriter writer, FeatureWriter features )
+    {
+        try ( JsonGenerator generator = jsonMapper.getFactory().createGenerator( writer ) )
+        {
+            generator.writeStartObject();
+            generator.writeStringField( "type", "FeatureCollection" );
+            generator.writeArrayFieldStart( "features" );
+            features.write( generator );
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        catch ( IOException ex )
+        {
+            throw new UncheckedIOException( ex );
+        }
+
+        return writer.toString();
+    }
+
+    private static void writeStringFieldIfNotNull( JsonGenerator generator, String field, String value )
+        throws IOException
+    {
+        if ( value != null )
+        {
+            generator.writeStringField( field, value );
+        }
+    }
+
+    private static void validateTile( int z, int x, int y )
+    {
+        if ( z < 0 || z > MAX_ZOOM )
+        {
+            throw new IllegalQueryException( "Zoom level must be between 0 and " + MAX_ZOOM + ": " + z );
+        }
+
+        int tiles = 1 << z;
+
+        if ( x < 0 || x >= tiles || y < 0 || y >= tiles )
+        {
+            throw new IllegalQueryException( String.format( "Tile %d/%d/%d is out of range", z, x, y ) );
+        }
+    }
+
+    /**
+     * Returns the geometry tier for the given zoom level, or null if the full
+     * geometry should be used. Tiers match the tolerances of the
+     * {@code organisationunitgeometrytier} table.
+     */
+    static Integer getTier( int z )
+    {
+        if ( z <= 4 )
+        {
+            return 0;
+        }
+        else if ( z <= 7 )
+        {
+            return 1;
+        }
+        else if ( z <= 10 )
+        {
+            return 2;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the bounds of the given web mercator tile in degrees as west,
+     * south, east and north.
+     */
+    static double[] getTileBounds( int z, int x, int y )
+    {
+        return new double[] {
+            tileToLongitude( x, z ),
+            tileToLatitude( y + 1, z ),
+            tileToLongitude( x + 1, z ),
+            tileToLatitude( y, z ) };
+    }
+
+    private static double tileToLongitude( int x, int z )
+    {
+        return x / Math.pow( 2, z ) * 360.0 - 180.0;
+    }
+
+    private static double tileToLatitude( int y, int z )
+    {
+        double n = Math.PI - 2.0 * Math.PI * y / Math.pow( 2, z );
+
+        return Math.toDegrees( Math.atan( Math.sinh( n ) ) );
+    }
+
+    @FunctionalInterface
+    private interface FeatureWriter
+    {
+        void write( JsonGenerator generator )
+            throws IOException;
+    }
+}
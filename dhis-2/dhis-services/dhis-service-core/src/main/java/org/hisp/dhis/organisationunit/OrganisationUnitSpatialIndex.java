@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.util.GeoUtils;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory spatial index of organisation unit geometries, with one quadtree
+ * per hierarchy level. Serves the coordinate and distance lookups of the
+ * organisation unit service without database queries once loaded.
+ * <p>
+ * The index is loaded by a startup routine when enabled, and kept up to date
+ * from committed organisation unit changes. Lookups return identifiers only;
+ * callers load the organisation units they need.
+ */
+@Slf4j
+@Component
+public class OrganisationUnitSpatialIndex
+{
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory( new PrecisionModel(),
+        GeoUtils.SRID );
+
+    private final SessionFactory sessionFactory;
+
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    private final Map<Integer, Quadtree> levels = new TreeMap<>();
+
+    private volatile boolean loaded = false;
+
+    public OrganisationUnitSpatialIndex( SessionFactory sessionFactory, DhisConfigurationProvider config )
+    {
+        checkNotNull( sessionFactory );
+        checkNotNull( config );
+
+        this.sessionFactory = sessionFactory;
+        this.enabled = config.isEnabled( ConfigurationKey.ORGANISATION_UNIT_SPATIAL_INDEX );
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Indicates whether the index is loaded and can serve lookups.
+     */
+    public boolean isLoaded()
+    {
+        return loaded;
+    }
+
+    /**
+     * Loads the geometries of all organisation units into the index, replacing
+     * the current content.
+     */
+    public void load()
+    {
+        StatelessSession session = sessionFactory.openStatelessSession();
+
+        try
+        {
+            List<?> rows = session.createQuery( "select ou.id, ou.hierarchyLevel, ou.path, ou.geometry "
+                + "from OrganisationUnit ou where ou.geometry is not null" ).list();
+
+            lock.writeLock().lock();
+
+            try
+            {
+                entries.clear();
+                levels.clear();
+
+                for ( Object row : rows )
+                {
+                    Object[] values = (Object[]) row;
+
+                    put( new Entry( (Long) values[0], (Integer) values[1], (String) values[2],
+                        (Geometry) values[3] ) );
+                }
+
+                loaded = true;
+            }
+            finally
+            {
+                lock.writeLock().unlock();
+            }
+
+            log.info( "Loaded geometries of {} organisation units into the spatial index", rows.size() );
+        }
+        finally
+        {
+            session.close();
+        }
+    }
+
+    /**
+     * Adds or updates the given organisation unit. Organisation units without
+     * geometry are removed.
+     */
+    public void update( OrganisationUnit unit )
+    {
+        if ( !loaded )
+        {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try
+        {
+            remove( unit.getId() );
+
+            if ( unit.getGeometry() != null && unit.getHierarchyLevel() != null )
+            {
+                put( new Entry( unit.getId(), unit.getHierarchyLevel(), unit.getPath(), unit.getGeometry() ) );
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given organisation unit.
+     */
+    public void remove( OrganisationUnit unit )
+    {
+        if ( !loaded )
+        {
+            return;
+        }
+
+        lock.writeLock().lock();
+
+        try
+        {
+            remove( unit.getId() );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the identifiers of organisation units which geometry lies within
+     * the box around the given coordinate, and which coordinate is within the
+     * given distance. This is the in-memory equivalent of the box query and
+     * distance filter of the organisation unit service.
+     *
+     * @param longitude the longitude.
+     * @param latitude the latitude.
+     * @param distance the distance in meters.
+     * @return the identifiers.
+     */
+    public List<Long> getWithinDistance( double longitude, double latitude, double distance )
+    {
+        double[] box = GeoUtils.getBoxShape( longitude, latitude, distance );
+
+        Envelope envelope = new Envelope( box[3], box[1], box[2], box[0] );
+
+        Point2D center = new Point2D.Double( longitude, latitude );
+
+        List<Long> ids = new ArrayList<>();
+
+        lock.readLock().lock();
+
+        try
+        {
+            for ( Quadtree tree : levels.values() )
+            {
+                for ( Object item : tree.query( envelope ) )
+                {
+                    Entry entry = (Entry) item;
+
+                    if ( envelope.covers( entry.getGeometry().getEnvelopeInternal() ) && entry.getPoint() != null
+                        && GeoUtils.getDistanceBetweenTwoPoints( center, entry.getPoint() ) <= distance )
+                    {
+                        ids.add( entry.getId() );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return ids;
+    }
+
+    /**
+     * Returns the identifiers of organisation units at the given level with a
+     * polygon covering the given coordinate, optionally limited to the
+     * descendants of the organisation unit with the given path.
+     *
+     * @param longitude the longitude.
+     * @param latitude the latitude.
+     * @param level the hierarchy level, or null for all levels.
+     * @param parentPath the path of the parent, including the parent itself,
+     *        or null for all organisation units.
+     * @return identifiers by hierarchy level, ordered by level.
+     */
+    public NavigableMap<Integer, List<Long>> getCovering( double longitude, double latitude, Integer level,
+        String parentPath )
+    {
+        Point point = GEOMETRY_FACTORY.createPoint( new Coordinate( longitude, latitude ) );
+
+        NavigableMap<Integer, List<Long>> ids = new TreeMap<>();
+
+        lock.readLock().lock();
+
+        try
+        {
+            for ( Map.Entry<Integer, Quadtree> tree : levels.entrySet() )
+            {
+                if ( level != null && !level.equals( tree.getKey() ) )
+                {
+                    continue;
+                }
+
+                for ( Object item : tree.getValue().query( point.getEnvelopeInternal() ) )
+                {
+                    Entry entry = (Entry) item;
+
+                    if ( entry.isPolygon() && entry.isDescendantOf( parentPath )
+                        && entry.getGeometry().getEnvelopeInternal().covers( point.getCoordinate() )
+                        && entry.getGeometry().contains( point ) )
+                    {
+                        ids.computeIfAbsent( tree.getKey(), key -> new ArrayList<>() ).add( entry.getId() );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+
+        return ids;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods, called with the write lock held
+    // -------------------------------------------------------------------------
+
+    private void put( Entry entry )
+    {
+        entries.put( entry.getId(), entry );
+
+        levels.computeIfAbsent( entry.getLevel(), level -> new Quadtree() )
+            .insert( entry.getGeometry().getEnvelopeInternal(), entry );
+    }
+
+    private void remove( long id )
+    {
+        Entry entry = entries.remove( id );
+
+        if ( entry != null )
+        {
+            levels.get( entry.getLevel() ).remove( entry.getGeometry().getEnvelopeInternal(), entry );
+        }
+    }
+
+    /**
+     * Geometry of an organisation unit along with the coordinate used for
+     * distance calculations. Only points have a coordinate, as the coordinate
+     * of other geometries cannot be parsed by the database based lookup
+     * either.
+     */
+    @Getter
+    static class Entry
+    {
+        private final long id;
+
+        private final int level;
+
+        private final String path;
+
+        private final Geometry geometry;
+
+        private final Point2D point;
+
+        private final boolean polygon;
+
+        Entry( long id, int level, String path, Geometry geometry )
+        {
+            this.id = id;
+            this.level = level;
+            this.path = path;
+            this.geometry = geometry.copy();
+            this.point = geometry instanceof Point && !geometry.isEmpty()
+                ? new Point2D.Double( ((Point) geometry).getX(), ((Point) geometry).getY() )
+                : null;
+            this.polygon = FeatureType.getTypeFromName( geometry.getGeometryType() ) == FeatureType.POLYGON;
+        }
+
+        boolean isDescendantOf( String parentPath )
+        {
+            return parentPath == null || parentPath.equals( path )
+                || (path != null && path.startsWith( parentPath + "/" ));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit.hibernate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitSpatialIndex;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link OrganisationUnitSpatialIndex} up to date with committed
+ * organisation unit changes.
+ */
+@Slf4j
+@Component
+public class OrganisationUnitSpatialIndexListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    private final OrganisationUnitSpatialIndex spatialIndex;
+
+    public OrganisationUnitSpatialIndexListener( OrganisationUnitSpatialIndex spatialIndex )
+    {
+        checkNotNull( spatialIndex );
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            spatialIndex.update( (OrganisationUnit) event.getEntity() );
+        }
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            spatialIndex.update( (OrganisationUnit) event.getEntity() );
+        }
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            spatialIndex.remove( (OrganisationUnit) event.getEntity() );
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return spatialIndex.isEnabled();
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+        log.debug( "onPostInsertCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+        log.debug( "onPostUpdateCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+        log.debug( "onPostDeleteCommitFailed: " + event );
+    }
+}
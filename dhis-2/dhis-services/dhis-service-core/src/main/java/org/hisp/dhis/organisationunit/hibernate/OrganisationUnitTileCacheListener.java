@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit.hibernate;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitTileService;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Invalidates the tiles of the {@link OrganisationUnitTileService} when an
+ * organisation unit is added or deleted, or when a property rendered in the
+ * tiles is changed.
+ */
+@Slf4j
+@Component
+public class OrganisationUnitTileCacheListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    private static final Set<String> TILE_PROPERTIES = ImmutableSet.of( "name", "code", "parent", "path",
+        "hierarchyLevel", "geometry" );
+
+    private final OrganisationUnitTileService tileService;
+
+    public OrganisationUnitTileCacheListener( OrganisationUnitTileService tileService )
+    {
+        checkNotNull( tileService );
+        this.tileService = tileService;
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            tileService.invalidateTiles();
+        }
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit && isTilePropertyChanged( event ) )
+        {
+            tileService.invalidateTiles();
+        }
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        if ( event.getEntity() instanceof OrganisationUnit )
+        {
+            tileService.invalidateTiles();
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return true;
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+        log.debug( "onPostInsertCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+        log.debug( "onPostUpdateCommitFailed: " + event );
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+        log.debug( "onPostDeleteCommitFailed: " + event );
+    }
+
+    /**
+     * Indicates whether a property rendered in the tiles has changed. Updates
+     * without dirty checking are assumed to change the tiles.
+     */
+    private boolean isTilePropertyChanged( PostUpdateEvent event )
+    {
+        int[] dirtyProperties = event.getDirtyProperties();
+
+        if ( dirtyProperties == null )
+        {
+            return true;
+        }
+
+        String[] propertyNames = event.getPersister().getPropertyNames();
+
+        for ( int property : dirtyProperties )
+        {
+            if ( TILE_PROPERTIES.contains( propertyNames[property] ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -27,23 +27,54 @@
  */
 package org.hisp.dhis.outboundmessage;
 
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.message.MessageSender;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 /**
+ * Sends outbound message batches through the {@link MessageSender} of their
+ * {@link DeliveryChannel}.
+ * <p>
+ * Batches sent by {@link #sendBatchesAsync(List)} are delivered by a worker
+ * pool per channel, sized by {@code outbound.message.workers}. SMS and email
+ * delivery is throttled by a token bucket per channel, see
+ * {@code outbound.sms.rate_limit} and {@code outbound.email.rate_limit}. A
+ * batch of which no message could be sent is retried up to
+ * {@code outbound.message.max_attempts} times, waiting
+ * {@code outbound.message.retry_delay} seconds before the first retry and
+ * twice as long before each further one.
+ *
  * @author Halvdan Hoem Grelland
  */
 @Slf4j
 public class DefaultOutboundMessageBatchService
-    implements OutboundMessageBatchService
+    implements OutboundMessageBatchService, DisposableBean
 {
+    private static final Map<DeliveryChannel, ConfigurationKey> RATE_LIMIT_KEYS = ImmutableMap.of(
+        DeliveryChannel.SMS, ConfigurationKey.OUTBOUND_SMS_RATE_LIMIT,
+        DeliveryChannel.EMAIL, ConfigurationKey.OUTBOUND_EMAIL_RATE_LIMIT );
+
     // ---------------------------------------------------------------------
     // Dependencies
     // ---------------------------------------------------------------------
@@ -55,12 +86,44 @@ public class DefaultOutboundMessageBatchService
         this.messageSenders = messageSenders;
     }
 
+    private final Map<DeliveryChannel, ExecutorService> workers = new EnumMap<>( DeliveryChannel.class );
+
+    private final Map<DeliveryChannel, RateLimiter> rateLimiters = new EnumMap<>( DeliveryChannel.class );
+
+    private final ScheduledExecutorService retryScheduler;
+
+    private final int maxAttempts;
+
+    private final long retryDelayMillis;
+
     // ---------------------------------------------------------------------
     // Constructors
     // ---------------------------------------------------------------------
 
-    public DefaultOutboundMessageBatchService()
+    public DefaultOutboundMessageBatchService( DhisConfigurationProvider config )
     {
+        int poolSize = Math.max( 1,
+            Integer.parseInt( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_WORKERS ) ) );
+
+        for ( DeliveryChannel channel : DeliveryChannel.values() )
+        {
+            workers.put( channel, Executors.newFixedThreadPool( poolSize,
+                threadFactory( "OUTBOUND-" + channel.name() + "-%d" ) ) );
+
+            ConfigurationKey rateLimitKey = RATE_LIMIT_KEYS.get( channel );
+            double rateLimit = rateLimitKey != null ? Double.parseDouble( config.getProperty( rateLimitKey ) ) : 0;
+
+            if ( rateLimit > 0 )
+            {
+                rateLimiters.put( channel, RateLimiter.create( rateLimit ) );
+            }
+        }
+
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor( threadFactory( "OUTBOUND-RETRY-%d" ) );
+        this.maxAttempts = Math.max( 1,
+            Integer.parseInt( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_MAX_ATTEMPTS ) ) );
+        this.retryDelayMillis = TimeUnit.SECONDS.toMillis(
+            Long.parseLong( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_RETRY_DELAY ) ) );
     }
 
     // ---------------------------------------------------------------------
@@ -79,13 +142,135 @@ public class DefaultOutboundMessageBatchService
             .collect( Collectors.toList() );
     }
 
+    @Override
+    public CompletableFuture<List<OutboundMessageResponseSummary>> sendBatchesAsync(
+        List<OutboundMessageBatch> batches )
+    {
+        List<CompletableFuture<OutboundMessageResponseSummary>> futures = batches.stream()
+            .map( this::dispatch )
+            .collect( Collectors.toList() );
+
+        return CompletableFuture.allOf( futures.toArray( new CompletableFuture[0] ) )
+            .thenApply( v -> futures.stream().map( CompletableFuture::join ).collect( Collectors.toList() ) );
+    }
+
+    @Override
+    public void destroy()
+    {
+        retryScheduler.shutdownNow();
+        workers.values().forEach( ExecutorService::shutdownNow );
+    }
+
     // ---------------------------------------------------------------------
     // Supportive Methods
     // ---------------------------------------------------------------------
 
     private OutboundMessageResponseSummary send( OutboundMessageBatch batch )
+    {
+        OutboundMessageResponseSummary unavailable = checkSender( batch.getDeliveryChannel() );
+
+        if ( unavailable != null )
+        {
+            return unavailable;
+        }
+
+        MessageSender sender = messageSenders.get( batch.getDeliveryChannel() );
+
+        log.info( "Invoking message sender: " + sender.getClass().getSimpleName() );
+
+        return sender.sendMessageBatch( batch );
+    }
+
+    private CompletableFuture<OutboundMessageResponseSummary> dispatch( OutboundMessageBatch batch )
+    {
+        OutboundMessageResponseSummary unavailable = checkSender( batch.getDeliveryChannel() );
+
+        if ( unavailable != null )
+        {
+            return CompletableFuture.completedFuture( unavailable );
+        }
+
+        CompletableFuture<OutboundMessageResponseSummary> result = new CompletableFuture<>();
+
+        submit( batch, 1, result );
+
+        return result;
+    }
+
+    private void submit( OutboundMessageBatch batch, int attempt,
+        CompletableFuture<OutboundMessageResponseSummary> result )
+    {
+        try
+        {
+            workers.get( batch.getDeliveryChannel() ).execute( () -> deliver( batch, attempt, result ) );
+        }
+        catch ( RejectedExecutionException ex )
+        {
+            result.completeExceptionally( ex );
+        }
+    }
+
+    private void deliver( OutboundMessageBatch batch, int attempt,
+        CompletableFuture<OutboundMessageResponseSummary> result )
     {
         DeliveryChannel channel = batch.getDeliveryChannel();
+        RateLimiter rateLimiter = rateLimiters.get( channel );
+
+        if ( rateLimiter != null )
+        {
+            rateLimiter.acquire( Math.max( 1, batch.size() ) );
+        }
+
+        OutboundMessageResponseSummary summary;
+
+        try
+        {
+            summary = messageSenders.get( channel ).sendMessageBatch( batch );
+        }
+        catch ( Exception ex )
+        {
+            log.error( String.format( "Sending %s batch failed", channel ), ex );
+
+            summary = new OutboundMessageResponseSummary( ex.getMessage(), channel,
+                OutboundMessageBatchStatus.FAILED );
+            summary.setTotal( batch.size() );
+            summary.setFailed( batch.size() );
+        }
+
+        if ( isRetryable( summary ) && attempt < maxAttempts )
+        {
+            long delay = retryDelayMillis << (attempt - 1);
+
+            log.warn( String.format( "Sending %s batch failed in attempt %d of %d, retrying in %d ms",
+                channel, attempt, maxAttempts, delay ) );
+
+            try
+            {
+                retryScheduler.schedule( () -> submit( batch, attempt + 1, result ), delay, TimeUnit.MILLISECONDS );
+            }
+            catch ( RejectedExecutionException ex )
+            {
+                result.complete( summary );
+            }
+        }
+        else
+        {
+            result.complete( summary );
+        }
+    }
+
+    /**
+     * Only batches of which no message was sent are retried, so that
+     * recipients of a partially sent batch do not receive the message twice.
+     */
+    private boolean isRetryable( OutboundMessageResponseSummary summary )
+    {
+        return summary == null
+            || (summary.getBatchStatus() == OutboundMessageBatchStatus.FAILED && summary.getSent() == 0);
+    }
+
+    private OutboundMessageResponseSummary checkSender( DeliveryChannel channel )
+    {
         MessageSender sender = messageSenders.get( channel );
 
         if ( sender == null )
@@ -109,8 +294,14 @@ public class DefaultOutboundMessageBatchService
                 OutboundMessageBatchStatus.FAILED );
         }
 
-        log.info( "Invoking message sender: " + sender.getClass().getSimpleName() );
+        return null;
+    }
 
-        return sender.sendMessageBatch( batch );
+    private static ThreadFactory threadFactory( String nameFormat )
+    {
+        return new ThreadFactoryBuilder()
+            .setNameFormat( nameFormat )
+            .setDaemon( true )
+            .build();
     }
 }
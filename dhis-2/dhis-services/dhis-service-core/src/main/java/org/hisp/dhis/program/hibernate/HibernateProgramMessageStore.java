@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.program.hibernate;
 
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import javax.persistence.criteria.CriteriaBuilder;
@@ -90,6 +92,18 @@ public class HibernateProgramMessageStore
         return getList( builder, parameters );
     }
 
+    @Override
+    public List<ProgramMessage> claimOutboundMessages( Date processedBefore, int limit )
+    {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "update programmessage set processeddate = now() where id in (" +
+                "select id from programmessage where messagestatus = 'OUTBOUND' and processeddate < ? " +
+                "order by processeddate limit ? for update skip locked) returning id",
+            Long.class, processedBefore, limit );
+
+        return ids.isEmpty() ? Collections.emptyList() : getById( ids );
+    }
+
     @Override
     public boolean exists( String uid )
     {
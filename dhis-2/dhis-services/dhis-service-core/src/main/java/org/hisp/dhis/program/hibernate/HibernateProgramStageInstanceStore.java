@@ -206,6 +206,13 @@ public class HibernateProgramStageInstanceStore
     @Override
     public List<ProgramStageInstance> getWithScheduledNotifications( ProgramNotificationTemplate template,
         Date notificationDate )
+    {
+        return getWithScheduledNotifications( template, notificationDate, 0, Integer.MAX_VALUE );
+    }
+
+    @Override
+    public List<ProgramStageInstance> getWithScheduledNotifications( ProgramNotificationTemplate template,
+        Date notificationDate, long afterId, int limit )
     {
         if ( notificationDate == null
             || !SCHEDULED_PROGRAM_STAGE_INSTANCE_TRIGGERS.contains( template.getNotificationTrigger() ) )
@@ -227,12 +234,16 @@ public class HibernateProgramStageInstanceStore
             "and psi.executionDate is null " +
             "and psi.status != :skippedEventStatus " +
             "and cast(:targetDate as date) = psi.dueDate " +
-            "and psi.deleted is false";
+            "and psi.deleted is false " +
+            "and psi.id > :afterId " +
+            "order by psi.id";
 
         return getQuery( hql )
             .setParameter( "notificationTemplate", template )
             .setParameter( "skippedEventStatus", EventStatus.SKIPPED )
-            .setParameter( "targetDate", targetDate ).list();
+            .setParameter( "targetDate", targetDate )
+            .setParameter( "afterId", afterId )
+            .setMaxResults( limit ).list();
     }
 
     @Override
@@ -29,10 +29,12 @@ package org.hisp.dhis.program.message;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -41,7 +43,8 @@ import org.hisp.dhis.common.DeliveryChannel;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IllegalQueryException;
-import org.hisp.dhis.message.MessageSender;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.outboundmessage.BatchResponseStatus;
 import org.hisp.dhis.outboundmessage.OutboundMessageBatch;
@@ -52,15 +55,14 @@ import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramService;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.security.acl.AclService;
-import org.hisp.dhis.sms.config.MessageSendingCallback;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceService;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Zubair <rajazubair.asghar@gmail.com>
@@ -70,6 +72,8 @@ import org.springframework.util.concurrent.ListenableFuture;
 public class DefaultProgramMessageService
     implements ProgramMessageService
 {
+    private static final int RESEND_BATCH_SIZE = 1000;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -94,11 +98,16 @@ public class DefaultProgramMessageService
 
     private final AclService aclService;
 
+    private final TransactionTemplate transactionTemplate;
+
+    private final DhisConfigurationProvider config;
+
     public DefaultProgramMessageService( IdentifiableObjectManager manager, ProgramMessageStore programMessageStore,
         OrganisationUnitService organisationUnitService, TrackedEntityInstanceService trackedEntityInstanceService,
         ProgramService programService, OutboundMessageBatchService messageBatchService,
         CurrentUserService currentUserService, List<DeliveryChannelStrategy> strategies,
-        List<MessageBatchCreatorService> batchCreators, AclService aclService )
+        List<MessageBatchCreatorService> batchCreators, AclService aclService,
+        TransactionTemplate transactionTemplate, DhisConfigurationProvider config )
     {
         checkNotNull( manager );
         checkNotNull( programMessageStore );
@@ -110,6 +119,8 @@ public class DefaultProgramMessageService
         checkNotNull( strategies );
         checkNotNull( batchCreators );
         checkNotNull( aclService );
+        checkNotNull( transactionTemplate );
+        checkNotNull( config );
 
         this.manager = manager;
         this.programMessageStore = programMessageStore;
@@ -121,15 +132,10 @@ public class DefaultProgramMessageService
         this.strategies = strategies;
         this.batchCreators = batchCreators;
         this.aclService = aclService;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
     }
 
-    @Autowired
-    @Qualifier( "smsMessageSender" )
-    private MessageSender smsSender;
-
-    @Autowired
-    private MessageSendingCallback sendingCallback;
-
     // -------------------------------------------------------------------------
     // Implementation methods
     // -------------------------------------------------------------------------
@@ -247,7 +253,7 @@ public class DefaultProgramMessageService
 
         BatchResponseStatus status = new BatchResponseStatus( messageBatchService.sendBatches( batches ) );
 
-        saveProgramMessages( programMessages, status );
+        saveProgramMessages( programMessages, status.isOk() ? ProgramMessageStatus.SENT : ProgramMessageStatus.FAILED );
 
         return status;
     }
@@ -263,11 +269,38 @@ public class DefaultProgramMessageService
 
         List<OutboundMessageBatch> batches = createBatches( populatedProgramMessages );
 
-        for ( OutboundMessageBatch batch : batches )
+        saveProgramMessages( programMessages, ProgramMessageStatus.OUTBOUND );
+
+        runAfterCommit( () -> messageBatchService.sendBatchesAsync( batches )
+            .whenComplete( ( summaries, ex ) -> updateMessageStatus( programMessages, summaries, ex ) ) );
+    }
+
+    @Override
+    public int resendOutboundMessages()
+    {
+        long recoveryDelay = TimeUnit.SECONDS.toMillis(
+            Long.parseLong( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_RECOVERY_DELAY ) ) );
+        Date processedBefore = new Date( System.currentTimeMillis() - recoveryDelay );
+
+        List<ProgramMessage> messages = new ArrayList<>();
+        List<OutboundMessageBatch> batches = new ArrayList<>();
+
+        transactionTemplate.executeWithoutResult( tx -> {
+            messages.addAll( programMessageStore.claimOutboundMessages( processedBefore, RESEND_BATCH_SIZE ) );
+            batches.addAll( createBatches( messages.stream()
+                .map( this::setAttributesBasedOnStrategy )
+                .collect( Collectors.toList() ) ) );
+        } );
+
+        if ( !messages.isEmpty() )
         {
-            ListenableFuture<OutboundMessageResponseSummary> future = smsSender.sendMessageBatchAsync( batch );
-            future.addCallback( sendingCallback.getBatchCallBack() );
+            log.info( String.format( "Queuing %d program messages left outbound", messages.size() ) );
+
+            messageBatchService.sendBatchesAsync( batches )
+                .whenComplete( ( summaries, ex ) -> updateMessageStatus( messages, summaries, ex ) );
         }
+
+        return messages.size();
     }
 
     @Override
@@ -399,23 +432,65 @@ public class DefaultProgramMessageService
         return true;
     }
 
-    private void saveProgramMessages( List<ProgramMessage> messageBatch, BatchResponseStatus status )
+    private void saveProgramMessages( List<ProgramMessage> messageBatch, ProgramMessageStatus status )
     {
         messageBatch.parallelStream()
             .map( pm -> setParameters( pm, status ) )
             .forEach( this::saveProgramMessage );
     }
 
-    private ProgramMessage setParameters( ProgramMessage message, BatchResponseStatus status )
+    private ProgramMessage setParameters( ProgramMessage message, ProgramMessageStatus status )
     {
         message.setProgramInstance( getProgramInstance( message ) );
         message.setProgramStageInstance( getProgramStageInstance( message ) );
         message.setProcessedDate( new Date() );
-        message.setMessageStatus( status.isOk() ? ProgramMessageStatus.SENT : ProgramMessageStatus.FAILED );
+        message.setMessageStatus( status );
 
         return message;
     }
 
+    private void updateMessageStatus( List<ProgramMessage> messages, List<OutboundMessageResponseSummary> summaries,
+        Throwable error )
+    {
+        if ( error != null )
+        {
+            log.error( "Sending program messages failed", error );
+        }
+
+        ProgramMessageStatus status = error == null && new BatchResponseStatus( summaries ).isOk()
+            ? ProgramMessageStatus.SENT
+            : ProgramMessageStatus.FAILED;
+
+        transactionTemplate.executeWithoutResult( tx -> messages.forEach( message -> {
+            message.setProcessedDate( new Date() );
+            message.setMessageStatus( status );
+            programMessageStore.update( message );
+        } ) );
+    }
+
+    /**
+     * Messages are only handed to the senders once the transaction saving them
+     * has committed, so that the status update after delivery finds them.
+     */
+    private void runAfterCommit( Runnable task )
+    {
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronization()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    task.run();
+                }
+            } );
+        }
+        else
+        {
+            task.run();
+        }
+    }
+
     private List<OutboundMessageBatch> createBatches( List<ProgramMessage> programMessages )
     {
         return batchCreators.stream()
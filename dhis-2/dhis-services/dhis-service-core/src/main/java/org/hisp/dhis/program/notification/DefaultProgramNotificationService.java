@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -49,6 +50,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.eventdatavalue.EventDataValue;
 import org.hisp.dhis.message.MessageConversationParams;
@@ -57,7 +59,6 @@ import org.hisp.dhis.message.MessageType;
 import org.hisp.dhis.notification.NotificationMessage;
 import org.hisp.dhis.notification.NotificationMessageRenderer;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
-import org.hisp.dhis.outboundmessage.BatchResponseStatus;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramInstanceStore;
 import org.hisp.dhis.program.ProgramStageInstance;
@@ -74,6 +75,7 @@ import org.hisp.dhis.user.UserGroup;
 import org.hisp.dhis.util.DateUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -94,6 +96,12 @@ public class DefaultProgramNotificationService
             iwt.getProgramNotificationInstance().getScheduledAt() != null &&
             DateUtils.isToday( iwt.getProgramNotificationInstance().getScheduledAt() );
 
+    private static final int SCHEDULED_CHUNK_SIZE = 500;
+
+    private static final String PROGRAM_STAGE_INSTANCE = "PROGRAM_STAGE_INSTANCE";
+
+    private static final String PROGRAM_INSTANCE = "PROGRAM_INSTANCE";
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -125,27 +133,47 @@ public class DefaultProgramNotificationService
     @NonNull
     private final NotificationTemplateMapper notificationTemplateMapper;
 
+    @NonNull
+    private final JdbcProgramNotificationProgressStore progressStore;
+
+    @NonNull
+    private final TransactionTemplate transactionTemplate;
+
     // -------------------------------------------------------------------------
     // ProgramStageNotificationService implementation
     // -------------------------------------------------------------------------
 
+    /**
+     * Due instances are processed in chunks of {@link #SCHEDULED_CHUNK_SIZE},
+     * each in its own transaction which also records the last processed
+     * instance. A run interrupted halfway continues after the last committed
+     * chunk when started again on the same day.
+     */
     @Override
-    @Transactional
     public void sendScheduledNotificationsForDay( Date notificationDate )
     {
         Clock clock = new Clock( log ).startClock()
             .logTime( "Processing ProgramStageNotification messages" );
 
-        List<ProgramNotificationTemplate> scheduledTemplates = getScheduledTemplates();
+        progressStore.deleteBefore( notificationDate );
+
+        List<Long> scheduledTemplates = transactionTemplate.execute( status -> getScheduledTemplates().stream()
+            .map( ProgramNotificationTemplate::getId )
+            .collect( Collectors.toList() ) );
 
         int totalMessageCount = 0;
 
-        for ( ProgramNotificationTemplate template : scheduledTemplates )
+        for ( Long templateId : scheduledTemplates )
         {
-            MessageBatch batch = createScheduledMessageBatchForDay( template, notificationDate );
-            sendAll( batch );
-
-            totalMessageCount += batch.messageCount();
+            totalMessageCount += sendScheduledMessagesForDay( templateId, notificationDate, PROGRAM_STAGE_INSTANCE,
+                ( template, afterId ) -> programStageInstanceStore.getWithScheduledNotifications( template,
+                    notificationDate, afterId, SCHEDULED_CHUNK_SIZE ),
+                this::createProgramStageInstanceMessageBatch );
+
+            totalMessageCount += sendScheduledMessagesForDay( templateId, notificationDate, PROGRAM_INSTANCE,
+                ( template, afterId ) -> programInstanceStore.getWithScheduledNotifications( template,
+                    notificationDate, afterId, SCHEDULED_CHUNK_SIZE ),
+                this::createProgramInstanceMessageBatch );
         }
 
         clock.logTime( String.format( "Created and sent %d messages in %s", totalMessageCount, clock.time() ) );
@@ -299,17 +327,48 @@ public class DefaultProgramNotificationService
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private MessageBatch createScheduledMessageBatchForDay( ProgramNotificationTemplate template, Date day )
+    private <T extends IdentifiableObject> int sendScheduledMessagesForDay( long templateId, Date day,
+        String instanceType, BiFunction<ProgramNotificationTemplate, Long, List<T>> nextChunk,
+        BiFunction<ProgramNotificationTemplate, List<T>, MessageBatch> batchCreator )
     {
-        List<ProgramStageInstance> programStageInstances = programStageInstanceStore
-            .getWithScheduledNotifications( template, day );
+        int messageCount = 0;
+        long lastProcessedId = progressStore.getLastProcessedId( templateId, day, instanceType );
+
+        while ( true )
+        {
+            long afterId = lastProcessedId;
+
+            ScheduledChunk chunk = transactionTemplate.execute( status -> {
+                ProgramNotificationTemplate template = notificationTemplateService.get( templateId );
+                List<T> instances = nextChunk.apply( template, afterId );
 
-        List<ProgramInstance> programInstances = programInstanceStore.getWithScheduledNotifications( template, day );
+                if ( instances.isEmpty() )
+                {
+                    return null;
+                }
 
-        MessageBatch psiBatch = createProgramStageInstanceMessageBatch( template, programStageInstances );
-        MessageBatch psBatch = createProgramInstanceMessageBatch( template, programInstances );
+                MessageBatch batch = batchCreator.apply( template, instances );
+                sendAll( batch );
 
-        return new MessageBatch( psiBatch, psBatch );
+                long lastId = instances.get( instances.size() - 1 ).getId();
+                progressStore.setLastProcessedId( templateId, day, instanceType, lastId );
+
+                return new ScheduledChunk( lastId, batch.messageCount(), instances.size() );
+            } );
+
+            if ( chunk == null )
+            {
+                return messageCount;
+            }
+
+            messageCount += chunk.messageCount;
+            lastProcessedId = chunk.lastProcessedId;
+
+            if ( chunk.instanceCount < SCHEDULED_CHUNK_SIZE )
+            {
+                return messageCount;
+            }
+        }
     }
 
     private List<ProgramNotificationTemplate> getScheduledTemplates()
@@ -617,11 +676,9 @@ public class DefaultProgramNotificationService
             return;
         }
 
-        log.debug( String.format( "Dispatching %d ProgramMessages", messages.size() ) );
-
-        BatchResponseStatus status = programMessageService.sendMessages( Lists.newArrayList( messages ) );
+        log.debug( String.format( "Queueing %d ProgramMessages for delivery", messages.size() ) );
 
-        log.debug( String.format( "Resulting status from ProgramMessageService:\n %s", status.toString() ) );
+        programMessageService.sendMessagesAsync( Lists.newArrayList( messages ) );
     }
 
     private void sendAll( MessageBatch messageBatch )
@@ -641,6 +698,16 @@ public class DefaultProgramNotificationService
         Set<User> recipients;
     }
 
+    @RequiredArgsConstructor
+    private static class ScheduledChunk
+    {
+        final long lastProcessedId;
+
+        final int messageCount;
+
+        final int instanceCount;
+    }
+
     private static class MessageBatch
     {
         Set<DhisMessage> dhisMessages = Sets.newHashSet();
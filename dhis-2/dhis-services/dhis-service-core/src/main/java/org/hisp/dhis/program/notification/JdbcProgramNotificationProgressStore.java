@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.program.notification;
+
+import java.util.Date;
+import java.util.List;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Keeps track of the last instance processed by the scheduled program
+ * notification job for each template, day and type of instance, so that an
+ * interrupted run continues where it stopped instead of starting over.
+ */
+@Repository( "org.hisp.dhis.program.notification.JdbcProgramNotificationProgressStore" )
+@RequiredArgsConstructor
+public class JdbcProgramNotificationProgressStore
+{
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @param templateId the id of the template.
+     * @param day the notification date.
+     * @param instanceType the type of instance, enrollment or event.
+     * @return the id of the last processed instance, 0 if none.
+     */
+    public long getLastProcessedId( long templateId, Date day, String instanceType )
+    {
+        List<Long> ids = jdbcTemplate.queryForList(
+            "select lastprocessedid from programnotificationprogress " +
+                "where programnotificationtemplateid = ? and notificationdate = cast(? as date) " +
+                "and instancetype = ?",
+            Long.class, templateId, day, instanceType );
+
+        return ids.isEmpty() ? 0 : ids.get( 0 );
+    }
+
+    public void setLastProcessedId( long templateId, Date day, String instanceType, long lastProcessedId )
+    {
+        jdbcTemplate.update(
+            "insert into programnotificationprogress " +
+                "(programnotificationtemplateid, notificationdate, instancetype, lastprocessedid) " +
+                "values (?, cast(? as date), ?, ?) " +
+                "on conflict (programnotificationtemplateid, notificationdate, instancetype) " +
+                "do update set lastprocessedid = excluded.lastprocessedid",
+            templateId, day, instanceType, lastProcessedId );
+    }
+
+    /**
+     * Removes the progress of all days before the given day.
+     *
+     * @param day the notification date.
+     */
+    public void deleteBefore( Date day )
+    {
+        jdbcTemplate.update( "delete from programnotificationprogress where notificationdate < cast(? as date)",
+            day );
+    }
+}
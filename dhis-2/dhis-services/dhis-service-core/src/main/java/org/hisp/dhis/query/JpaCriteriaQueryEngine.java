@@ -44,7 +44,12 @@ import javax.persistence.criteria.Root;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.cache.QueryCacheManager;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.index.MetadataNameIndex;
 import org.hisp.dhis.hibernate.InternalHibernateGenericStore;
+import org.hisp.dhis.query.operators.EqualOperator;
+import org.hisp.dhis.query.operators.LikeOperator;
+import org.hisp.dhis.query.operators.Operator;
+import org.hisp.dhis.query.planner.QueryPath;
 import org.hisp.dhis.query.planner.QueryPlan;
 import org.hisp.dhis.query.planner.QueryPlanner;
 import org.hisp.dhis.schema.Schema;
@@ -69,23 +74,27 @@ public class JpaCriteriaQueryEngine<T extends IdentifiableObject>
 
     private final QueryCacheManager queryCacheManager;
 
+    private final MetadataNameIndex metadataNameIndex;
+
     private Map<Class<?>, InternalHibernateGenericStore<T>> stores = new HashMap<>();
 
     @Autowired
     public JpaCriteriaQueryEngine( CurrentUserService currentUserService, QueryPlanner queryPlanner,
         List<InternalHibernateGenericStore<T>> hibernateGenericStores, SessionFactory sessionFactory,
-        QueryCacheManager queryCacheManager )
+        QueryCacheManager queryCacheManager, MetadataNameIndex metadataNameIndex )
     {
         checkNotNull( currentUserService );
         checkNotNull( queryPlanner );
         checkNotNull( hibernateGenericStores );
         checkNotNull( sessionFactory );
+        checkNotNull( metadataNameIndex );
 
         this.currentUserService = currentUserService;
         this.queryPlanner = queryPlanner;
         this.hibernateGenericStores = hibernateGenericStores;
         this.sessionFactory = sessionFactory;
         this.queryCacheManager = queryCacheManager;
+        this.metadataNameIndex = metadataNameIndex;
     }
 
     @Override
@@ -272,9 +281,44 @@ public class JpaCriteriaQueryEngine<T extends IdentifiableObject>
             return null;
         }
 
+        Predicate indexPredicate = getIndexPredicate( builder, root, restriction );
+
+        if ( indexPredicate != null )
+        {
+            return indexPredicate;
+        }
+
         return restriction.getOperator().getPredicate( builder, root, restriction.getQueryPath() );
     }
 
+    /**
+     * Resolves equal and like restrictions on the name, short name or code of
+     * the root object through the {@link MetadataNameIndex}. Returns null if
+     * the restriction cannot be resolved by the index.
+     */
+    private <Y> Predicate getIndexPredicate( CriteriaBuilder builder, Root<Y> root, Restriction restriction )
+    {
+        Operator<?> operator = restriction.getOperator();
+        QueryPath queryPath = restriction.getQueryPath();
+
+        boolean indexable = operator.getClass() == EqualOperator.class
+            || (operator.getClass() == LikeOperator.class && !String.valueOf( operator.getArgs() ).contains( "%" ));
+
+        if ( !indexable || queryPath == null || queryPath.haveAlias() )
+        {
+            return null;
+        }
+
+        List<Long> ids = metadataNameIndex.getIds( root.getJavaType(), queryPath.getPath(), operator::test );
+
+        if ( ids == null )
+        {
+            return null;
+        }
+
+        return ids.isEmpty() ? builder.disjunction() : root.get( "id" ).in( ids );
+    }
+
     private <Y> void addPredicate( CriteriaBuilder builder, Root<Y> root, Predicate predicateJunction,
         org.hisp.dhis.query.Criterion criterion )
     {
@@ -43,9 +43,10 @@ import java.util.function.Function;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
+import org.hisp.dhis.common.TaskSchedulers;
 import org.hisp.dhis.leader.election.LeaderManager;
 import org.hisp.dhis.message.MessageService;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.support.CronTrigger;
 import org.springframework.stereotype.Service;
@@ -74,24 +75,24 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
 
     private final Map<JobType, Future<?>> running = new ConcurrentHashMap<>();
 
-    private final TaskScheduler jobScheduler;
+    private final TaskSchedulers taskSchedulers;
 
     private final AsyncTaskExecutor taskExecutor;
 
     public DefaultSchedulingManager( JobService jobService, JobConfigurationService jobConfigurationService,
         MessageService messageService,
-        LeaderManager leaderManager, @Qualifier( "taskScheduler" ) TaskScheduler jobScheduler,
+        LeaderManager leaderManager, TaskSchedulers taskSchedulers,
         AsyncTaskExecutor taskExecutor )
     {
         super( jobService, jobConfigurationService, messageService, leaderManager );
         checkNotNull( jobConfigurationService );
         checkNotNull( messageService );
         checkNotNull( leaderManager );
-        checkNotNull( jobScheduler );
+        checkNotNull( taskSchedulers );
         checkNotNull( taskExecutor );
         checkNotNull( jobService );
 
-        this.jobScheduler = jobScheduler;
+        this.taskSchedulers = taskSchedulers;
         this.taskExecutor = taskExecutor;
     }
 
@@ -110,7 +111,7 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
     @Override
     public void scheduleWithStartTime( JobConfiguration configuration, Date startTime )
     {
-        scheduleTask( configuration, task -> scheduleTimeBased( startTime, task ) );
+        scheduleTask( configuration, task -> scheduleTimeBased( configuration, startTime, task ) );
 
         log.info( String.format( "Scheduled job: %s with start time: %s", configuration,
             getMediumDateString( startTime ) ) );
@@ -138,20 +139,34 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
 
     private Future<?> scheduleFixedDelayBased( JobConfiguration configuration, Runnable task )
     {
-        return jobScheduler.scheduleWithFixedDelay( task,
+        return getJobScheduler( configuration ).scheduleWithFixedDelay( task,
             Instant.now().plusSeconds( DEFAULT_INITIAL_DELAY_S ),
             Duration.of( configuration.getDelay(), ChronoUnit.SECONDS ) );
     }
 
     private Future<?> scheduleCronBased( JobConfiguration configuration, Runnable task )
     {
-        return jobScheduler.schedule( task,
+        return getJobScheduler( configuration ).schedule( task,
             new CronTrigger( configuration.getCronExpression() ) );
     }
 
-    private Future<?> scheduleTimeBased( Date startTime, Runnable task )
+    private Future<?> scheduleTimeBased( JobConfiguration configuration, Date startTime, Runnable task )
     {
-        return jobScheduler.schedule( task, startTime );
+        return getJobScheduler( configuration ).schedule( task, startTime );
+    }
+
+    /**
+     * Jobs are scheduled on the pool of their type, so that the scheduled
+     * executions of one workload do not occupy the threads of another.
+     */
+    private TaskScheduler getJobScheduler( JobConfiguration configuration )
+    {
+        return taskSchedulers.getScheduler( getTaskPool( configuration.getJobType() ) );
+    }
+
+    private static TaskPool getTaskPool( JobType type )
+    {
+        return type != null ? type.getTaskPool() : TaskPool.DEFAULT;
     }
 
     @Override
@@ -179,7 +194,7 @@ public class DefaultSchedulingManager extends AbstractSchedulingManager
         log.info( String.format( "Scheduler initiated execution of job: %s", configuration ) );
         CompletableFuture<Future<?>> cancellation = new CompletableFuture<>();
         Runnable task = runIfPossible( configuration, cancellation, () -> execute( configuration ) );
-        cancellation.complete( taskExecutor.executeTaskWithCancelation( task ) );
+        cancellation.complete( taskExecutor.executeTaskWithCancelation( type.getTaskPool(), task ) );
         return true;
     }
 
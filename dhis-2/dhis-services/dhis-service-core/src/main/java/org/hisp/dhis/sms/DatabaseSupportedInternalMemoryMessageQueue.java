@@ -41,7 +41,7 @@ import org.springframework.stereotype.Component;
 public class DatabaseSupportedInternalMemoryMessageQueue
     implements MessageQueue
 {
-    private List<IncomingSms> queue = new ArrayList<>();
+    private final List<IncomingSms> queue = new ArrayList<>();
 
     // -------------------------------------------------------------------------
     // Dependencies
@@ -60,15 +60,15 @@ public class DatabaseSupportedInternalMemoryMessageQueue
     // -------------------------------------------------------------------------
 
     @Override
-    public void put( IncomingSms message )
+    public synchronized void put( IncomingSms message )
     {
         queue.add( message );
     }
 
     @Override
-    public IncomingSms get()
+    public synchronized IncomingSms get()
     {
-        if ( queue != null && queue.size() > 0 )
+        if ( queue.size() > 0 )
         {
             return queue.get( 0 );
         }
@@ -77,13 +77,25 @@ public class DatabaseSupportedInternalMemoryMessageQueue
     }
 
     @Override
-    public void remove( IncomingSms message )
+    public synchronized List<IncomingSms> get( int max )
+    {
+        return new ArrayList<>( queue.subList( 0, Math.min( max, queue.size() ) ) );
+    }
+
+    @Override
+    public synchronized int size()
+    {
+        return queue.size();
+    }
+
+    @Override
+    public synchronized void remove( IncomingSms message )
     {
         queue.remove( message );
     }
 
     @Override
-    public void initialize()
+    public synchronized void initialize()
     {
         Collection<IncomingSms> messages = incomingSmsService.getAllUnparsedMessages();
 
@@ -29,10 +29,18 @@ package org.hisp.dhis.sms;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.hisp.dhis.common.TaskPool;
+import org.hisp.dhis.common.TaskSchedulers;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.message.MessageSender;
 import org.hisp.dhis.sms.incoming.IncomingSms;
 import org.hisp.dhis.sms.incoming.IncomingSmsListener;
@@ -42,10 +50,32 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Drains the incoming SMS {@link MessageQueue} in batches. The messages of a
+ * batch are spread over a number of lanes, given by the
+ * {@code sms.inbound.workers} setting, which are processed in parallel on the
+ * {@link TaskPool#IMPORT} pool. All messages from one originator end up in the
+ * same lane, so they are processed in the order they were received. The
+ * status of the messages of a batch is written back in a single transaction.
+ * <p>
+ * The number of queued messages is exposed by the {@code sms.inbound.backlog}
+ * gauge, the processing time and rate by the {@code sms.inbound.processing}
+ * timer tagged with the resulting message status.
+ */
 @Slf4j
 @Component( "org.hisp.dhis.sms.SmsConsumerThread" )
 public class SmsConsumerThread
 {
+    static final String BACKLOG_GAUGE = "sms.inbound.backlog";
+
+    static final String PROCESSING_TIMER = "sms.inbound.processing";
+
+    private static final int BATCH_SIZE = 500;
+
     private List<IncomingSmsListener> listeners;
 
     private final MessageQueue messageQueue;
@@ -54,67 +84,165 @@ public class SmsConsumerThread
 
     private final IncomingSmsService incomingSmsService;
 
+    private final TaskSchedulers taskSchedulers;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int workers;
+
     public SmsConsumerThread( MessageQueue messageQueue, @Qualifier( "smsMessageSender" ) MessageSender smsSender,
-        IncomingSmsService incomingSmsService )
+        IncomingSmsService incomingSmsService, TaskSchedulers taskSchedulers, DhisConfigurationProvider config,
+        MeterRegistry meterRegistry )
     {
         checkNotNull( messageQueue );
         checkNotNull( smsSender );
         checkNotNull( incomingSmsService );
+        checkNotNull( taskSchedulers );
+        checkNotNull( config );
+        checkNotNull( meterRegistry );
 
         this.messageQueue = messageQueue;
         this.smsSender = smsSender;
         this.incomingSmsService = incomingSmsService;
+        this.taskSchedulers = taskSchedulers;
+        this.meterRegistry = meterRegistry;
+        this.workers = Math.max( 1, Integer.parseInt( config.getProperty( ConfigurationKey.SMS_INBOUND_WORKERS ) ) );
+
+        Gauge.builder( BACKLOG_GAUGE, messageQueue, MessageQueue::size )
+            .description( "Number of incoming SMS waiting to be processed" )
+            .register( meterRegistry );
     }
 
     public void spawnSmsConsumer()
     {
-        IncomingSms message = messageQueue.get();
+        List<IncomingSms> batch = messageQueue.get( BATCH_SIZE );
 
-        while ( message != null )
+        while ( !batch.isEmpty() && !Thread.currentThread().isInterrupted() )
         {
-            log.info( "Received SMS: " + message.getText() );
+            List<IncomingSms> processed = new ArrayList<>( batch.size() );
 
             try
             {
-                for ( IncomingSmsListener listener : listeners )
+                processBatch( batch, processed );
+            }
+            finally
+            {
+                batch.forEach( messageQueue::remove );
+
+                if ( !processed.isEmpty() )
                 {
-                    if ( listener.accept( message ) )
-                    {
-                        listener.receive( message );
-                        messageQueue.remove( message );
-                        return;
-                    }
+                    incomingSmsService.updateAll( processed );
                 }
+            }
 
-                log.warn( "No SMS command found in received data" );
+            batch = messageQueue.get( BATCH_SIZE );
+        }
+    }
 
-                message.setStatus( SmsMessageStatus.UNHANDLED );
+    @Autowired
+    public void setListeners( List<IncomingSmsListener> listeners )
+    {
+        this.listeners = listeners;
 
-                smsSender.sendMessage( null, "No command found", message.getOriginator() );
-            }
-            catch ( Exception e )
+        log.info( "Following listeners are registered: " + listeners );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Splits the batch into lanes by originator and processes the lanes in
+     * parallel, waiting for all of them to complete.
+     *
+     * @param batch the messages to process.
+     * @param processed the list to add the processed messages to.
+     */
+    private void processBatch( List<IncomingSms> batch, List<IncomingSms> processed )
+    {
+        List<List<IncomingSms>> lanes = new ArrayList<>( workers );
+
+        for ( int i = 0; i < workers; i++ )
+        {
+            lanes.add( new ArrayList<>() );
+        }
+
+        for ( IncomingSms message : batch )
+        {
+            lanes.get( Math.floorMod( Objects.hashCode( message.getOriginator() ), workers ) ).add( message );
+        }
+
+        List<Future<List<IncomingSms>>> futures = new ArrayList<>( workers );
+
+        for ( List<IncomingSms> lane : lanes )
+        {
+            if ( !lane.isEmpty() )
             {
-                e.printStackTrace();
+                futures.add( taskSchedulers.getScheduler( TaskPool.IMPORT ).submit( () -> processLane( lane ) ) );
+            }
+        }
 
-                message.setStatus( SmsMessageStatus.FAILED );
-                message.setParsed( false );
+        for ( Future<List<IncomingSms>> future : futures )
+        {
+            try
+            {
+                processed.addAll( future.get() );
             }
-            finally
+            catch ( InterruptedException e )
             {
-                messageQueue.remove( message );
-
-                incomingSmsService.update( message );
-
-                message = messageQueue.get();
+                Thread.currentThread().interrupt();
+                futures.forEach( f -> f.cancel( true ) );
+                return;
+            }
+            catch ( ExecutionException e )
+            {
+                log.error( "Processing of incoming SMS failed", e.getCause() );
             }
         }
     }
 
-    @Autowired
-    public void setListeners( List<IncomingSmsListener> listeners )
+    private List<IncomingSms> processLane( List<IncomingSms> lane )
     {
-        this.listeners = listeners;
+        lane.forEach( this::process );
 
-        log.info( "Following listeners are registered: " + listeners );
+        return lane;
+    }
+
+    private void process( IncomingSms message )
+    {
+        log.info( "Received SMS: " + message.getText() );
+
+        Timer.Sample sample = Timer.start( meterRegistry );
+
+        try
+        {
+            IncomingSmsListener listener = listeners.stream()
+                .filter( l -> l.accept( message ) )
+                .findFirst().orElse( null );
+
+            if ( listener != null )
+            {
+                listener.receive( message );
+            }
+            else
+            {
+                log.warn( "No SMS command found in received data" );
+
+                message.setStatus( SmsMessageStatus.UNHANDLED );
+
+                smsSender.sendMessage( null, "No command found", message.getOriginator() );
+            }
+        }
+        catch ( Exception e )
+        {
+            log.error( "Processing of incoming SMS failed", e );
+
+            message.setStatus( SmsMessageStatus.FAILED );
+            message.setParsed( false );
+        }
+        finally
+        {
+            sample.stop( meterRegistry.timer( PROCESSING_TIMER, "status", String.valueOf( message.getStatus() ) ) );
+        }
     }
 }
@@ -171,6 +171,13 @@ public class DefaultIncomingSmsService
         incomingSmsStore.update( incomingSms );
     }
 
+    @Override
+    @Transactional
+    public void updateAll( List<IncomingSms> messages )
+    {
+        messages.forEach( incomingSmsStore::update );
+    }
+
     @Override
     @Transactional( readOnly = true )
     public List<IncomingSms> getSmsByStatus( SmsMessageStatus status, String originator )
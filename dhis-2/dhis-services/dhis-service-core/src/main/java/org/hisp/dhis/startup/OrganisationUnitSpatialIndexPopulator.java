@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.startup;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.hisp.dhis.organisationunit.OrganisationUnitSpatialIndex;
+import org.hisp.dhis.system.startup.AbstractStartupRoutine;
+
+/**
+ * Loads organisation unit geometries into the spatial index when the index is
+ * enabled.
+ */
+public class OrganisationUnitSpatialIndexPopulator
+    extends AbstractStartupRoutine
+{
+    private final OrganisationUnitSpatialIndex spatialIndex;
+
+    public OrganisationUnitSpatialIndexPopulator( OrganisationUnitSpatialIndex spatialIndex )
+    {
+        checkNotNull( spatialIndex );
+        this.spatialIndex = spatialIndex;
+    }
+
+    @Override
+    public void execute()
+    {
+        if ( spatialIndex.isEnabled() )
+        {
+            spatialIndex.load();
+        }
+    }
+}
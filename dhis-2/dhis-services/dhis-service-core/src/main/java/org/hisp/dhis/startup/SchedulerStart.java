@@ -65,6 +65,8 @@ public class SchedulerStart extends AbstractStartupRoutine
 
     private static final String CRON_DAILY_7AM = "0 0 7 ? * *";
 
+    private static final String CRON_EVERY_5_MINUTES = "0 0/5 * * * *";
+
     private static final String LEADER_JOB_CRON_FORMAT = "0 0/%s * * * *";
 
     enum SystemJob
@@ -83,6 +85,8 @@ public class SchedulerStart extends AbstractStartupRoutine
             "Dataset notification" ),
         REMOVE_EXPIRED_OR_USED_RESERVED_VALUES( CRON_DAILY_2AM, "uwWCT2BMmlq", REMOVE_USED_OR_EXPIRED_RESERVED_VALUES,
             "Remove expired or used reserved values" ),
+        RESEND_OUTBOUND_PROGRAM_MESSAGES( CRON_EVERY_5_MINUTES, "kS3bXo6vRt1",
+            JobType.RESEND_OUTBOUND_PROGRAM_MESSAGES, "Resend outbound program messages" ),
         LEADER_ELECTION( LEADER_JOB_CRON_FORMAT, "MoUd5BTQ3lY", JobType.LEADER_ELECTION,
             "Leader election in cluster" );
 
@@ -190,6 +194,7 @@ public class SchedulerStart extends AbstractStartupRoutine
         addDefaultJob( SystemJob.ACCOUNT_EXPIRY_ALERT, jobConfigurations );
         addDefaultJob( SystemJob.DATA_SET_NOTIFICATION, jobConfigurations );
         addDefaultJob( SystemJob.REMOVE_EXPIRED_OR_USED_RESERVED_VALUES, jobConfigurations );
+        addDefaultJob( SystemJob.RESEND_OUTBOUND_PROGRAM_MESSAGES, jobConfigurations );
 
         if ( verifyNoJobExist( SystemJob.LEADER_ELECTION.name, jobConfigurations )
             && "true".equalsIgnoreCase( redisEnabled ) )
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.startup;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.startup.AbstractStartupRoutine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates or removes the trigger maintaining the tracked entity attribute
+ * value token index, depending on whether the index is enabled.
+ * <p>
+ * When the index is enabled and the trigger does not exist, the token table is
+ * populated from all attribute values and the trigger is created in one
+ * transaction, with writes to attribute values blocked meanwhile. This only
+ * happens on the first startup after enabling the index. When the index is
+ * disabled, the trigger is dropped and the token table emptied, so that
+ * attribute value writes do not pay for an unused index.
+ */
+@Slf4j
+public class TrackedEntityAttributeValueTokenIndexPopulator
+    extends AbstractStartupRoutine
+{
+    private static final String TRIGGER_NAME = "trackedentityattributevaluetoken_trigger";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final DhisConfigurationProvider config;
+
+    public TrackedEntityAttributeValueTokenIndexPopulator( JdbcTemplate jdbcTemplate,
+        TransactionTemplate transactionTemplate, DhisConfigurationProvider config )
+    {
+        checkNotNull( jdbcTemplate );
+        checkNotNull( transactionTemplate );
+        checkNotNull( config );
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+    }
+
+    @Override
+    public void execute()
+    {
+        boolean enabled = config.isEnabled( ConfigurationKey.TRACKER_SEARCH_INDEX );
+        boolean triggerExists = triggerExists();
+
+        if ( enabled && !triggerExists )
+        {
+            log.info( "Populating tracked entity attribute value token index" );
+
+            transactionTemplate.execute( status -> {
+                jdbcTemplate.execute( "lock table trackedentityattributevalue in share row exclusive mode" );
+                jdbcTemplate.execute( "truncate trackedentityattributevaluetoken" );
+                jdbcTemplate.execute( "insert into trackedentityattributevaluetoken " +
+                    "(trackedentityinstanceid, trackedentityattributeid, token) " +
+                    "select distinct teav.trackedentityinstanceid, teav.trackedentityattributeid, " +
+                    "left(t.token, 50) " +
+                    "from trackedentityattributevalue teav, " +
+                    "regexp_split_to_table(lower(teav.value), '[^[:alnum:]_]+') as t(token) " +
+                    "where t.token <> ''" );
+                jdbcTemplate.execute( "create trigger " + TRIGGER_NAME + " " +
+                    "after insert or update of value or delete on trackedentityattributevalue " +
+                    "for each row execute procedure trackedentityattributevaluetoken_update()" );
+                return null;
+            } );
+
+            log.info( "Populated tracked entity attribute value token index" );
+        }
+        else if ( !enabled && triggerExists )
+        {
+            transactionTemplate.execute( status -> {
+                jdbcTemplate.execute( "drop trigger if exists " + TRIGGER_NAME + " on trackedentityattributevalue" );
+                jdbcTemplate.execute( "truncate trackedentityattributevaluetoken" );
+                return null;
+            } );
+
+            log.info( "Removed tracked entity attribute value token index" );
+        }
+    }
+
+    private boolean triggerExists()
+    {
+        return jdbcTemplate.queryForObject(
+            "select exists (select 1 from pg_trigger where tgname = ?)", Boolean.class, TRIGGER_NAME );
+    }
+}
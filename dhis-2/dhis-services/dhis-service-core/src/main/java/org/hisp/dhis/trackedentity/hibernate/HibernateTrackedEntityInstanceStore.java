@@ -78,6 +78,8 @@ import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.dxf2.events.event.EventContext;
 import org.hisp.dhis.event.EventStatus;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
@@ -143,18 +145,23 @@ public class HibernateTrackedEntityInstanceStore
 
     private final StatementBuilder statementBuilder;
 
+    private final DhisConfigurationProvider config;
+
     public HibernateTrackedEntityInstanceStore( SessionFactory sessionFactory, JdbcTemplate jdbcTemplate,
         ApplicationEventPublisher publisher, CurrentUserService currentUserService,
-        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder )
+        AclService aclService, OrganisationUnitStore organisationUnitStore, StatementBuilder statementBuilder,
+        DhisConfigurationProvider config )
     {
         super( sessionFactory, jdbcTemplate, publisher, TrackedEntityInstance.class, currentUserService, aclService,
             false );
 
         checkNotNull( statementBuilder );
         checkNotNull( organisationUnitStore );
+        checkNotNull( config );
 
         this.statementBuilder = statementBuilder;
         this.organisationUnitStore = organisationUnitStore;
+        this.config = config;
     }
 
     // -------------------------------------------------------------------------
@@ -635,12 +642,19 @@ public class HibernateTrackedEntityInstanceStore
     }
 
     /**
-     * Generates a single INNER JOIN for searching for an attribute by query
-     * strings. Searches are done using lower() expression, since attribute
-     * values are case insensitive. The query search is extremely slow compared
-     * to alternatives. A query string (Can be multiple) has to match at least 1
-     * attribute value for each attribute we have access to. We use Regex to
-     * search, allowing both exact match and with wildcards (EQ or LIKE).
+     * Generates a single INNER JOIN on the distinct tracked entity instances
+     * matching the query strings. Searches are done using lower() expression,
+     * since attribute values are case insensitive. The query search is
+     * extremely slow compared to alternatives. A query string (Can be
+     * multiple) has to match at least 1 attribute value for each attribute we
+     * have access to. We use Regex to search, allowing both exact match and
+     * with wildcards (EQ or LIKE).
+     * <p>
+     * When the token index is enabled, the operator is EQ and all query
+     * strings are single words, the attribute values are first narrowed down
+     * to the tracked entity instances having an indexed word equal to one of
+     * the query strings, before the regex is applied. LIKE also matches inside
+     * words and always uses the regex alone.
      *
      * @param params
      * @param attributes
@@ -661,13 +675,24 @@ public class HibernateTrackedEntityInstanceStore
             .map( DimensionalItemObject::getId )
             .collect( Collectors.toList() );
 
+        List<String> queryTokens = getTokens( params.getQuery().getFilter() );
+
         attributes
-            .append( "INNER JOIN trackedentityattributevalue Q " )
-            .append( "ON Q.trackedentityinstanceid IN (" )
+            .append( "INNER JOIN (SELECT DISTINCT Q.trackedentityinstanceid " )
+            .append( "FROM trackedentityattributevalue Q " )
+            .append( "WHERE Q.trackedentityattributeid IN (" )
             .append( getCommaDelimitedString( itemIds ) )
-            .append( ") AND (" );
+            .append( ") " );
+
+        if ( config.isEnabled( ConfigurationKey.TRACKER_SEARCH_INDEX ) )
+        {
+            attributes.append( TrackedEntityAttributeValueTokens.getIndexCondition( itemIds,
+                params.getQuery(), queryTokens, statementBuilder ) );
+        }
+
+        attributes.append( "AND (" );
 
-        for ( String queryToken : getTokens( params.getQuery().getFilter() ) )
+        for ( String queryToken : queryTokens )
         {
             final String query = statementBuilder.encode( queryToken, false );
 
@@ -682,7 +707,7 @@ public class HibernateTrackedEntityInstanceStore
                 .append( SINGLE_QUOTE );
         }
 
-        attributes.append( ")" );
+        attributes.append( ")) Q ON Q.trackedentityinstanceid = TEI.trackedentityinstanceid " );
     }
 
     /**
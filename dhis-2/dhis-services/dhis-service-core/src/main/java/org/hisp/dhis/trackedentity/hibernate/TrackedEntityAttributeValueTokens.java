@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity.hibernate;
+
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.commons.util.SqlHelper;
+import org.hisp.dhis.jdbc.StatementBuilder;
+
+/**
+ * Helpers for the tracked entity attribute value token index, the
+ * {@code trackedentityattributevaluetoken} table which holds the lower cased
+ * words of every attribute value. The table is maintained by a database
+ * trigger, which splits values on any character which is not a letter, digit
+ * or underscore and truncates tokens to {@link #MAX_TOKEN_LENGTH}.
+ */
+public final class TrackedEntityAttributeValueTokens
+{
+    public static final int MAX_TOKEN_LENGTH = 50;
+
+    private static final Pattern WORD = Pattern.compile( "\\w+", Pattern.UNICODE_CHARACTER_CLASS );
+
+    private TrackedEntityAttributeValueTokens()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Indicates whether all the given query tokens can be looked up in the
+     * token index, meaning that each query token is a single word.
+     *
+     * @param queryTokens the query tokens.
+     * @return true if all query tokens are single words.
+     */
+    public static boolean isIndexable( Collection<String> queryTokens )
+    {
+        return !queryTokens.isEmpty() && queryTokens.stream()
+            .allMatch( token -> token != null && WORD.matcher( token ).matches() );
+    }
+
+    /**
+     * Returns the given query token in the form held by the token index, lower
+     * cased and truncated to {@link #MAX_TOKEN_LENGTH}.
+     *
+     * @param queryToken the query token.
+     * @return the normalized token.
+     */
+    public static String normalize( String queryToken )
+    {
+        String token = queryToken.toLowerCase( Locale.ROOT );
+
+        return token.length() > MAX_TOKEN_LENGTH ? token.substring( 0, MAX_TOKEN_LENGTH ) : token;
+    }
+
+    /**
+     * Generates a condition restricting the attribute values, aliased Q, to
+     * the tracked entity instances with a word in the token index equal to at
+     * least one of the query tokens. The index is only used for EQ queries
+     * made of single words. A LIKE query matches any part of a value, also
+     * inside a word, which cannot be looked up by word.
+     *
+     * @param itemIds the identifiers of the attributes to search.
+     * @param query the query filter.
+     * @param queryTokens the query tokens.
+     * @param statementBuilder the statement builder used to encode tokens.
+     * @return a SQL condition starting with AND, or an empty string if the
+     *         index cannot be used for the query.
+     */
+    public static String getIndexCondition( List<Long> itemIds, QueryFilter query, List<String> queryTokens,
+        StatementBuilder statementBuilder )
+    {
+        if ( !query.isOperator( QueryOperator.EQ ) || !isIndexable( queryTokens ) )
+        {
+            return "";
+        }
+
+        SqlHelper orHlp = new SqlHelper( true );
+        StringBuilder condition = new StringBuilder()
+            .append( "AND Q.trackedentityinstanceid IN (" )
+            .append( "SELECT T.trackedentityinstanceid FROM trackedentityattributevaluetoken T " )
+            .append( "WHERE T.trackedentityattributeid IN (" )
+            .append( getCommaDelimitedString( itemIds ) )
+            .append( ") AND (" );
+
+        for ( String queryToken : queryTokens )
+        {
+            condition
+                .append( orHlp.or() )
+                .append( "T.token = '" )
+                .append( statementBuilder.encode( normalize( queryToken ), false ) )
+                .append( "'" );
+        }
+
+        return condition.append( ")) " ).toString();
+    }
+}
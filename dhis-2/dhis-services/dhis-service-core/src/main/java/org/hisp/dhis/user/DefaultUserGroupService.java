@@ -30,6 +30,7 @@ package org.hisp.dhis.user;
 import static com.google.common.base.Preconditions.*;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.cache.*;
 import org.hisp.dhis.security.acl.*;
@@ -266,4 +267,12 @@ public class DefaultUserGroupService
         return userGroupNameCache.get( uid,
             n -> userGroupStore.getByUidNoAcl( uid ).getDisplayName() ).orElse( null );
     }
+
+    @Override
+    @Transactional( readOnly = true )
+    public Map<String, String> getDisplayNames( Collection<String> uids )
+    {
+        return userGroupNameCache.getAll( uids, missing -> userGroupStore.getByUidNoAcl( missing ).stream()
+            .collect( Collectors.toMap( UserGroup::getUid, UserGroup::getDisplayName, ( a, b ) -> a ) ) );
+    }
 }
@@ -40,6 +40,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -835,4 +836,11 @@ public class DefaultUserService
     {
         return userDisplayNameCache.get( userUid, c -> userStore.getDisplayName( userUid ) ).orElse( null );
     }
+
+    @Override
+    @Transactional( readOnly = true )
+    public Map<String, String> getDisplayNames( Collection<String> userUids )
+    {
+        return userDisplayNameCache.getAll( userUids, userStore::getDisplayNames );
+    }
 }
@@ -37,7 +37,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -607,4 +609,20 @@ public class HibernateUserStore
         query.setParameter( "uid", userUid );
         return query.getSingleResult();
     }
+
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public Map<String, String> getDisplayNames( Collection<String> userUids )
+    {
+        Map<String, String> displayNames = new HashMap<>();
+        if ( userUids.isEmpty() )
+        {
+            return displayNames;
+        }
+        String sql = "select uid, concat(firstname, ' ', surname) from userinfo where uid in (:uids)";
+        Query<Object[]> query = getSession().createNativeQuery( sql );
+        query.setParameterList( "uids", userUids );
+        query.getResultList().forEach( row -> displayNames.put( (String) row[0], (String) row[1] ) );
+        return displayNames;
+    }
 }
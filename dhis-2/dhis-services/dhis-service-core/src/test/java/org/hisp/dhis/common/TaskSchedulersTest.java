@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.scheduling.JobType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import com.google.common.collect.Lists;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TaskSchedulersTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    private MeterRegistry meterRegistry;
+
+    private TaskSchedulers taskSchedulers;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( any( ConfigurationKey.class ) ) )
+            .thenAnswer( invocation -> ((ConfigurationKey) invocation.getArgument( 0 )).getDefaultValue() );
+        when( config.getProperty( ConfigurationKey.EXECUTOR_MAINTENANCE_POOL_SIZE ) ).thenReturn( "1" );
+        when( config.getProperty( ConfigurationKey.EXECUTOR_MAINTENANCE_QUEUE_LIMIT ) ).thenReturn( "1" );
+
+        taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.initialize();
+        meterRegistry = new SimpleMeterRegistry();
+
+        taskSchedulers = new TaskSchedulers( taskScheduler, config, meterRegistry );
+    }
+
+    @After
+    public void tearDown()
+    {
+        taskSchedulers.destroy();
+        taskScheduler.shutdown();
+    }
+
+    @Test
+    public void testSeparatePools()
+    {
+        assertSame( taskScheduler, taskSchedulers.getScheduler( TaskPool.DEFAULT ) );
+        assertNotSame( taskScheduler, taskSchedulers.getScheduler( TaskPool.ANALYTICS ) );
+        assertNotSame( taskSchedulers.getScheduler( TaskPool.ANALYTICS ),
+            taskSchedulers.getScheduler( TaskPool.NOTIFICATION ) );
+        assertEquals( 5, taskSchedulers.getPoolSize( TaskPool.ANALYTICS ) );
+        assertEquals( 1, taskSchedulers.getPoolSize( TaskPool.MAINTENANCE ) );
+    }
+
+    @Test
+    public void testJobTypePool()
+    {
+        assertSame( TaskPool.ANALYTICS, JobType.ANALYTICS_TABLE.getTaskPool() );
+        assertSame( TaskPool.IMPORT, JobType.TRACKER_IMPORT_JOB.getTaskPool() );
+        assertSame( TaskPool.NOTIFICATION, JobType.PROGRAM_NOTIFICATIONS.getTaskPool() );
+        assertSame( TaskPool.MAINTENANCE, JobType.DATA_INTEGRITY.getTaskPool() );
+        assertSame( TaskPool.DEFAULT, JobType.LEADER_RENEWAL.getTaskPool() );
+    }
+
+    @Test
+    public void testGauges()
+    {
+        assertEquals( 0.0, meterRegistry.get( "executor.active" ).tag( "name", "import" ).gauge().value(), 0.0 );
+        assertEquals( 0.0, meterRegistry.get( "executor.queued" ).tag( "name", "import" ).gauge().value(), 0.0 );
+    }
+
+    @Test( expected = TaskRejectedException.class )
+    public void testQueueLimit()
+        throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        try
+        {
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+                started.countDown();
+                awaitQuietly( release );
+            } );
+            started.await( 5, TimeUnit.SECONDS );
+
+            // occupies the only queue slot while the single thread is busy
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+            } );
+
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+            } );
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testQueueLimitIgnoresScheduledTriggers()
+        throws InterruptedException
+    {
+        taskSchedulers.getScheduler( TaskPool.MAINTENANCE ).scheduleWithFixedDelay( () -> {
+        }, new Date( System.currentTimeMillis() + 3_600_000 ), 3_600_000 );
+        taskSchedulers.getScheduler( TaskPool.MAINTENANCE ).schedule( () -> {
+        }, new Date( System.currentTimeMillis() + 3_600_000 ) );
+
+        CountDownLatch done = new CountDownLatch( 1 );
+
+        taskSchedulers.execute( TaskPool.MAINTENANCE, done::countDown );
+
+        assertTrue( done.await( 5, TimeUnit.SECONDS ) );
+    }
+
+    @Test
+    public void testCancelledTaskReleasesQueueSlot()
+        throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        try
+        {
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+                started.countDown();
+                awaitQuietly( release );
+            } );
+            started.await( 5, TimeUnit.SECONDS );
+
+            Future<?> waiting = taskSchedulers.submitListenable( TaskPool.MAINTENANCE, () -> {
+            } );
+            assertEquals( 1, taskSchedulers.getWaitingTasks( TaskPool.MAINTENANCE ) );
+
+            waiting.cancel( false );
+            assertEquals( 0, taskSchedulers.getWaitingTasks( TaskPool.MAINTENANCE ) );
+
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+            } );
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testInvokeAllRunsTasksConcurrently()
+    {
+        CountDownLatch started = new CountDownLatch( 2 );
+
+        Supplier<Boolean> task = () -> {
+            started.countDown();
+
+            // only completes in time if the other task runs at the same time
+            return awaitQuietly( started );
+        };
+
+        List<Boolean> results = taskSchedulers.invokeAll( TaskPool.ANALYTICS, Lists.newArrayList( task, task ) );
+
+        assertEquals( Lists.newArrayList( true, true ), results );
+    }
+
+    @Test
+    public void testInvokeAllReturnsResultsInTaskOrder()
+    {
+        List<Supplier<Integer>> tasks = new ArrayList<>();
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            int value = i;
+            tasks.add( () -> value );
+        }
+
+        List<Integer> results = taskSchedulers.invokeAll( TaskPool.ANALYTICS, tasks );
+
+        assertEquals( 20, results.size() );
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            assertEquals( Integer.valueOf( i ), results.get( i ) );
+        }
+    }
+
+    @Test
+    public void testInvokeAllWithBusyPool()
+        throws InterruptedException
+    {
+        CountDownLatch started = new CountDownLatch( 1 );
+        CountDownLatch release = new CountDownLatch( 1 );
+
+        try
+        {
+            taskSchedulers.execute( TaskPool.MAINTENANCE, () -> {
+                started.countDown();
+                awaitQuietly( release );
+            } );
+            started.await( 5, TimeUnit.SECONDS );
+
+            // the only thread is busy, so the calling thread runs all tasks
+
+            Thread caller = Thread.currentThread();
+            Supplier<Boolean> task = () -> Thread.currentThread() == caller;
+
+            assertEquals( Lists.newArrayList( true, true, true ),
+                taskSchedulers.invokeAll( TaskPool.MAINTENANCE, Lists.newArrayList( task, task, task ) ) );
+            assertEquals( 0, taskSchedulers.getWaitingTasks( TaskPool.MAINTENANCE ) );
+        }
+        finally
+        {
+            release.countDown();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testInvokeAllThrowsTaskFailure()
+    {
+        Supplier<Integer> task = () -> 1;
+        Supplier<Integer> failingTask = () -> {
+            throw new IllegalArgumentException( "failed" );
+        };
+
+        taskSchedulers.invokeAll( TaskPool.ANALYTICS, Lists.newArrayList( task, failingTask, task ) );
+    }
+
+    private static boolean awaitQuietly( CountDownLatch latch )
+    {
+        try
+        {
+            return latch.await( 5, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+}
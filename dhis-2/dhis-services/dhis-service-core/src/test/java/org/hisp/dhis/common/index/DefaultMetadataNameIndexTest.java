@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.common.index;
+
+import static org.hisp.dhis.common.index.DefaultMetadataNameIndex.canRead;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.hisp.dhis.user.sharing.Sharing;
+import org.hisp.dhis.user.sharing.UserAccess;
+import org.hisp.dhis.user.sharing.UserGroupAccess;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+public class DefaultMetadataNameIndexTest
+{
+    private static final String USER = "userUid0001";
+
+    private static final String GROUP = "groupUid001";
+
+    @Test
+    public void testCanReadPublic()
+    {
+        assertTrue( canRead( sharing( "r-------" ), USER, ImmutableSet.of() ) );
+        assertTrue( canRead( sharing( null ), USER, ImmutableSet.of() ) );
+        assertFalse( canRead( sharing( "--------" ), USER, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testCanReadOwner()
+    {
+        Sharing sharing = sharing( "--------" );
+        sharing.setOwner( USER );
+
+        assertTrue( canRead( sharing, USER, ImmutableSet.of() ) );
+
+        sharing.setOwner( null );
+
+        assertTrue( canRead( sharing, USER, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testCanReadUserAccess()
+    {
+        Sharing sharing = sharing( "--------" );
+        sharing.getUsers().put( USER, new UserAccess( "r-------", USER ) );
+
+        assertTrue( canRead( sharing, USER, ImmutableSet.of() ) );
+        assertFalse( canRead( sharing, "userUid0002", ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testCanReadUserGroupAccess()
+    {
+        Sharing sharing = sharing( "--------" );
+        sharing.getUserGroups().put( GROUP, new UserGroupAccess( "rw------", GROUP ) );
+
+        assertTrue( canRead( sharing, USER, ImmutableSet.of( GROUP ) ) );
+        assertFalse( canRead( sharing, USER, ImmutableSet.of( "groupUid002" ) ) );
+    }
+
+    @Test
+    public void testEntryValues()
+    {
+        DefaultMetadataNameIndex.Entry entry = new DefaultMetadataNameIndex.Entry( 1L, "ANC Coverage", "ANC",
+            "ANC_COV", null );
+
+        assertEquals( "anc coverage", entry.getLowerName() );
+        assertEquals( "ANC Coverage", entry.getValue( "name" ) );
+        assertEquals( "ANC", entry.getValue( "shortName" ) );
+        assertEquals( "ANC_COV", entry.getValue( "code" ) );
+        assertNull( entry.getValue( "description" ) );
+    }
+
+    private Sharing sharing( String publicAccess )
+    {
+        Sharing sharing = new Sharing();
+        sharing.setPublicAccess( publicAccess );
+        sharing.setOwner( "ownerUid001" );
+        return sharing;
+    }
+}
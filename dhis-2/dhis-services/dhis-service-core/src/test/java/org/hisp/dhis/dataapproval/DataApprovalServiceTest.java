@@ -2229,6 +2229,95 @@ public class DataApprovalServiceTest
             statusString( map.get( dataApprovalF ) ) );
     }
 
+    @Test
+    public void testGetDataApprovalStatusesMultiplePeriods()
+    {
+        Date date = new Date();
+
+        DataApproval dataApprovalCA = new DataApproval( level3, workflow1234, periodA, organisationUnitC,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalDA = new DataApproval( level4, workflow1234, periodA, organisationUnitD,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalEA = new DataApproval( level3, workflow1234, periodA, organisationUnitE,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalFA = new DataApproval( level4, workflow1234, periodA, organisationUnitF,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalCB = new DataApproval( level3, workflow1234, periodB, organisationUnitC,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalDB = new DataApproval( level4, workflow1234, periodB, organisationUnitD,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalEB = new DataApproval( level3, workflow1234, periodB, organisationUnitE,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalFB = new DataApproval( level4, workflow1234, periodB, organisationUnitF,
+            defaultOptionCombo, NOT_ACCEPTED, date, userA );
+
+        transactionTemplate.execute( status -> {
+            createUserAndInjectSecurityContext( singleton( organisationUnitB ), false, AUTH_APPR_LEVEL );
+
+            dataApprovalStore.addDataApproval( dataApprovalDA );
+            dataApprovalStore.addDataApproval( dataApprovalEA );
+            dataApprovalStore.addDataApproval( dataApprovalFA );
+            dataApprovalStore.addDataApproval( dataApprovalDB );
+
+            dbmsManager.flushSession();
+            return null;
+        } );
+
+        List<DataApproval> approvals = newArrayList( dataApprovalCA, dataApprovalDA, dataApprovalEA, dataApprovalFA,
+            dataApprovalCB, dataApprovalDB, dataApprovalEB, dataApprovalFB );
+
+        Map<DataApproval, DataApprovalStatus> map = dataApprovalService.getDataApprovalStatuses( approvals );
+
+        assertEquals( "UNAPPROVED_READY level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalCA ) ) );
+        assertEquals( "APPROVED_HERE level=level4 approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalDA ) ) );
+        assertEquals( "APPROVED_HERE level=level3 approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalEA ) ) );
+        assertEquals( "APPROVED_ABOVE level=level4 approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalFA ) ) );
+        assertEquals( "UNAPPROVED_READY level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalCB ) ) );
+        assertEquals( "APPROVED_HERE level=level4 approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalDB ) ) );
+        assertEquals( "UNAPPROVED_WAITING level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalEB ) ) );
+        assertEquals( "UNAPPROVED_READY level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            statusString( map.get( dataApprovalFB ) ) );
+    }
+
+    @Test
+    public void testGetUserDataApprovalsAndPermissionsAfterAddAndDelete()
+    {
+        DataApproval dataApprovalD = new DataApproval( level4, workflow1234, periodA, organisationUnitD,
+            defaultOptionCombo, NOT_ACCEPTED, new Date(), userA );
+
+        createUserAndInjectSecurityContext( singleton( organisationUnitB ), false, AUTH_APPR_LEVEL );
+
+        assertEquals( "UNAPPROVED_READY level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            userStatusString( workflow1234, periodA, organisationUnitD ) );
+
+        transactionTemplate.execute( status -> {
+            dataApprovalStore.addDataApproval( dataApprovalD );
+
+            dbmsManager.flushSession();
+            return null;
+        } );
+
+        assertEquals( "APPROVED_HERE level=level4 approve=F unapprove=F accept=F unaccept=F read=T",
+            userStatusString( workflow1234, periodA, organisationUnitD ) );
+
+        transactionTemplate.execute( status -> {
+            dataApprovalStore.deleteDataApproval( dataApprovalD );
+
+            dbmsManager.flushSession();
+            return null;
+        } );
+
+        assertEquals( "UNAPPROVED_READY level=null approve=F unapprove=F accept=F unaccept=F read=T",
+            userStatusString( workflow1234, periodA, organisationUnitD ) );
+    }
+
     // -------------------------------------------------------------------------
     // Test with Categories
     // -------------------------------------------------------------------------
@@ -2638,6 +2727,16 @@ public class DataApprovalServiceTest
             + " read=" + (permissions.isMayReadData() ? "T" : "F");
     }
 
+    private String userStatusString( DataApprovalWorkflow workflow, Period period, OrganisationUnit orgUnit )
+    {
+        List<DataApprovalStatus> statuses = dataApprovalService.getUserDataApprovalsAndPermissions( workflow,
+            period, orgUnit, defaultCategoryCombo );
+
+        assertEquals( 1, statuses.size() );
+
+        return statusString( statuses.get( 0 ) );
+    }
+
     private User switchToApprovalUser( OrganisationUnit unit, String authApprove,
         String authApproveLowerLevels )
     {
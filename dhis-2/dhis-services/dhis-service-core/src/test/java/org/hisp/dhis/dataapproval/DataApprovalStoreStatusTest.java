@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dataapproval;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hibernate.SessionFactory;
+import org.hisp.dhis.TransactionalIntegrationTest;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.SimpleCacheBuilder;
+import org.hisp.dhis.category.CategoryOptionCombo;
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.commons.collection.ListUtils;
+import org.hisp.dhis.dataapproval.hibernate.HibernateDataApprovalStore;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.dataset.DataSetService;
+import org.hisp.dhis.jdbc.statementbuilder.PostgreSQLStatementBuilder;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserService;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Tests approval statuses from the store over several approval levels,
+ * periods and organisation units, and the eviction of cached statuses when
+ * approvals are added and deleted.
+ */
+public class DataApprovalStoreStatusTest extends TransactionalIntegrationTest
+{
+    private HibernateDataApprovalStore dataApprovalStore;
+
+    @Autowired
+    private DataApprovalStore defaultDataApprovalStore;
+
+    @Autowired
+    private DataApprovalLevelService dataApprovalLevelService;
+
+    @Autowired
+    private DataApprovalService dataApprovalService;
+
+    @Autowired
+    private PeriodService periodService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OrganisationUnitService organisationUnitService;
+
+    @Autowired
+    private DataSetService dataSetService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    // -------------------------------------------------------------------------
+    // Supporting data
+    // -------------------------------------------------------------------------
+
+    private DataApprovalLevel level1;
+
+    private DataApprovalLevel level2;
+
+    private List<DataApprovalLevel> userApprovalLevels;
+
+    private DataApprovalWorkflow workflow12;
+
+    private OrganisationUnit organisationUnitA;
+
+    private OrganisationUnit organisationUnitB;
+
+    private OrganisationUnit organisationUnitC;
+
+    private Period periodJan;
+
+    private Period periodFeb;
+
+    private CategoryOptionCombo defaultOptionCombo;
+
+    private User userA;
+
+    // -------------------------------------------------------------------------
+    // Set up/tear down
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void setUpTest()
+    {
+        // The caches are disabled in test runs, so the store under test gets
+        // real ones
+
+        when( cacheProvider.<Boolean> createIsDataApprovedCache() ).thenReturn(
+            new SimpleCacheBuilder<Boolean>().forRegion( "isDataApproved" ).withMaximumSize( 100 ).build() );
+        when( cacheProvider.<List<DataApprovalStatus>> createDataApprovalStatusCache() ).thenReturn(
+            new SimpleCacheBuilder<List<DataApprovalStatus>>().forRegion( "dataApprovalStatus" )
+                .withMaximumSize( 100 ).build() );
+
+        dataApprovalStore = new HibernateDataApprovalStore( sessionFactory, jdbcTemplate,
+            publisher, cacheProvider, periodService, currentUserService, categoryService,
+            systemSettingManager, new PostgreSQLStatementBuilder() );
+
+        // ---------------------------------------------------------------------
+        // Add supporting data
+        // ---------------------------------------------------------------------
+
+        //
+        // Organisation unit hierarchy:
+        //
+        // Level 1 A
+        // / \
+        // Level 2 B C
+        //
+
+        organisationUnitA = createOrganisationUnit( 'A' );
+        organisationUnitB = createOrganisationUnit( 'B', organisationUnitA );
+        organisationUnitC = createOrganisationUnit( 'C', organisationUnitA );
+
+        organisationUnitA.setHierarchyLevel( 1 );
+        organisationUnitB.setHierarchyLevel( 2 );
+        organisationUnitC.setHierarchyLevel( 2 );
+
+        organisationUnitService.addOrganisationUnit( organisationUnitA );
+        organisationUnitService.addOrganisationUnit( organisationUnitB );
+        organisationUnitService.addOrganisationUnit( organisationUnitC );
+
+        level1 = new DataApprovalLevel( "level1", 1, null );
+        level2 = new DataApprovalLevel( "level2", 2, null );
+
+        dataApprovalLevelService.addDataApprovalLevel( level1 );
+        dataApprovalLevelService.addDataApprovalLevel( level2 );
+
+        userApprovalLevels = ListUtils.newList( level1, level2 );
+
+        PeriodType periodType = periodService.reloadPeriodType( PeriodType.getPeriodTypeByName( "Monthly" ) );
+
+        workflow12 = new DataApprovalWorkflow( "workflow12", periodType, newHashSet( level1, level2 ) );
+
+        dataApprovalService.addWorkflow( workflow12 );
+
+        DataSet dataSet = createDataSet( 'A', periodType, categoryService.getDefaultCategoryCombo() );
+        dataSet.assignWorkflow( workflow12 );
+        dataSet.addOrganisationUnit( organisationUnitA );
+        dataSet.addOrganisationUnit( organisationUnitB );
+        dataSet.addOrganisationUnit( organisationUnitC );
+
+        dataSetService.addDataSet( dataSet );
+
+        periodJan = createPeriod( "202001" );
+        periodFeb = createPeriod( "202002" );
+
+        periodService.addPeriod( periodJan );
+        periodService.addPeriod( periodFeb );
+
+        defaultOptionCombo = categoryService.getDefaultCategoryOptionCombo();
+
+        userA = createUser( 'A' );
+        userA.addOrganisationUnit( organisationUnitA );
+
+        userService.addUser( userA );
+
+        when( currentUserService.getCurrentUser() ).thenReturn( userA );
+        when( currentUserService.getCurrentUsername() ).thenReturn( userA.getUsername() );
+
+        dbmsManager.flushSession();
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testGetDataApprovalStatusesOverLevelsAndPeriods()
+    {
+        addDataApproval( defaultDataApprovalStore, level2, periodJan, organisationUnitB );
+
+        assertEquals( "OrganisationUnitA=UNAPPROVED_WAITING", getStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=APPROVED_HERE level2, OrganisationUnitC=UNAPPROVED_READY",
+            getStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+        assertEquals( "OrganisationUnitA=UNAPPROVED_WAITING", getStatuses( periodFeb, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getStatuses( periodFeb, organisationUnitB, organisationUnitC ) );
+
+        addDataApproval( defaultDataApprovalStore, level2, periodJan, organisationUnitC );
+
+        assertEquals( "OrganisationUnitA=UNAPPROVED_READY", getStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitA=UNAPPROVED_WAITING", getStatuses( periodFeb, organisationUnitA ) );
+
+        addDataApproval( defaultDataApprovalStore, level1, periodJan, organisationUnitA );
+
+        assertEquals( "OrganisationUnitA=APPROVED_HERE level1", getStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=APPROVED_ABOVE level2, OrganisationUnitC=APPROVED_ABOVE level2",
+            getStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getStatuses( periodFeb, organisationUnitB, organisationUnitC ) );
+    }
+
+    @Test
+    public void testGetCachedDataApprovalStatuses()
+    {
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+
+        // An approval added through another store does not evict the cache of
+        // the store under test, so the cached statuses are returned
+
+        addDataApproval( defaultDataApprovalStore, level2, periodJan, organisationUnitB );
+
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+        assertEquals( "OrganisationUnitB=APPROVED_HERE level2, OrganisationUnitC=UNAPPROVED_READY",
+            getStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+    }
+
+    @Test
+    public void testGetCachedDataApprovalStatusesAfterAddAndDelete()
+    {
+        assertEquals( "OrganisationUnitA=UNAPPROVED_WAITING", getCachedStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodFeb, organisationUnitB, organisationUnitC ) );
+
+        DataApproval approvalB = addDataApproval( dataApprovalStore, level2, periodJan, organisationUnitB );
+        DataApproval approvalC = addDataApproval( dataApprovalStore, level2, periodJan, organisationUnitC );
+
+        assertEquals( "OrganisationUnitA=UNAPPROVED_READY", getCachedStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=APPROVED_HERE level2, OrganisationUnitC=APPROVED_HERE level2",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodFeb, organisationUnitB, organisationUnitC ) );
+
+        dataApprovalStore.deleteDataApproval( approvalC );
+        dbmsManager.flushSession();
+
+        assertEquals( "OrganisationUnitA=UNAPPROVED_WAITING", getCachedStatuses( periodJan, organisationUnitA ) );
+        assertEquals( "OrganisationUnitB=APPROVED_HERE level2, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+
+        dataApprovalStore.deleteDataApproval( approvalB );
+        dbmsManager.flushSession();
+
+        assertEquals( "OrganisationUnitB=UNAPPROVED_READY, OrganisationUnitC=UNAPPROVED_READY",
+            getCachedStatuses( periodJan, organisationUnitB, organisationUnitC ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private DataApproval addDataApproval( DataApprovalStore store, DataApprovalLevel level, Period period,
+        OrganisationUnit orgUnit )
+    {
+        DataApproval approval = new DataApproval( level, workflow12, period, orgUnit, defaultOptionCombo,
+            false, new Date(), userA );
+
+        store.addDataApproval( approval );
+
+        dbmsManager.flushSession();
+
+        return approval;
+    }
+
+    private String getStatuses( Period period, OrganisationUnit... orgUnits )
+    {
+        return toString( dataApprovalStore.getDataApprovalStatuses( workflow12, period,
+            Lists.newArrayList( orgUnits ), orgUnits[0].getHierarchyLevel(), null, getAttributeOptionCombos(),
+            userApprovalLevels, dataApprovalLevelService.getDataApprovalLevelMap() ) );
+    }
+
+    private String getCachedStatuses( Period period, OrganisationUnit... orgUnits )
+    {
+        return toString( dataApprovalStore.getCachedDataApprovalStatuses( workflow12, period,
+            Lists.newArrayList( orgUnits ), orgUnits[0].getHierarchyLevel(), null, getAttributeOptionCombos(),
+            userApprovalLevels, dataApprovalLevelService.getDataApprovalLevelMap() ) );
+    }
+
+    private Set<CategoryOptionCombo> getAttributeOptionCombos()
+    {
+        return singleton( defaultOptionCombo );
+    }
+
+    private String toString( List<DataApprovalStatus> statuses )
+    {
+        return statuses.stream()
+            .map( s -> s.getOrganisationUnitName() + "=" + s.getState()
+                + (s.getApprovedLevel() == null ? "" : " " + s.getApprovedLevel().getName()) )
+            .sorted()
+            .collect( Collectors.joining( ", " ) );
+    }
+}
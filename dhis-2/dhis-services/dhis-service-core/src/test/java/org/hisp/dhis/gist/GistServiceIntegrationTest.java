@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.gist;
+
+import static java.util.Collections.emptyMap;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.NamedParams;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Tests the {@link GistService} features that depend on PostgreSQL or on the
+ * caches being enabled, which is not the case in the H2 based tests.
+ */
+public class GistServiceIntegrationTest extends IntegrationTestBase
+{
+    @Autowired
+    private GistService gistService;
+
+    @Autowired
+    private CacheProvider cacheProvider;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    @Autowired
+    private UserService _userService;
+
+    @Override
+    protected void setUpTest()
+    {
+        userService = _userService;
+        createAndInjectAdminUser();
+    }
+
+    @Test
+    public void testPager_TotalEstimate()
+    {
+        manager.save( createDataElement( 'A' ) );
+        manager.save( createDataElement( 'B' ) );
+        manager.save( createDataElement( 'C' ) );
+
+        jdbcTemplate.execute( "analyze dataelement" );
+
+        // added after the statistics were collected
+        manager.save( createDataElement( 'D' ) );
+        manager.save( createDataElement( 'E' ) );
+
+        assertEquals( Integer.valueOf( 3 ), getTotal( "estimate" ) );
+        assertEquals( Integer.valueOf( 5 ), getTotal( "true" ) );
+    }
+
+    @Test
+    public void testPager_TotalEstimate_FilteredIsCounted()
+    {
+        manager.save( createDataElement( 'A' ) );
+        manager.save( createDataElement( 'B' ) );
+
+        jdbcTemplate.execute( "analyze dataelement" );
+
+        manager.save( createDataElement( 'C' ) );
+
+        GistQuery query = createQuery( ImmutableMap.of( "pageSize", "1", "total", "estimate",
+            "filter", "name:like:DataElement" ) );
+
+        assertEquals( Integer.valueOf( 3 ), gistService.pager( query, gistService.gist( query ), emptyMap() )
+            .getTotal() );
+    }
+
+    @Test
+    public void testGist_ReusesCachedHQL()
+    {
+        Cache<String> hqlCache = cacheProvider.createGistHqlCache();
+        hqlCache.invalidateAll();
+
+        manager.save( createDataElement( 'A' ) );
+        manager.save( createDataElement( 'B' ) );
+
+        assertEquals( "DataElementA", getName( "DataElementA" ) );
+        assertEquals( 1, hqlCache.getAll().count() );
+
+        // same shape, different argument
+        assertEquals( "DataElementB", getName( "DataElementB" ) );
+        assertEquals( 1, hqlCache.getAll().count() );
+
+        // different shape
+        gistService.gist( createQuery( ImmutableMap.of( "fields", "id,code", "filter", "name:eq:DataElementA" ) ) );
+        assertEquals( 2, hqlCache.getAll().count() );
+    }
+
+    private Integer getTotal( String total )
+    {
+        GistQuery query = createQuery( ImmutableMap.of( "pageSize", "1", "total", total ) );
+
+        return gistService.pager( query, gistService.gist( query ), emptyMap() ).getTotal();
+    }
+
+    private String getName( String name )
+    {
+        List<?> rows = gistService.gist(
+            createQuery( ImmutableMap.of( "fields", "id,name", "filter", "name:eq:" + name ) ) );
+
+        assertEquals( 1, rows.size() );
+
+        return (String) ((Object[]) rows.get( 0 ))[1];
+    }
+
+    private GistQuery createQuery( Map<String, String> params )
+    {
+        return gistService.plan( GistQuery.builder()
+            .elementType( DataElement.class )
+            .contextRoot( "" )
+            .build()
+            .with( new NamedParams( params ) ) );
+    }
+}
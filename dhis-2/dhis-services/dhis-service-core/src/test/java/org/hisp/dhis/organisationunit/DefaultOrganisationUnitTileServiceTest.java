@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class DefaultOrganisationUnitTileServiceTest
+{
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testGetTier()
+    {
+        assertEquals( Integer.valueOf( 0 ), DefaultOrganisationUnitTileService.getTier( 0 ) );
+        assertEquals( Integer.valueOf( 0 ), DefaultOrganisationUnitTileService.getTier( 4 ) );
+        assertEquals( Integer.valueOf( 1 ), DefaultOrganisationUnitTileService.getTier( 5 ) );
+        assertEquals( Integer.valueOf( 2 ), DefaultOrganisationUnitTileService.getTier( 10 ) );
+        assertNull( DefaultOrganisationUnitTileService.getTier( 11 ) );
+    }
+
+    @Test
+    public void testGetTileBoundsWorld()
+    {
+        assertArrayEquals( new double[] { -180, -85.051129, 180, 85.051129 },
+            DefaultOrganisationUnitTileService.getTileBounds( 0, 0, 0 ), DELTA );
+    }
+
+    @Test
+    public void testGetTileBoundsQuadrant()
+    {
+        assertArrayEquals( new double[] { 0, -85.051129, 180, 0 },
+            DefaultOrganisationUnitTileService.getTileBounds( 1, 1, 1 ), DELTA );
+
+        assertArrayEquals( new double[] { -180, 0, 0, 85.051129 },
+            DefaultOrganisationUnitTileService.getTileBounds( 1, 0, 0 ), DELTA );
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+public class OrganisationUnitSpatialIndexTest
+{
+    private final GeometryFactory geometryFactory = new GeometryFactory( new PrecisionModel(), 4326 );
+
+    private OrganisationUnitSpatialIndex spatialIndex;
+
+    @Before
+    @SuppressWarnings( "rawtypes" )
+    public void setUp()
+    {
+        SessionFactory sessionFactory = mock( SessionFactory.class );
+        StatelessSession session = mock( StatelessSession.class );
+        Query query = mock( Query.class );
+        DhisConfigurationProvider config = mock( DhisConfigurationProvider.class );
+
+        when( sessionFactory.openStatelessSession() ).thenReturn( session );
+        when( session.createQuery( anyString() ) ).thenReturn( query );
+        when( query.list() ).thenReturn( ImmutableList.of(
+            new Object[] { 1L, 1, "/ouA", square( 0, 10 ) },
+            new Object[] { 2L, 2, "/ouA/ouB", square( 0, 5 ) },
+            new Object[] { 3L, 2, "/ouA/ouC", square( 5, 10 ) },
+            new Object[] { 4L, 3, "/ouA/ouB/ouD", point( 1, 1 ) } ) );
+        when( config.isEnabled( ConfigurationKey.ORGANISATION_UNIT_SPATIAL_INDEX ) ).thenReturn( true );
+
+        spatialIndex = new OrganisationUnitSpatialIndex( sessionFactory, config );
+        spatialIndex.load();
+    }
+
+    @Test
+    public void testGetCovering()
+    {
+        assertEquals( ImmutableMap.of( 1, ImmutableList.of( 1L ), 2, ImmutableList.of( 2L ) ),
+            spatialIndex.getCovering( 2, 2, null, null ) );
+        assertEquals( ImmutableMap.of( 1, ImmutableList.of( 1L ), 2, ImmutableList.of( 3L ) ),
+            spatialIndex.getCovering( 7, 7, null, null ) );
+        assertTrue( spatialIndex.getCovering( 20, 20, null, null ).isEmpty() );
+    }
+
+    @Test
+    public void testGetCoveringWithLevelAndParent()
+    {
+        assertEquals( ImmutableMap.of( 2, ImmutableList.of( 2L ) ), spatialIndex.getCovering( 2, 2, 2, null ) );
+        assertEquals( ImmutableMap.of( 2, ImmutableList.of( 2L ) ),
+            spatialIndex.getCovering( 2, 2, null, "/ouA/ouB" ) );
+        assertTrue( spatialIndex.getCovering( 2, 2, null, "/ouA/ouC" ).isEmpty() );
+    }
+
+    @Test
+    public void testGetWithinDistance()
+    {
+        assertEquals( ImmutableList.of( 4L ), spatialIndex.getWithinDistance( 1.001, 1.001, 1000 ) );
+        assertTrue( spatialIndex.getWithinDistance( 1.1, 1.1, 1000 ).isEmpty() );
+    }
+
+    @Test
+    public void testUpdateAndRemove()
+    {
+        OrganisationUnit parent = new OrganisationUnit();
+        parent.setUid( "ouA" );
+
+        OrganisationUnit unit = new OrganisationUnit();
+        unit.setId( 2L );
+        unit.setUid( "ouB" );
+        unit.setParent( parent );
+        unit.setGeometry( square( 20, 30 ) );
+
+        spatialIndex.update( unit );
+
+        assertEquals( ImmutableMap.of( 1, ImmutableList.of( 1L ) ), spatialIndex.getCovering( 2, 2, null, null ) );
+        assertEquals( ImmutableMap.of( 2, ImmutableList.of( 2L ) ), spatialIndex.getCovering( 25, 25, null, null ) );
+
+        spatialIndex.remove( unit );
+
+        assertTrue( spatialIndex.getCovering( 25, 25, null, null ).isEmpty() );
+    }
+
+    private Geometry square( double min, double max )
+    {
+        return geometryFactory.createPolygon( new Coordinate[] {
+            new Coordinate( min, min ), new Coordinate( max, min ), new Coordinate( max, max ),
+            new Coordinate( min, max ), new Coordinate( min, min ) } );
+    }
+
+    private Geometry point( double longitude, double latitude )
+    {
+        return geometryFactory.createPoint( new Coordinate( longitude, latitude ) );
+    }
+}
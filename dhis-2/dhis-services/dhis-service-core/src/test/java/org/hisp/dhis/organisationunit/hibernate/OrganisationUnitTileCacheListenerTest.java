@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.organisationunit.hibernate;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitTileService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class OrganisationUnitTileCacheListenerTest
+    extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private OrganisationUnitTileService tileService;
+
+    @Mock
+    private EntityPersister persister;
+
+    private OrganisationUnitTileCacheListener listener;
+
+    private OrganisationUnit unit;
+
+    @Before
+    public void setUp()
+    {
+        listener = new OrganisationUnitTileCacheListener( tileService );
+        unit = createOrganisationUnit( 'A' );
+
+        when( persister.getPropertyNames() )
+            .thenReturn( new String[] { "name", "shortName", "description", "geometry" } );
+    }
+
+    @Test
+    public void testInsertInvalidatesTiles()
+    {
+        listener.onPostInsert( new PostInsertEvent( unit, 1L, null, persister, null ) );
+
+        verify( tileService ).invalidateTiles();
+    }
+
+    @Test
+    public void testDeleteInvalidatesTiles()
+    {
+        listener.onPostDelete( new PostDeleteEvent( unit, 1L, null, persister, null ) );
+
+        verify( tileService ).invalidateTiles();
+    }
+
+    @Test
+    public void testGeometryUpdateInvalidatesTiles()
+    {
+        listener.onPostUpdate( new PostUpdateEvent( unit, 1L, null, null, new int[] { 1, 3 }, persister, null ) );
+
+        verify( tileService ).invalidateTiles();
+    }
+
+    @Test
+    public void testDescriptionUpdateKeepsTiles()
+    {
+        listener.onPostUpdate( new PostUpdateEvent( unit, 1L, null, null, new int[] { 1, 2 }, persister, null ) );
+
+        verify( tileService, never() ).invalidateTiles();
+    }
+
+    @Test
+    public void testOtherEntityKeepsTiles()
+    {
+        DataElement dataElement = createDataElement( 'A' );
+
+        listener.onPostInsert( new PostInsertEvent( dataElement, 1L, null, persister, null ) );
+        listener.onPostDelete( new PostDeleteEvent( dataElement, 1L, null, persister, null ) );
+
+        verify( tileService, never() ).invalidateTiles();
+    }
+}
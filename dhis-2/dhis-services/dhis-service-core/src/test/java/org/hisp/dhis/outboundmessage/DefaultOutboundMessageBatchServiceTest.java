@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outboundmessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.message.MessageSender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableMap;
+
+public class DefaultOutboundMessageBatchServiceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private MessageSender smsSender;
+
+    @Mock
+    private MessageSender emailSender;
+
+    private DefaultOutboundMessageBatchService subject;
+
+    private OutboundMessageBatch smsBatch;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( any( ConfigurationKey.class ) ) )
+            .thenAnswer( invocation -> ((ConfigurationKey) invocation.getArgument( 0 )).getDefaultValue() );
+        when( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_RETRY_DELAY ) ).thenReturn( "0" );
+        when( config.getProperty( ConfigurationKey.OUTBOUND_SMS_RATE_LIMIT ) ).thenReturn( "0" );
+
+        when( smsSender.isConfigured() ).thenReturn( true );
+
+        subject = new DefaultOutboundMessageBatchService( config );
+        subject.setMessageSenders( ImmutableMap.of( DeliveryChannel.SMS, smsSender,
+            DeliveryChannel.EMAIL, emailSender ) );
+
+        smsBatch = new OutboundMessageBatch( Collections.singletonList(
+            new OutboundMessage( "subject", "text", Collections.singleton( "+4790000000" ) ) ), DeliveryChannel.SMS );
+    }
+
+    @After
+    public void tearDown()
+    {
+        subject.destroy();
+    }
+
+    @Test
+    public void shouldReturnBeforeBatchIsDelivered()
+        throws Exception
+    {
+        CountDownLatch gatewayResponds = new CountDownLatch( 1 );
+
+        when( smsSender.sendMessageBatch( smsBatch ) ).thenAnswer( invocation -> {
+            gatewayResponds.await();
+            return summary( OutboundMessageBatchStatus.COMPLETED, 1 );
+        } );
+
+        CompletableFuture<List<OutboundMessageResponseSummary>> future = subject
+            .sendBatchesAsync( Collections.singletonList( smsBatch ) );
+
+        assertFalse( future.isDone() );
+
+        gatewayResponds.countDown();
+
+        assertEquals( OutboundMessageBatchStatus.COMPLETED,
+            future.get( 10, TimeUnit.SECONDS ).get( 0 ).getBatchStatus() );
+    }
+
+    @Test
+    public void shouldRetryFailedBatchUntilDelivered()
+        throws Exception
+    {
+        when( smsSender.sendMessageBatch( smsBatch ) )
+            .thenThrow( new IllegalStateException( "Gateway unavailable" ) )
+            .thenReturn( summary( OutboundMessageBatchStatus.FAILED, 0 ) )
+            .thenReturn( summary( OutboundMessageBatchStatus.COMPLETED, 1 ) );
+
+        List<OutboundMessageResponseSummary> summaries = subject
+            .sendBatchesAsync( Collections.singletonList( smsBatch ) ).get( 10, TimeUnit.SECONDS );
+
+        assertEquals( OutboundMessageBatchStatus.COMPLETED, summaries.get( 0 ).getBatchStatus() );
+        verify( smsSender, times( 3 ) ).sendMessageBatch( smsBatch );
+    }
+
+    @Test
+    public void shouldGiveUpAfterMaxAttempts()
+        throws Exception
+    {
+        when( smsSender.sendMessageBatch( smsBatch ) ).thenReturn( summary( OutboundMessageBatchStatus.FAILED, 0 ) );
+
+        List<OutboundMessageResponseSummary> summaries = subject
+            .sendBatchesAsync( Collections.singletonList( smsBatch ) ).get( 10, TimeUnit.SECONDS );
+
+        assertEquals( OutboundMessageBatchStatus.FAILED, summaries.get( 0 ).getBatchStatus() );
+        verify( smsSender, times( 4 ) ).sendMessageBatch( smsBatch );
+    }
+
+    @Test
+    public void shouldNotRetryPartiallySentBatch()
+        throws Exception
+    {
+        when( smsSender.sendMessageBatch( smsBatch ) ).thenReturn( summary( OutboundMessageBatchStatus.FAILED, 1 ) );
+
+        subject.sendBatchesAsync( Collections.singletonList( smsBatch ) ).get( 10, TimeUnit.SECONDS );
+
+        verify( smsSender, times( 1 ) ).sendMessageBatch( smsBatch );
+    }
+
+    @Test
+    public void shouldFailBatchOfUnconfiguredChannel()
+        throws Exception
+    {
+        OutboundMessageBatch emailBatch = new OutboundMessageBatch( Collections.singletonList(
+            new OutboundMessage( "subject", "text", Collections.singleton( "a@b.c" ) ) ), DeliveryChannel.EMAIL );
+
+        List<OutboundMessageResponseSummary> summaries = subject
+            .sendBatchesAsync( Collections.singletonList( emailBatch ) ).get( 10, TimeUnit.SECONDS );
+
+        assertEquals( OutboundMessageBatchStatus.FAILED, summaries.get( 0 ).getBatchStatus() );
+        verify( emailSender, never() ).sendMessageBatch( any() );
+    }
+
+    private OutboundMessageResponseSummary summary( OutboundMessageBatchStatus status, int sent )
+    {
+        OutboundMessageResponseSummary summary = new OutboundMessageResponseSummary();
+        summary.setBatchStatus( status );
+        summary.setTotal( 1 );
+        summary.setSent( sent );
+        summary.setFailed( 1 - sent );
+        return summary;
+    }
+}
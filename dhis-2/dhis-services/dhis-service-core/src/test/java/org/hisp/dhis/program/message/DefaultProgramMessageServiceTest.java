@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.program.message;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.outboundmessage.OutboundMessage;
+import org.hisp.dhis.outboundmessage.OutboundMessageBatch;
+import org.hisp.dhis.outboundmessage.OutboundMessageBatchService;
+import org.hisp.dhis.outboundmessage.OutboundMessageBatchStatus;
+import org.hisp.dhis.outboundmessage.OutboundMessageResponseSummary;
+import org.hisp.dhis.program.ProgramService;
+import org.hisp.dhis.security.acl.AclService;
+import org.hisp.dhis.trackedentity.TrackedEntityInstanceService;
+import org.hisp.dhis.user.CurrentUserService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tests the resending of program messages left outbound by
+ * {@link DefaultProgramMessageService}.
+ */
+public class DefaultProgramMessageServiceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private IdentifiableObjectManager manager;
+
+    @Mock
+    private ProgramMessageStore programMessageStore;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private TrackedEntityInstanceService trackedEntityInstanceService;
+
+    @Mock
+    private ProgramService programService;
+
+    @Mock
+    private OutboundMessageBatchService messageBatchService;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Mock
+    private MessageBatchCreatorService batchCreator;
+
+    @Mock
+    private AclService aclService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private DefaultProgramMessageService programMessageService;
+
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ConfigurationKey.OUTBOUND_MESSAGE_RECOVERY_DELAY ) ).thenReturn( "600" );
+
+        programMessageService = new DefaultProgramMessageService( manager, programMessageStore,
+            organisationUnitService, trackedEntityInstanceService, programService, messageBatchService,
+            currentUserService, emptyList(), singletonList( batchCreator ), aclService,
+            new TransactionTemplate( transactionManager ), config );
+    }
+
+    @Test
+    public void testResendOutboundMessages()
+    {
+        ProgramMessage message = new ProgramMessage();
+        message.setMessageStatus( ProgramMessageStatus.OUTBOUND );
+
+        OutboundMessageBatch batch = new OutboundMessageBatch(
+            singletonList( new OutboundMessage( "subject", "text", singleton( "4740000000" ) ) ),
+            DeliveryChannel.SMS );
+
+        OutboundMessageResponseSummary summary = new OutboundMessageResponseSummary();
+        summary.setBatchStatus( OutboundMessageBatchStatus.COMPLETED );
+
+        when( programMessageStore.claimOutboundMessages( any( Date.class ), eq( 1000 ) ) )
+            .thenReturn( singletonList( message ) );
+        when( batchCreator.getMessageBatch( singletonList( message ) ) ).thenReturn( batch );
+        when( messageBatchService.sendBatchesAsync( singletonList( batch ) ) )
+            .thenReturn( CompletableFuture.completedFuture( singletonList( summary ) ) );
+
+        long now = System.currentTimeMillis();
+
+        assertEquals( 1, programMessageService.resendOutboundMessages() );
+
+        ArgumentCaptor<Date> processedBefore = ArgumentCaptor.forClass( Date.class );
+        verify( programMessageStore ).claimOutboundMessages( processedBefore.capture(), eq( 1000 ) );
+
+        long recoveryDelay = now - processedBefore.getValue().getTime();
+        assertTrue( recoveryDelay >= TimeUnit.SECONDS.toMillis( 599 ) );
+        assertTrue( recoveryDelay <= TimeUnit.SECONDS.toMillis( 601 ) );
+
+        verify( programMessageStore ).update( message );
+        assertEquals( ProgramMessageStatus.SENT, message.getMessageStatus() );
+    }
+
+    @Test
+    public void testResendOutboundMessages_NoneLeft()
+    {
+        when( programMessageStore.claimOutboundMessages( any( Date.class ), eq( 1000 ) ) )
+            .thenReturn( emptyList() );
+
+        assertEquals( 0, programMessageService.resendOutboundMessages() );
+
+        verify( messageBatchService, never() ).sendBatchesAsync( anyList() );
+    }
+}
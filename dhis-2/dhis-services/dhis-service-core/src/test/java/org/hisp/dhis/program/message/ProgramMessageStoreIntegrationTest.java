@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.program.message;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.DeliveryChannel;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Tests the claiming of program messages left outbound. Runs on Postgres, as
+ * the claim relies on {@code for update skip locked}.
+ */
+public class ProgramMessageStoreIntegrationTest extends IntegrationTestBase
+{
+    @Autowired
+    private ProgramMessageStore programMessageStore;
+
+    @Autowired
+    private ProgramMessageService programMessageService;
+
+    @Autowired
+    private UserService _userService;
+
+    private ProgramMessage outboundOld;
+
+    private ProgramMessage outboundRecent;
+
+    private ProgramMessage sentOld;
+
+    private Date processedBefore;
+
+    @Override
+    protected void setUpTest()
+    {
+        userService = _userService;
+        createAndInjectAdminUser();
+
+        outboundOld = addProgramMessage( "outboundOld", ProgramMessageStatus.OUTBOUND );
+        outboundRecent = addProgramMessage( "outboundRecent", ProgramMessageStatus.OUTBOUND );
+        sentOld = addProgramMessage( "sentOld", ProgramMessageStatus.SENT );
+
+        backdate( outboundOld );
+        backdate( sentOld );
+
+        processedBefore = new Date( System.currentTimeMillis() - TimeUnit.MINUTES.toMillis( 10 ) );
+    }
+
+    @Test
+    public void testClaimOutboundMessages()
+    {
+        List<ProgramMessage> claimed = programMessageStore.claimOutboundMessages( processedBefore, 10 );
+
+        assertEquals( 1, claimed.size() );
+        assertEquals( outboundOld.getUid(), claimed.get( 0 ).getUid() );
+
+        assertTrue( programMessageStore.claimOutboundMessages( processedBefore, 10 ).isEmpty() );
+    }
+
+    @Test
+    public void testClaimOutboundMessages_Limit()
+    {
+        backdate( outboundRecent );
+
+        assertEquals( 1, programMessageStore.claimOutboundMessages( processedBefore, 1 ).size() );
+        assertEquals( 1, programMessageStore.claimOutboundMessages( processedBefore, 1 ).size() );
+        assertTrue( programMessageStore.claimOutboundMessages( processedBefore, 1 ).isEmpty() );
+    }
+
+    @Test
+    public void testClaimOutboundMessages_SkipLocked()
+        throws Exception
+    {
+        backdate( outboundRecent );
+
+        try ( Connection connection = jdbcTemplate.getDataSource().getConnection() )
+        {
+            connection.setAutoCommit( false );
+
+            try ( PreparedStatement statement = connection.prepareStatement(
+                "select id from programmessage where uid = ? for update" ) )
+            {
+                statement.setString( 1, outboundOld.getUid() );
+                statement.executeQuery().close();
+
+                List<ProgramMessage> claimed = programMessageStore.claimOutboundMessages( processedBefore, 10 );
+
+                assertEquals( 1, claimed.size() );
+                assertEquals( outboundRecent.getUid(), claimed.get( 0 ).getUid() );
+            }
+            finally
+            {
+                connection.rollback();
+            }
+        }
+
+        List<ProgramMessage> claimed = programMessageStore.claimOutboundMessages( processedBefore, 10 );
+
+        assertEquals( 1, claimed.size() );
+        assertEquals( outboundOld.getUid(), claimed.get( 0 ).getUid() );
+    }
+
+    private ProgramMessage addProgramMessage( String text, ProgramMessageStatus status )
+    {
+        ProgramMessageRecipients recipients = new ProgramMessageRecipients();
+        recipients.setPhoneNumbers( Sets.newHashSet( "4740000000" ) );
+
+        ProgramMessage message = createProgramMessage( text, "subject", recipients, status,
+            Sets.newHashSet( DeliveryChannel.SMS ) );
+        message.setProcessedDate( new Date() );
+
+        programMessageService.saveProgramMessage( message );
+
+        return message;
+    }
+
+    private void backdate( ProgramMessage message )
+    {
+        jdbcTemplate.update( "update programmessage set processeddate = now() - interval '1 hour' where uid = ?",
+            message.getUid() );
+    }
+}
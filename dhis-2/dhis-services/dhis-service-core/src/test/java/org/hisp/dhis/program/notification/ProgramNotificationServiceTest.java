@@ -33,6 +33,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyList;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,7 +57,6 @@ import org.hisp.dhis.notification.NotificationMessage;
 import org.hisp.dhis.notification.NotificationMessageRenderer;
 import org.hisp.dhis.notification.NotificationTemplate;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
-import org.hisp.dhis.outboundmessage.BatchResponseStatus;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramInstanceStore;
@@ -78,6 +78,8 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Sets;
 
@@ -132,6 +134,12 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     @Mock
     private ProgramNotificationTemplateService notificationTemplateService;
 
+    @Mock
+    private JdbcProgramNotificationProgressStore progressStore;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     private NotificationTemplateMapper notificationTemplateMapper = new NotificationTemplateMapper();
 
     private DefaultProgramNotificationService programNotificationService;
@@ -206,7 +214,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
         programNotificationService = new DefaultProgramNotificationService( this.programMessageService,
             this.messageService, this.programInstanceStore, this.programStageInstanceStore, this.manager,
             this.programNotificationRenderer, this.programStageNotificationRenderer, notificationTemplateService,
-            notificationTemplateMapper );
+            notificationTemplateMapper, progressStore, transactionTemplate );
+
+        when( transactionTemplate.execute( any() ) )
+            .thenAnswer( invocation -> ((TransactionCallback<?>) invocation.getArgument( 0 )).doInTransaction( null ) );
 
         setUpInstances();
 
@@ -241,10 +252,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programInstanceStore.get( anyLong() ) ).thenReturn( programInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programNotificationRenderer.render( any( ProgramInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -266,10 +277,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programInstanceStore.get( anyLong() ) ).thenReturn( programInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programNotificationRenderer.render( any( ProgramInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -318,10 +329,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programInstanceStore.get( anyLong() ) ).thenReturn( programInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programNotificationRenderer.render( any( ProgramInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -344,10 +355,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programInstanceStore.get( anyLong() ) ).thenReturn( programInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programNotificationRenderer.render( any( ProgramInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -372,10 +383,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programInstanceStore.get( anyLong() ) ).thenReturn( programInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programNotificationRenderer.render( any( ProgramInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -400,10 +411,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programStageInstanceStore.get( anyLong() ) ).thenReturn( programStageInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programStageNotificationRenderer.render( any( ProgramStageInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -433,10 +444,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         when( programStageInstanceStore.get( anyLong() ) ).thenReturn( programStageInstances.iterator().next() );
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( programStageNotificationRenderer.render( any( ProgramStageInstance.class ),
             any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
@@ -599,10 +610,10 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
     {
         sentProgramMessages.clear();
 
-        when( programMessageService.sendMessages( anyList() ) ).thenAnswer( invocation -> {
+        doAnswer( invocation -> {
             sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
-            return new BatchResponseStatus( Collections.emptyList() );
-        } );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
 
         when( manager.getAll( ProgramNotificationInstance.class ) )
             .thenReturn( Collections.singletonList( programNotificationInstaceForToday ) );
@@ -615,6 +626,39 @@ public class ProgramNotificationServiceTest extends DhisConvenienceTest
         assertEquals( 1, sentProgramMessages.size() );
     }
 
+    @Test
+    public void testScheduledNotificationsForDayResumeAfterLastProcessedInstance()
+    {
+        Date today = new Date();
+        ProgramInstance programInstance = programInstances.iterator().next();
+        programInstance.setId( 6 );
+
+        programNotificationTemplate.setId( 1 );
+        programNotificationTemplate.setNotificationTrigger( NotificationTrigger.SCHEDULED_DAYS_ENROLLMENT_DATE );
+
+        when( manager.getAll( ProgramNotificationTemplate.class ) )
+            .thenReturn( Collections.singletonList( programNotificationTemplate ) );
+        when( notificationTemplateService.get( 1 ) ).thenReturn( programNotificationTemplate );
+        when( progressStore.getLastProcessedId( 1, today, "PROGRAM_INSTANCE" ) ).thenReturn( 5L );
+        when( programInstanceStore.getWithScheduledNotifications( programNotificationTemplate, today, 5L, 500 ) )
+            .thenReturn( Collections.singletonList( programInstance ) );
+        when( programNotificationRenderer.render( any( ProgramInstance.class ),
+            any( NotificationTemplate.class ) ) ).thenReturn( notificationMessage );
+
+        doAnswer( invocation -> {
+            sentProgramMessages.addAll( (List<ProgramMessage>) invocation.getArguments()[0] );
+            return null;
+        } ).when( programMessageService ).sendMessagesAsync( anyList() );
+
+        programNotificationService.sendScheduledNotificationsForDay( today );
+
+        assertEquals( 1, sentProgramMessages.size() );
+        verify( progressStore ).deleteBefore( today );
+        verify( progressStore ).setLastProcessedId( 1, today, "PROGRAM_INSTANCE", 6 );
+        verify( programInstanceStore, never() ).getWithScheduledNotifications( programNotificationTemplate, today,
+            6L, 500 );
+    }
+
     @Test
     public void testScheduledNotificationsWithDateInPast()
     {
@@ -43,6 +43,7 @@ import org.hisp.dhis.organisationunit.DefaultOrganisationUnitService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevelStore;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.organisationunit.OrganisationUnitSpatialIndex;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
 import org.hisp.dhis.query.operators.EqualOperator;
 import org.hisp.dhis.query.operators.NullOperator;
@@ -87,6 +88,9 @@ public class QueryParserTest
     @Autowired
     private CacheProvider cacheProvider;
 
+    @Autowired
+    private OrganisationUnitSpatialIndex spatialIndex;
+
     @Override
     public boolean emptyDatabaseAfterTest()
     {
@@ -102,7 +106,8 @@ public class QueryParserTest
         user.addOrganisationUnit( orgUnitA );
         CurrentUserService currentUserService = new MockCurrentUserService( user );
         this.organisationUnitService = new DefaultOrganisationUnitService( organisationUnitStore, dataSetService,
-            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider );
+            organisationUnitLevelStore, currentUserService, configurationService, userSettingService, cacheProvider,
+            spatialIndex );
         organisationUnitService.addOrganisationUnit( orgUnitA );
         identifiableObjectManager.save( orgUnitA );
         queryParser = new DefaultJpaQueryParser( schemaService );
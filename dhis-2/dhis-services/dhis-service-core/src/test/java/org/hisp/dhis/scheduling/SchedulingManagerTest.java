@@ -53,6 +53,7 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskSchedulers;
 import org.hisp.dhis.leader.election.LeaderManager;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.scheduling.parameters.AnalyticsJobParameters;
@@ -61,8 +62,8 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.TaskScheduler;
 import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.util.concurrent.FailureCallback;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
@@ -81,7 +82,9 @@ import org.springframework.util.concurrent.SuccessCallback;
 public class SchedulingManagerTest
 {
 
-    private final TaskScheduler taskScheduler = mock( TaskScheduler.class );
+    private final ThreadPoolTaskScheduler taskScheduler = mock( ThreadPoolTaskScheduler.class );
+
+    private final TaskSchedulers taskSchedulers = mock( TaskSchedulers.class );
 
     private final JobConfigurationService jobConfigurationService = mock( JobConfigurationService.class );
 
@@ -95,10 +98,11 @@ public class SchedulingManagerTest
     public void setUp()
     {
         when( applicationContext.getBeansOfType( any() ) ).thenReturn( Collections.singletonMap( "test", job ) );
+        when( taskSchedulers.getScheduler( any() ) ).thenReturn( taskScheduler );
 
         schedulingManager = new DefaultSchedulingManager( new DefaultJobService( applicationContext ),
             jobConfigurationService, mock( MessageService.class ),
-            mock( LeaderManager.class ), taskScheduler, mock( AsyncTaskExecutor.class ) );
+            mock( LeaderManager.class ), taskSchedulers, mock( AsyncTaskExecutor.class ) );
     }
 
     @Test
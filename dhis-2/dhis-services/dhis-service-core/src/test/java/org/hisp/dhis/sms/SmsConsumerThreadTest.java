@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.sms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hisp.dhis.common.TaskPool;
+import org.hisp.dhis.common.TaskSchedulers;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.message.MessageSender;
+import org.hisp.dhis.sms.incoming.IncomingSms;
+import org.hisp.dhis.sms.incoming.IncomingSmsListener;
+import org.hisp.dhis.sms.incoming.IncomingSmsService;
+import org.hisp.dhis.sms.incoming.SmsMessageStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SmsConsumerThreadTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private MessageSender smsSender;
+
+    @Mock
+    private IncomingSmsService incomingSmsService;
+
+    @Mock
+    private TaskSchedulers taskSchedulers;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private IncomingSmsListener unhandledListener;
+
+    private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskScheduler scheduler;
+
+    private MessageQueue messageQueue;
+
+    private MeterRegistry meterRegistry;
+
+    private SmsConsumerThread subject;
+
+    @Before
+    public void setUp()
+    {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize( 4 );
+        scheduler.initialize();
+
+        when( taskSchedulers.getScheduler( TaskPool.IMPORT ) ).thenReturn( scheduler );
+        when( config.getProperty( ConfigurationKey.SMS_INBOUND_WORKERS ) ).thenReturn( "4" );
+
+        messageQueue = new DatabaseSupportedInternalMemoryMessageQueue( incomingSmsService );
+        meterRegistry = new SimpleMeterRegistry();
+
+        subject = new SmsConsumerThread( messageQueue, smsSender, incomingSmsService, taskSchedulers, config,
+            meterRegistry );
+        subject.setListeners( Collections.singletonList( new RecordingListener() ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void shouldProcessAllMessagesInOrderPerOriginator()
+    {
+        List<IncomingSms> messages = new ArrayList<>();
+
+        for ( int i = 0; i < 1200; i++ )
+        {
+            IncomingSms sms = createSms( "+47" + (i % 7), "msg " + i );
+            messages.add( sms );
+            messageQueue.put( sms );
+        }
+
+        subject.spawnSmsConsumer();
+
+        assertEquals( 0, messageQueue.size() );
+        assertEquals( 7, received.size() );
+
+        for ( int originator = 0; originator < 7; originator++ )
+        {
+            List<String> expected = new ArrayList<>();
+
+            for ( int i = originator; i < 1200; i += 7 )
+            {
+                expected.add( "msg " + i );
+            }
+
+            assertEquals( expected, received.get( "+47" + originator ) );
+        }
+
+        assertTrue( messages.stream().allMatch( sms -> sms.getStatus() == SmsMessageStatus.PROCESSED ) );
+        assertEquals( 1200, meterRegistry.get( SmsConsumerThread.PROCESSING_TIMER )
+            .tag( "status", SmsMessageStatus.PROCESSED.name() ).timer().count() );
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void shouldUpdateStatusOfEachBatchInOneCall()
+    {
+        for ( int i = 0; i < 600; i++ )
+        {
+            messageQueue.put( createSms( "+47" + i, "msg " + i ) );
+        }
+
+        subject.spawnSmsConsumer();
+
+        ArgumentCaptor<List<IncomingSms>> captor = ArgumentCaptor.forClass( List.class );
+        verify( incomingSmsService, times( 2 ) ).updateAll( captor.capture() );
+
+        assertEquals( 500, captor.getAllValues().get( 0 ).size() );
+        assertEquals( 100, captor.getAllValues().get( 1 ).size() );
+    }
+
+    @Test
+    public void shouldReplyToUnhandledMessages()
+    {
+        subject.setListeners( Collections.singletonList( unhandledListener ) );
+
+        IncomingSms sms = createSms( "+4790000000", "unknown" );
+        messageQueue.put( sms );
+
+        subject.spawnSmsConsumer();
+
+        assertEquals( SmsMessageStatus.UNHANDLED, sms.getStatus() );
+        verify( smsSender ).sendMessage( null, "No command found", "+4790000000" );
+        verify( incomingSmsService ).updateAll( anyList() );
+    }
+
+    @Test
+    public void shouldExposeBacklog()
+    {
+        messageQueue.put( createSms( "+4790000000", "one" ) );
+        messageQueue.put( createSms( "+4790000000", "two" ) );
+
+        assertEquals( 2.0, meterRegistry.get( SmsConsumerThread.BACKLOG_GAUGE ).gauge().value(), 0.0 );
+
+        subject.spawnSmsConsumer();
+
+        assertEquals( 0.0, meterRegistry.get( SmsConsumerThread.BACKLOG_GAUGE ).gauge().value(), 0.0 );
+    }
+
+    private IncomingSms createSms( String originator, String text )
+    {
+        IncomingSms sms = new IncomingSms();
+        sms.setOriginator( originator );
+        sms.setText( text );
+        return sms;
+    }
+
+    private class RecordingListener
+        implements IncomingSmsListener
+    {
+        @Override
+        public boolean accept( IncomingSms sms )
+        {
+            return true;
+        }
+
+        @Override
+        public void receive( IncomingSms sms )
+        {
+            received.computeIfAbsent( sms.getOriginator(), k -> Collections.synchronizedList( new ArrayList<>() ) )
+                .add( sms.getText() );
+            sms.setStatus( SmsMessageStatus.PROCESSED );
+        }
+    }
+}
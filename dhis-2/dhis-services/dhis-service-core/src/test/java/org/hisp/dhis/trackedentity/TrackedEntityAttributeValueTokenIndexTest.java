@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity;
+
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.common.OrganisationUnitSelectionMode;
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryItem;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.dbms.DbmsManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.startup.TrackedEntityAttributeValueTokenIndexPopulator;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
+import org.hisp.dhis.user.UserService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests the query search with the tracked entity attribute value token index
+ * enabled. EQ queries use the index, LIKE queries must still match inside
+ * words.
+ */
+public class TrackedEntityAttributeValueTokenIndexTest extends IntegrationTestBase
+{
+    @Autowired
+    private TrackedEntityInstanceStore teiStore;
+
+    @Autowired
+    private TrackedEntityAttributeValueService attributeValueService;
+
+    @Autowired
+    private TrackedEntityAttributeValueTokenIndexPopulator tokenIndexPopulator;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private IdentifiableObjectManager manager;
+
+    @Autowired
+    private DbmsManager dbmsManager;
+
+    @Autowired
+    private UserService _userService;
+
+    private TrackedEntityType trackedEntityType;
+
+    private TrackedEntityAttribute attribute;
+
+    private TrackedEntityInstance teiA;
+
+    private TrackedEntityInstance teiB;
+
+    private TrackedEntityInstance teiC;
+
+    @Override
+    protected void setUpTest()
+    {
+        userService = _userService;
+        createAndInjectAdminUser();
+
+        config.getProperties().put( ConfigurationKey.TRACKER_SEARCH_INDEX.getKey(), "on" );
+        tokenIndexPopulator.execute();
+
+        OrganisationUnit ou = createOrganisationUnit( 'A' );
+        manager.save( ou );
+
+        trackedEntityType = createTrackedEntityType( 'A' );
+        manager.save( trackedEntityType );
+
+        attribute = createTrackedEntityAttribute( 'A' );
+        manager.save( attribute );
+
+        teiA = addTrackedEntityInstance( "John Doe", ou );
+        teiB = addTrackedEntityInstance( "Johnny Walker", ou );
+        teiC = addTrackedEntityInstance( "Ann Johnson", ou );
+
+        dbmsManager.flushSession();
+    }
+
+    @Override
+    protected void tearDownTest()
+    {
+        config.getProperties().remove( ConfigurationKey.TRACKER_SEARCH_INDEX.getKey() );
+        tokenIndexPopulator.execute();
+    }
+
+    @Test
+    public void testTokensAreIndexed()
+    {
+        assertEquals( ImmutableSet.of( "john", "doe" ), ImmutableSet.copyOf( jdbcTemplate.queryForList(
+            "select token from trackedentityattributevaluetoken where trackedentityinstanceid = ?", String.class,
+            teiA.getId() ) ) );
+    }
+
+    @Test
+    public void testQueryEqMatchesWholeWords()
+    {
+        assertEquals( ImmutableSet.of( teiA.getUid() ), search( QueryOperator.EQ, "john" ) );
+        assertEquals( ImmutableSet.of( teiA.getUid() ), search( QueryOperator.EQ, "DOE" ) );
+        assertEquals( ImmutableSet.of( teiA.getUid(), teiC.getUid() ), search( QueryOperator.EQ, "doe ann" ) );
+        assertEquals( Collections.emptySet(), search( QueryOperator.EQ, "joh" ) );
+    }
+
+    @Test
+    public void testQueryLikeMatchesInsideWords()
+    {
+        assertEquals( ImmutableSet.of( teiA.getUid(), teiB.getUid(), teiC.getUid() ),
+            search( QueryOperator.LIKE, "ohn" ) );
+        assertEquals( ImmutableSet.of( teiB.getUid() ), search( QueryOperator.LIKE, "alk" ) );
+    }
+
+    private TrackedEntityInstance addTrackedEntityInstance( String name, OrganisationUnit ou )
+    {
+        TrackedEntityInstance tei = createTrackedEntityInstance( ou );
+        tei.setTrackedEntityType( trackedEntityType );
+        teiStore.save( tei );
+
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( attribute, tei, name ) );
+
+        return tei;
+    }
+
+    private Set<String> search( QueryOperator operator, String query )
+    {
+        QueryItem queryItem = new QueryItem( attribute );
+        queryItem.setValueType( attribute.getValueType() );
+
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams();
+        params.setTrackedEntityType( trackedEntityType );
+        params.setOrganisationUnitMode( OrganisationUnitSelectionMode.ALL );
+        params.setAttributes( Collections.singletonList( queryItem ) );
+        params.setQuery( new QueryFilter( operator, query ) );
+
+        return teiStore.getTrackedEntityInstancesGrid( params ).stream()
+            .map( row -> row.get( TrackedEntityInstanceQueryParams.TRACKED_ENTITY_INSTANCE_ID ) )
+            .collect( toSet() );
+    }
+}
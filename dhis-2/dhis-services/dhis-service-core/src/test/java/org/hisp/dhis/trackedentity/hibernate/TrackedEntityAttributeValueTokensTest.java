@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.trackedentity.hibernate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.common.QueryFilter;
+import org.hisp.dhis.common.QueryOperator;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.jdbc.statementbuilder.PostgreSQLStatementBuilder;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class TrackedEntityAttributeValueTokensTest
+{
+    private final StatementBuilder statementBuilder = new PostgreSQLStatementBuilder();
+
+    @Test
+    public void testIsIndexable()
+    {
+        assertTrue( TrackedEntityAttributeValueTokens.isIndexable( ImmutableList.of( "john", "doe_2" ) ) );
+        assertTrue( TrackedEntityAttributeValueTokens.isIndexable( ImmutableList.of( "Åse" ) ) );
+        assertFalse( TrackedEntityAttributeValueTokens.isIndexable( ImmutableList.of( "john", "o'neil" ) ) );
+        assertFalse( TrackedEntityAttributeValueTokens.isIndexable( ImmutableList.of( "a-b" ) ) );
+        assertFalse( TrackedEntityAttributeValueTokens.isIndexable( ImmutableList.of() ) );
+    }
+
+    @Test
+    public void testNormalize()
+    {
+        assertEquals( "john", TrackedEntityAttributeValueTokens.normalize( "JoHn" ) );
+        assertEquals( 50, TrackedEntityAttributeValueTokens.normalize( StringUtils.repeat( "x", 80 ) ).length() );
+    }
+
+    @Test
+    public void testGetIndexConditionEq()
+    {
+        assertEquals( "AND Q.trackedentityinstanceid IN (" +
+            "SELECT T.trackedentityinstanceid FROM trackedentityattributevaluetoken T " +
+            "WHERE T.trackedentityattributeid IN (1,2) AND (  T.token = 'john'  or T.token = 'doe_2')) ",
+            getIndexCondition( QueryOperator.EQ, "JOHN", "doe_2" ) );
+    }
+
+    @Test
+    public void testGetIndexConditionLike()
+    {
+        assertEquals( "", getIndexCondition( QueryOperator.LIKE, "ohn" ) );
+    }
+
+    @Test
+    public void testGetIndexConditionNotSingleWord()
+    {
+        assertEquals( "", getIndexCondition( QueryOperator.EQ, "john", "a-b" ) );
+    }
+
+    private String getIndexCondition( QueryOperator operator, String... queryTokens )
+    {
+        return TrackedEntityAttributeValueTokens.getIndexCondition( ImmutableList.of( 1L, 2L ),
+            new QueryFilter( operator, StringUtils.join( queryTokens, " " ) ), ImmutableList.copyOf( queryTokens ),
+            statementBuilder );
+    }
+}
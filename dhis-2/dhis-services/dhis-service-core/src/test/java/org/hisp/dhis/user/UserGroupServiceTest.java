@@ -35,6 +35,7 @@ import static org.junit.Assert.assertTrue;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.hisp.dhis.DhisSpringTest;
@@ -240,4 +241,21 @@ public class UserGroupServiceTest
 
         assertEquals( "UserGroupA", userGroupService.getDisplayName( userGroup.getUid() ) );
     }
+
+    @Test
+    public void testGetDisplayNames()
+    {
+        UserGroup userGroupA = createUserGroup( 'A', Sets.newHashSet() );
+        UserGroup userGroupB = createUserGroup( 'B', Sets.newHashSet() );
+
+        userGroupService.addUserGroup( userGroupA );
+        userGroupService.addUserGroup( userGroupB );
+
+        Map<String, String> displayNames = userGroupService
+            .getDisplayNames( Sets.newHashSet( userGroupA.getUid(), userGroupB.getUid(), "nonExistUid" ) );
+
+        assertEquals( 2, displayNames.size() );
+        assertEquals( "UserGroupA", displayNames.get( userGroupA.getUid() ) );
+        assertEquals( "UserGroupB", displayNames.get( userGroupB.getUid() ) );
+    }
 }
@@ -31,7 +31,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.hisp.dhis.DhisSpringTest;
@@ -178,4 +180,20 @@ public class UserStoreTest
 
         assertEquals( "FirstNameA SurnameA", userStore.getDisplayName( userA.getUid() ) );
     }
+
+    @Test
+    public void testGetDisplayNames()
+    {
+        User userA = createUser( 'A' );
+        User userB = createUser( 'B' );
+        userStore.save( userA );
+        userStore.save( userB );
+
+        Map<String, String> displayNames = userStore
+            .getDisplayNames( Arrays.asList( userA.getUid(), userB.getUid(), "nonExistUid" ) );
+
+        assertEquals( 2, displayNames.size() );
+        assertEquals( "FirstNameA SurnameA", displayNames.get( userA.getUid() ) );
+        assertEquals( "FirstNameB SurnameB", displayNames.get( userB.getUid() ) );
+    }
 }
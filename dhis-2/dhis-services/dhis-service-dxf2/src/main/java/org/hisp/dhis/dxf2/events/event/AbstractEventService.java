@@ -607,9 +607,11 @@ public abstract class AbstractEventService implements EventService
                 .filter( dv -> dataElementsToSync.contains( dv.getDataElement() ) ).collect( Collectors.toSet() );
         }
 
+        Map<String, Boolean> readableDataElements = getDataElements( user.getUid(), dataValues );
+
         for ( EventDataValue dataValue : dataValues )
         {
-            if ( getDataElement( user.getUid(), dataValue.getDataElement() ) )
+            if ( readableDataElements.getOrDefault( dataValue.getDataElement(), false ) )
             {
                 DataValue value = new DataValue();
                 value.setCreated( DateUtils.getIso8601NoTz( dataValue.getCreated() ) );
@@ -984,17 +986,31 @@ public abstract class AbstractEventService implements EventService
     }
 
     /**
-     * Get DataElement by given uid
+     * Get DataElements of the given data values. Cached results are looked up
+     * in bulk and all DataElements not cached are loaded with a single query.
      *
-     * @return FALSE if currentUser doesn't have READ access to given
-     *         DataElement OR no DataElement with given uid exist TRUE if
-     *         DataElement exist and currentUser has READ access
+     * @return map of DataElement uid to FALSE if currentUser doesn't have READ
+     *         access to given DataElement OR no DataElement with given uid
+     *         exist TRUE if DataElement exist and currentUser has READ access
      */
-    private boolean getDataElement( String userUid, String dataElementUid )
+    private Map<String, Boolean> getDataElements( String userUid, Collection<EventDataValue> dataValues )
     {
-        String key = userUid + "-" + dataElementUid;
-        return dataElementCache.get( key, k -> manager.get( DataElement.class, dataElementUid ) != null )
-            .orElse( false );
+        Map<String, String> keyToUid = new HashMap<>();
+        dataValues.forEach( dv -> keyToUid.put( userUid + "-" + dv.getDataElement(), dv.getDataElement() ) );
+
+        Map<String, Boolean> cached = dataElementCache.getAll( keyToUid.keySet(), missingKeys -> {
+            Set<String> missingUids = missingKeys.stream().map( keyToUid::get ).collect( Collectors.toSet() );
+            Set<String> readableUids = manager.getByUid( DataElement.class, missingUids ).stream()
+                .map( DataElement::getUid ).collect( Collectors.toSet() );
+
+            Map<String, Boolean> loaded = new HashMap<>();
+            missingKeys.forEach( key -> loaded.put( key, readableUids.contains( keyToUid.get( key ) ) ) );
+            return loaded;
+        } );
+
+        Map<String, Boolean> readableDataElements = new HashMap<>();
+        cached.forEach( ( key, readable ) -> readableDataElements.put( keyToUid.get( key ), readable ) );
+        return readableDataElements;
     }
 
     @Override
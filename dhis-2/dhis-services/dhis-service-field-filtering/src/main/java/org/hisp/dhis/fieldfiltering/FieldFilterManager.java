@@ -27,142 +27,158 @@
  */
 package org.hisp.dhis.fieldfiltering;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
-import lombok.RequiredArgsConstructor;
-
-import org.hisp.dhis.fieldfiltering.transformers.IsEmptyFieldTransformer;
-import org.hisp.dhis.fieldfiltering.transformers.IsNotEmptyFieldTransformer;
-import org.hisp.dhis.fieldfiltering.transformers.PluckFieldTransformer;
-import org.hisp.dhis.fieldfiltering.transformers.RenameFieldTransformer;
-import org.hisp.dhis.fieldfiltering.transformers.SizeFieldTransformer;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.OrderComparator;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
+ * Applies field filters to objects. The field filters are compiled into a
+ * {@link FieldFilterPlan} once per object class and set of filters, and the
+ * resulting writer is cached. Filtering and transformers are applied while
+ * serializing, so objects can be written straight to a {@link JsonGenerator}
+ * without building an intermediate tree.
+ *
  * @author Morten Olav Hansen
  */
 @Component
-@RequiredArgsConstructor
 public class FieldFilterManager
 {
-    @Qualifier( "jsonMapper" )
-    private final ObjectMapper jsonMapper;
+    /**
+     * Mapper with the field filter applied to all classes. The shared mapper
+     * is copied so that its configuration is never changed, the plan of each
+     * request is passed to the writer instead.
+     */
+    private final ObjectMapper filterMapper;
 
-    public List<ObjectNode> toObjectNode( FieldFilterParams<?> params )
-    {
-        List<FieldPath> fieldPaths = FieldFilterParser.parse( params.getFilters() );
+    private final Cache<ObjectWriter> writerCache;
 
-        SimpleFilterProvider filterProvider = getSimpleFilterProvider( fieldPaths );
-        ObjectMapper objectMapper = jsonMapper.setFilterProvider( filterProvider );
-        Map<String, List<FieldTransformer>> fieldTransformers = getTransformers( fieldPaths );
+    public FieldFilterManager( @Qualifier( "jsonMapper" ) ObjectMapper jsonMapper, CacheProvider cacheProvider )
+    {
+        this.filterMapper = jsonMapper.copy().addMixIn( Object.class, FieldFilterMixin.class );
+        this.writerCache = cacheProvider.createFieldFilterPlanCache();
+    }
 
+    public List<ObjectNode> toObjectNode( FieldFilterParams<?> params )
+    {
         List<ObjectNode> objectNodes = new ArrayList<>();
 
         for ( Object object : params.getObjects() )
         {
-            ObjectNode objectNode = objectMapper.valueToTree( object );
-            applyTransformers( objectNode, null, "", fieldTransformers );
+            if ( object == null )
+            {
+                objectNodes.add( null );
+                continue;
+            }
 
-            objectNodes.add( objectNode );
+            try
+            {
+                TokenBuffer buffer = new TokenBuffer( filterMapper, false );
+                getWriter( object.getClass(), params.getFilters() ).writeValue( buffer, object );
+
+                objectNodes.add( filterMapper.readTree( buffer.asParser() ) );
+            }
+            catch ( IOException ex )
+            {
+                throw new IllegalArgumentException( ex.getMessage(), ex );
+            }
         }
 
         return objectNodes;
     }
 
-    private void applyTransformers( JsonNode node, JsonNode parent, String path,
-        Map<String, List<FieldTransformer>> fieldTransformers )
+    /**
+     * Writes the filtered objects as a JSON array to the given generator.
+     *
+     * @param params the objects and field filters.
+     * @param generator the generator to write to.
+     * @throws IOException if writing fails.
+     */
+    public void write( FieldFilterParams<?> params, JsonGenerator generator )
+        throws IOException
     {
-        if ( parent != null && !parent.isArray() && !path.isEmpty() )
-        {
-            List<FieldTransformer> transformers = fieldTransformers.get( path.substring( 1 ) );
+        Class<?> lastClass = null;
+        ObjectWriter writer = null;
 
-            if ( transformers != null )
-            {
-                transformers.forEach( t -> t.apply( path.substring( 1 ), node, parent ) );
-            }
-        }
+        generator.writeStartArray();
 
-        if ( node.isObject() )
+        for ( Object object : params.getObjects() )
         {
-            ObjectNode objectNode = (ObjectNode) node;
-
-            List<String> fieldNames = new ArrayList<>();
-            objectNode.fieldNames().forEachRemaining( fieldNames::add );
-
-            for ( String fieldName : fieldNames )
+            if ( object == null )
             {
-                applyTransformers( objectNode.get( fieldName ), objectNode, path + "." + fieldName, fieldTransformers );
+                generator.writeNull();
+                continue;
             }
-        }
-        else if ( node.isArray() )
-        {
-            ArrayNode arrayNode = (ArrayNode) node;
 
-            for ( JsonNode item : arrayNode )
+            if ( object.getClass() != lastClass )
             {
-                applyTransformers( item, arrayNode, path, fieldTransformers );
+                lastClass = object.getClass();
+                writer = getWriter( lastClass, params.getFilters() );
             }
-        }
-    }
 
-    private SimpleFilterProvider getSimpleFilterProvider( List<FieldPath> fieldPaths )
-    {
-        SimpleFilterProvider filterProvider = new SimpleFilterProvider();
-        filterProvider.addFilter( "field-filter", new FieldFilterSimpleBeanPropertyFilter( fieldPaths ) );
+            writer.writeValue( generator, object );
+        }
 
-        return filterProvider;
+        generator.writeEndArray();
+        generator.flush();
     }
 
-    private Map<String, List<FieldTransformer>> getTransformers( List<FieldPath> fieldPaths )
+    /**
+     * Writes the filtered objects as a JSON array to the given output stream,
+     * typically the response output stream. The stream is flushed but not
+     * closed.
+     *
+     * @param params the objects and field filters.
+     * @param outputStream the output stream to write to.
+     * @throws IOException if writing fails.
+     */
+    public void write( FieldFilterParams<?> params, OutputStream outputStream )
+        throws IOException
     {
-        Map<String, List<FieldTransformer>> transformerMap = new HashMap<>();
-
-        for ( FieldPath fieldPath : fieldPaths )
+        try ( JsonGenerator generator = createGenerator( outputStream ) )
         {
-            List<FieldTransformer> fieldTransformers = new ArrayList<>();
-            String fullPath = fieldPath.toFullPath();
-
-            transformerMap.put( fullPath, fieldTransformers );
+            write( params, generator );
+        }
+    }
 
-            for ( FieldPathTransformer fieldPathTransformer : fieldPath.getTransformers() )
-            {
-                switch ( fieldPathTransformer.getName() )
-                {
-                case "rename":
-                    fieldTransformers.add( new RenameFieldTransformer( fieldPathTransformer ) );
-                    break;
-                case "size":
-                    fieldTransformers.add( SizeFieldTransformer.INSTANCE );
-                    break;
-                case "isEmpty":
-                    fieldTransformers.add( IsEmptyFieldTransformer.INSTANCE );
-                    break;
-                case "isNotEmpty":
-                    fieldTransformers.add( IsNotEmptyFieldTransformer.INSTANCE );
-                    break;
-                case "pluck":
-                    fieldTransformers.add( new PluckFieldTransformer( fieldPathTransformer ) );
-                    break;
-                default:
-                    // invalid transformer
-                    break;
-                }
-            }
+    /**
+     * Creates a UTF-8 JSON generator for the given output stream which does
+     * not close the stream when closed, to wrap the arrays written by
+     * {@link #write(FieldFilterParams, JsonGenerator)} in an object.
+     *
+     * @param outputStream the output stream to write to.
+     * @return a JSON generator.
+     * @throws IOException if the generator cannot be created.
+     */
+    public JsonGenerator createGenerator( OutputStream outputStream )
+        throws IOException
+    {
+        return filterMapper.getFactory().createGenerator( outputStream, JsonEncoding.UTF8 )
+            .disable( JsonGenerator.Feature.AUTO_CLOSE_TARGET );
+    }
 
-            fieldTransformers.sort( OrderComparator.INSTANCE );
-        }
+    private ObjectWriter getWriter( Class<?> klass, Set<String> filters )
+    {
+        String key = klass.getName() + ":" + String.join( ",", new TreeSet<>( filters ) );
 
-        return transformerMap;
+        return writerCache.get( key, k -> filterMapper
+            .writer( FieldFilterPlan.compile( filters ).getFilterProvider() )
+            .forType( klass )
+            .without( SerializationFeature.FLUSH_AFTER_WRITE_VALUE ) ).get();
     }
 }
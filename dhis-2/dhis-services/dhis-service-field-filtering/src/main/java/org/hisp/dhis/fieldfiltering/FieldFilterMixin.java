@@ -32,7 +32,7 @@ import com.fasterxml.jackson.annotation.JsonFilter;
 /**
  * @author Morten Olav Hansen
  */
-@JsonFilter( "field-filter" )
+@JsonFilter( FieldFilterPlan.FILTER_ID )
 public interface FieldFilterMixin
 {
 }
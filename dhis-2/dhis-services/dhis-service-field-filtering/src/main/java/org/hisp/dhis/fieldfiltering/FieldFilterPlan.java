@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.fieldfiltering;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.hisp.dhis.fieldfiltering.transformers.IsEmptyFieldTransformer;
+import org.hisp.dhis.fieldfiltering.transformers.IsNotEmptyFieldTransformer;
+import org.hisp.dhis.fieldfiltering.transformers.PluckFieldTransformer;
+import org.hisp.dhis.fieldfiltering.transformers.RenameFieldTransformer;
+import org.hisp.dhis.fieldfiltering.transformers.SizeFieldTransformer;
+import org.springframework.core.OrderComparator;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+/**
+ * Compiled form of a set of field filters. The field paths are parsed once
+ * into a set of included paths and a map of transformers, so that properties
+ * can be looked up while serializing without walking the field paths. Plans
+ * are immutable and can be shared between threads.
+ */
+public class FieldFilterPlan
+{
+    public static final String FILTER_ID = "field-filter";
+
+    private final List<FieldPath> fieldPaths;
+
+    /**
+     * Whether any field path contains a wildcard, which includes all
+     * properties.
+     */
+    private final boolean includeAll;
+
+    /**
+     * All prefixes of the full paths of the field paths. A property is
+     * included if its path is a prefix of any full path.
+     */
+    private final Set<String> includedPaths = new HashSet<>();
+
+    private final Map<String, List<FieldTransformer>> transformers = new HashMap<>();
+
+    private final SimpleFilterProvider filterProvider;
+
+    public FieldFilterPlan( List<FieldPath> fieldPaths )
+    {
+        this.fieldPaths = Collections.unmodifiableList( new ArrayList<>( fieldPaths ) );
+
+        boolean wildcard = false;
+
+        for ( FieldPath fieldPath : fieldPaths )
+        {
+            String fullPath = fieldPath.toFullPath();
+
+            wildcard |= fullPath.contains( "*" );
+
+            for ( int i = 1; i <= fullPath.length(); i++ )
+            {
+                includedPaths.add( fullPath.substring( 0, i ) );
+            }
+
+            List<FieldTransformer> fieldTransformers = getTransformers( fieldPath );
+
+            if ( !fieldTransformers.isEmpty() )
+            {
+                transformers.put( fullPath, fieldTransformers );
+            }
+        }
+
+        this.includeAll = wildcard;
+        this.filterProvider = new SimpleFilterProvider()
+            .addFilter( FILTER_ID, new FieldFilterSimpleBeanPropertyFilter( this ) );
+    }
+
+    /**
+     * Parses and compiles the given field filters.
+     *
+     * @param filters the field filters, i.e. {@code id,name,children[id]}.
+     * @return a compiled plan.
+     */
+    public static FieldFilterPlan compile( Set<String> filters )
+    {
+        return new FieldFilterPlan( FieldFilterParser.parse( filters ) );
+    }
+
+    public List<FieldPath> getFieldPaths()
+    {
+        return fieldPaths;
+    }
+
+    public boolean isIncludeAll()
+    {
+        return includeAll;
+    }
+
+    public boolean hasTransformers()
+    {
+        return !transformers.isEmpty();
+    }
+
+    /**
+     * @param path dot separated path of a property (i.e. path.to.field).
+     * @return true if the property should be serialized.
+     */
+    public boolean includes( String path )
+    {
+        return includeAll || includedPaths.contains( path );
+    }
+
+    /**
+     * @param path dot separated path of a property (i.e. path.to.field).
+     * @return the ordered transformers of the property, can be empty.
+     */
+    public List<FieldTransformer> getTransformers( String path )
+    {
+        return transformers.getOrDefault( path, Collections.emptyList() );
+    }
+
+    /**
+     * @return a filter provider for this plan, to be passed to an
+     *         {@link com.fasterxml.jackson.databind.ObjectWriter}.
+     */
+    public FilterProvider getFilterProvider()
+    {
+        return filterProvider;
+    }
+
+    private static List<FieldTransformer> getTransformers( FieldPath fieldPath )
+    {
+        List<FieldTransformer> fieldTransformers = new ArrayList<>();
+
+        for ( FieldPathTransformer fieldPathTransformer : fieldPath.getTransformers() )
+        {
+            switch ( fieldPathTransformer.getName() )
+            {
+            case "rename":
+                fieldTransformers.add( new RenameFieldTransformer( fieldPathTransformer ) );
+                break;
+            case "size":
+                fieldTransformers.add( SizeFieldTransformer.INSTANCE );
+                break;
+            case "isEmpty":
+                fieldTransformers.add( IsEmptyFieldTransformer.INSTANCE );
+                break;
+            case "isNotEmpty":
+                fieldTransformers.add( IsNotEmptyFieldTransformer.INSTANCE );
+                break;
+            case "pluck":
+                fieldTransformers.add( new PluckFieldTransformer( fieldPathTransformer ) );
+                break;
+            default:
+                // invalid transformer
+                break;
+            }
+        }
+
+        fieldTransformers.sort( OrderComparator.INSTANCE );
+
+        return fieldTransformers;
+    }
+}
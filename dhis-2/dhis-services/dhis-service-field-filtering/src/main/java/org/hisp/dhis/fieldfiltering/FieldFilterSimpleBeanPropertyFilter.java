@@ -27,25 +27,50 @@
  */
 package org.hisp.dhis.fieldfiltering;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.commons.jackson.config.JacksonObjectMapperConfig;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
 import com.fasterxml.jackson.databind.ser.PropertyWriter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
+ * Property filter applying a {@link FieldFilterPlan} while serializing.
+ * Properties are written straight to the generator, only properties with
+ * transformers are buffered into a tree so that the transformers can be
+ * applied before writing them.
+ *
  * @author Morten Olav Hansen
  */
 public class FieldFilterSimpleBeanPropertyFilter extends SimpleBeanPropertyFilter
 {
-    private final List<FieldPath> fieldPaths;
+    /**
+     * Per-call attribute holding the path of the object being serialized into
+     * a buffer, since the buffer does not know about the enclosing objects.
+     */
+    private static final String BASE_PATH_ATTRIBUTE = FieldFilterSimpleBeanPropertyFilter.class.getName()
+        + ".basePath";
+
+    private final FieldFilterPlan plan;
 
     public FieldFilterSimpleBeanPropertyFilter( List<FieldPath> fieldPaths )
     {
-        this.fieldPaths = fieldPaths;
+        this( new FieldFilterPlan( fieldPaths ) );
+    }
+
+    public FieldFilterSimpleBeanPropertyFilter( FieldFilterPlan plan )
+    {
+        this.plan = plan;
     }
 
     @Override
@@ -60,22 +85,7 @@ public class FieldFilterSimpleBeanPropertyFilter extends SimpleBeanPropertyFilte
         return true;
     }
 
-    protected boolean include( final PropertyWriter writer, final JsonGenerator jgen )
-    {
-        for ( FieldPath fieldPath : fieldPaths )
-        {
-            String path = fieldPath.toFullPath();
-
-            if ( path.startsWith( getPath( writer, jgen ) ) || path.contains( "*" ) )
-            {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private String getPath( PropertyWriter writer, JsonGenerator jgen )
+    private String getPath( PropertyWriter writer, JsonGenerator jgen, SerializerProvider provider )
     {
         StringBuilder nestedPath = new StringBuilder();
         nestedPath.append( writer.getName() );
@@ -97,6 +107,14 @@ public class FieldFilterSimpleBeanPropertyFilter extends SimpleBeanPropertyFilte
             }
         }
 
+        Object basePath = provider.getAttribute( BASE_PATH_ATTRIBUTE );
+
+        if ( basePath != null )
+        {
+            nestedPath.insert( 0, "." );
+            nestedPath.insert( 0, basePath );
+        }
+
         return nestedPath.toString();
     }
 
@@ -104,13 +122,73 @@ public class FieldFilterSimpleBeanPropertyFilter extends SimpleBeanPropertyFilte
     public void serializeAsField( Object pojo, JsonGenerator jgen, SerializerProvider provider, PropertyWriter writer )
         throws Exception
     {
-        if ( include( writer, jgen ) )
+        if ( plan.isIncludeAll() && !plan.hasTransformers() )
         {
             writer.serializeAsField( pojo, jgen, provider );
+            return;
+        }
+
+        String path = getPath( writer, jgen, provider );
+
+        if ( plan.includes( path ) )
+        {
+            List<FieldTransformer> transformers = plan.getTransformers( path );
+
+            if ( transformers.isEmpty() )
+            {
+                writer.serializeAsField( pojo, jgen, provider );
+            }
+            else
+            {
+                serializeTransformedField( pojo, jgen, provider, writer, path, transformers );
+            }
         }
         else if ( !jgen.canOmitFields() )
         { // since 2.3
             writer.serializeAsOmittedField( pojo, jgen, provider );
         }
     }
+
+    /**
+     * Serializes the property into a single field object, applies the
+     * transformers on that object and writes the resulting fields.
+     */
+    private void serializeTransformedField( Object pojo, JsonGenerator jgen, SerializerProvider provider,
+        PropertyWriter writer, String path, List<FieldTransformer> transformers )
+        throws Exception
+    {
+        ObjectCodec codec = jgen.getCodec() != null ? jgen.getCodec() : JacksonObjectMapperConfig.staticJsonMapper();
+        TokenBuffer buffer = new TokenBuffer( codec, false );
+        Object basePath = provider.getAttribute( BASE_PATH_ATTRIBUTE );
+        int idx = path.lastIndexOf( '.' );
+
+        provider.setAttribute( BASE_PATH_ATTRIBUTE, idx > -1 ? path.substring( 0, idx ) : null );
+
+        try
+        {
+            buffer.writeStartObject();
+            writer.serializeAsField( pojo, buffer, provider );
+            buffer.writeEndObject();
+        }
+        finally
+        {
+            provider.setAttribute( BASE_PATH_ATTRIBUTE, basePath );
+        }
+
+        ObjectNode parent = codec.readTree( buffer.asParser( codec ) );
+        JsonNode value = parent.get( writer.getName() );
+
+        if ( value != null )
+        {
+            transformers.forEach( t -> t.apply( path, value, parent ) );
+        }
+
+        Iterator<Map.Entry<String, JsonNode>> fields = parent.fields();
+
+        while ( fields.hasNext() )
+        {
+            Map.Entry<String, JsonNode> field = fields.next();
+            provider.defaultSerializeField( field.getKey(), field.getValue(), jgen );
+        }
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.fieldfiltering;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.NoOpCache;
+import org.hisp.dhis.commons.jackson.config.JacksonObjectMapperConfig;
+import org.hisp.dhis.fieldfiltering.FieldFilterPlanTest.Item;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests that {@link FieldFilterManager} writes the same JSON when streaming
+ * to a generator as when building {@link ObjectNode}s.
+ */
+public class FieldFilterManagerTest
+{
+    private final ObjectMapper jsonMapper = JacksonObjectMapperConfig.staticJsonMapper();
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    private FieldFilterManager fieldFilterManager;
+
+    @Before
+    public void setUp()
+    {
+        doReturn( new NoOpCache<>() ).when( cacheProvider ).createFieldFilterPlanCache();
+
+        fieldFilterManager = new FieldFilterManager( jsonMapper, cacheProvider );
+    }
+
+    @Test
+    public void testWriteAllFields()
+        throws Exception
+    {
+        assertSameAsObjectNodes( "*" );
+    }
+
+    @Test
+    public void testWriteNestedFields()
+        throws Exception
+    {
+        assertSameAsObjectNodes( "id", "children[id]" );
+    }
+
+    @Test
+    public void testWriteTransformedFields()
+        throws Exception
+    {
+        assertSameAsObjectNodes( "name~rename(title)", "children~size" );
+        assertSameAsObjectNodes( "id", "children[id,name~rename(n)]" );
+    }
+
+    @Test
+    public void testWriteJsonArray()
+        throws Exception
+    {
+        assertEquals( "[{\"id\":\"r\"},null,{\"id\":\"r\"}]", write( params( "id" ) ) );
+    }
+
+    private void assertSameAsObjectNodes( String... filters )
+        throws Exception
+    {
+        FieldFilterParams<Item> params = params( filters );
+
+        List<ObjectNode> objectNodes = fieldFilterManager.toObjectNode( params );
+        JsonNode written = jsonMapper.readTree( write( params ) );
+
+        assertEquals( jsonMapper.valueToTree( objectNodes ), written );
+    }
+
+    private String write( FieldFilterParams<?> params )
+        throws Exception
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        fieldFilterManager.write( params, outputStream );
+
+        return outputStream.toString( "UTF-8" );
+    }
+
+    private static FieldFilterParams<Item> params( String... filters )
+    {
+        return FieldFilterParams.<Item> builder()
+            .objects( Arrays.asList( new Item(), null, new Item() ) )
+            .filters( ImmutableSet.copyOf( filters ) )
+            .build();
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.fieldfiltering;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.hisp.dhis.commons.jackson.config.JacksonObjectMapperConfig;
+import org.junit.Test;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class FieldFilterPlanTest
+{
+    private final ObjectMapper jsonMapper = JacksonObjectMapperConfig.staticJsonMapper().copy()
+        .addMixIn( Object.class, FieldFilterMixin.class );
+
+    @Test
+    public void testIncludes()
+    {
+        FieldFilterPlan plan = FieldFilterPlan.compile( ImmutableSet.of( "id", "children[id,name]" ) );
+
+        assertFalse( plan.isIncludeAll() );
+        assertTrue( plan.includes( "id" ) );
+        assertTrue( plan.includes( "children" ) );
+        assertTrue( plan.includes( "children.name" ) );
+        assertFalse( plan.includes( "code" ) );
+        assertFalse( plan.includes( "children.code" ) );
+    }
+
+    @Test
+    public void testIncludesWildcard()
+    {
+        FieldFilterPlan plan = FieldFilterPlan.compile( ImmutableSet.of( "*" ) );
+
+        assertTrue( plan.isIncludeAll() );
+        assertTrue( plan.includes( "code" ) );
+    }
+
+    @Test
+    public void testFilterFields()
+        throws Exception
+    {
+        assertEquals( "{\"id\":\"r\",\"children\":[{\"id\":\"a\"},{\"id\":\"b\"}]}",
+            write( "id", "children[id]" ) );
+    }
+
+    @Test
+    public void testTransformFields()
+        throws Exception
+    {
+        assertEquals( "{\"title\":\"Root\",\"children\":2}", write( "name~rename(title)", "children~size" ) );
+        assertEquals( "{\"id\":\"r\",\"children\":[{\"id\":\"a\",\"n\":\"A\"},{\"id\":\"b\",\"n\":\"B\"}]}",
+            write( "id", "children[id,name~rename(n)]" ) );
+    }
+
+    private String write( String... filters )
+        throws Exception
+    {
+        FieldFilterPlan plan = FieldFilterPlan.compile( ImmutableSet.copyOf( filters ) );
+
+        return jsonMapper.writer( plan.getFilterProvider() ).writeValueAsString( new Item() );
+    }
+
+    @JsonPropertyOrder( { "id", "name", "children" } )
+    public static class Item
+    {
+        @JsonProperty
+        public String getId()
+        {
+            return "r";
+        }
+
+        @JsonProperty
+        public String getName()
+        {
+            return "Root";
+        }
+
+        @JsonProperty
+        public List<Child> getChildren()
+        {
+            return ImmutableList.of( new Child( "a", "A" ), new Child( "b", "B" ) );
+        }
+    }
+
+    @JsonPropertyOrder( { "id", "name" } )
+    public static class Child
+    {
+        private final String id;
+
+        private final String name;
+
+        public Child( String id, String name )
+        {
+            this.id = id;
+            this.name = name;
+        }
+
+        @JsonProperty
+        public String getId()
+        {
+            return id;
+        }
+
+        @JsonProperty
+        public String getName()
+        {
+            return name;
+        }
+    }
+}
@@ -32,6 +32,10 @@ import java.awt.Graphics2D;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
 
 import org.geotools.feature.DefaultFeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
@@ -307,4 +311,21 @@ public class MapUtils
 
         return image;
     }
+
+    /**
+     * Encodes the given image as PNG. Returns null if the image is null.
+     */
+    public static byte[] toPng( BufferedImage image )
+        throws IOException
+    {
+        if ( image == null )
+        {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write( image, "PNG", out );
+
+        return out.toByteArray();
+    }
 }
@@ -44,12 +44,15 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -66,6 +69,8 @@ import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.common.MapMap;
 import org.hisp.dhis.common.MapMapMap;
+import org.hisp.dhis.common.TaskPool;
+import org.hisp.dhis.common.TaskSchedulers;
 import org.hisp.dhis.commons.collection.CachingMap;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.constant.Constant;
@@ -95,8 +100,12 @@ import org.hisp.dhis.user.CurrentUserServiceTarget;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.util.DateUtils;
 import org.hisp.quick.BatchHandlerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -136,11 +145,16 @@ public class DefaultPredictionService
 
     private CurrentUserService currentUserService;
 
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskSchedulers taskSchedulers;
+
     public DefaultPredictionService( PredictorService predictorService, ConstantService constantService,
         ExpressionService expressionService, DataValueService dataValueService, CategoryService categoryService,
         OrganisationUnitService organisationUnitService, OrganisationUnitGroupService organisationUnitGroupService,
         PeriodService periodService, IdentifiableObjectManager idObjectManager, AnalyticsService analyticsService,
-        Notifier notifier, BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService )
+        Notifier notifier, BatchHandlerFactory batchHandlerFactory, CurrentUserService currentUserService,
+        TransactionTemplate transactionTemplate, TaskSchedulers taskSchedulers )
     {
         checkNotNull( predictorService );
         checkNotNull( constantService );
@@ -155,6 +169,8 @@ public class DefaultPredictionService
         checkNotNull( notifier );
         checkNotNull( batchHandlerFactory );
         checkNotNull( currentUserService );
+        checkNotNull( transactionTemplate );
+        checkNotNull( taskSchedulers );
 
         this.predictorService = predictorService;
         this.constantService = constantService;
@@ -169,6 +185,8 @@ public class DefaultPredictionService
         this.notifier = notifier;
         this.batchHandlerFactory = batchHandlerFactory;
         this.currentUserService = currentUserService;
+        this.transactionTemplate = transactionTemplate;
+        this.taskSchedulers = taskSchedulers;
     }
 
     @Override
@@ -206,7 +224,7 @@ public class DefaultPredictionService
         {
             notifier.notify( jobId, NotificationLevel.INFO, "Making predictions", false );
 
-            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups );
+            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups, jobId );
 
             notifier.update( jobId, NotificationLevel.INFO, "Prediction done", true )
                 .addJobSummary( jobId, predictionSummary, PredictionSummary.class );
@@ -225,7 +243,7 @@ public class DefaultPredictionService
     }
 
     private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors,
-        List<String> predictorGroups )
+        List<String> predictorGroups, JobConfiguration jobId )
     {
         List<Predictor> predictorList = new ArrayList<>();
 
@@ -252,14 +270,16 @@ public class DefaultPredictionService
             }
         }
 
+        predictorList = new ArrayList<>( new LinkedHashSet<>( predictorList ) );
+
         PredictionSummary predictionSummary = new PredictionSummary();
 
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to "
             + endDate.toString() );
 
-        for ( Predictor predictor : predictorList )
+        for ( List<Predictor> level : PredictorOrder.getLevels( predictorList ) )
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            predictLevel( level, startDate, endDate, predictionSummary, jobId );
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": "
@@ -270,6 +290,23 @@ public class DefaultPredictionService
 
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
+    {
+        predict( predictor, startDate, endDate, predictionSummary, 0, 1 );
+    }
+
+    /**
+     * Runs a predictor for one partition of the org units of each of its
+     * levels. With a single partition the predictor runs for all org units.
+     *
+     * @param predictor the predictor.
+     * @param startDate the start date of the predictor run.
+     * @param endDate the end date of the predictor run.
+     * @param predictionSummary the prediction summary to add to.
+     * @param partition the index of the partition to predict for.
+     * @param partitionCount the number of partitions.
+     */
+    private void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary,
+        int partition, int partitionCount )
     {
         Expression generator = predictor.getGenerator();
         Expression skipTest = predictor.getSampleSkipTest();
@@ -348,7 +385,10 @@ public class DefaultPredictionService
 
         predictionWriter.init( existingOutputPeriods, predictionSummary );
 
-        predictionSummary.incrementPredictors();
+        if ( partition == 0 )
+        {
+            predictionSummary.incrementPredictors();
+        }
 
         // Do separate predictor processing for each organisation unit level
         // selected. This is because at each level, predictions might be based
@@ -362,10 +402,26 @@ public class DefaultPredictionService
 
             orgUnits.sort( Comparator.comparing( OrganisationUnit::getPath ) );
 
-            oldPredictionFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
+            Set<OrganisationUnit> fetchRoots = currentUserOrgUnits;
+
+            if ( partitionCount > 1 )
+            {
+                List<OrgUnitPartition> partitions = OrgUnitPartition.partition( orgUnits, currentUserOrgUnits,
+                    partitionCount );
+
+                if ( partition >= partitions.size() )
+                {
+                    continue;
+                }
+
+                orgUnits = partitions.get( partition ).getOrgUnits();
+                fetchRoots = partitions.get( partition ).getRoots();
+            }
+
+            oldPredictionFetcher.init( fetchRoots, orgUnitLevel.getLevel(), orgUnits,
                 outputPeriodSet, Sets.newHashSet( outputDataElement ), predictionDeoSet );
 
-            dataValueFetcher.init( currentUserOrgUnits, orgUnitLevel.getLevel(), orgUnits,
+            dataValueFetcher.init( fetchRoots, orgUnitLevel.getLevel(), orgUnits,
                 existingQueryPeriods, dataElements, dataElementOperands );
 
             analyticsFetcher.init( orgUnits, queryPeriods, analyticsAttributeOptionItems,
@@ -443,6 +499,174 @@ public class DefaultPredictionService
         predictionWriter.flush();
     }
 
+    // -------------------------------------------------------------------------
+    // Concurrent prediction
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs a level of predictors that do not depend on each other. If the
+     * analytics task pool has more than one thread, the org units of each
+     * predictor are split into partitions by subtree, and all partitions of
+     * all predictors of the level run concurrently on the pool, each in its
+     * own transaction and in the security context of the caller. Otherwise
+     * the predictors run one after the other in the current transaction.
+     *
+     * @param predictors the predictors of the level.
+     * @param startDate the start date of the predictor run.
+     * @param endDate the end date of the predictor run.
+     * @param predictionSummary the prediction summary to add to.
+     * @param jobId the job to report progress to.
+     */
+    private void predictLevel( List<Predictor> predictors, Date startDate, Date endDate,
+        PredictionSummary predictionSummary, JobConfiguration jobId )
+    {
+        int partitionCount = taskSchedulers.getPoolSize( TaskPool.ANALYTICS );
+
+        if ( partitionCount <= 1 )
+        {
+            for ( Predictor predictor : predictors )
+            {
+                long start = System.currentTimeMillis();
+
+                PredictionSummary predictorSummary = new PredictionSummary();
+
+                predict( predictor, startDate, endDate, predictorSummary );
+
+                reportPredictorDone( new PredictorRun( predictor.getName(), predictorSummary, start,
+                    System.currentTimeMillis() ), predictionSummary, jobId );
+            }
+
+            return;
+        }
+
+        createOutputPeriods( predictors, startDate, endDate );
+
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        List<Supplier<PredictorRun>> tasks = new ArrayList<>();
+
+        for ( Predictor predictor : predictors )
+        {
+            long predictorId = predictor.getId();
+            String predictorName = predictor.getName();
+
+            for ( int i = 0; i < partitionCount; i++ )
+            {
+                int partition = i;
+
+                tasks.add( () -> predictInTransaction( predictorId, predictorName, startDate, endDate,
+                    partition, partitionCount, securityContext ) );
+            }
+        }
+
+        List<PredictorRun> runs = taskSchedulers.invokeAll( TaskPool.ANALYTICS, tasks );
+
+        for ( List<PredictorRun> predictorRuns : Lists.partition( runs, partitionCount ) )
+        {
+            reportPredictorDone( PredictorRun.merge( predictorRuns ), predictionSummary, jobId );
+        }
+    }
+
+    /**
+     * Runs a partition of a predictor on a worker thread, or on the calling
+     * thread when it helps with the work. The predictor is reloaded in the
+     * session of the transaction, so that no Hibernate object is shared
+     * between threads.
+     */
+    private PredictorRun predictInTransaction( long predictorId, String predictorName, Date startDate, Date endDate,
+        int partition, int partitionCount, SecurityContext securityContext )
+    {
+        SecurityContext previousContext = SecurityContextHolder.getContext();
+
+        SecurityContextHolder.setContext( securityContext );
+
+        try
+        {
+            long start = System.currentTimeMillis();
+
+            PredictionSummary predictorSummary = new PredictionSummary();
+
+            transactionTemplate.executeWithoutResult( status -> predict( predictorService.getPredictor( predictorId ),
+                startDate, endDate, predictorSummary, partition, partitionCount ) );
+
+            return new PredictorRun( predictorName, predictorSummary, start, System.currentTimeMillis() );
+        }
+        finally
+        {
+            SecurityContextHolder.setContext( previousContext );
+        }
+    }
+
+    /**
+     * Creates the output periods of the predictors in a committed transaction
+     * before predictors run concurrently. This keeps concurrent predictors
+     * from creating the same period, and lets predictions for all output
+     * periods be inserted through the batch handler.
+     */
+    private void createOutputPeriods( List<Predictor> predictors, Date startDate, Date endDate )
+    {
+        Set<Period> outputPeriods = new HashSet<>();
+
+        for ( Predictor predictor : predictors )
+        {
+            outputPeriods.addAll( getPeriodsBetweenDates( predictor.getPeriodType(), startDate, endDate ) );
+        }
+
+        TransactionTemplate newTransaction = new TransactionTemplate( transactionTemplate.getTransactionManager() );
+        newTransaction.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+
+        newTransaction.executeWithoutResult(
+            status -> periodService.reloadPeriods( new ArrayList<>( outputPeriods ) ) );
+    }
+
+    /**
+     * Adds the summary of a predictor run to the total, and reports the
+     * predictor throughput.
+     */
+    private void reportPredictorDone( PredictorRun run, PredictionSummary predictionSummary, JobConfiguration jobId )
+    {
+        PredictionSummary summary = run.getSummary();
+
+        predictionSummary.add( summary );
+
+        double seconds = Math.max( run.getEnd() - run.getStart(), 1 ) / 1000.0;
+
+        String message = String.format( "Predictor %s done: %d predictions, %d deleted in %.1f s (%.0f per second)",
+            run.getPredictorName(), summary.getPredictions(), summary.getDeleted(), seconds,
+            summary.getPredictions() / seconds );
+
+        log.info( message );
+
+        notifier.notify( jobId, NotificationLevel.INFO, message, false );
+    }
+
+    @Value
+    private static class PredictorRun
+    {
+        String predictorName;
+
+        PredictionSummary summary;
+
+        long start;
+
+        long end;
+
+        /**
+         * Combines the runs of the partitions of a predictor into one run,
+         * lasting from the first start to the last end.
+         */
+        static PredictorRun merge( List<PredictorRun> runs )
+        {
+            PredictionSummary summary = new PredictionSummary();
+
+            runs.forEach( run -> summary.add( run.getSummary() ) );
+
+            return new PredictorRun( runs.get( 0 ).getPredictorName(), summary,
+                runs.stream().mapToLong( PredictorRun::getStart ).min().getAsLong(),
+                runs.stream().mapToLong( PredictorRun::getEnd ).max().getAsLong() );
+        }
+    }
+
     // -------------------------------------------------------------------------
     // Supportive Methods
     // -------------------------------------------------------------------------
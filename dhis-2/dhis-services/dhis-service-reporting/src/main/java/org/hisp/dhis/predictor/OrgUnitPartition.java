@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Value;
+
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+/**
+ * A part of the organisation units of one level which a predictor processes
+ * on its own, so that the org units of a predictor can be processed
+ * concurrently.
+ * <p>
+ * The org units of a partition are all the org units below its roots. The
+ * data for a partition is fetched with the roots in place of the org units of
+ * the current user, so the fetchers only stream data of the partition, in
+ * path order.
+ */
+@Value
+public class OrgUnitPartition
+{
+    /**
+     * The roots of the subtrees holding the org units of the partition.
+     */
+    Set<OrganisationUnit> roots;
+
+    /**
+     * The org units of the partition, in path order.
+     */
+    List<OrganisationUnit> orgUnits;
+
+    /**
+     * Splits org units of one level into at most the given number of
+     * partitions. The org units are grouped by their ancestor at the highest
+     * level which still gives enough groups, without going above the org units
+     * of the current user. The groups are then split, in path order, into
+     * partitions of about the same number of org units. The org units of one
+     * group always stay in the same partition.
+     *
+     * @param orgUnits the org units of one level, in path order.
+     * @param userOrgUnits the org units of the current user.
+     * @param partitionCount the wanted number of partitions.
+     * @return the partitions, which may be fewer than wanted.
+     */
+    public static List<OrgUnitPartition> partition( List<OrganisationUnit> orgUnits,
+        Collection<OrganisationUnit> userOrgUnits, int partitionCount )
+    {
+        List<OrgUnitPartition> partitions = new ArrayList<>();
+
+        if ( orgUnits.isEmpty() )
+        {
+            return partitions;
+        }
+
+        int orgUnitLevel = orgUnits.get( 0 ).getLevel();
+
+        int groupLevel = Math.min( orgUnitLevel, userOrgUnits.stream()
+            .mapToInt( OrganisationUnit::getLevel ).max().orElse( 1 ) );
+
+        Map<OrganisationUnit, List<OrganisationUnit>> groups = groupByAncestor( orgUnits, groupLevel );
+
+        while ( groups.size() < partitionCount && groupLevel < orgUnitLevel )
+        {
+            groups = groupByAncestor( orgUnits, ++groupLevel );
+        }
+
+        Set<OrganisationUnit> roots = new LinkedHashSet<>();
+        List<OrganisationUnit> partitionOrgUnits = new ArrayList<>();
+        int assigned = 0;
+
+        for ( Map.Entry<OrganisationUnit, List<OrganisationUnit>> group : groups.entrySet() )
+        {
+            int groupSize = group.getValue().size();
+
+            // the end of the current partition, if the org units were split
+            // evenly
+
+            double target = (double) orgUnits.size() * (partitions.size() + 1) / partitionCount;
+
+            boolean lastPartition = partitions.size() == partitionCount - 1;
+
+            if ( !partitionOrgUnits.isEmpty() && !lastPartition
+                && Math.abs( assigned + groupSize - target ) > Math.abs( assigned - target ) )
+            {
+                partitions.add( new OrgUnitPartition( roots, partitionOrgUnits ) );
+
+                roots = new LinkedHashSet<>();
+                partitionOrgUnits = new ArrayList<>();
+
+                target = (double) orgUnits.size() * (partitions.size() + 1) / partitionCount;
+                lastPartition = partitions.size() == partitionCount - 1;
+            }
+
+            roots.add( group.getKey() );
+            partitionOrgUnits.addAll( group.getValue() );
+            assigned += groupSize;
+
+            if ( assigned >= target && !lastPartition )
+            {
+                partitions.add( new OrgUnitPartition( roots, partitionOrgUnits ) );
+
+                roots = new LinkedHashSet<>();
+                partitionOrgUnits = new ArrayList<>();
+            }
+        }
+
+        if ( !partitionOrgUnits.isEmpty() )
+        {
+            partitions.add( new OrgUnitPartition( roots, partitionOrgUnits ) );
+        }
+
+        return partitions;
+    }
+
+    /**
+     * Groups org units by their ancestor (or themselves) at the given level,
+     * keeping the path order.
+     */
+    private static Map<OrganisationUnit, List<OrganisationUnit>> groupByAncestor(
+        List<OrganisationUnit> orgUnits, int level )
+    {
+        Map<OrganisationUnit, List<OrganisationUnit>> groups = new LinkedHashMap<>();
+
+        for ( OrganisationUnit orgUnit : orgUnits )
+        {
+            OrganisationUnit ancestor = orgUnit;
+
+            while ( ancestor.getLevel() > level )
+            {
+                ancestor = ancestor.getParent();
+            }
+
+            groups.computeIfAbsent( ancestor, k -> new ArrayList<>() ).add( orgUnit );
+        }
+
+        return groups;
+    }
+}
@@ -28,9 +28,9 @@
 package org.hisp.dhis.predictor;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static org.hisp.dhis.util.ObjectUtils.firstNonNull;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -38,10 +38,10 @@ import java.util.stream.Collectors;
 
 import org.hisp.dhis.analytics.AnalyticsService;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.common.ColumnarValueStore;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.Grid;
-import org.hisp.dhis.common.Map4;
 import org.hisp.dhis.common.MapMap;
 import org.hisp.dhis.common.MapMapMap;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -59,6 +59,10 @@ import com.google.common.collect.Lists;
  * It improves performance without using too much memory by fetching data from
  * analytics for multiple organisation units at a time (but not all organisation
  * units at once). It then returns data for the organisation unit requested.
+ * <p>
+ * The data of a partition is held in column stores keyed by the position of
+ * the organisation unit in the partition and the position of the period, and
+ * is only expanded into maps for the organisation unit requested.
  *
  * @author Jim Grace
  */
@@ -76,13 +80,19 @@ public class PredictionAnalyticsDataFetcher
 
     private Set<Period> periods;
 
+    private List<Period> periodList;
+
+    private Map<String, Integer> periodIndexes;
+
+    private Map<String, Integer> orgUnitIndexes;
+
     private Set<DimensionalItemObject> attributeOptionItems;
 
     private Set<DimensionalItemObject> nonAttributeOptionItems;
 
-    private Map4<String, String, Period, DimensionalItemObject, Object> aocData;
+    private ColumnarValueStore<DimensionalItemObject> aocData;
 
-    private MapMapMap<String, Period, DimensionalItemObject, Object> nonAocData;
+    private ColumnarValueStore<DimensionalItemObject> nonAocData;
 
     public PredictionAnalyticsDataFetcher( AnalyticsService analyticsService )
     {
@@ -107,6 +117,14 @@ public class PredictionAnalyticsDataFetcher
         this.attributeOptionItems = attributeOptionItems;
         this.nonAttributeOptionItems = nonAttributeOptionItems;
 
+        periodList = new ArrayList<>( periods );
+        periodIndexes = new HashMap<>();
+
+        for ( int i = 0; i < periodList.size(); i++ )
+        {
+            periodIndexes.put( periodList.get( i ).getIsoDate(), i );
+        }
+
         partitions = Lists.partition( orgUnits, PARTITION_SIZE );
 
         partitionIndex = -1;
@@ -130,7 +148,17 @@ public class PredictionAnalyticsDataFetcher
 
         getNextChunkIfNeeded( orgUnit );
 
-        return firstNonNull( aocData.get( orgUnit.getUid() ), new MapMapMap<>() );
+        MapMapMap<String, Period, DimensionalItemObject, Object> map = new MapMapMap<>();
+
+        Integer orgUnitKey = orgUnitIndexes.get( orgUnit.getUid() );
+
+        if ( orgUnitKey != null )
+        {
+            aocData.forEach( orgUnitKey, ( periodKey, aoc, item, value ) -> map.putEntry( aoc,
+                periodList.get( (int) periodKey ), item, value ) );
+        }
+
+        return map;
     }
 
     /**
@@ -149,7 +177,17 @@ public class PredictionAnalyticsDataFetcher
 
         getNextChunkIfNeeded( orgUnit );
 
-        return firstNonNull( nonAocData.get( orgUnit.getUid() ), new MapMap<>() );
+        MapMap<Period, DimensionalItemObject, Object> map = new MapMap<>();
+
+        Integer orgUnitKey = orgUnitIndexes.get( orgUnit.getUid() );
+
+        if ( orgUnitKey != null )
+        {
+            nonAocData.forEach( orgUnitKey, ( periodKey, aoc, item, value ) -> map.putEntry(
+                periodList.get( (int) periodKey ), item, value ) );
+        }
+
+        return map;
     }
 
     // -------------------------------------------------------------------------
@@ -182,8 +220,15 @@ public class PredictionAnalyticsDataFetcher
 
         partition = partitions.get( partitionIndex );
 
-        aocData = new Map4<>();
-        nonAocData = new MapMapMap<>();
+        orgUnitIndexes = new HashMap<>();
+
+        for ( int i = 0; i < partition.size(); i++ )
+        {
+            orgUnitIndexes.put( partition.get( i ).getUid(), i );
+        }
+
+        aocData = new ColumnarValueStore<>();
+        nonAocData = new ColumnarValueStore<>();
 
         if ( !attributeOptionItems.isEmpty() )
         {
@@ -222,8 +267,6 @@ public class PredictionAnalyticsDataFetcher
         int aoInx = hasAttributeOptions ? grid.getIndexOfHeader( DimensionalObject.ATTRIBUTEOPTIONCOMBO_DIM_ID ) : 0;
         int vlInx = grid.getWidth() - 1;
 
-        Map<String, Period> periodLookup = periods.stream()
-            .collect( Collectors.toMap( Period::getIsoDate, p -> p ) );
         Map<String, DimensionalItemObject> dimensionItemLookup = dimensionItems.stream()
             .collect( Collectors.toMap( DimensionalItemObject::getDimensionItem, d -> d ) );
 
@@ -235,16 +278,22 @@ public class PredictionAnalyticsDataFetcher
             String ao = hasAttributeOptions ? (String) row.get( aoInx ) : null;
             Object vl = row.get( vlInx );
 
-            Period period = periodLookup.get( pe );
+            Integer periodKey = periodIndexes.get( pe );
+            Integer orgUnitKey = orgUnitIndexes.get( ou );
             DimensionalItemObject dimensionItem = dimensionItemLookup.get( dx );
 
+            if ( periodKey == null || orgUnitKey == null )
+            {
+                continue;
+            }
+
             if ( hasAttributeOptions )
             {
-                aocData.putEntry( ou, ao, period, dimensionItem, vl );
+                aocData.put( orgUnitKey, periodKey, ao, dimensionItem, vl );
             }
             else
             {
-                nonAocData.putEntry( ou, period, dimensionItem, vl );
+                nonAocData.put( orgUnitKey, periodKey, null, dimensionItem, vl );
             }
         }
     }
@@ -86,6 +86,12 @@ import org.hisp.dhis.period.Period;
  * present, even when they are deleted, because they might be replaced with new,
  * undeleted values.
  * <p>
+ * Unlike {@link PredictionAnalyticsDataFetcher}, values are buffered as rows
+ * rather than in a {@link org.hisp.dhis.common.ColumnarValueStore}. Only the
+ * values of one organisation unit are held at a time, each value is returned
+ * with its audit properties, and values of child organisation units share the
+ * same keys when children are included, so they must not be merged by key.
+ * <p>
  * For reliability, if there is an exception on the second thread, the thread is
  * terminated and the exception is re-thrown in the main thread when data is
  * next requested from the caller. This makes sure that the exception is not
@@ -89,6 +89,20 @@ public class PredictionSummary extends AbstractWebMessageResponse
         unchanged += 1;
     }
 
+    /**
+     * Adds the counts of another summary to this summary.
+     *
+     * @param other the summary to add.
+     */
+    public void add( PredictionSummary other )
+    {
+        predictors += other.predictors;
+        inserted += other.inserted;
+        updated += other.updated;
+        deleted += other.deleted;
+        unchanged += other.unchanged;
+    }
+
     public int getPredictions()
     {
         return inserted + updated + unchanged;
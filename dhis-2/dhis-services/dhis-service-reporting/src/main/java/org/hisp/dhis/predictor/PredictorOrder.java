@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.hisp.dhis.expression.Expression;
+
+/**
+ * Orders predictors into levels that can be run concurrently.
+ * <p>
+ * A predictor depends on another predictor if its generator or sample skip
+ * test refers to the output data element of the other predictor, or if both
+ * predictors write to the same output data element. Each predictor is placed
+ * in the level after the last level of the predictors it depends on, so that
+ * the predictors of one level are independent of each other.
+ * <p>
+ * When predictors depend on each other in a cycle, the predictors of the cycle
+ * run in the order of the given list, which is the order in which such
+ * predictors have always been run.
+ */
+public class PredictorOrder
+{
+    private PredictorOrder()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Gets the levels of predictors to run, in order. Predictors keep their
+     * relative order within each level.
+     *
+     * @param predictors the predictors to order.
+     * @return lists of predictors, one list per level.
+     */
+    public static List<List<Predictor>> getLevels( List<Predictor> predictors )
+    {
+        int size = predictors.size();
+
+        List<List<Integer>> dependencies = new ArrayList<>( size );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            List<Integer> dependsOn = new ArrayList<>();
+
+            for ( int j = 0; j < size; j++ )
+            {
+                if ( i != j && dependsOn( predictors.get( i ), predictors.get( j ), j < i ) )
+                {
+                    dependsOn.add( j );
+                }
+            }
+
+            dependencies.add( dependsOn );
+        }
+
+        removeCycles( dependencies );
+
+        int[] levels = new int[size];
+        boolean[] visited = new boolean[size];
+
+        List<List<Predictor>> result = new ArrayList<>();
+
+        for ( int i = 0; i < size; i++ )
+        {
+            setLevel( i, dependencies, levels, visited );
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            while ( result.size() <= levels[i] )
+            {
+                result.add( new ArrayList<>() );
+            }
+
+            result.get( levels[i] ).add( predictors.get( i ) );
+        }
+
+        return result;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Removes the dependencies of predictors on predictors found later in the
+     * list that are part of the same cycle, so that the predictors of a cycle
+     * run in list order. Cycles are found as the strongly connected components
+     * of the dependencies.
+     */
+    private static void removeCycles( List<List<Integer>> dependencies )
+    {
+        int size = dependencies.size();
+
+        int[] components = new int[size];
+        int[] indexes = new int[size];
+        int[] lowLinks = new int[size];
+        boolean[] onStack = new boolean[size];
+        Deque<Integer> stack = new ArrayDeque<>();
+        int[] counters = new int[2]; // Next index, next component
+
+        Arrays.fill( indexes, -1 );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( indexes[i] == -1 )
+            {
+                findComponents( i, dependencies, components, indexes, lowLinks, onStack, stack, counters );
+            }
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            int predictor = i;
+
+            dependencies.get( i ).removeIf( j -> j > predictor && components[j] == components[predictor] );
+        }
+    }
+
+    /**
+     * Assigns the predictors reachable from a predictor to strongly connected
+     * components, using Tarjan's algorithm.
+     */
+    private static void findComponents( int i, List<List<Integer>> dependencies, int[] components, int[] indexes,
+        int[] lowLinks, boolean[] onStack, Deque<Integer> stack, int[] counters )
+    {
+        indexes[i] = counters[0];
+        lowLinks[i] = counters[0]++;
+        stack.push( i );
+        onStack[i] = true;
+
+        for ( int j : dependencies.get( i ) )
+        {
+            if ( indexes[j] == -1 )
+            {
+                findComponents( j, dependencies, components, indexes, lowLinks, onStack, stack, counters );
+                lowLinks[i] = Math.min( lowLinks[i], lowLinks[j] );
+            }
+            else if ( onStack[j] )
+            {
+                lowLinks[i] = Math.min( lowLinks[i], indexes[j] );
+            }
+        }
+
+        if ( lowLinks[i] == indexes[i] )
+        {
+            int j;
+
+            do
+            {
+                j = stack.pop();
+                onStack[j] = false;
+                components[j] = counters[1];
+            }
+            while ( j != i );
+
+            counters[1]++;
+        }
+    }
+
+    /**
+     * Sets the level of a predictor to one more than the highest level of the
+     * predictors it depends on. The dependencies must not contain cycles.
+     */
+    private static int setLevel( int i, List<List<Integer>> dependencies, int[] levels, boolean[] visited )
+    {
+        if ( visited[i] )
+        {
+            return levels[i];
+        }
+
+        int level = 0;
+
+        for ( int j : dependencies.get( i ) )
+        {
+            level = Math.max( level, setLevel( j, dependencies, levels, visited ) + 1 );
+        }
+
+        visited[i] = true;
+        levels[i] = level;
+
+        return level;
+    }
+
+    /**
+     * Checks whether a predictor depends on another predictor.
+     *
+     * @param predictor the predictor.
+     * @param other the other predictor.
+     * @param otherIsFirst whether the other predictor comes first in the list.
+     * @return true if the predictor must run after the other predictor.
+     */
+    private static boolean dependsOn( Predictor predictor, Predictor other, boolean otherIsFirst )
+    {
+        String otherOutput = other.getOutput().getUid();
+
+        if ( otherIsFirst && predictor.getOutput().getUid().equals( otherOutput ) )
+        {
+            return true;
+        }
+
+        return refersTo( predictor.getGenerator(), otherOutput )
+            || refersTo( predictor.getSampleSkipTest(), otherOutput );
+    }
+
+    private static boolean refersTo( Expression expression, String dataElementUid )
+    {
+        return expression != null && expression.getExpression() != null
+            && expression.getExpression().contains( "#{" + dataElementUid );
+    }
+}
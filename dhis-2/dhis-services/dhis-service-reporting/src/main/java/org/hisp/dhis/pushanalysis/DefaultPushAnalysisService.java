@@ -32,27 +32,38 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.hisp.dhis.visualization.VisualizationType.PIVOT_TABLE;
 
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.atomic.LongAdder;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.velocity.VelocityContext;
+import org.hisp.dhis.common.BaseAnalyticalObject;
+import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectStore;
 import org.hisp.dhis.commons.util.Encoder;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dashboard.DashboardItem;
+import org.hisp.dhis.eventchart.EventChart;
+import org.hisp.dhis.eventreport.EventReport;
 import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.fileresource.ExternalFileResource;
@@ -64,6 +75,7 @@ import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.mapgeneration.MapGenerationService;
 import org.hisp.dhis.mapgeneration.MapUtils;
 import org.hisp.dhis.mapping.Map;
+import org.hisp.dhis.mapping.MapView;
 import org.hisp.dhis.message.MessageSender;
 import org.hisp.dhis.outboundmessage.OutboundMessageResponse;
 import org.hisp.dhis.scheduling.JobConfiguration;
@@ -78,14 +90,19 @@ import org.hisp.dhis.system.velocity.VelocityManager;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserGroup;
+import org.hisp.dhis.user.UserService;
 import org.hisp.dhis.visualization.ChartService;
 import org.hisp.dhis.visualization.PlotData;
+import org.hisp.dhis.visualization.RenderedImageCache;
 import org.hisp.dhis.visualization.Visualization;
 import org.hisp.dhis.visualization.VisualizationGridService;
 import org.jfree.chart.JFreeChart;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.MimeTypeUtils;
 
 import com.google.common.collect.Sets;
@@ -127,13 +144,20 @@ public class DefaultPushAnalysisService
 
     private final IdentifiableObjectStore<PushAnalysis> pushAnalysisStore;
 
+    private final UserService userService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final RenderedImageCache renderedImageCache;
+
     public DefaultPushAnalysisService( Notifier notifier, SystemSettingManager systemSettingManager,
         DhisConfigurationProvider dhisConfigurationProvider, ExternalFileResourceService externalFileResourceService,
         FileResourceService fileResourceService, CurrentUserService currentUserService,
         MapGenerationService mapGenerationService, VisualizationGridService visualizationGridService,
         ChartService chartService, I18nManager i18nManager,
         @Qualifier( "emailMessageSender" ) MessageSender messageSender,
-        @Qualifier( "org.hisp.dhis.pushanalysis.PushAnalysisStore" ) IdentifiableObjectStore<PushAnalysis> pushAnalysisStore )
+        @Qualifier( "org.hisp.dhis.pushanalysis.PushAnalysisStore" ) IdentifiableObjectStore<PushAnalysis> pushAnalysisStore,
+        UserService userService, TransactionTemplate transactionTemplate, RenderedImageCache renderedImageCache )
     {
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
@@ -147,6 +171,9 @@ public class DefaultPushAnalysisService
         checkNotNull( i18nManager );
         checkNotNull( messageSender );
         checkNotNull( pushAnalysisStore );
+        checkNotNull( userService );
+        checkNotNull( transactionTemplate );
+        checkNotNull( renderedImageCache );
 
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
@@ -160,6 +187,9 @@ public class DefaultPushAnalysisService
         this.i18nManager = i18nManager;
         this.messageSender = messageSender;
         this.pushAnalysisStore = pushAnalysisStore;
+        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.renderedImageCache = renderedImageCache;
     }
 
     // ----------------------------------------------------------------------
@@ -258,28 +288,40 @@ public class DefaultPushAnalysisService
 
         log( jobId, NotificationLevel.INFO, "Generating and sending reports", false, null );
 
-        for ( User user : receivingUsers )
+        java.util.Map<PushAnalysisAccessProfile, List<User>> usersByProfile = getUsersByProfile( pushAnalysis,
+            receivingUsers );
+
+        log( jobId, NotificationLevel.INFO, usersByProfile.size() + " distinct access profiles found.", false, null );
+
+        java.util.Map<String, LongAdder> itemMillis = new ConcurrentHashMap<>();
+
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        ExecutorService executor = Executors.newFixedThreadPool( getThreadPoolSize( usersByProfile.size() ) );
+
+        try
         {
-            try
-            {
-                String title = pushAnalysis.getTitle();
-                String html = generateHtmlReport( pushAnalysis, user, jobId );
+            java.util.Map<PushAnalysisAccessProfile, Future<String>> reports = new LinkedHashMap<>();
 
-                // TODO: Better handling of messageStatus; Might require
-                // refactoring of EmailMessageSender
-                @SuppressWarnings( "unused" )
-                Future<OutboundMessageResponse> status = messageSender
-                    .sendMessageAsync( title, html, "", null, Sets.newHashSet( user ), true );
+            for ( java.util.Map.Entry<PushAnalysisAccessProfile, List<User>> entry : usersByProfile.entrySet() )
+            {
+                String userUid = entry.getValue().get( 0 ).getUid();
 
+                reports.put( entry.getKey(), executor.submit(
+                    () -> generateHtmlReportInTransaction( uid, userUid, jobId, itemMillis, securityContext ) ) );
             }
-            catch ( Exception e )
+
+            for ( java.util.Map.Entry<PushAnalysisAccessProfile, Future<String>> entry : reports.entrySet() )
             {
-                log( jobId, NotificationLevel.ERROR,
-                    "Could not create or send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
-                        user.getUsername() + "': " + e.getMessage(),
-                    false, e );
+                sendReports( pushAnalysis, usersByProfile.get( entry.getKey() ), entry.getValue(), jobId );
             }
         }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        reportItemTimings( pushAnalysis, itemMillis, jobId );
     }
 
     @Override
@@ -291,6 +333,17 @@ public class DefaultPushAnalysisService
     @Override
     public String generateHtmlReport( PushAnalysis pushAnalysis, User user, JobConfiguration jobId )
         throws IOException
+    {
+        return generateHtmlReport( pushAnalysis, user, jobId, new HashMap<>() );
+    }
+
+    /**
+     * Generates the report and adds the time spent rendering each dashboard
+     * item to the given map, keyed by dashboard item uid.
+     */
+    private String generateHtmlReport( PushAnalysis pushAnalysis, User user, JobConfiguration jobId,
+        java.util.Map<String, LongAdder> itemMillis )
+        throws IOException
     {
         if ( jobId == null )
         {
@@ -316,7 +369,12 @@ public class DefaultPushAnalysisService
             // In normal conditions all DashboardItem has a type.
             if ( item.getType() != null )
             {
+                long start = System.currentTimeMillis();
+
                 itemHtml.put( item.getUid(), getItemHtml( item, user, jobId ) );
+
+                itemMillis.computeIfAbsent( item.getUid(), key -> new LongAdder() )
+                    .add( System.currentTimeMillis() - start );
                 itemLink.put( item.getUid(), getItemLink( item ) );
             }
         }
@@ -357,6 +415,224 @@ public class DefaultPushAnalysisService
     // Supportive methods
     // --------------------------------------------------------------------------
 
+    /**
+     * Groups the receiving users by access profile. The first user of each
+     * group is used to render the report for the whole group.
+     *
+     * @param pushAnalysis the push analysis
+     * @param receivingUsers users to receive the report
+     * @return users by access profile, in a stable order
+     */
+    private java.util.Map<PushAnalysisAccessProfile, List<User>> getUsersByProfile( PushAnalysis pushAnalysis,
+        Set<User> receivingUsers )
+    {
+        Set<String> sharedUsers = new HashSet<>();
+
+        addSharedUsers( pushAnalysis.getDashboard(), sharedUsers );
+
+        for ( DashboardItem item : pushAnalysis.getDashboard().getItems() )
+        {
+            addSharedUsers( item.getEmbeddedItem(), sharedUsers );
+        }
+
+        java.util.Map<PushAnalysisAccessProfile, List<User>> usersByProfile = new LinkedHashMap<>();
+
+        for ( User user : receivingUsers )
+        {
+            usersByProfile.computeIfAbsent( PushAnalysisAccessProfile.of( user, sharedUsers ),
+                profile -> new ArrayList<>() ).add( user );
+        }
+
+        return usersByProfile;
+    }
+
+    /**
+     * Adds the users named directly in the sharing of a dashboard item and of
+     * the objects it is built from: map views, data items, dimensions and
+     * their items, and programs.
+     *
+     * @param object the embedded item of a dashboard item.
+     * @param sharedUsers the set to add user uids to.
+     */
+    private void addSharedUsers( Object object, Set<String> sharedUsers )
+    {
+        if ( object instanceof Map )
+        {
+            ((Map) object).getMapViews().forEach( mapView -> addSharedUsers( mapView, sharedUsers ) );
+        }
+
+        if ( object instanceof BaseAnalyticalObject )
+        {
+            BaseAnalyticalObject analyticalObject = (BaseAnalyticalObject) object;
+
+            analyticalObject.getDataDimensionItems().forEach(
+                item -> addSharingUsers( item.getDimensionalItemObject(), sharedUsers ) );
+
+            analyticalObject.getCategoryDimensions().forEach( dimension -> {
+                addSharingUsers( dimension.getDimension(), sharedUsers );
+                dimension.getItems().forEach( item -> addSharingUsers( item, sharedUsers ) );
+            } );
+
+            analyticalObject.getCategoryOptionGroupSetDimensions().forEach( dimension -> {
+                addSharingUsers( dimension.getDimension(), sharedUsers );
+                dimension.getItems().forEach( item -> addSharingUsers( item, sharedUsers ) );
+            } );
+
+            analyticalObject.getDataElementGroupSetDimensions().forEach( dimension -> {
+                addSharingUsers( dimension.getDimension(), sharedUsers );
+                dimension.getItems().forEach( item -> addSharingUsers( item, sharedUsers ) );
+            } );
+
+            analyticalObject.getOrganisationUnitGroupSetDimensions().forEach( dimension -> {
+                addSharingUsers( dimension.getDimension(), sharedUsers );
+                dimension.getItems().forEach( item -> addSharingUsers( item, sharedUsers ) );
+            } );
+        }
+
+        if ( object instanceof EventReport )
+        {
+            addSharingUsers( ((EventReport) object).getProgram(), sharedUsers );
+        }
+        else if ( object instanceof EventChart )
+        {
+            addSharingUsers( ((EventChart) object).getProgram(), sharedUsers );
+        }
+        else if ( object instanceof MapView )
+        {
+            addSharingUsers( ((MapView) object).getProgram(), sharedUsers );
+        }
+
+        if ( object instanceof IdentifiableObject )
+        {
+            addSharingUsers( (IdentifiableObject) object, sharedUsers );
+        }
+    }
+
+    private void addSharingUsers( IdentifiableObject object, Set<String> sharedUsers )
+    {
+        if ( object != null && object.getSharing() != null && object.getSharing().getUsers() != null )
+        {
+            sharedUsers.addAll( object.getSharing().getUsers().keySet() );
+        }
+    }
+
+    /**
+     * Renders a report on a worker thread. The push analysis and the user are
+     * reloaded in the session of the new transaction, so that no Hibernate
+     * object is shared between threads.
+     */
+    private String generateHtmlReportInTransaction( String pushAnalysisUid, String userUid, JobConfiguration jobId,
+        java.util.Map<String, LongAdder> itemMillis, SecurityContext securityContext )
+    {
+        SecurityContextHolder.setContext( securityContext );
+
+        try
+        {
+            return transactionTemplate.execute( status -> {
+                try
+                {
+                    return generateHtmlReport( pushAnalysisStore.getByUid( pushAnalysisUid ),
+                        userService.getUser( userUid ), jobId, itemMillis );
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+            } );
+        }
+        finally
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Waits for the report of an access profile and sends it to each user of
+     * the profile.
+     */
+    private void sendReports( PushAnalysis pushAnalysis, List<User> users, Future<String> report,
+        JobConfiguration jobId )
+    {
+        String html;
+
+        try
+        {
+            html = report.get();
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "PushAnalysis was interrupted", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            for ( User user : users )
+            {
+                log( jobId, NotificationLevel.ERROR,
+                    "Could not create report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                        user.getUsername() + "': " + ex.getCause().getMessage(),
+                    false, ex.getCause() );
+            }
+
+            return;
+        }
+
+        for ( User user : users )
+        {
+            try
+            {
+                // TODO: Better handling of messageStatus; Might require
+                // refactoring of EmailMessageSender
+                @SuppressWarnings( "unused" )
+                Future<OutboundMessageResponse> status = messageSender
+                    .sendMessageAsync( pushAnalysis.getTitle(), html, "", null, Sets.newHashSet( user ), true );
+            }
+            catch ( Exception e )
+            {
+                log( jobId, NotificationLevel.ERROR,
+                    "Could not send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                        user.getUsername() + "': " + e.getMessage(),
+                    false, e );
+            }
+        }
+    }
+
+    /**
+     * Reports the total time spent rendering each dashboard item across all
+     * access profiles.
+     */
+    private void reportItemTimings( PushAnalysis pushAnalysis, java.util.Map<String, LongAdder> itemMillis,
+        JobConfiguration jobId )
+    {
+        for ( DashboardItem item : pushAnalysis.getDashboard().getItems() )
+        {
+            LongAdder millis = itemMillis.get( item.getUid() );
+
+            if ( millis != null )
+            {
+                log( jobId, NotificationLevel.INFO, "Dashboard item '" + item.getUid() + "' of type '" +
+                    item.getType() + "' rendered in " + millis.sum() + " ms.", false, null );
+            }
+        }
+    }
+
+    /**
+     * Determines how many threads to use for rendering, leaving one core for
+     * other work as validation rule analysis does.
+     */
+    private int getThreadPoolSize( int profileCount )
+    {
+        int threadPoolSize = SystemUtils.getCpuCores();
+
+        if ( threadPoolSize > 2 )
+        {
+            threadPoolSize--;
+        }
+
+        return Math.max( 1, Math.min( threadPoolSize, profileCount ) );
+    }
+
     /**
      * Finds the dashboardItem's type and calls the associated method for
      * generating the resource (either URL or HTML)
@@ -432,18 +708,14 @@ public class DefaultPushAnalysisService
     private String generateMapHtml( Map map, User user )
         throws IOException
     {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        byte[] image = renderedImageCache.getImage( map, Arrays.asList( 578, 440 ), user, () -> {
+            BufferedImage mapImage = mapGenerationService.generateMapImageForUser( map, new Date(), null, 578, 440,
+                user );
 
-        BufferedImage image = mapGenerationService.generateMapImageForUser( map, new Date(), null, 578, 440, user );
+            return MapUtils.toPng( mapImage != null ? mapImage : MapUtils.createErrorImage( "No data" ) );
+        } );
 
-        if ( image == null )
-        {
-            image = MapUtils.createErrorImage( "No data" );
-        }
-
-        ImageIO.write( image, "PNG", baos );
-
-        return uploadImage( map.getUid(), baos.toByteArray() );
+        return uploadImage( map.getUid(), image );
     }
 
     /**
@@ -475,10 +747,14 @@ public class DefaultPushAnalysisService
     private String generateChartHtml( final Visualization visualization, User user )
         throws IOException
     {
-        JFreeChart jFreechart = chartService
-            .getJFreeChart( new PlotData( visualization ), new Date(), null, i18nManager.getI18nFormat(), user );
+        byte[] image = renderedImageCache.getImage( visualization, Arrays.asList( 578, 440 ), user, () -> {
+            JFreeChart jFreechart = chartService
+                .getJFreeChart( new PlotData( visualization ), new Date(), null, i18nManager.getI18nFormat(), user );
+
+            return ChartUtils.getChartAsPngByteArray( jFreechart, 578, 440 );
+        } );
 
-        return uploadImage( visualization.getUid(), ChartUtils.getChartAsPngByteArray( jFreechart, 578, 440 ) );
+        return uploadImage( visualization.getUid(), image );
     }
 
     /**
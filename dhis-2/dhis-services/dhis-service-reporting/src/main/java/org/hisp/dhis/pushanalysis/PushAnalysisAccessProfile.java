@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.pushanalysis;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+
+/**
+ * The parts of a user which decide what a rendered push analysis report looks
+ * like. Users with equal profiles see the same data in every dashboard item,
+ * so a report only has to be rendered once per distinct profile.
+ * <p>
+ * The profile is conservative: it holds all organisation units, data view and
+ * search organisation units, user groups and user roles of the user rather
+ * than only those referenced by the dashboard items, as analytics also checks
+ * the sharing of the data items behind them. The user itself is only part of
+ * the profile when it is named directly in the sharing of the dashboard, of
+ * one of the dashboard items or of the objects they are built from.
+ */
+@Getter
+@EqualsAndHashCode
+class PushAnalysisAccessProfile
+{
+    private final Set<String> dataViewOrganisationUnits;
+
+    private final Set<String> organisationUnits;
+
+    private final Set<String> searchOrganisationUnits;
+
+    private final Set<String> userGroups;
+
+    private final Set<String> userRoles;
+
+    private final Set<String> dimensionConstraints;
+
+    private final String user;
+
+    private PushAnalysisAccessProfile( Set<String> dataViewOrganisationUnits, Set<String> organisationUnits,
+        Set<String> searchOrganisationUnits, Set<String> userGroups, Set<String> userRoles,
+        Set<String> dimensionConstraints, String user )
+    {
+        this.dataViewOrganisationUnits = dataViewOrganisationUnits;
+        this.organisationUnits = organisationUnits;
+        this.searchOrganisationUnits = searchOrganisationUnits;
+        this.userGroups = userGroups;
+        this.userRoles = userRoles;
+        this.dimensionConstraints = dimensionConstraints;
+        this.user = user;
+    }
+
+    /**
+     * Creates the access profile of the given user.
+     *
+     * @param user the receiving user.
+     * @param sharedUsers uids of users named directly in the sharing of the
+     *        dashboard, the dashboard items or the objects they are built
+     *        from.
+     * @return the access profile.
+     */
+    static PushAnalysisAccessProfile of( User user, Set<String> sharedUsers )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        Set<String> dimensionConstraints = new TreeSet<>();
+
+        if ( credentials != null )
+        {
+            dimensionConstraints.addAll( uids( credentials.getCatDimensionConstraints() ) );
+            dimensionConstraints.addAll( uids( credentials.getCogsDimensionConstraints() ) );
+        }
+
+        return new PushAnalysisAccessProfile(
+            uids( user.getDataViewOrganisationUnitsWithFallback() ),
+            uids( user.getOrganisationUnits() ),
+            uids( user.getTeiSearchOrganisationUnits() ),
+            uids( user.getGroups() ),
+            credentials != null ? uids( credentials.getUserAuthorityGroups() ) : new TreeSet<>(),
+            dimensionConstraints,
+            sharedUsers.contains( user.getUid() ) ? user.getUid() : null );
+    }
+
+    private static Set<String> uids( Collection<? extends IdentifiableObject> objects )
+    {
+        Set<String> uids = new TreeSet<>();
+
+        if ( objects != null )
+        {
+            objects.forEach( object -> uids.add( object.getUid() ) );
+        }
+
+        return uids;
+    }
+}
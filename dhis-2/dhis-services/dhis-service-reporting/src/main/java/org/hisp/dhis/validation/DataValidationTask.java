@@ -87,6 +87,12 @@ public class DataValidationTask
     public final static String NON_AOC = ""; // String that is not an Attribute
                                              // Option Combo
 
+    /**
+     * Period key of values in the data stores, which only ever hold data for
+     * the current period.
+     */
+    private static final long PERIOD_KEY = 0;
+
     private final ExpressionService expressionService;
 
     private final DataValueService dataValueService;
@@ -129,9 +135,14 @@ public class DataValidationTask
     private ValidationRuleExtended ruleX; // Current rule extended.
 
     // Data for current period and all rules being evaluated:
-    private MapMapMap<Long, String, DimensionalItemObject, Object> dataMap;
+    private ColumnarValueStore<DimensionalItemObject> dataStore;
+
+    private ColumnarValueStore<DimensionalItemObject> slidingWindowDataStore;
+
+    // Value maps of the current organisation unit, built on first use:
+    private MapMap<String, DimensionalItemObject, Object> valueMap;
 
-    private MapMapMap<Long, String, DimensionalItemObject, Object> slidingWindowDataMap;
+    private MapMap<String, DimensionalItemObject, Object> slidingWindowValueMap;
 
     @Override
     public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService )
@@ -186,6 +197,8 @@ public class DataValidationTask
                 {
                     orgUnit = ou;
                     orgUnitId = ou.getId();
+                    valueMap = null;
+                    slidingWindowValueMap = null;
 
                     for ( ValidationRuleExtended r : periodTypeX.getRuleXs() )
                     {
@@ -360,38 +373,58 @@ public class DataValidationTask
     /**
      * Gets the data for this period:
      * <p/>
-     * dataMap contains data for non-sliding window expressions.
-     * slidingWindowDataMap contains data for sliding window expressions.
+     * dataStore contains data for non-sliding window expressions.
+     * slidingWindowDataStore contains data for sliding window expressions.
      */
     private void getData()
     {
         getDataValueMap();
 
-        dataMap.putMap( getAnalyticsMap( true, periodTypeX.getIndicators() ) );
-
-        slidingWindowDataMap = new MapMapMap<>();
+        addAnalyticsData( dataStore, true, periodTypeX.getIndicators() );
 
         if ( periodTypeX.areSlidingWindowsNeeded() )
         {
-            slidingWindowDataMap.putMap( dataMap );
+            slidingWindowDataStore = dataStore.copy();
 
-            slidingWindowDataMap.putMap( getEventMapForSlidingWindow( true, periodTypeX.getEventItems() ) );
-            slidingWindowDataMap
-                .putMap( getEventMapForSlidingWindow( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+            addEventDataForSlidingWindow( slidingWindowDataStore, true, periodTypeX.getEventItems() );
+            addEventDataForSlidingWindow( slidingWindowDataStore, false,
+                periodTypeX.getEventItemsWithoutAttributeOptions() );
+        }
+        else
+        {
+            slidingWindowDataStore = new ColumnarValueStore<>();
         }
 
         if ( periodTypeX.areNonSlidingWindowsNeeded() )
         {
-            dataMap.putMap( getAnalyticsMap( true, periodTypeX.getEventItems() ) );
-            dataMap.putMap( getAnalyticsMap( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+            addAnalyticsData( dataStore, true, periodTypeX.getEventItems() );
+            addAnalyticsData( dataStore, false, periodTypeX.getEventItemsWithoutAttributeOptions() );
         }
     }
 
+    /**
+     * Gets the value map of the current organisation unit. The map is built
+     * from the column store once per organisation unit and then shared by all
+     * rules evaluated for it.
+     */
     private MapMap<String, DimensionalItemObject, Object> getValueMap( boolean slidingWindow )
     {
-        return slidingWindow
-            ? slidingWindowDataMap.get( orgUnitId )
-            : dataMap.get( orgUnitId );
+        if ( slidingWindow )
+        {
+            if ( slidingWindowValueMap == null )
+            {
+                slidingWindowValueMap = slidingWindowDataStore.getValueMap( orgUnitId, PERIOD_KEY );
+            }
+
+            return slidingWindowValueMap;
+        }
+
+        if ( valueMap == null )
+        {
+            valueMap = dataStore.getValueMap( orgUnitId, PERIOD_KEY );
+        }
+
+        return valueMap;
     }
 
     /**
@@ -528,9 +561,9 @@ public class DataValidationTask
 
         List<DeflatedDataValue> dataValues = dataValueService.getDeflatedDataValues( params );
 
-        dataMap = new MapMapMap<>();
+        dataStore = new ColumnarValueStore<>( dataValues.size() );
 
-        MapMapMap<Long, String, DimensionalItemObject, Long> duplicateCheck = new MapMapMap<>();
+        long[] periodIntervals = new long[dataValues.size() * 2];
 
         for ( DeflatedDataValue dv : dataValues )
         {
@@ -545,60 +578,75 @@ public class DataValidationTask
             {
                 Object value = getObjectValue( dv.getValue(), dataElement.getValueType() );
 
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElement, value, p, duplicateCheck );
+                periodIntervals = addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElement, value, p,
+                    periodIntervals );
             }
 
             if ( dataElementOperand != null )
             {
                 Object value = getObjectValue( dv.getValue(), dataElementOperand.getDataElement().getValueType() );
 
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElementOperand, value, p, duplicateCheck );
+                periodIntervals = addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElementOperand, value, p,
+                    periodIntervals );
             }
         }
     }
 
-    private void addValueToDataMap( long orgUnitId, String aocUid, DimensionalItemObject dimItemObject,
-        Object value, Period p, MapMapMap<Long, String, DimensionalItemObject, Long> duplicateCheck )
+    /**
+     * Adds a data value to the data store. The period interval of each stored
+     * value is kept in an array indexed by store row, which is grown and
+     * returned as needed.
+     */
+    private long[] addValueToDataMap( long orgUnitId, String aocUid, DimensionalItemObject dimItemObject,
+        Object value, Period p, long[] periodIntervals )
     {
-        Object existingValue = dataMap.getValue( orgUnitId, aocUid, dimItemObject );
+        int row = dataStore.indexOf( orgUnitId, PERIOD_KEY, aocUid, dimItemObject );
 
         long periodInterval = p.getEndDate().getTime() - p.getStartDate().getTime();
 
-        Long existingPeriodInterval = duplicateCheck.getValue( orgUnitId, aocUid, dimItemObject );
-
-        if ( existingPeriodInterval != null )
+        if ( row != -1 )
         {
-            if ( existingPeriodInterval < periodInterval )
+            Object existingValue = dataStore.getValue( row );
+
+            if ( periodIntervals[row] < periodInterval )
             {
-                return; // Don't overwrite previous value if a shorter interval
+                return periodIntervals; // Don't overwrite previous value if a shorter interval
             }
-            else if ( existingPeriodInterval > periodInterval )
+            else if ( periodIntervals[row] > periodInterval )
             {
                 existingValue = null; // Overwrite if for a longer interval
             }
+
+            if ( existingValue != null )
+            {
+                value = addDoubleObjects( value, existingValue );
+            }
         }
 
-        if ( existingValue != null )
+        row = dataStore.put( orgUnitId, PERIOD_KEY, aocUid, dimItemObject, value );
+
+        if ( row >= periodIntervals.length )
         {
-            value = addDoubleObjects( value, existingValue );
+            periodIntervals = Arrays.copyOf( periodIntervals, Math.max( row + 1, periodIntervals.length * 2 ) );
         }
 
-        dataMap.putEntry( orgUnitId, aocUid, dimItemObject, value );
+        periodIntervals[row] = periodInterval;
 
-        duplicateCheck.putEntry( orgUnitId, aocUid, dimItemObject, periodInterval );
+        return periodIntervals;
     }
 
     /**
-     * Gets analytics data for the given parameters.
+     * Adds analytics data for the given parameters to a data store.
      *
+     * @param store the data store to add to.
      * @param hasAttributeOptions whether the event data has attribute options.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Object> getAnalyticsMap(
+    private void addAnalyticsData( ColumnarValueStore<DimensionalItemObject> store,
         boolean hasAttributeOptions, Set<DimensionalItemObject> analyticsItems )
     {
         if ( analyticsItems.isEmpty() )
         {
-            return new MapMapMap<>();
+            return;
         }
 
         DataQueryParams.Builder paramsBuilder = DataQueryParams.newBuilder()
@@ -612,20 +660,22 @@ public class DataValidationTask
             paramsBuilder.withAttributeOptionCombos( Lists.newArrayList() );
         }
 
-        return getAnalyticsData( paramsBuilder.build(), hasAttributeOptions );
+        addAnalyticsData( store, paramsBuilder.build(), hasAttributeOptions );
     }
 
     /**
-     * Gets sliding window analytics event data for the given parameters.
+     * Adds sliding window analytics event data for the given parameters to a
+     * data store.
      *
+     * @param store the data store to add to.
      * @param hasAttributeOptions whether the event data has attribute options.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Object> getEventMapForSlidingWindow(
+    private void addEventDataForSlidingWindow( ColumnarValueStore<DimensionalItemObject> store,
         boolean hasAttributeOptions, Set<DimensionalItemObject> eventItems )
     {
         if ( eventItems.isEmpty() )
         {
-            return new MapMapMap<>();
+            return;
         }
 
         // We want to position the sliding window over the most recent data.
@@ -661,21 +711,19 @@ public class DataValidationTask
             paramsBuilder.withAttributeOptionCombos( Lists.newArrayList() );
         }
 
-        return getAnalyticsData( paramsBuilder.build(), hasAttributeOptions );
+        addAnalyticsData( store, paramsBuilder.build(), hasAttributeOptions );
     }
 
     /**
-     * Gets analytics data.
+     * Adds analytics data to a data store.
      *
+     * @param store the data store to add to.
      * @param params event data query parameters.
      * @param hasAttributeOptions whether the event data has attribute options.
-     * @return event data.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Object> getAnalyticsData(
+    private void addAnalyticsData( ColumnarValueStore<DimensionalItemObject> store,
         DataQueryParams params, boolean hasAttributeOptions )
     {
-        MapMapMap<Long, String, DimensionalItemObject, Object> map = new MapMapMap<>();
-
         Grid grid;
 
         try
@@ -684,13 +732,13 @@ public class DataValidationTask
         }
         catch ( PersistenceException ex ) // No data
         {
-            return map;
+            return;
         }
         catch ( RuntimeException ex ) // Other error
         {
             log.error( DebugUtils.getStackTrace( ex ) );
 
-            return map;
+            return;
         }
 
         int dxInx = grid.getIndexOfHeader( DimensionalObject.DATA_X_DIM_ID );
@@ -715,9 +763,7 @@ public class DataValidationTask
             OrganisationUnit orgUnit = ouLookup.get( ou );
             DimensionalItemObject analyticsItem = dxLookup.get( dx );
 
-            map.putEntry( orgUnit.getId(), ao, analyticsItem, vl );
+            store.put( orgUnit.getId(), PERIOD_KEY, ao, analyticsItem, vl );
         }
-
-        return map;
     }
 }
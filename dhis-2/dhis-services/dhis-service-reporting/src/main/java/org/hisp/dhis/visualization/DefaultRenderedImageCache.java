@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.visualization;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.UserContext;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.external.location.LocationManager;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserSettingKey;
+import org.springframework.stereotype.Service;
+
+import com.google.common.hash.Hashing;
+
+/**
+ * Rendered image cache which stores images as files in the {@code cache/images}
+ * directory of the DHIS2 home directory. Files are evicted in least recently
+ * used order once the total size exceeds the configured max size. Images of
+ * earlier analytics table updates are never served again, and are evicted as
+ * new images are cached.
+ */
+@Slf4j
+@Service( "org.hisp.dhis.visualization.RenderedImageCache" )
+public class DefaultRenderedImageCache
+    implements RenderedImageCache
+{
+    private static final String[] DIRECTORY = { "cache", "images" };
+
+    private static final String SUFFIX = ".img";
+
+    private static final long MB = 1024 * 1024;
+
+    private final SystemSettingManager systemSettingManager;
+
+    private final LocationManager locationManager;
+
+    private final boolean enabled;
+
+    private final long maxSize;
+
+    /**
+     * File names of cached images in least recently used order, mapped to
+     * their size in bytes. Guarded by itself.
+     */
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private long totalSize;
+
+    private Path directory;
+
+    private boolean initialized;
+
+    public DefaultRenderedImageCache( SystemSettingManager systemSettingManager, LocationManager locationManager,
+        DhisConfigurationProvider config )
+    {
+        checkNotNull( systemSettingManager );
+        checkNotNull( locationManager );
+        checkNotNull( config );
+
+        this.systemSettingManager = systemSettingManager;
+        this.locationManager = locationManager;
+        this.enabled = config.isEnabled( ConfigurationKey.RENDERED_IMAGE_CACHE );
+        this.maxSize = Long.parseLong( config.getProperty( ConfigurationKey.RENDERED_IMAGE_CACHE_MAX_SIZE ) ) * MB;
+    }
+
+    // -------------------------------------------------------------------------
+    // RenderedImageCache implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public byte[] getImage( IdentifiableObject object, List<Object> parameters, User user, ImageRenderer renderer )
+        throws IOException
+    {
+        Path dir = enabled ? getDirectory() : null;
+
+        if ( dir == null || object == null || object.getUid() == null )
+        {
+            return renderer.render();
+        }
+
+        String fileName = Hashing.sha256()
+            .hashString( getKey( object, parameters, user ), StandardCharsets.UTF_8 ) + SUFFIX;
+
+        byte[] image = readImage( dir, fileName );
+
+        if ( image != null )
+        {
+            return image;
+        }
+
+        image = renderer.render();
+
+        if ( image != null )
+        {
+            writeImage( dir, fileName, image );
+        }
+
+        return image;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the cache key of an image. The current date is part of the key
+     * as relative periods are resolved against it.
+     */
+    String getKey( IdentifiableObject object, List<Object> parameters, User user )
+    {
+        return String.join( ":",
+            object.getClass().getSimpleName(),
+            object.getUid(),
+            String.valueOf( object.getLastUpdated() != null ? object.getLastUpdated().getTime() : null ),
+            parameters.stream().map( this::toKey ).collect( Collectors.joining( "," ) ),
+            getAccessKey( user ),
+            toKey( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) ),
+            toKey( systemSettingManager
+                .getDateSetting( SettingKey.LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE ) ),
+            Objects.toString( UserContext.getUserSetting( UserSettingKey.DB_LOCALE ) ),
+            Objects.toString( UserContext.getUserSetting( UserSettingKey.UI_LOCALE ) ),
+            LocalDate.now().toString() );
+    }
+
+    /**
+     * Returns the parts of the given user which decide which data the user
+     * can see in analytics. The user itself is part of the key, as the
+     * sharing of any object behind an image may name the user directly, so
+     * images are only shared between requests of the same user. The access
+     * properties make sure images are not served after they change.
+     */
+    static String getAccessKey( User user )
+    {
+        if ( user == null )
+        {
+            return "";
+        }
+
+        UserCredentials credentials = user.getUserCredentials();
+
+        return String.join( ";",
+            user.getUid(),
+            uids( user.getOrganisationUnits() ),
+            uids( user.getDataViewOrganisationUnitsWithFallback() ),
+            uids( user.getTeiSearchOrganisationUnits() ),
+            uids( user.getGroups() ),
+            credentials != null ? uids( credentials.getUserAuthorityGroups() ) : "",
+            credentials != null ? uids( credentials.getCatDimensionConstraints() ) : "",
+            credentials != null ? uids( credentials.getCogsDimensionConstraints() ) : "" );
+    }
+
+    private static String uids( Collection<? extends IdentifiableObject> objects )
+    {
+        return objects == null ? ""
+            : objects.stream()
+                .map( IdentifiableObject::getUid )
+                .sorted()
+                .collect( Collectors.joining( "," ) );
+    }
+
+    private String toKey( Object parameter )
+    {
+        if ( parameter instanceof IdentifiableObject )
+        {
+            return ((IdentifiableObject) parameter).getUid();
+        }
+        else if ( parameter instanceof Date )
+        {
+            return String.valueOf( ((Date) parameter).getTime() );
+        }
+
+        return Objects.toString( parameter );
+    }
+
+    private byte[] readImage( Path dir, String fileName )
+    {
+        synchronized ( files )
+        {
+            if ( files.get( fileName ) == null )
+            {
+                return null;
+            }
+        }
+
+        try
+        {
+            return Files.readAllBytes( dir.resolve( fileName ) );
+        }
+        catch ( NoSuchFileException ex )
+        {
+            log.debug( "Cached image was removed: " + fileName );
+        }
+        catch ( IOException ex )
+        {
+            log.warn( "Failed to read cached image: " + fileName, ex );
+        }
+
+        synchronized ( files )
+        {
+            Long size = files.remove( fileName );
+            totalSize -= size != null ? size : 0;
+        }
+
+        return null;
+    }
+
+    private void writeImage( Path dir, String fileName, byte[] image )
+    {
+        if ( image.length > maxSize )
+        {
+            return;
+        }
+
+        try
+        {
+            Path temp = Files.createTempFile( dir, fileName, ".tmp" );
+            Files.write( temp, image );
+            Files.move( temp, dir.resolve( fileName ), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( IOException ex )
+        {
+            log.warn( "Failed to cache image: " + fileName, ex );
+            return;
+        }
+
+        synchronized ( files )
+        {
+            Long previous = files.put( fileName, (long) image.length );
+            totalSize += image.length - (previous != null ? previous : 0);
+            evict( dir );
+        }
+    }
+
+    /**
+     * Deletes least recently used images until the total size is within the
+     * max size. Must be called while holding the lock on the files.
+     */
+    private void evict( Path dir )
+    {
+        Iterator<Map.Entry<String, Long>> it = files.entrySet().iterator();
+
+        while ( totalSize > maxSize && it.hasNext() )
+        {
+            Map.Entry<String, Long> eldest = it.next();
+
+            try
+            {
+                Files.deleteIfExists( dir.resolve( eldest.getKey() ) );
+            }
+            catch ( IOException ex )
+            {
+                log.warn( "Failed to delete cached image: " + eldest.getKey(), ex );
+            }
+
+            totalSize -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the cache directory, creating it and indexing the images cached
+     * by earlier runs on first use. Returns null if there is no DHIS2 home
+     * directory.
+     */
+    private Path getDirectory()
+    {
+        synchronized ( files )
+        {
+            if ( initialized )
+            {
+                return directory;
+            }
+
+            initialized = true;
+
+            if ( !locationManager.externalDirectorySet() )
+            {
+                log.warn( "Rendered image cache is disabled as the DHIS2 home directory is not set" );
+                return null;
+            }
+
+            File dir = locationManager.buildDirectory( DIRECTORY );
+
+            if ( dir == null )
+            {
+                log.warn( "Rendered image cache is disabled as the cache directory could not be created" );
+                return null;
+            }
+
+            directory = dir.toPath();
+
+            try ( Stream<Path> paths = Files.list( directory ) )
+            {
+                paths.map( Path::toFile )
+                    .sorted( Comparator.comparingLong( File::lastModified ) )
+                    .forEach( this::indexFile );
+            }
+            catch ( IOException ex )
+            {
+                log.warn( "Failed to index cached images", ex );
+            }
+
+            evict( directory );
+
+            log.info( String.format( "Rendered image cache indexed %d images of %d MB", files.size(),
+                totalSize / MB ) );
+
+            return directory;
+        }
+    }
+
+    private void indexFile( File file )
+    {
+        if ( file.getName().endsWith( SUFFIX ) )
+        {
+            files.put( file.getName(), file.length() );
+            totalSize += file.length();
+        }
+        else if ( !file.delete() )
+        {
+            log.debug( "Failed to delete leftover file: " + file.getName() );
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+public class OrgUnitPartitionTest
+    extends DhisConvenienceTest
+{
+    private OrganisationUnit orgUnitA;
+
+    private OrganisationUnit orgUnitB;
+
+    private OrganisationUnit orgUnitC;
+
+    private OrganisationUnit orgUnitD;
+
+    private OrganisationUnit orgUnitE;
+
+    private OrganisationUnit orgUnitF;
+
+    private OrganisationUnit orgUnitG;
+
+    private OrganisationUnit orgUnitH;
+
+    private OrganisationUnit orgUnitI;
+
+    private List<OrganisationUnit> level3;
+
+    // -------------------------------------------------------------------------
+    // Org unit hierarchy:
+    //
+    // Level 1: A, I
+    // Level 2: B, C (under A)
+    // Level 3: D, E (under B), F, G, H (under C)
+    // -------------------------------------------------------------------------
+
+    @Before
+    public void setUp()
+    {
+        orgUnitA = orgUnit( createOrganisationUnit( 'A' ) );
+        orgUnitB = orgUnit( createOrganisationUnit( 'B', orgUnitA ) );
+        orgUnitC = orgUnit( createOrganisationUnit( 'C', orgUnitA ) );
+        orgUnitD = orgUnit( createOrganisationUnit( 'D', orgUnitB ) );
+        orgUnitE = orgUnit( createOrganisationUnit( 'E', orgUnitB ) );
+        orgUnitF = orgUnit( createOrganisationUnit( 'F', orgUnitC ) );
+        orgUnitG = orgUnit( createOrganisationUnit( 'G', orgUnitC ) );
+        orgUnitH = orgUnit( createOrganisationUnit( 'H', orgUnitC ) );
+        orgUnitI = orgUnit( createOrganisationUnit( 'I' ) );
+
+        level3 = ImmutableList.of( orgUnitD, orgUnitE, orgUnitF, orgUnitG, orgUnitH );
+    }
+
+    @Test
+    public void testPartitionBySubtree()
+    {
+        List<OrgUnitPartition> partitions = OrgUnitPartition.partition( level3, ImmutableSet.of( orgUnitA ), 2 );
+
+        assertEquals( 2, partitions.size() );
+
+        assertEquals( ImmutableSet.of( orgUnitB ), partitions.get( 0 ).getRoots() );
+        assertEquals( ImmutableList.of( orgUnitD, orgUnitE ), partitions.get( 0 ).getOrgUnits() );
+
+        assertEquals( ImmutableSet.of( orgUnitC ), partitions.get( 1 ).getRoots() );
+        assertEquals( ImmutableList.of( orgUnitF, orgUnitG, orgUnitH ), partitions.get( 1 ).getOrgUnits() );
+    }
+
+    @Test
+    public void testPartitionByOrgUnit()
+    {
+        List<OrgUnitPartition> partitions = OrgUnitPartition.partition( level3, ImmutableSet.of( orgUnitA ), 5 );
+
+        assertEquals( 5, partitions.size() );
+
+        for ( int i = 0; i < level3.size(); i++ )
+        {
+            assertEquals( ImmutableSet.of( level3.get( i ) ), partitions.get( i ).getRoots() );
+            assertEquals( ImmutableList.of( level3.get( i ) ), partitions.get( i ).getOrgUnits() );
+        }
+    }
+
+    @Test
+    public void testPartitionKeepsGroupsTogether()
+    {
+        List<OrgUnitPartition> partitions = OrgUnitPartition.partition( level3, ImmutableSet.of( orgUnitA ), 3 );
+
+        assertEquals( 3, partitions.size() );
+
+        assertEquals( ImmutableList.of( orgUnitD, orgUnitE ), partitions.get( 0 ).getOrgUnits() );
+        assertEquals( ImmutableList.of( orgUnitF ), partitions.get( 1 ).getOrgUnits() );
+        assertEquals( ImmutableList.of( orgUnitG, orgUnitH ), partitions.get( 2 ).getOrgUnits() );
+    }
+
+    @Test
+    public void testFewerOrgUnitsThanPartitions()
+    {
+        List<OrgUnitPartition> partitions = OrgUnitPartition.partition( ImmutableList.of( orgUnitA, orgUnitI ),
+            ImmutableSet.of( orgUnitA, orgUnitI ), 4 );
+
+        assertEquals( 2, partitions.size() );
+
+        assertEquals( ImmutableSet.of( orgUnitA ), partitions.get( 0 ).getRoots() );
+        assertEquals( ImmutableSet.of( orgUnitI ), partitions.get( 1 ).getRoots() );
+    }
+
+    @Test
+    public void testPartitionBelowUserOrgUnits()
+    {
+        List<OrgUnitPartition> partitions = OrgUnitPartition.partition( ImmutableList.of( orgUnitF, orgUnitG ),
+            ImmutableSet.of( orgUnitC ), 2 );
+
+        assertEquals( 2, partitions.size() );
+
+        assertEquals( ImmutableSet.of( orgUnitF ), partitions.get( 0 ).getRoots() );
+        assertEquals( ImmutableSet.of( orgUnitG ), partitions.get( 1 ).getRoots() );
+    }
+
+    @Test
+    public void testEmptyOrgUnits()
+    {
+        assertTrue( OrgUnitPartition.partition( ImmutableList.of(), ImmutableSet.of( orgUnitA ), 2 ).isEmpty() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private OrganisationUnit orgUnit( OrganisationUnit orgUnit )
+    {
+        orgUnit.setPath( orgUnit.getPath() );
+
+        return orgUnit;
+    }
+}
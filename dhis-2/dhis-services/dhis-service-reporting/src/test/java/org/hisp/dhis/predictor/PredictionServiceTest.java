@@ -30,6 +30,7 @@ package org.hisp.dhis.predictor;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.hisp.dhis.expression.ExpressionService.SYMBOL_DAYS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Date;
 import java.util.HashSet;
@@ -43,6 +44,8 @@ import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.TaskPool;
+import org.hisp.dhis.common.TaskSchedulers;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementOperand;
@@ -116,6 +119,9 @@ public class PredictionServiceTest
     @Autowired
     private BatchHandlerFactory batchHandlerFactory;
 
+    @Autowired
+    private TaskSchedulers taskSchedulers;
+
     private OrganisationUnitLevel orgUnitLevel1;
 
     private OrganisationUnitLevel orgUnitLevel2;
@@ -1287,6 +1293,57 @@ public class PredictionServiceTest
         assertEquals( "20", getDataValue( dataElementY, defaultCombo, sourceA, makeMonth( 2001, 7 ) ) );
     }
 
+    @Test
+    public void testPredictTaskConcurrentPredictors()
+    {
+        setupTestData();
+
+        // predictors of one level run concurrently on the analytics pool,
+        // each split into org unit partitions
+
+        assertTrue( taskSchedulers.getPoolSize( TaskPool.ANALYTICS ) > 1 );
+
+        Set<OrganisationUnitLevel> orgUnitLevels = Sets.newHashSet( orgUnitLevel1, orgUnitLevel2, orgUnitLevel3 );
+
+        Expression sumA = new Expression( "sum(#{" + dataElementA.getUid() + "})", "descriptionA" );
+        Expression sumB = new Expression( "sum(#{" + dataElementB.getUid() + "})", "descriptionB" );
+
+        Predictor concurrentA = createPredictor( dataElementY, defaultCombo, "ConcurrentA", sumA, null,
+            periodTypeMonthly, orgUnitLevels, 2, 0, 0 );
+        Predictor concurrentB = createPredictor( dataElementZ, defaultCombo, "ConcurrentB", sumB, null,
+            periodTypeMonthly, orgUnitLevels, 2, 0, 0 );
+        Predictor sequentialA = createPredictor( dataElementC, defaultCombo, "SequentialA", sumA, null,
+            periodTypeMonthly, orgUnitLevels, 2, 0, 0 );
+        Predictor sequentialB = createPredictor( dataElementD, defaultCombo, "SequentialB", sumB, null,
+            periodTypeMonthly, orgUnitLevels, 2, 0, 0 );
+
+        predictorService.addPredictor( concurrentA );
+        predictorService.addPredictor( concurrentB );
+
+        List<String> predictors = Lists.newArrayList( concurrentA.getUid(), concurrentB.getUid() );
+
+        PredictionSummary concurrentSummary = predictionService.predictTask( monthStart( 2003, 7 ),
+            monthStart( 2003, 11 ), predictors, null, null );
+
+        predictionService.predict( sequentialA, monthStart( 2003, 7 ), monthStart( 2003, 11 ), summary );
+        predictionService.predict( sequentialB, monthStart( 2003, 7 ), monthStart( 2003, 11 ), summary );
+
+        assertEquals( "Pred 2 Ins 40 Upd 0 Del 0 Unch 0", shortSummary( summary ) );
+        assertEquals( shortSummary( summary ), shortSummary( concurrentSummary ) );
+
+        for ( OrganisationUnit source : Lists.newArrayList( sourceA, sourceB, sourceC, sourceD, sourceE, sourceF,
+            sourceG ) )
+        {
+            for ( int month = 7; month <= 10; month++ )
+            {
+                assertEquals( getDataValue( dataElementC, defaultCombo, source, makeMonth( 2003, month ) ),
+                    getDataValue( dataElementY, defaultCombo, source, makeMonth( 2003, month ) ) );
+                assertEquals( getDataValue( dataElementD, defaultCombo, source, makeMonth( 2003, month ) ),
+                    getDataValue( dataElementZ, defaultCombo, source, makeMonth( 2003, month ) ) );
+            }
+        }
+    }
+
     @Test
     public void testPredictMedian()
     {
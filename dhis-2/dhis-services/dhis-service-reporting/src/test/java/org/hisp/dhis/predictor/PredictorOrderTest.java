@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.predictor;
+
+import static org.junit.Assert.assertEquals;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+
+public class PredictorOrderTest
+    extends DhisConvenienceTest
+{
+    private DataElement dataElementA;
+
+    private DataElement dataElementB;
+
+    private DataElement dataElementC;
+
+    private DataElement dataElementD;
+
+    private DataElement dataElementX;
+
+    @Before
+    public void setUp()
+    {
+        dataElementA = createDataElement( 'A' );
+        dataElementB = createDataElement( 'B' );
+        dataElementC = createDataElement( 'C' );
+        dataElementD = createDataElement( 'D' );
+        dataElementX = createDataElement( 'X' );
+    }
+
+    @Test
+    public void testIndependentPredictors()
+    {
+        Predictor p1 = predictor( dataElementA, "#{" + dataElementX.getUid() + "}", "1" );
+        Predictor p2 = predictor( dataElementB, "#{" + dataElementX.getUid() + "}", "2" );
+
+        assertEquals( ImmutableList.of( ImmutableList.of( p1, p2 ) ),
+            PredictorOrder.getLevels( ImmutableList.of( p1, p2 ) ) );
+    }
+
+    @Test
+    public void testDependentPredictors()
+    {
+        Predictor p1 = predictor( dataElementC, "#{" + dataElementB.getUid() + "}", "1" );
+        Predictor p2 = predictor( dataElementB, "#{" + dataElementA.getUid() + ".default}", "2" );
+        Predictor p3 = predictor( dataElementA, "#{" + dataElementX.getUid() + "}", "3" );
+        Predictor p4 = predictor( dataElementX, "1", "4" );
+
+        assertEquals(
+            ImmutableList.of( ImmutableList.of( p4 ), ImmutableList.of( p3 ), ImmutableList.of( p2 ),
+                ImmutableList.of( p1 ) ),
+            PredictorOrder.getLevels( ImmutableList.of( p1, p2, p3, p4 ) ) );
+    }
+
+    @Test
+    public void testSameOutputRunsInListOrder()
+    {
+        Predictor p1 = predictor( dataElementA, "1", "1" );
+        Predictor p2 = predictor( dataElementA, "2", "2" );
+        Predictor p3 = predictor( dataElementB, "3", "3" );
+
+        assertEquals( ImmutableList.of( ImmutableList.of( p1, p3 ), ImmutableList.of( p2 ) ),
+            PredictorOrder.getLevels( ImmutableList.of( p1, p2, p3 ) ) );
+    }
+
+    @Test
+    public void testCycle()
+    {
+        Predictor p1 = predictor( dataElementA, "#{" + dataElementB.getUid() + "}", "1" );
+        Predictor p2 = predictor( dataElementB, "#{" + dataElementA.getUid() + "}", "2" );
+
+        assertEquals( ImmutableList.of( ImmutableList.of( p1 ), ImmutableList.of( p2 ) ),
+            PredictorOrder.getLevels( ImmutableList.of( p1, p2 ) ) );
+
+        assertEquals( ImmutableList.of( ImmutableList.of( p2 ), ImmutableList.of( p1 ) ),
+            PredictorOrder.getLevels( ImmutableList.of( p2, p1 ) ) );
+    }
+
+    @Test
+    public void testCycleOfThreeWithDependent()
+    {
+        Predictor p1 = predictor( dataElementA, "#{" + dataElementC.getUid() + "}", "1" );
+        Predictor p2 = predictor( dataElementB, "#{" + dataElementA.getUid() + "}", "2" );
+        Predictor p3 = predictor( dataElementC, "#{" + dataElementB.getUid() + "}", "3" );
+        Predictor p4 = predictor( dataElementD, "#{" + dataElementA.getUid() + "}", "4" );
+
+        assertEquals( ImmutableList.of( ImmutableList.of( p1 ), ImmutableList.of( p4, p2 ),
+            ImmutableList.of( p3 ) ), PredictorOrder.getLevels( ImmutableList.of( p4, p1, p2, p3 ) ) );
+    }
+
+    private Predictor predictor( DataElement output, String generator, String uniqueCharacter )
+    {
+        return createPredictor( output, null, uniqueCharacter, createExpression2( 'G', generator ), null,
+            new MonthlyPeriodType(), Sets.newHashSet(), 1, 0, 0 );
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.pushanalysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserGroup;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+public class PushAnalysisAccessProfileTest
+    extends DhisConvenienceTest
+{
+    private OrganisationUnit unitA;
+
+    private OrganisationUnit unitB;
+
+    private User userA;
+
+    private User userB;
+
+    @Before
+    public void setUp()
+    {
+        unitA = createOrganisationUnit( 'A' );
+        unitB = createOrganisationUnit( 'B' );
+
+        userA = createUser( 'A' );
+        userB = createUser( 'B' );
+
+        userA.setOrganisationUnits( Sets.newHashSet( unitA ) );
+        userB.setOrganisationUnits( Sets.newHashSet( unitA ) );
+
+        UserGroup groupA = createUserGroup( 'A', Sets.newHashSet( userA, userB ) );
+        userA.getGroups().add( groupA );
+        userB.getGroups().add( groupA );
+    }
+
+    @Test
+    public void testEqualProfiles()
+    {
+        assertEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of() ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testDifferentDataViewOrganisationUnits()
+    {
+        userB.setDataViewOrganisationUnits( Sets.newHashSet( unitB ) );
+
+        assertNotEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of() ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testDifferentSecondaryOrganisationUnits()
+    {
+        userA.setDataViewOrganisationUnits( Sets.newHashSet( unitA ) );
+        userB.setDataViewOrganisationUnits( Sets.newHashSet( unitA ) );
+        userB.getOrganisationUnits().add( unitB );
+
+        assertNotEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of() ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testDifferentSearchOrganisationUnits()
+    {
+        userB.setTeiSearchOrganisationUnits( Sets.newHashSet( unitB ) );
+
+        assertNotEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of() ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testDifferentUserGroups()
+    {
+        UserGroup groupB = createUserGroup( 'B', Sets.newHashSet( userB ) );
+        userB.getGroups().add( groupB );
+
+        assertNotEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of() ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of() ) );
+    }
+
+    @Test
+    public void testUserNamedInSharing()
+    {
+        assertNotEquals( PushAnalysisAccessProfile.of( userA, ImmutableSet.of( userA.getUid() ) ),
+            PushAnalysisAccessProfile.of( userB, ImmutableSet.of( userA.getUid() ) ) );
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.visualization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.external.location.LocationManager;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.user.User;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Sets;
+
+public class DefaultRenderedImageCacheTest
+    extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private LocationManager locationManager;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private DefaultRenderedImageCache cache;
+
+    private DataElement object;
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @Before
+    public void setUp()
+        throws IOException
+    {
+        when( config.isEnabled( ConfigurationKey.RENDERED_IMAGE_CACHE ) ).thenReturn( true );
+        when( config.getProperty( ConfigurationKey.RENDERED_IMAGE_CACHE_MAX_SIZE ) ).thenReturn( "1" );
+        when( locationManager.externalDirectorySet() ).thenReturn( true );
+        when( locationManager.buildDirectory( "cache", "images" ) ).thenReturn( folder.newFolder( "images" ) );
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( new Date( 1000L ) );
+
+        cache = new DefaultRenderedImageCache( systemSettingManager, locationManager, config );
+        object = createDataElement( 'A' );
+    }
+
+    @Test
+    public void testGetImageCached()
+        throws IOException
+    {
+        byte[] first = cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> render( 10 ) );
+        byte[] second = cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> render( 10 ) );
+
+        assertArrayEquals( first, second );
+        assertEquals( 1, renders.get() );
+
+        cache.getImage( object, Arrays.asList( 400, 500 ), null, () -> render( 10 ) );
+
+        assertEquals( 2, renders.get() );
+    }
+
+    @Test
+    public void testGetImageAfterAnalyticsUpdate()
+        throws IOException
+    {
+        cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> render( 10 ) );
+
+        when( systemSettingManager.getDateSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE ) )
+            .thenReturn( new Date( 2000L ) );
+
+        cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> render( 10 ) );
+
+        assertEquals( 2, renders.get() );
+    }
+
+    @Test
+    public void testGetImageEvicted()
+        throws IOException
+    {
+        int size = 600 * 1024;
+
+        cache.getImage( object, Arrays.asList( 1 ), null, () -> render( size ) );
+        cache.getImage( object, Arrays.asList( 2 ), null, () -> render( size ) );
+        cache.getImage( object, Arrays.asList( 2 ), null, () -> render( size ) );
+
+        assertEquals( 2, renders.get() );
+
+        cache.getImage( object, Arrays.asList( 1 ), null, () -> render( size ) );
+
+        assertEquals( 3, renders.get() );
+    }
+
+    @Test
+    public void testGetImageNotCachedWhenNull()
+        throws IOException
+    {
+        cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> {
+            renders.incrementAndGet();
+            return null;
+        } );
+        cache.getImage( object, Arrays.asList( 800, 500 ), null, () -> render( 10 ) );
+
+        assertEquals( 2, renders.get() );
+    }
+
+    @Test
+    public void testGetAccessKey()
+    {
+        OrganisationUnit unitA = createOrganisationUnit( 'A' );
+        OrganisationUnit unitB = createOrganisationUnit( 'B' );
+
+        User userA = createUser( 'A' );
+        User userB = createUser( 'B' );
+
+        userA.setOrganisationUnits( Sets.newHashSet( unitA ) );
+        userB.setOrganisationUnits( Sets.newHashSet( unitA ) );
+
+        String keyA = DefaultRenderedImageCache.getAccessKey( userA );
+
+        assertEquals( keyA, DefaultRenderedImageCache.getAccessKey( userA ) );
+        assertNotEquals( keyA, DefaultRenderedImageCache.getAccessKey( userB ) );
+
+        userA.setDataViewOrganisationUnits( Sets.newHashSet( unitA ) );
+        userA.getOrganisationUnits().add( unitB );
+
+        assertNotEquals( keyA, DefaultRenderedImageCache.getAccessKey( userA ) );
+
+        String keyWithUnits = DefaultRenderedImageCache.getAccessKey( userA );
+
+        userA.getGroups().add( createUserGroup( 'A', Sets.newHashSet( userA ) ) );
+
+        assertNotEquals( keyWithUnits, DefaultRenderedImageCache.getAccessKey( userA ) );
+    }
+
+    private byte[] render( int size )
+    {
+        renders.incrementAndGet();
+        return new byte[size];
+    }
+}
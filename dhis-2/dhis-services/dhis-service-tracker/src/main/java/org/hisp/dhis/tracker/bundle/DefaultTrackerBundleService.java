@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.tracker.bundle;
 
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.COMMIT_OPS;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
@@ -50,7 +52,9 @@ import org.hisp.dhis.tracker.TrackerProgramRuleService;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.persister.CommitService;
 import org.hisp.dhis.tracker.bundle.persister.TrackerObjectDeletionService;
+import org.hisp.dhis.tracker.bundle.persister.TrackerPersister;
 import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.TrackerPreheatService;
 import org.hisp.dhis.tracker.report.TrackerBundleReport;
@@ -82,6 +86,8 @@ public class DefaultTrackerBundleService
 
     private final TrackedEntityInstanceService trackedEntityInstanceService;
 
+    private final TrackerImportMetrics trackerImportMetrics;
+
     private List<SideEffectHandlerService> sideEffectHandlers = new ArrayList<>();
 
     @Autowired( required = false )
@@ -100,13 +106,14 @@ public class DefaultTrackerBundleService
 
         COMMIT_MAPPER = new ImmutableMap.Builder<TrackerType, BiFunction<Session, TrackerBundle, TrackerTypeReport>>()
             .put( TrackerType.ENROLLMENT,
-                (( session, bundle ) -> commitService.getEnrollmentPersister().persist( session, bundle )) )
+                (( session, bundle ) -> persist( commitService.getEnrollmentPersister(), session, bundle )) )
             .put( TrackerType.EVENT,
-                (( session, bundle ) -> commitService.getEventPersister().persist( session, bundle )) )
+                (( session, bundle ) -> persist( commitService.getEventPersister(), session, bundle )) )
             .put( TrackerType.TRACKED_ENTITY,
-                (( session, bundle ) -> commitService.getTrackerPersister().persist( session, bundle )) )
+                (( session, bundle ) -> persist( commitService.getTrackerPersister(), session, bundle )) )
             .put( TrackerType.RELATIONSHIP,
-                (( session, bundle ) -> commitService.getRelationshipPersister().persist( session, bundle )) )
+                (( session, bundle ) -> persist( commitService.getRelationshipPersister(), session,
+                    bundle )) )
             .build();
 
         DELETION_MAPPER = new ImmutableMap.Builder<TrackerType, Function<TrackerBundle, TrackerTypeReport>>()
@@ -187,9 +194,15 @@ public class DefaultTrackerBundleService
         }
 
         Stream.of( TrackerType.values() ).sorted( Collections.reverseOrder() )
-            .forEach( t -> bundleReport.getTypeReportMap().put( t, DELETION_MAPPER.get( t )
-                .apply( bundle ) ) );
+            .forEach( t -> bundleReport.getTypeReportMap().put( t, trackerImportMetrics.exec( COMMIT_OPS,
+                deletionService, bundle.getImportStrategy(), () -> DELETION_MAPPER.get( t ).apply( bundle ) ) ) );
 
         return bundleReport;
     }
+
+    private TrackerTypeReport persist( TrackerPersister<?, ?> persister, Session session, TrackerBundle bundle )
+    {
+        return trackerImportMetrics.exec( COMMIT_OPS, persister, bundle.getImportStrategy(),
+            () -> persister.persist( session, bundle ) );
+    }
 }
@@ -35,6 +35,7 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.common.AsyncTaskExecutor;
 import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.render.RenderService;
 import org.springframework.stereotype.Component;
 
@@ -72,7 +73,7 @@ public abstract class BaseMessageManager
 
     public void executeJob( Runnable runnable )
     {
-        taskExecutor.executeTask( runnable );
+        taskExecutor.executeTask( TaskPool.NOTIFICATION, runnable );
     }
 
     public TrackerSideEffectDataBundle toBundle( TextMessage message )
@@ -32,6 +32,7 @@ import javax.jms.TextMessage;
 
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.security.AuthenticationSerializer;
@@ -91,6 +92,6 @@ public class TrackerMessageManager
         SecurityContextHolder.getContext()
             .setAuthentication( AuthenticationSerializer.deserialize( trackerMessage.getAuthentication() ) );
 
-        taskExecutor.executeTask( trackerImportThread );
+        taskExecutor.executeTask( TaskPool.IMPORT, trackerImportThread );
     }
 }
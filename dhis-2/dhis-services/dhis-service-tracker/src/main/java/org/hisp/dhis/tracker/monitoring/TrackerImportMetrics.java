@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.monitoring;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times the stages of a tracker import, and the preheat suppliers, bundle
+ * pre-processors, validation hooks and persisters within them. Timings are
+ * recorded as Micrometer timers when tracker monitoring is enabled.
+ * <p>
+ * Stages are recorded by the {@value #STAGE_TIMER} timer tagged by stage and
+ * import strategy, components by the {@value #COMPONENT_TIMER} timer tagged by
+ * stage, component class and import strategy. Stage names are the operation
+ * names of {@link org.hisp.dhis.tracker.report.TrackerTimingsStats}.
+ */
+@Component
+public class TrackerImportMetrics
+{
+    public static final String STAGE_TIMER = "tracker.import.stage";
+
+    public static final String COMPONENT_TIMER = "tracker.import.component";
+
+    private static final String UNKNOWN_STRATEGY = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public TrackerImportMetrics( DhisConfigurationProvider config, MeterRegistry meterRegistry )
+    {
+        checkNotNull( config );
+        checkNotNull( meterRegistry );
+
+        this.meterRegistry = meterRegistry;
+        this.enabled = config.isEnabled( ConfigurationKey.MONITORING_TRACKER_ENABLED );
+    }
+
+    /**
+     * Executes the given stage of an import and records its elapsed time.
+     *
+     * @param stage the stage name.
+     * @param strategy the import strategy, can be null.
+     * @param supplier the stage to execute.
+     * @return the result of the stage.
+     */
+    public <T> T exec( String stage, TrackerImportStrategy strategy, Supplier<T> supplier )
+    {
+        return exec( stage, null, strategy, supplier );
+    }
+
+    /**
+     * Executes the given stage of an import and records its elapsed time.
+     *
+     * @param stage the stage name.
+     * @param strategy the import strategy, can be null.
+     * @param runnable the stage to execute.
+     */
+    public void execVoid( String stage, TrackerImportStrategy strategy, Runnable runnable )
+    {
+        exec( stage, null, strategy, () -> {
+            runnable.run();
+            return null;
+        } );
+    }
+
+    /**
+     * Executes the given component of a stage and records its elapsed time.
+     *
+     * @param stage the stage name.
+     * @param component the component, such as a preheat supplier or a
+     *        validation hook, or null to record the stage itself.
+     * @param strategy the import strategy, can be null.
+     * @param supplier the component to execute.
+     * @return the result of the component.
+     */
+    public <T> T exec( String stage, Object component, TrackerImportStrategy strategy, Supplier<T> supplier )
+    {
+        if ( !enabled )
+        {
+            return supplier.get();
+        }
+
+        String componentName = component != null ? ClassUtils.getUserClass( component ).getSimpleName() : null;
+        String strategyName = strategy != null ? strategy.name() : UNKNOWN_STRATEGY;
+
+        long start = System.nanoTime();
+
+        try
+        {
+            return supplier.get();
+        }
+        finally
+        {
+            getTimer( stage, componentName, strategyName ).record( System.nanoTime() - start,
+                TimeUnit.NANOSECONDS );
+        }
+    }
+
+    /**
+     * Executes the given component of a stage and records its elapsed time.
+     *
+     * @param stage the stage name.
+     * @param component the component.
+     * @param strategy the import strategy, can be null.
+     * @param runnable the component to execute.
+     */
+    public void execVoid( String stage, Object component, TrackerImportStrategy strategy, Runnable runnable )
+    {
+        exec( stage, component, strategy, () -> {
+            runnable.run();
+            return null;
+        } );
+    }
+
+    private Timer getTimer( String stage, String component, String strategy )
+    {
+        String key = stage + ":" + component + ":" + strategy;
+
+        return timers.computeIfAbsent( key, k -> {
+            Timer.Builder builder = Timer.builder( component != null ? COMPONENT_TIMER : STAGE_TIMER )
+                .tag( "stage", stage )
+                .tag( "strategy", strategy );
+
+            if ( component != null )
+            {
+                builder.tag( "component", component );
+            }
+
+            return builder.register( meterRegistry );
+        } );
+    }
+}
@@ -28,9 +28,20 @@
 package org.hisp.dhis.tracker.preheat;
 
 import static com.google.api.client.util.Preconditions.checkNotNull;
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREHEAT_OPS;
 
 import java.beans.Introspector;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
@@ -39,13 +50,20 @@ import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.preheat.PreheatException;
 import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
+import org.hisp.dhis.tracker.preheat.supplier.JdbcAbstractPreheatSupplier;
 import org.hisp.dhis.tracker.preheat.supplier.PreheatSupplier;
+import org.hisp.dhis.tracker.preheat.supplier.SupplierDependsOn;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ClassUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -70,9 +88,24 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
     @Qualifier( "preheatOrder" )
     private final List<String> preheatSuppliers;
 
+    @NonNull
+    private final TrackerImportMetrics trackerImportMetrics;
+
     // TODO this flag should be configurable
     private final static boolean FAIL_FAST_ON_PREHEAT_ERROR = false;
 
+    /**
+     * Bounded pool executing the JDBC based suppliers. These only run plain
+     * queries on connections of their own, so they can run concurrently with
+     * each other and with the suppliers using the Hibernate session of the
+     * calling thread.
+     */
+    private final static ExecutorService PREHEAT_THREAD_POOL = Executors.newFixedThreadPool( 4,
+        new ThreadFactoryBuilder()
+            .setNameFormat( "TRACKER-PREHEAT-%d" )
+            .setDaemon( true )
+            .build() );
+
     @Override
     @Transactional( readOnly = true )
     public TrackerPreheat preheat( TrackerImportParams params )
@@ -84,28 +117,145 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
 
         checkNotNull( preheat.getUser(), "TrackerPreheat is missing the user object." );
 
+        Map<Class<?>, CompletableFuture<Void>> executed = new HashMap<>();
+
+        for ( Map.Entry<String, PreheatSupplier> entry : getSuppliers().entrySet() )
+        {
+            final String supplier = entry.getKey();
+            final PreheatSupplier preheatSupplier = entry.getValue();
+
+            Class<?> supplierClass = ClassUtils.getUserClass( preheatSupplier );
+            CompletableFuture<Void> dependency = getDependency( supplierClass, executed );
+
+            if ( preheatSupplier instanceof JdbcAbstractPreheatSupplier )
+            {
+                executed.put( supplierClass, dependency.thenRunAsync(
+                    () -> add( supplier, preheatSupplier, params, preheat ), PREHEAT_THREAD_POOL ) );
+            }
+            else
+            {
+                join( dependency );
+                add( supplier, preheatSupplier, params, preheat );
+                executed.put( supplierClass, CompletableFuture.completedFuture( null ) );
+            }
+        }
+
+        join( CompletableFuture.allOf( executed.values().toArray( new CompletableFuture[0] ) ) );
+
+        preheat.createReferenceTree();
+
+        return preheat;
+    }
+
+    /**
+     * Executes the given supplier. Errors are handled as configured by
+     * {@link #FAIL_FAST_ON_PREHEAT_ERROR}, so a failing supplier does not
+     * prevent the suppliers depending on it from being executed.
+     */
+    private void add( String supplier, PreheatSupplier preheatSupplier, TrackerImportParams params,
+        TrackerPreheat preheat )
+    {
+        try
+        {
+            trackerImportMetrics.execVoid( PREHEAT_OPS, preheatSupplier, params.getImportStrategy(),
+                () -> preheatSupplier.add( params, preheat ) );
+        }
+        catch ( Exception e )
+        {
+            processException( "An error occurred while executing a preheat supplier with name "
+                + supplier, e, supplier );
+        }
+    }
+
+    /**
+     * Returns the configured suppliers by name, ordered so that every supplier
+     * comes after the suppliers it depends on as declared by
+     * {@link SupplierDependsOn}. Suppliers without dependencies between them
+     * keep the configured order.
+     */
+    private Map<String, PreheatSupplier> getSuppliers()
+    {
+        Map<String, PreheatSupplier> suppliers = new LinkedHashMap<>();
+
         for ( String supplier : preheatSuppliers )
         {
             final String beanName = Introspector.decapitalize( supplier );
+
             try
             {
-                ctx.getBean( beanName, PreheatSupplier.class ).add( params, preheat );
+                suppliers.put( supplier, ctx.getBean( beanName, PreheatSupplier.class ) );
             }
             catch ( BeansException beanException )
             {
                 processException( "Unable to find a preheat supplier with name " + beanName
                     + " in the Spring context. Skipping supplier.", beanException, supplier );
             }
-            catch ( Exception e )
-            {
-                processException( "An error occurred while executing a preheat supplier with name "
-                    + supplier, e, supplier );
-            }
         }
 
-        preheat.createReferenceTree();
+        Map<String, PreheatSupplier> ordered = new LinkedHashMap<>();
+        Set<String> visited = new HashSet<>();
 
-        return preheat;
+        suppliers.keySet().forEach( supplier -> addInOrder( supplier, suppliers, visited, ordered ) );
+
+        return ordered;
+    }
+
+    private void addInOrder( String supplier, Map<String, PreheatSupplier> suppliers, Set<String> visited,
+        Map<String, PreheatSupplier> ordered )
+    {
+        if ( !visited.add( supplier ) )
+        {
+            return;
+        }
+
+        for ( Class<?> dependency : getDependsOn( ClassUtils.getUserClass( suppliers.get( supplier ) ) ) )
+        {
+            suppliers.entrySet().stream()
+                .filter( e -> dependency.isAssignableFrom( ClassUtils.getUserClass( e.getValue() ) ) )
+                .forEach( e -> addInOrder( e.getKey(), suppliers, visited, ordered ) );
+        }
+
+        ordered.put( supplier, suppliers.get( supplier ) );
+    }
+
+    private Class<?>[] getDependsOn( Class<?> supplierClass )
+    {
+        SupplierDependsOn dependsOn = AnnotationUtils.findAnnotation( supplierClass, SupplierDependsOn.class );
+
+        return dependsOn != null ? dependsOn.value() : new Class<?>[0];
+    }
+
+    /**
+     * Returns the executions of the suppliers the given supplier class depends
+     * on as declared by {@link SupplierDependsOn}, or a completed future if
+     * there are no such dependencies among the executed suppliers.
+     */
+    private CompletableFuture<Void> getDependency( Class<?> supplierClass,
+        Map<Class<?>, CompletableFuture<Void>> executed )
+    {
+        Class<?>[] dependsOn = getDependsOn( supplierClass );
+
+        return CompletableFuture.allOf( executed.entrySet().stream()
+            .filter( e -> Arrays.stream( dependsOn ).anyMatch( d -> d.isAssignableFrom( e.getKey() ) ) )
+            .map( Map.Entry::getValue )
+            .toArray( CompletableFuture[]::new ) );
+    }
+
+    private void join( CompletableFuture<Void> future )
+    {
+        try
+        {
+            future.join();
+        }
+        catch ( CompletionException e )
+        {
+            if ( e.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new PreheatException( "An error occurred during the preheat process", e.getCause() );
+        }
     }
 
     private void processException( String message, Exception e, String supplier )
@@ -38,6 +38,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -92,10 +93,12 @@ public class TrackerPreheat
     /**
      * Internal map of all metadata objects mapped by class type => [id] The
      * value of each id can be either the metadata object's uid, code, name or
-     * attribute value
+     * attribute value. Concurrent, as the map is populated and read by preheat
+     * suppliers running in parallel.
      */
     @Getter
-    private Map<Class<? extends IdentifiableObject>, Map<String, IdentifiableObject>> map = new HashMap<>();
+    private Map<Class<? extends IdentifiableObject>, Map<String, IdentifiableObject>> map =
+        new ConcurrentHashMap<>();
 
     /**
      * List of all payload references by tracker type which are not present in
@@ -284,6 +287,11 @@ public class TrackerPreheat
     public <T extends IdentifiableObject> T get( Class<? extends IdentifiableObject> klass,
         String key )
     {
+        if ( key == null )
+        {
+            return null;
+        }
+
         return (T) map.getOrDefault( klass, new HashMap<>() ).get( key );
     }
 
@@ -314,30 +322,22 @@ public class TrackerPreheat
 
         Class<? extends IdentifiableObject> klass = HibernateProxyUtils.getRealClass( object );
 
-        if ( !map.containsKey( klass ) )
-        {
-            map.put( klass, new HashMap<>() );
-        }
+        Map<String, IdentifiableObject> objectMap = map.computeIfAbsent( klass, k -> new ConcurrentHashMap<>() );
 
         if ( User.class.isAssignableFrom( klass ) )
         {
-            if ( !map.containsKey( UserCredentials.class ) )
-            {
-                map.put( UserCredentials.class, new HashMap<>() );
-            }
+            Map<String, IdentifiableObject> identifierMap = map.computeIfAbsent( UserCredentials.class,
+                k -> new ConcurrentHashMap<>() );
 
             User user = (User) object;
 
-            Map<String, IdentifiableObject> identifierMap = map.get( UserCredentials.class );
-
-            if ( !StringUtils.isEmpty( identifier.getIdentifier( user ) ) &&
-                !identifierMap.containsKey( identifier.getIdentifier( user ) ) )
+            if ( !StringUtils.isEmpty( identifier.getIdentifier( user ) ) && user.getUserCredentials() != null )
             {
-                identifierMap.put( identifier.getIdentifier( user ), user.getUserCredentials() );
+                identifierMap.putIfAbsent( identifier.getIdentifier( user ), user.getUserCredentials() );
             }
         }
 
-        PreheatUtils.resolveKey( identifier, object ).ifPresent( k -> map.get( klass ).put( k, object ) );
+        PreheatUtils.resolveKey( identifier, object ).ifPresent( k -> objectMap.put( k, object ) );
 
         return this;
     }
@@ -54,6 +54,7 @@ import org.springframework.stereotype.Component;
  */
 @RequiredArgsConstructor
 @Component
+@SupplierDependsOn( ClassBasedSupplier.class )
 public class FileResourceSupplier extends AbstractPreheatSupplier
 {
     @NonNull
@@ -50,6 +50,7 @@ import org.springframework.stereotype.Component;
  * @author Luciano Fiandesio
  */
 @Component
+@SupplierDependsOn( { ClassBasedSupplier.class, ProgramInstanceSupplier.class } )
 public class ProgramInstancesWithAtLeastOneEventSupplier extends JdbcAbstractPreheatSupplier
 {
     private final static String COLUMN = "uid";
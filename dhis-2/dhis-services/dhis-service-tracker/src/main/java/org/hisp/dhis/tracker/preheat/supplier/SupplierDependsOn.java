@@ -52,7 +52,8 @@ import java.lang.annotation.Target;
  * </pre>
  *
  * In the above example, the supplier "SupplierZ" will be executed before
- * "SupplierA"
+ * "SupplierA". A supplier depending on several suppliers lists all of them,
+ * e.g. {@code @SupplierDependsOn( { SupplierY.class, SupplierZ.class } )}.
  *
  * @author Luciano Fiandesio
  */
@@ -61,9 +62,9 @@ import java.lang.annotation.Target;
 public @interface SupplierDependsOn
 {
     /**
-     * The {@link PreheatSupplier} subclass the supplier annotated with depends
-     * on
+     * The {@link PreheatSupplier} subclasses the supplier annotated with
+     * depends on
      *
      */
-    Class<?> value();
+    Class<?>[] value();
 }
@@ -53,6 +53,7 @@ import com.google.common.collect.Lists;
  * @author Luca Cambi
  */
 @Component
+@SupplierDependsOn( ClassBasedSupplier.class )
 public class TrackedEntityProgramInstanceSupplier extends JdbcAbstractPreheatSupplier
 {
 
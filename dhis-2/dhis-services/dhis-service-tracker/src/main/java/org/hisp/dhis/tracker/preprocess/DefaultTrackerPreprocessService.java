@@ -27,10 +27,14 @@
  */
 package org.hisp.dhis.tracker.preprocess;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREPROCESS_OPS;
+
 import java.util.ArrayList;
 import java.util.List;
 
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -41,8 +45,17 @@ import org.springframework.stereotype.Service;
 public class DefaultTrackerPreprocessService
     implements TrackerPreprocessService
 {
+    private final TrackerImportMetrics trackerImportMetrics;
+
     private List<BundlePreProcessor> preProcessors = new ArrayList<>();
 
+    public DefaultTrackerPreprocessService( TrackerImportMetrics trackerImportMetrics )
+    {
+        checkNotNull( trackerImportMetrics );
+
+        this.trackerImportMetrics = trackerImportMetrics;
+    }
+
     @Autowired( required = false )
     public void setPreProcessors( List<BundlePreProcessor> preProcessors )
     {
@@ -54,7 +67,8 @@ public class DefaultTrackerPreprocessService
     {
         for ( BundlePreProcessor preProcessor : preProcessors )
         {
-            preProcessor.process( bundle );
+            trackerImportMetrics.execVoid( PREPROCESS_OPS, preProcessor, bundle.getImportStrategy(),
+                () -> preProcessor.process( bundle ) );
         }
 
         return bundle;
@@ -59,6 +59,7 @@ import org.hisp.dhis.tracker.TrackerUserService;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.bundle.TrackerBundleService;
 import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.preprocess.TrackerPreprocessService;
 import org.hisp.dhis.tracker.validation.TrackerValidationService;
 import org.springframework.stereotype.Service;
@@ -89,6 +90,9 @@ public class DefaultTrackerImportService
     @NonNull
     private final Notifier notifier;
 
+    @NonNull
+    private final TrackerImportMetrics trackerImportMetrics;
+
     @Override
     public TrackerImportReport importTracker( TrackerImportParams params )
     {
@@ -144,7 +148,8 @@ public class DefaultTrackerImportService
     private TrackerBundle preHeat( TrackerImportParams params, TrackerTimingsStats opsTimer )
     {
         TrackerBundle trackerBundle = opsTimer.exec( PREHEAT_OPS,
-            () -> preheatBundle( params ) );
+            () -> trackerImportMetrics.exec( PREHEAT_OPS, params.getImportStrategy(),
+                () -> preheatBundle( params ) ) );
 
         notifyOps( params, PREHEAT_OPS, opsTimer );
 
@@ -154,14 +159,16 @@ public class DefaultTrackerImportService
     private void preProcess( TrackerTimingsStats opsTimer, TrackerBundle trackerBundle )
     {
         opsTimer.execVoid( PREPROCESS_OPS,
-            () -> preProcessBundle( trackerBundle ) );
+            () -> trackerImportMetrics.execVoid( PREPROCESS_OPS, trackerBundle.getImportStrategy(),
+                () -> preProcessBundle( trackerBundle ) ) );
     }
 
     private boolean addToValidationReport( TrackerImportParams params, TrackerTimingsStats opsTimer,
         TrackerValidationReport validationReport, TrackerBundle trackerBundle )
     {
         validationReport.add( opsTimer.exec( VALIDATION_OPS,
-            () -> validateBundle( params, trackerBundle, opsTimer ) ) );
+            () -> trackerImportMetrics.exec( VALIDATION_OPS, params.getImportStrategy(),
+                () -> validateBundle( params, trackerBundle, opsTimer ) ) ) );
 
         if ( exitOnError( validationReport, params ) )
         {
@@ -182,11 +189,15 @@ public class DefaultTrackerImportService
         TrackerBundleReport bundleReport;
         if ( TrackerImportStrategy.DELETE == params.getImportStrategy() )
         {
-            bundleReport = opsTimer.exec( COMMIT_OPS, () -> deleteBundle( trackerBundle ) );
+            bundleReport = opsTimer.exec( COMMIT_OPS,
+                () -> trackerImportMetrics.exec( COMMIT_OPS, params.getImportStrategy(),
+                    () -> deleteBundle( trackerBundle ) ) );
         }
         else
         {
-            bundleReport = opsTimer.exec( COMMIT_OPS, () -> commitBundle( trackerBundle ) );
+            bundleReport = opsTimer.exec( COMMIT_OPS,
+                () -> trackerImportMetrics.exec( COMMIT_OPS, params.getImportStrategy(),
+                    () -> commitBundle( trackerBundle ) ) );
         }
 
         notifyOps( params, COMMIT_OPS, opsTimer );
@@ -214,12 +225,14 @@ public class DefaultTrackerImportService
         TrackerBundle trackerBundle )
     {
         opsTimer.execVoid( PROGRAMRULE_OPS,
-            () -> runRuleEngine( trackerBundle ) );
+            () -> trackerImportMetrics.execVoid( PROGRAMRULE_OPS, params.getImportStrategy(),
+                () -> runRuleEngine( trackerBundle ) ) );
 
         notifyOps( params, PROGRAMRULE_OPS, opsTimer );
 
         TrackerValidationReport report = opsTimer.exec( VALIDATE_PROGRAMRULE_OPS,
-            () -> validateRuleEngine( trackerBundle ) );
+            () -> trackerImportMetrics.exec( VALIDATE_PROGRAMRULE_OPS, params.getImportStrategy(),
+                () -> validateRuleEngine( trackerBundle ) ) );
 
         notifyOps( params, VALIDATE_PROGRAMRULE_OPS, opsTimer );
 
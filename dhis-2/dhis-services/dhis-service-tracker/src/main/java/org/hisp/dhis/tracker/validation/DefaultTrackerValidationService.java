@@ -27,6 +27,9 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.VALIDATE_PROGRAMRULE_OPS;
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.VALIDATION_OPS;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -37,6 +40,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.report.TrackerValidationHookTimerReport;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
@@ -59,6 +63,8 @@ public class DefaultTrackerValidationService
 
     private final TrackerValidationHookService trackerValidationHookService;
 
+    private final TrackerImportMetrics trackerImportMetrics;
+
     @Autowired( required = false )
     public void setValidationHooks( List<TrackerValidationHook> validationHooks )
     {
@@ -70,16 +76,17 @@ public class DefaultTrackerValidationService
     @Override
     public TrackerValidationReport validate( TrackerBundle bundle )
     {
-        return validate( bundle, validationHooks );
+        return validate( bundle, validationHooks, VALIDATION_OPS );
     }
 
     @Override
     public TrackerValidationReport validateRuleEngine( TrackerBundle bundle )
     {
-        return validate( bundle, ruleEngineValidationHooks );
+        return validate( bundle, ruleEngineValidationHooks, VALIDATE_PROGRAMRULE_OPS );
     }
 
-    private TrackerValidationReport validate( TrackerBundle bundle, List<TrackerValidationHook> hooks )
+    private TrackerValidationReport validate( TrackerBundle bundle, List<TrackerValidationHook> hooks,
+        String stage )
     {
         TrackerValidationReport validationReport = new TrackerValidationReport();
 
@@ -104,7 +111,8 @@ public class DefaultTrackerValidationService
                 {
                     Timer hookTimer = Timer.startTimer();
 
-                    validationReport.add( hook.validate( context ) );
+                    validationReport.add( trackerImportMetrics.exec( stage, hook, bundle.getImportStrategy(),
+                        () -> hook.validate( context ) ) );
 
                     validationReport.add( TrackerValidationHookTimerReport.builder()
                         .name( hook.getClass().getName() )
@@ -35,12 +35,14 @@ import static org.mockito.Mockito.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.random.BeanRandomizer;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.tracker.ParamsConverter;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.TrackerUserService;
 import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.preprocess.TrackerPreprocessService;
 import org.hisp.dhis.tracker.report.DefaultTrackerImportService;
 import org.hisp.dhis.tracker.report.TrackerBundleReport;
@@ -54,6 +56,8 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * @author Zubair Asghar
  */
@@ -88,7 +92,8 @@ public class TrackerImporterServiceTest
     {
         subject = new DefaultTrackerImportService( trackerBundleService, trackerValidationService,
             trackerPreprocessService,
-            trackerUserService, notifier );
+            trackerUserService, notifier,
+            new TrackerImportMetrics( mock( DhisConfigurationProvider.class ), new SimpleMeterRegistry() ) );
 
         final List<Event> events = rnd.randomObjects( Event.class, 3 );
 
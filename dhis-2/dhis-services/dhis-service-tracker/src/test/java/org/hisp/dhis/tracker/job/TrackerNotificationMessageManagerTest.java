@@ -46,6 +46,7 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.render.RenderService;
 import org.junit.Rule;
 import org.junit.Test;
@@ -120,17 +121,17 @@ public class TrackerNotificationMessageManagerTest
 
         when( textMessage.getText() ).thenReturn( "text" );
         when( objectFactory.getObject() ).thenReturn( trackerNotificationThread );
-        doNothing().when( taskExecutor ).executeTask( any( Runnable.class ) );
+        doNothing().when( taskExecutor ).executeTask( eq( TaskPool.NOTIFICATION ), any( Runnable.class ) );
 
         when( renderService.fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) ) ).thenReturn( null );
         trackerNotificationMessageManager.consume( textMessage );
 
-        verify( taskExecutor, times( 0 ) ).executeTask( any( Runnable.class ) );
+        verify( taskExecutor, times( 0 ) ).executeTask( eq( TaskPool.NOTIFICATION ), any( Runnable.class ) );
 
         doReturn( bundle ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) );
         trackerNotificationMessageManager.consume( textMessage );
 
-        Mockito.verify( taskExecutor ).executeTask( runnableCaptor.capture() );
+        Mockito.verify( taskExecutor ).executeTask( eq( TaskPool.NOTIFICATION ), runnableCaptor.capture() );
 
         assertTrue( runnableCaptor.getValue() instanceof TrackerNotificationThread );
     }
@@ -47,6 +47,7 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.render.RenderService;
 import org.junit.Rule;
 import org.junit.Test;
@@ -122,17 +123,17 @@ public class TrackerRuleEngineMessageManagerTest
 
         when( textMessage.getText() ).thenReturn( "text" );
         when( objectFactory.getObject() ).thenReturn( trackerRuleEngineThread );
-        doNothing().when( taskExecutor ).executeTask( any( Runnable.class ) );
+        doNothing().when( taskExecutor ).executeTask( eq( TaskPool.NOTIFICATION ), any( Runnable.class ) );
 
         when( renderService.fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) ) ).thenReturn( null );
         trackerRuleEngineMessageManager.consume( textMessage );
 
-        verify( taskExecutor, times( 0 ) ).executeTask( any( Runnable.class ) );
+        verify( taskExecutor, times( 0 ) ).executeTask( eq( TaskPool.NOTIFICATION ), any( Runnable.class ) );
 
         doReturn( bundle ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) );
         trackerRuleEngineMessageManager.consume( textMessage );
 
-        Mockito.verify( taskExecutor ).executeTask( runnableArgumentCaptor.capture() );
+        Mockito.verify( taskExecutor ).executeTask( eq( TaskPool.NOTIFICATION ), runnableArgumentCaptor.capture() );
 
         assertTrue( runnableArgumentCaptor.getValue() instanceof TrackerRuleEngineThread );
     }
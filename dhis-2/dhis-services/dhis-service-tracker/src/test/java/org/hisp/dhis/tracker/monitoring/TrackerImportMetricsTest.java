@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.monitoring;
+
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREHEAT_OPS;
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.VALIDATION_OPS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.tracker.TrackerImportStrategy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class TrackerImportMetricsTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setUp()
+    {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testRecordStage()
+    {
+        when( config.isEnabled( ConfigurationKey.MONITORING_TRACKER_ENABLED ) ).thenReturn( true );
+
+        TrackerImportMetrics metrics = new TrackerImportMetrics( config, meterRegistry );
+
+        assertEquals( "result", metrics.exec( PREHEAT_OPS, TrackerImportStrategy.CREATE, () -> "result" ) );
+
+        Timer timer = meterRegistry.find( TrackerImportMetrics.STAGE_TIMER )
+            .tag( "stage", PREHEAT_OPS )
+            .tag( "strategy", "CREATE" )
+            .timer();
+
+        assertNotNull( timer );
+        assertEquals( 1, timer.count() );
+    }
+
+    @Test
+    public void testRecordComponent()
+    {
+        when( config.isEnabled( ConfigurationKey.MONITORING_TRACKER_ENABLED ) ).thenReturn( true );
+
+        TrackerImportMetrics metrics = new TrackerImportMetrics( config, meterRegistry );
+
+        metrics.execVoid( VALIDATION_OPS, this, null, () -> {
+        } );
+        metrics.execVoid( VALIDATION_OPS, this, null, () -> {
+        } );
+
+        Timer timer = meterRegistry.find( TrackerImportMetrics.COMPONENT_TIMER )
+            .tag( "stage", VALIDATION_OPS )
+            .tag( "component", TrackerImportMetricsTest.class.getSimpleName() )
+            .tag( "strategy", "UNKNOWN" )
+            .timer();
+
+        assertNotNull( timer );
+        assertEquals( 2, timer.count() );
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        when( config.isEnabled( ConfigurationKey.MONITORING_TRACKER_ENABLED ) ).thenReturn( false );
+
+        TrackerImportMetrics metrics = new TrackerImportMetrics( config, meterRegistry );
+
+        assertEquals( "result", metrics.exec( PREHEAT_OPS, TrackerImportStrategy.CREATE, () -> "result" ) );
+
+        assertNull( meterRegistry.find( TrackerImportMetrics.STAGE_TIMER ).timer() );
+    }
+}
@@ -27,14 +27,21 @@
  */
 package org.hisp.dhis.tracker.preheat;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.preheat.supplier.*;
 import org.hisp.dhis.user.User;
 import org.junit.Before;
@@ -42,13 +49,16 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.context.ApplicationContext;
 
+import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * @author Cambi Luca
@@ -64,6 +74,15 @@ public class DefaultTrackerPreheatServiceTest
     @Mock
     private ClassBasedSupplier classBasedSupplier;
 
+    @Mock
+    private ProgramOrgUnitsSupplier programOrgUnitsSupplier;
+
+    @Mock
+    private ProgramInstanceSupplier programInstanceSupplier;
+
+    @Mock
+    private ProgramInstancesWithAtLeastOneEventSupplier programInstancesWithAtLeastOneEventSupplier;
+
     @Mock
     private ApplicationContext applicationContext;
 
@@ -84,7 +103,8 @@ public class DefaultTrackerPreheatServiceTest
     public void setUp()
     {
         preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
-            ClassBasedSupplier.class.getSimpleName() ) );
+            ClassBasedSupplier.class.getSimpleName() ),
+            new TrackerImportMetrics( mock( DhisConfigurationProvider.class ), new SimpleMeterRegistry() ) );
 
         preheatService.setApplicationContext( applicationContext );
         when( manager.get( User.class, getUser().getUid() ) ).thenReturn( getUser() );
@@ -131,6 +151,72 @@ public class DefaultTrackerPreheatServiceTest
         verify( classBasedSupplier ).add( any(), any() );
     }
 
+    @Test
+    public void shouldRunJdbcSupplierConcurrentlyAfterItsDependency()
+    {
+        preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
+            ClassBasedSupplier.class.getSimpleName(), ProgramOrgUnitsSupplier.class.getSimpleName() ),
+            new TrackerImportMetrics( mock( DhisConfigurationProvider.class ), new SimpleMeterRegistry() ) );
+        preheatService.setApplicationContext( applicationContext );
+
+        when( applicationContext.getBean( "classBasedSupplier", PreheatSupplier.class ) )
+            .thenReturn( classBasedSupplier );
+        when( applicationContext.getBean( "programOrgUnitsSupplier", PreheatSupplier.class ) )
+            .thenReturn( programOrgUnitsSupplier );
+
+        AtomicReference<String> supplierThread = new AtomicReference<>();
+
+        doAnswer( invocation -> {
+            supplierThread.set( Thread.currentThread().getName() );
+            return null;
+        } ).when( programOrgUnitsSupplier ).add( any(), any() );
+
+        preheatService.preheat( preheatParams );
+
+        InOrder inOrder = inOrder( classBasedSupplier, programOrgUnitsSupplier );
+        inOrder.verify( classBasedSupplier ).add( any(), any() );
+        inOrder.verify( programOrgUnitsSupplier ).add( any(), any() );
+        assertTrue( supplierThread.get().startsWith( "TRACKER-PREHEAT-" ) );
+    }
+
+    @Test
+    public void shouldRunSuppliersAfterTheirDependenciesInAnyConfiguredOrder()
+    {
+        when( applicationContext.getBean( "classBasedSupplier", PreheatSupplier.class ) )
+            .thenReturn( classBasedSupplier );
+        when( applicationContext.getBean( "programInstanceSupplier", PreheatSupplier.class ) )
+            .thenReturn( programInstanceSupplier );
+        when( applicationContext.getBean( "programInstancesWithAtLeastOneEventSupplier", PreheatSupplier.class ) )
+            .thenReturn( programInstancesWithAtLeastOneEventSupplier );
+
+        List<String> executed = Collections.synchronizedList( new ArrayList<>() );
+
+        doAnswer( invocation -> executed.add( "classBasedSupplier" ) )
+            .when( classBasedSupplier ).add( any(), any() );
+        doAnswer( invocation -> executed.add( "programInstanceSupplier" ) )
+            .when( programInstanceSupplier ).add( any(), any() );
+        doAnswer( invocation -> executed.add( "programInstancesWithAtLeastOneEventSupplier" ) )
+            .when( programInstancesWithAtLeastOneEventSupplier ).add( any(), any() );
+
+        List<String> suppliers = ImmutableList.of( ClassBasedSupplier.class.getSimpleName(),
+            ProgramInstanceSupplier.class.getSimpleName(),
+            ProgramInstancesWithAtLeastOneEventSupplier.class.getSimpleName() );
+
+        for ( List<String> order : Collections2.permutations( suppliers ) )
+        {
+            executed.clear();
+
+            preheatService = new DefaultTrackerPreheatService( manager, order,
+                new TrackerImportMetrics( mock( DhisConfigurationProvider.class ), new SimpleMeterRegistry() ) );
+            preheatService.setApplicationContext( applicationContext );
+
+            preheatService.preheat( preheatParams );
+
+            assertEquals( order.toString(), 3, executed.size() );
+            assertEquals( order.toString(), "programInstancesWithAtLeastOneEventSupplier", executed.get( 2 ) );
+        }
+    }
+
     private User getUser()
     {
         User user = new User();
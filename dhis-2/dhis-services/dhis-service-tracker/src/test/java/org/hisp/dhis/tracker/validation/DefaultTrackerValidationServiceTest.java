@@ -33,8 +33,10 @@ import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.monitoring.TrackerImportMetrics;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
@@ -45,10 +47,13 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 public class DefaultTrackerValidationServiceTest
 {
     @Rule
@@ -57,6 +62,10 @@ public class DefaultTrackerValidationServiceTest
     @InjectMocks
     private DefaultTrackerValidationService trackerValidationService;
 
+    @Spy
+    private TrackerImportMetrics trackerImportMetrics = new TrackerImportMetrics(
+        mock( DhisConfigurationProvider.class ), new SimpleMeterRegistry() );
+
     @Mock
     private TrackedEntityAttributeValidationHook trackedEntityAttributeValidationHook;
 
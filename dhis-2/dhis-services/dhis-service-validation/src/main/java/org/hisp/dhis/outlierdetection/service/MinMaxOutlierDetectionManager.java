@@ -41,27 +41,41 @@ import org.hisp.dhis.outlierdetection.OutlierDetectionRequest;
 import org.hisp.dhis.outlierdetection.OutlierValue;
 import org.hisp.dhis.period.PeriodType;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Manager for database queries related to outlier data detection based on
  * min-max values.
  *
+ * Values outside of the min-max range are streamed from the database and
+ * collected in a heap bounded by the max results of the request, which avoids
+ * sorting all values outside of the range in the database.
+ *
  * @author Lars Helge Overland
  */
 @Slf4j
 @Repository
 public class MinMaxOutlierDetectionManager
 {
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    private static final int FETCH_SIZE = 10_000;
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
     public MinMaxOutlierDetectionManager( NamedParameterJdbcTemplate jdbcTemplate )
     {
-        this.jdbcTemplate = jdbcTemplate;
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate( jdbcTemplate.getJdbcTemplate().getDataSource() );
+        streamingJdbcTemplate.setFetchSize( FETCH_SIZE );
+
+        this.jdbcTemplate = new NamedParameterJdbcTemplate( streamingJdbcTemplate );
     }
 
     /**
@@ -71,6 +85,7 @@ public class MinMaxOutlierDetectionManager
      * @param request the {@link OutlierDetectionRequest}.
      * @return a list of {@link OutlierValue}.
      */
+    @Transactional( readOnly = true )
     public List<OutlierValue> getOutlierValues( OutlierDetectionRequest request )
     {
         final String ouPathClause = getOrgUnitPathClause( request.getOrgUnits() );
@@ -101,23 +116,26 @@ public class MinMaxOutlierDetectionManager
             "and " + ouPathClause + " " +
             "and dv.deleted is false " +
             // Filter for values outside the min-max range
-            "and (dv.value::double precision < mm.minimumvalue or dv.value::double precision > mm.maximumvalue) " +
-            // Order and limit
-            "order by bound_abs_dev desc " +
-            "limit :max_results;";
+            "and (dv.value::double precision < mm.minimumvalue or dv.value::double precision > mm.maximumvalue);";
         // @formatter:on
 
         final SqlParameterSource params = new MapSqlParameterSource()
             .addValue( "data_element_ids", request.getDataElementIds() )
             .addValue( "start_date", request.getStartDate() )
-            .addValue( "end_date", request.getEndDate() )
-            .addValue( "max_results", request.getMaxResults() );
+            .addValue( "end_date", request.getEndDate() );
+
+        final RowMapper<OutlierValue> rowMapper = getRowMapper( PeriodType.getCalendar() );
 
-        final Calendar calendar = PeriodType.getCalendar();
+        final OutlierValueCollector collector = new OutlierValueCollector(
+            request.getMaxResults(), OutlierValue::getAbsDev );
 
         try
         {
-            return jdbcTemplate.query( sql, params, getRowMapper( calendar ) );
+            jdbcTemplate.query( sql, params, rs -> {
+                collector.add( rowMapper.mapRow( rs, 0 ) );
+            } );
+
+            return collector.getOutlierValues();
         }
         catch ( DataIntegrityViolationException ex )
         {
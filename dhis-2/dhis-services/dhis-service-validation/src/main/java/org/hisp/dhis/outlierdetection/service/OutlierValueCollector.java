@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outlierdetection.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.ToDoubleFunction;
+
+import org.hisp.dhis.outlierdetection.OutlierValue;
+
+/**
+ * Collects the outlier values ranking highest on a sort key, keeping at most
+ * the requested number of values in memory.
+ * <p>
+ * Values are kept in a min-heap of bounded size, so that collecting from a
+ * stream of candidates takes constant memory regardless of how many
+ * candidates the stream holds.
+ */
+public class OutlierValueCollector
+{
+    private final int maxResults;
+
+    private final Comparator<OutlierValue> comparator;
+
+    private final PriorityQueue<OutlierValue> heap;
+
+    /**
+     * @param maxResults the maximum number of values to collect.
+     * @param sortKey the key on which to rank values, highest first.
+     */
+    public OutlierValueCollector( int maxResults, ToDoubleFunction<OutlierValue> sortKey )
+    {
+        this.maxResults = maxResults;
+        this.comparator = Comparator.comparingDouble( sortKey );
+        this.heap = new PriorityQueue<>( Math.min( maxResults, 1024 ) + 1, comparator );
+    }
+
+    /**
+     * Offers an outlier value. The value is kept if fewer than the maximum
+     * number of values are collected, or if it ranks higher than the lowest
+     * ranking value collected so far, which is then discarded.
+     *
+     * @param outlierValue the {@link OutlierValue}.
+     */
+    public void add( OutlierValue outlierValue )
+    {
+        if ( heap.size() < maxResults )
+        {
+            heap.add( outlierValue );
+        }
+        else if ( comparator.compare( outlierValue, heap.peek() ) > 0 )
+        {
+            heap.poll();
+            heap.add( outlierValue );
+        }
+    }
+
+    /**
+     * Returns the collected outlier values, highest ranking first.
+     *
+     * @return a list of {@link OutlierValue}.
+     */
+    public List<OutlierValue> getOutlierValues()
+    {
+        List<OutlierValue> outlierValues = new ArrayList<>( heap );
+        outlierValues.sort( comparator.reversed() );
+        return outlierValues;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outlierdetection.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.feedback.ErrorCode;
+
+/**
+ * Time limit of an outlier value scan. The scan checks it between fetch
+ * batches, so a scan stops once its time is up or its thread is interrupted,
+ * even while the database keeps delivering rows.
+ */
+class ScanDeadline
+{
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private final long deadlineNanos;
+
+    ScanDeadline( long deadlineNanos )
+    {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Returns a deadline the given number of seconds from now.
+     *
+     * @param timeoutSeconds the time limit in seconds, 0 means no limit.
+     * @return a {@link ScanDeadline}.
+     */
+    static ScanDeadline ofSeconds( int timeoutSeconds )
+    {
+        return new ScanDeadline( timeoutSeconds > 0
+            ? System.nanoTime() + TimeUnit.SECONDS.toNanos( timeoutSeconds )
+            : NO_LIMIT );
+    }
+
+    /**
+     * Checks that the scan may continue.
+     *
+     * @throws QueryRuntimeException if the time limit has passed or the
+     *         current thread has been interrupted.
+     */
+    void check()
+    {
+        if ( Thread.currentThread().isInterrupted()
+            || (deadlineNanos != NO_LIMIT && System.nanoTime() - deadlineNanos > 0) )
+        {
+            throw new QueryRuntimeException( ErrorCode.E2209, null );
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outlierdetection.service;
+
+import java.util.Arrays;
+
+/**
+ * Statistics of a single data value series, computed in Java while streaming
+ * the values of the series.
+ * <p>
+ * The mean and population standard deviation are updated for each value with
+ * Welford's algorithm. The median is the exact median, equal to the result of
+ * <code>percentile_cont(0.5)</code>, and is computed from a buffer of the
+ * values of the series. The buffer is reused across series, so memory is
+ * bounded by the longest series rather than by the number of values streamed.
+ */
+public class SeriesStatistics
+{
+    private double[] values = new double[64];
+
+    private int count;
+
+    private double mean;
+
+    private double sumOfSquares;
+
+    private boolean sorted;
+
+    /**
+     * Adds a value to the series.
+     *
+     * @param value the value.
+     */
+    public void add( double value )
+    {
+        if ( count == values.length )
+        {
+            values = Arrays.copyOf( values, count * 2 );
+        }
+
+        values[count++] = value;
+        sorted = false;
+
+        double delta = value - mean;
+        mean += delta / count;
+        sumOfSquares += delta * (value - mean);
+    }
+
+    /**
+     * Clears the series, retaining the value buffer.
+     */
+    public void clear()
+    {
+        count = 0;
+        mean = 0d;
+        sumOfSquares = 0d;
+        sorted = false;
+    }
+
+    public int getCount()
+    {
+        return count;
+    }
+
+    public boolean isEmpty()
+    {
+        return count == 0;
+    }
+
+    /**
+     * @return the mean, or {@link Double#NaN} if the series is empty.
+     */
+    public double getMean()
+    {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * @return the population standard deviation, or {@link Double#NaN} if
+     *         the series is empty.
+     */
+    public double getStdDev()
+    {
+        return count == 0 ? Double.NaN : Math.sqrt( sumOfSquares / count );
+    }
+
+    /**
+     * @return the median, interpolated between the two middle values for
+     *         series of even length, or {@link Double#NaN} if the series is
+     *         empty.
+     */
+    public double getMedian()
+    {
+        if ( count == 0 )
+        {
+            return Double.NaN;
+        }
+
+        if ( !sorted )
+        {
+            Arrays.sort( values, 0, count );
+            sorted = true;
+        }
+
+        int middle = count / 2;
+
+        return count % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2d;
+    }
+}
@@ -32,12 +32,18 @@ import static org.hisp.dhis.outlierdetection.util.OutlierDetectionUtils.getDataS
 import static org.hisp.dhis.outlierdetection.util.OutlierDetectionUtils.getOrgUnitPathClause;
 import static org.hisp.dhis.period.PeriodType.getIsoPeriod;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.outlierdetection.Order;
 import org.hisp.dhis.outlierdetection.OutlierDetectionAlgorithm;
@@ -45,11 +51,14 @@ import org.hisp.dhis.outlierdetection.OutlierDetectionRequest;
 import org.hisp.dhis.outlierdetection.OutlierValue;
 import org.hisp.dhis.period.PeriodType;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Manager for database queries related to outlier data detection based on
@@ -60,6 +69,11 @@ import org.springframework.stereotype.Repository;
  * middle value whereas the modified z-score uses the median as middle value or
  * more mathematically correct as the <em>measure of central tendency</em>.
  *
+ * The raw data values are streamed from the database ordered by data element,
+ * org unit, category option combo and attribute option combo, so that each
+ * series of values arrives in one piece. The middle value and standard
+ * deviation of a series are computed in Java when the series is complete, and
+ * outliers are collected in a heap bounded by the max results of the request.
  *
  * @author Lars Helge Overland
  */
@@ -67,111 +81,88 @@ import org.springframework.stereotype.Repository;
 @Repository
 public class ZScoreOutlierDetectionManager
 {
+    /**
+     * Number of rows fetched from the database per round trip.
+     */
+    private static final int FETCH_SIZE = 10_000;
+
     private final NamedParameterJdbcTemplate jdbcTemplate;
 
-    public ZScoreOutlierDetectionManager( NamedParameterJdbcTemplate jdbcTemplate )
+    private final int queryTimeout;
+
+    public ZScoreOutlierDetectionManager( NamedParameterJdbcTemplate jdbcTemplate,
+        DhisConfigurationProvider config )
     {
-        this.jdbcTemplate = jdbcTemplate;
+        this.queryTimeout = Integer.parseInt( config.getProperty( ConfigurationKey.OUTLIER_DETECTION_QUERY_TIMEOUT ) );
+
+        JdbcTemplate streamingJdbcTemplate = new JdbcTemplate( jdbcTemplate.getJdbcTemplate().getDataSource() );
+        streamingJdbcTemplate.setFetchSize( FETCH_SIZE );
+        streamingJdbcTemplate.setQueryTimeout( queryTimeout );
+
+        this.jdbcTemplate = new NamedParameterJdbcTemplate( streamingJdbcTemplate );
     }
 
     /**
      * Returns a list of outlier data values based on z-score for the given
      * request.
+     * <p>
+     * The query runs in a read-only transaction so that the database streams
+     * the result set through a cursor instead of materializing it. The
+     * statement timeout only covers executing the query, so the time limit is
+     * also checked between fetch batches while the rows are streamed.
      *
      * @param request the {@link OutlierDetectionRequest}.
      * @return a list of {@link OutlierValue}.
+     * @throws QueryRuntimeException if the detection exceeds the configured
+     *         time limit or its thread is interrupted.
      */
+    @Transactional( readOnly = true )
     public List<OutlierValue> getOutlierValues( OutlierDetectionRequest request )
     {
         final String ouPathClause = getOrgUnitPathClause( request.getOrgUnits() );
         final String dataStartDateClause = getDataStartDateClause( request.getDataStartDate() );
         final String dataEndDateClause = getDataEndDateClause( request.getDataEndDate() );
 
-        final boolean modifiedZ = request.getAlgorithm() == OutlierDetectionAlgorithm.MOD_Z_SCORE;
-        final String middle_stats_calc = modifiedZ
-            ? "percentile_cont(0.5) within group(order by dv.value::double precision)"
-            : "avg(dv.value::double precision)";
-
-        String order = request.getOrderBy() == Order.MEAN_ABS_DEV
-            ? "middle_value_abs_dev"
-            : request.getOrderBy().getKey();
+        final String inRange = "(pe.startdate >= :start_date and pe.enddate <= :end_date)";
+        final String inStats = "(true " + dataStartDateClause + dataEndDateClause + ")";
 
         // @formatter:off
         final String sql =
-            "select dvs.de_uid, dvs.ou_uid, dvs.coc_uid, dvs.aoc_uid, " +
-                "dvs.de_name, dvs.ou_name, dvs.coc_name, dvs.aoc_name, dvs.value, dvs.follow_up, " +
-                "dvs.pe_start_date, dvs.pt_name, " +
-                "stats.middle_value as middle_value, " +
-                "stats.std_dev as std_dev, " +
-                "abs(dvs.value::double precision - stats.middle_value) as middle_value_abs_dev, " +
-                "abs(dvs.value::double precision - stats.middle_value) / stats.std_dev as z_score, " +
-                "stats.middle_value - (stats.std_dev * :threshold) as lower_bound, " +
-                "stats.middle_value + (stats.std_dev * :threshold) as upper_bound " +
-            // Data value query
-            "from (" +
-                "select dv.dataelementid, dv.sourceid, dv.periodid, " +
-                "dv.categoryoptioncomboid, dv.attributeoptioncomboid, " +
+            "select dv.dataelementid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid, " +
                 "de.uid as de_uid, ou.uid as ou_uid, coc.uid as coc_uid, aoc.uid as aoc_uid, " +
                 "de.name as de_name, ou.name as ou_name, coc.name as coc_name, aoc.name as aoc_name, " +
                 "pe.startdate as pe_start_date, pt.name as pt_name, " +
-                "dv.value as value, dv.followup as follow_up " +
-                "from datavalue dv " +
-                "inner join dataelement de on dv.dataelementid = de.dataelementid " +
-                "inner join categoryoptioncombo coc on dv.categoryoptioncomboid = coc.categoryoptioncomboid " +
-                "inner join categoryoptioncombo aoc on dv.attributeoptioncomboid = aoc.categoryoptioncomboid " +
-                "inner join period pe on dv.periodid = pe.periodid " +
-                "inner join periodtype pt on pe.periodtypeid = pt.periodtypeid " +
-                "inner join organisationunit ou on dv.sourceid = ou.organisationunitid " +
-                "where dv.dataelementid in (:data_element_ids) " +
-                "and pe.startdate >= :start_date " +
-                "and pe.enddate <= :end_date " +
-                "and " + ouPathClause + " " +
-                "and dv.deleted is false" +
-            ") as dvs " +
-            // Mean or Median and std dev mapping query
-            "inner join (" +
-                "select dv.dataelementid as dataelementid, dv.sourceid as sourceid, " +
-                "dv.categoryoptioncomboid as categoryoptioncomboid, " +
-                "dv.attributeoptioncomboid as attributeoptioncomboid, " +
-                middle_stats_calc +" as middle_value, "+
-                "stddev_pop(dv.value::double precision) as std_dev " +
-                "from datavalue dv " +
-                "inner join period pe on dv.periodid = pe.periodid " +
-                "inner join organisationunit ou on dv.sourceid = ou.organisationunitid " +
-                "where dv.dataelementid in (:data_element_ids) " +
-                dataStartDateClause +
-                dataEndDateClause +
-                "and " + ouPathClause + " " +
-                "and dv.deleted is false " +
-                "group by dv.dataelementid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid" +
-            ") as stats " +
-            // Query join
-            "on dvs.dataelementid = stats.dataelementid " +
-            "and dvs.sourceid = stats.sourceid " +
-            "and dvs.categoryoptioncomboid = stats.categoryoptioncomboid " +
-            "and dvs.attributeoptioncomboid = stats.attributeoptioncomboid " +
-            "where stats.std_dev != 0.0 " +
-            // Filter on z-score threshold
-            "and (abs(dvs.value::double precision - stats.middle_value) / stats.std_dev) >= :threshold " +
-            // Order and limit
-            "order by " + order + " desc " +
-            "limit :max_results;";
+                "dv.value::double precision as value, dv.followup as follow_up, " +
+                inRange + " as in_range, " +
+                inStats + " as in_stats " +
+            "from datavalue dv " +
+            "inner join dataelement de on dv.dataelementid = de.dataelementid " +
+            "inner join categoryoptioncombo coc on dv.categoryoptioncomboid = coc.categoryoptioncomboid " +
+            "inner join categoryoptioncombo aoc on dv.attributeoptioncomboid = aoc.categoryoptioncomboid " +
+            "inner join period pe on dv.periodid = pe.periodid " +
+            "inner join periodtype pt on pe.periodtypeid = pt.periodtypeid " +
+            "inner join organisationunit ou on dv.sourceid = ou.organisationunitid " +
+            "where dv.dataelementid in (:data_element_ids) " +
+            "and " + ouPathClause + " " +
+            "and dv.deleted is false " +
+            "and (" + inRange + " or " + inStats + ") " +
+            // Deliver each series in one piece
+            "order by dv.dataelementid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid;";
         // @formatter:on
 
         final SqlParameterSource params = new MapSqlParameterSource()
-            .addValue( "threshold", request.getThreshold() )
             .addValue( "data_element_ids", request.getDataElementIds() )
             .addValue( "start_date", request.getStartDate() )
             .addValue( "end_date", request.getEndDate() )
             .addValue( "data_start_date", request.getDataStartDate() )
-            .addValue( "data_end_date", request.getDataEndDate() )
-            .addValue( "max_results", request.getMaxResults() );
+            .addValue( "data_end_date", request.getDataEndDate() );
 
-        final Calendar calendar = PeriodType.getCalendar();
+        final SeriesHandler handler = new SeriesHandler( request, PeriodType.getCalendar(),
+            ScanDeadline.ofSeconds( queryTimeout ) );
 
         try
         {
-            return jdbcTemplate.query( sql, params, getRowMapper( calendar, modifiedZ ) );
+            jdbcTemplate.query( sql, params, handler );
         }
         catch ( DataIntegrityViolationException ex )
         {
@@ -182,17 +173,168 @@ public class ZScoreOutlierDetectionManager
 
             throw new IllegalQueryException( ErrorCode.E2208 );
         }
+        catch ( QueryTimeoutException ex )
+        {
+            throw new QueryRuntimeException( ErrorCode.E2209, ex );
+        }
+
+        return handler.getOutlierValues();
     }
 
     /**
-     * Returns a {@link RowMapper} for {@link OutlierValue}.
-     *
-     * @param calendar the {@link Calendar}.
-     * @return a {@link RowMapper}.
+     * Handles the rows of the data value query, one series at a time. Values
+     * within the data start and end dates feed the statistics of the series,
+     * and values within the start and end dates are candidates for outliers.
      */
-    private RowMapper<OutlierValue> getRowMapper( final Calendar calendar, boolean modifiedZ )
+    private static class SeriesHandler
+        implements RowCallbackHandler
     {
-        return ( rs, rowNum ) -> {
+        private final Calendar calendar;
+
+        private final boolean modifiedZ;
+
+        private final double threshold;
+
+        private final OutlierValueCollector collector;
+
+        private final SeriesStatistics statistics = new SeriesStatistics();
+
+        private final List<OutlierValue> candidates = new ArrayList<>();
+
+        private final long[] seriesKey = new long[4];
+
+        private final ScanDeadline deadline;
+
+        private boolean started = false;
+
+        private int rows = 0;
+
+        SeriesHandler( OutlierDetectionRequest request, Calendar calendar, ScanDeadline deadline )
+        {
+            this.calendar = calendar;
+            this.deadline = deadline;
+            this.modifiedZ = request.getAlgorithm() == OutlierDetectionAlgorithm.MOD_Z_SCORE;
+            this.threshold = request.getThreshold();
+            this.collector = new OutlierValueCollector( request.getMaxResults(),
+                request.getOrderBy() == Order.MEAN_ABS_DEV ? OutlierValue::getAbsDev : OutlierValue::getZScore );
+        }
+
+        @Override
+        public void processRow( ResultSet rs )
+            throws SQLException
+        {
+            if ( ++rows % FETCH_SIZE == 0 )
+            {
+                deadline.check();
+            }
+
+            if ( !isSameSeries( rs ) )
+            {
+                completeSeries();
+            }
+
+            final double value = rs.getDouble( "value" );
+
+            if ( rs.wasNull() )
+            {
+                return;
+            }
+
+            if ( rs.getBoolean( "in_stats" ) )
+            {
+                statistics.add( value );
+            }
+
+            if ( rs.getBoolean( "in_range" ) )
+            {
+                candidates.add( getCandidate( rs, value ) );
+            }
+        }
+
+        List<OutlierValue> getOutlierValues()
+        {
+            completeSeries();
+
+            return collector.getOutlierValues();
+        }
+
+        /**
+         * Checks whether the row belongs to the current series, and sets the
+         * key of the current series to the key of the row if it does not.
+         */
+        private boolean isSameSeries( ResultSet rs )
+            throws SQLException
+        {
+            final long de = rs.getLong( "dataelementid" );
+            final long ou = rs.getLong( "sourceid" );
+            final long coc = rs.getLong( "categoryoptioncomboid" );
+            final long aoc = rs.getLong( "attributeoptioncomboid" );
+
+            if ( started && seriesKey[0] == de && seriesKey[1] == ou && seriesKey[2] == coc && seriesKey[3] == aoc )
+            {
+                return true;
+            }
+
+            seriesKey[0] = de;
+            seriesKey[1] = ou;
+            seriesKey[2] = coc;
+            seriesKey[3] = aoc;
+
+            started = true;
+
+            return false;
+        }
+
+        /**
+         * Computes the statistics of the current series, offers the
+         * candidates that are outliers to the collector and clears the
+         * series.
+         */
+        private void completeSeries()
+        {
+            final double stdDev = statistics.getStdDev();
+
+            if ( !statistics.isEmpty() && stdDev != 0d )
+            {
+                final double middleValue = modifiedZ ? statistics.getMedian() : statistics.getMean();
+
+                for ( OutlierValue outlier : candidates )
+                {
+                    final double absDev = Math.abs( outlier.getValue() - middleValue );
+                    final double zScore = absDev / stdDev;
+
+                    if ( zScore >= threshold )
+                    {
+                        if ( modifiedZ )
+                        {
+                            outlier.setMedian( middleValue );
+                        }
+                        else
+                        {
+                            outlier.setMean( middleValue );
+                        }
+                        outlier.setStdDev( stdDev );
+                        outlier.setAbsDev( absDev );
+                        outlier.setZScore( zScore );
+                        outlier.setLowerBound( middleValue - (stdDev * threshold) );
+                        outlier.setUpperBound( middleValue + (stdDev * threshold) );
+
+                        collector.add( outlier );
+                    }
+                }
+            }
+
+            statistics.clear();
+            candidates.clear();
+        }
+
+        /**
+         * Returns an {@link OutlierValue} candidate for the current row, with
+         * the statistics left to be set when the series is complete.
+         */
+        private OutlierValue getCandidate( ResultSet rs, double value )
+            throws SQLException
+        {
             final OutlierValue outlier = new OutlierValue();
 
             final String isoPeriod = getIsoPeriod( calendar,
@@ -207,23 +349,10 @@ public class ZScoreOutlierDetectionManager
             outlier.setCocName( rs.getString( "coc_name" ) );
             outlier.setAoc( rs.getString( "aoc_uid" ) );
             outlier.setAocName( rs.getString( "aoc_name" ) );
-            outlier.setValue( rs.getDouble( "value" ) );
-            if ( modifiedZ )
-            {
-                outlier.setMedian( rs.getDouble( "middle_value" ) );
-            }
-            else
-            {
-                outlier.setMean( rs.getDouble( "middle_value" ) );
-            }
-            outlier.setStdDev( rs.getDouble( "std_dev" ) );
-            outlier.setAbsDev( rs.getDouble( "middle_value_abs_dev" ) );
-            outlier.setZScore( rs.getDouble( "z_score" ) );
-            outlier.setLowerBound( rs.getDouble( "lower_bound" ) );
-            outlier.setUpperBound( rs.getDouble( "upper_bound" ) );
+            outlier.setValue( value );
             outlier.setFollowup( rs.getBoolean( "follow_up" ) );
 
             return outlier;
-        };
+        }
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.outlierdetection.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.outlierdetection.OutlierValue;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+public class OutlierStreamingTest
+{
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testSeriesStatisticsOddCount()
+    {
+        SeriesStatistics statistics = new SeriesStatistics();
+
+        for ( double value : new double[] { 5, 1, 9, 3, 7 } )
+        {
+            statistics.add( value );
+        }
+
+        assertEquals( 5, statistics.getCount() );
+        assertEquals( 5.0, statistics.getMean(), DELTA );
+        assertEquals( 5.0, statistics.getMedian(), DELTA );
+        assertEquals( Math.sqrt( 8.0 ), statistics.getStdDev(), DELTA );
+    }
+
+    @Test
+    public void testSeriesStatisticsEvenCountAndReuse()
+    {
+        SeriesStatistics statistics = new SeriesStatistics();
+
+        for ( int i = 0; i < 200; i++ )
+        {
+            statistics.add( i );
+        }
+
+        statistics.clear();
+
+        assertTrue( statistics.isEmpty() );
+        assertTrue( Double.isNaN( statistics.getMedian() ) );
+
+        for ( double value : new double[] { 4, 10, 1, 2 } )
+        {
+            statistics.add( value );
+        }
+
+        assertEquals( 4.25, statistics.getMean(), DELTA );
+        assertEquals( 3.0, statistics.getMedian(), DELTA );
+        assertEquals( Math.sqrt( 12.1875 ), statistics.getStdDev(), DELTA );
+    }
+
+    @Test
+    public void testSeriesStatisticsConstantSeries()
+    {
+        SeriesStatistics statistics = new SeriesStatistics();
+
+        statistics.add( 0.1 );
+        statistics.add( 0.1 );
+        statistics.add( 0.1 );
+
+        assertEquals( 0.0, statistics.getStdDev(), 0.0 );
+    }
+
+    @Test
+    public void testCollectorKeepsHighest()
+    {
+        OutlierValueCollector collector = new OutlierValueCollector( 3, OutlierValue::getZScore );
+
+        for ( double zScore : new double[] { 3.5, 9.1, 2.2, 7.4, 4.8, 8.0, 3.1 } )
+        {
+            collector.add( outlier( zScore ) );
+        }
+
+        List<Double> zScores = collector.getOutlierValues().stream()
+            .map( OutlierValue::getZScore )
+            .collect( Collectors.toList() );
+
+        assertEquals( ImmutableList.of( 9.1, 8.0, 7.4 ), zScores );
+    }
+
+    @Test
+    public void testCollectorFewerThanMax()
+    {
+        OutlierValueCollector collector = new OutlierValueCollector( 10, OutlierValue::getZScore );
+
+        collector.add( outlier( 1.0 ) );
+        collector.add( outlier( 2.0 ) );
+
+        assertEquals( 2, collector.getOutlierValues().size() );
+        assertEquals( 2.0, collector.getOutlierValues().get( 0 ).getZScore(), DELTA );
+    }
+
+    @Test( expected = QueryRuntimeException.class )
+    public void testScanDeadlinePassed()
+    {
+        new ScanDeadline( System.nanoTime() - 1 ).check();
+    }
+
+    @Test
+    public void testScanDeadlineNoLimit()
+    {
+        ScanDeadline.ofSeconds( 0 ).check();
+        ScanDeadline.ofSeconds( 60 ).check();
+    }
+
+    @Test( expected = QueryRuntimeException.class )
+    public void testScanDeadlineInterrupted()
+    {
+        Thread.currentThread().interrupt();
+
+        try
+        {
+            ScanDeadline.ofSeconds( 0 ).check();
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+    }
+
+    private OutlierValue outlier( double zScore )
+    {
+        OutlierValue outlier = new OutlierValue();
+        outlier.setZScore( zScore );
+        return outlier;
+    }
+}
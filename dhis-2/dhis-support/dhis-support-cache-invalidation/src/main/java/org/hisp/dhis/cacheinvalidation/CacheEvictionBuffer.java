@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cacheinvalidation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+
+/**
+ * Buffer of pending cache evictions, coalesced per table and entity id.
+ * Change events are added by the Debezium engine thread and drained
+ * periodically by the cache invalidation thread.
+ * <p>
+ * When the number of distinct ids pending for a table exceeds the bulk
+ * threshold the ids are discarded and the table is marked for a bulk
+ * eviction of its whole cache region, which keeps the memory used by the
+ * buffer bounded regardless of the size of the remote transaction.
+ */
+public class CacheEvictionBuffer
+{
+    private final int bulkThreshold;
+
+    private final Object lock = new Object();
+
+    private Map<String, TableChanges> pending = new LinkedHashMap<>();
+
+    private int size = 0;
+
+    public CacheEvictionBuffer( int bulkThreshold )
+    {
+        this.bulkThreshold = bulkThreshold;
+    }
+
+    /**
+     * Adds a created row to the buffer.
+     *
+     * @param tableName the name of the table.
+     * @param entities the entity and role mapping of the table.
+     * @param id the id of the row.
+     * @param eventTime the time of the change in the source database, in
+     *        milliseconds since epoch.
+     */
+    public void addCreated( String tableName, List<Object[]> entities, Serializable id, long eventTime )
+    {
+        synchronized ( lock )
+        {
+            TableChanges changes = getChanges( tableName, entities, eventTime );
+
+            if ( !changes.bulk && changes.createdIds.add( id ) )
+            {
+                incrementSize( changes );
+            }
+        }
+    }
+
+    /**
+     * Adds an updated or deleted row to the buffer.
+     *
+     * @param tableName the name of the table.
+     * @param entities the entity and role mapping of the table.
+     * @param id the id of the row.
+     * @param eventTime the time of the change in the source database, in
+     *        milliseconds since epoch.
+     */
+    public void addChanged( String tableName, List<Object[]> entities, Serializable id, long eventTime )
+    {
+        synchronized ( lock )
+        {
+            TableChanges changes = getChanges( tableName, entities, eventTime );
+
+            if ( !changes.bulk && changes.changedIds.add( id ) )
+            {
+                incrementSize( changes );
+            }
+        }
+    }
+
+    /**
+     * Marks the given table for a bulk eviction of its whole cache region,
+     * used for truncates and other changes not tied to a single row.
+     *
+     * @param tableName the name of the table.
+     * @param entities the entity and role mapping of the table.
+     * @param eventTime the time of the change in the source database, in
+     *        milliseconds since epoch.
+     */
+    public void addBulk( String tableName, List<Object[]> entities, long eventTime )
+    {
+        synchronized ( lock )
+        {
+            toBulk( getChanges( tableName, entities, eventTime ) );
+        }
+    }
+
+    /**
+     * Removes and returns all pending changes.
+     *
+     * @return the pending changes per table, in order of first arrival.
+     */
+    public List<TableChanges> drain()
+    {
+        synchronized ( lock )
+        {
+            if ( pending.isEmpty() )
+            {
+                return Collections.emptyList();
+            }
+
+            List<TableChanges> drained = new ArrayList<>( pending.values() );
+            pending = new LinkedHashMap<>();
+            size = 0;
+            return drained;
+        }
+    }
+
+    /**
+     * Returns the number of pending evictions, where each distinct row counts
+     * as one and each table marked for bulk eviction counts as one.
+     *
+     * @return the number of pending evictions.
+     */
+    public int size()
+    {
+        synchronized ( lock )
+        {
+            return size;
+        }
+    }
+
+    private TableChanges getChanges( String tableName, List<Object[]> entities, long eventTime )
+    {
+        TableChanges changes = pending.get( tableName );
+
+        if ( changes == null )
+        {
+            changes = new TableChanges( tableName, entities, eventTime );
+            pending.put( tableName, changes );
+        }
+
+        changes.oldestEventTime = Math.min( changes.oldestEventTime, eventTime );
+        changes.eventCount++;
+
+        return changes;
+    }
+
+    private void incrementSize( TableChanges changes )
+    {
+        size++;
+
+        if ( changes.createdIds.size() + changes.changedIds.size() > bulkThreshold )
+        {
+            toBulk( changes );
+        }
+    }
+
+    private void toBulk( TableChanges changes )
+    {
+        if ( changes.bulk )
+        {
+            return;
+        }
+
+        size -= changes.createdIds.size() + changes.changedIds.size();
+        size++;
+
+        changes.bulk = true;
+        changes.createdIds.clear();
+        changes.changedIds.clear();
+    }
+
+    /**
+     * Coalesced changes of a single table.
+     */
+    @Getter
+    public static class TableChanges
+    {
+        private final String tableName;
+
+        private final List<Object[]> entities;
+
+        private final Set<Serializable> createdIds = new LinkedHashSet<>();
+
+        private final Set<Serializable> changedIds = new LinkedHashSet<>();
+
+        private boolean bulk = false;
+
+        private long oldestEventTime;
+
+        private int eventCount = 0;
+
+        TableChanges( String tableName, List<Object[]> entities, long eventTime )
+        {
+            this.tableName = tableName;
+            this.entities = entities;
+            this.oldestEventTime = eventTime;
+        }
+    }
+}
@@ -30,8 +30,16 @@ package org.hisp.dhis.cacheinvalidation;
 import static org.hisp.dhis.cacheinvalidation.TableNameToEntityMapping.printEntityTableValue;
 
 import java.io.Serializable;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -39,28 +47,42 @@ import org.apache.kafka.connect.data.Field;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.hibernate.Cache;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.cache.PaginationCacheManager;
 import org.hisp.dhis.cache.QueryCacheManager;
+import org.hisp.dhis.cacheinvalidation.CacheEvictionBuffer.TableChanges;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.debezium.data.Envelope;
 import io.debezium.engine.RecordChangeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * Debezium event handler responsible for acting on {@link RecordChangeEvent}s
  * emitted from the Debezium engine. This handler is attached to the Debezium
  * engine configuration in {@link DebeziumService#startDebeziumEngine()}
  * <p>
- * This class will try to evict the cache elements based on information in the
- * incoming {@link RecordChangeEvent} objects and then calling
+ * Incoming events are not evicted on the Debezium engine thread. They are
+ * added to a {@link CacheEvictionBuffer} where they are coalesced per table
+ * and entity id, and the buffer is drained on a dedicated thread once per
+ * configured time window. The cache elements are then evicted by calling
  * {@link org.hibernate.Cache#evict(Class, Object)} and
- * {@link org.hibernate.Cache#evictCollectionData(String, Serializable)}.
+ * {@link org.hibernate.Cache#evictCollectionData(String, Serializable)}, or
+ * {@link org.hibernate.Cache#evictEntityData(Class)} and
+ * {@link org.hibernate.Cache#evictCollectionData(String)} for tables with
+ * more changed rows in the window than the bulk threshold.
  *
  * @author Morten Svanæs <msvanaes@dhis2.org>
  */
@@ -70,6 +92,14 @@ import io.debezium.engine.RecordChangeEvent;
 @Component
 public class DbChangeEventHandler
 {
+    private static final String QUEUE_SIZE_GAUGE = "cache.invalidation.queue.size";
+
+    private static final String LAG_TIMER = "cache.invalidation.lag";
+
+    private static final String EVENTS_COUNTER = "cache.invalidation.events";
+
+    private static final String BULK_EVICTIONS_COUNTER = "cache.invalidation.bulk.evictions";
+
     @Autowired
     private SessionFactory sessionFactory;
 
@@ -85,6 +115,63 @@ public class DbChangeEventHandler
     @Autowired
     private TableNameToEntityMapping tableNameToEntityMapping;
 
+    @Autowired
+    private DhisConfigurationProvider dhisConfig;
+
+    @Autowired( required = false )
+    private MeterRegistry meterRegistry;
+
+    private CacheEvictionBuffer buffer;
+
+    private ScheduledExecutorService executor;
+
+    private Timer lagTimer;
+
+    private Counter eventsCounter;
+
+    private Counter bulkEvictionsCounter;
+
+    @PostConstruct
+    public void init()
+    {
+        long windowMs = Math.max( 10,
+            Long.parseLong( dhisConfig.getProperty( ConfigurationKey.DEBEZIUM_EVICTION_WINDOW_MS ) ) );
+        int bulkThreshold = Math.max( 1,
+            Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.DEBEZIUM_EVICTION_BULK_THRESHOLD ) ) );
+
+        buffer = new CacheEvictionBuffer( bulkThreshold );
+
+        if ( meterRegistry != null )
+        {
+            Gauge.builder( QUEUE_SIZE_GAUGE, buffer, CacheEvictionBuffer::size )
+                .description( "Number of pending cache evictions from replication events" )
+                .register( meterRegistry );
+            lagTimer = Timer.builder( LAG_TIMER )
+                .description( "Time from change in the database to cache eviction on this instance" )
+                .register( meterRegistry );
+            eventsCounter = meterRegistry.counter( EVENTS_COUNTER );
+            bulkEvictionsCounter = meterRegistry.counter( BULK_EVICTIONS_COUNTER );
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactoryBuilder()
+            .setNameFormat( "debezium-cache-invalidation" )
+            .setDaemon( true )
+            .build() );
+        executor.scheduleWithFixedDelay( this::flush, windowMs, windowMs, TimeUnit.MILLISECONDS );
+
+        log.info( String.format( "Debezium cache invalidation started with window=%sms, bulkThreshold=%s",
+            windowMs, bulkThreshold ) );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdownNow();
+        }
+    }
+
     /**
      * Called by the {@link io.debezium.embedded.EmbeddedEngine}'s event
      * handler. Configured in {@link DebeziumService#startDebeziumEngine()}
@@ -96,7 +183,7 @@ public class DbChangeEventHandler
     {
         try
         {
-            tryEvictCache( event );
+            tryBufferEviction( event );
         }
         catch ( Exception e )
         {
@@ -104,7 +191,7 @@ public class DbChangeEventHandler
         }
     }
 
-    private void tryEvictCache( RecordChangeEvent<SourceRecord> event )
+    private void tryBufferEviction( RecordChangeEvent<SourceRecord> event )
     {
         log.debug( "New RecordChangeEvent incoming! Event=" + event );
 
@@ -125,10 +212,12 @@ public class DbChangeEventHandler
             return;
         }
 
+        Struct source;
         Long txId;
         try
         {
-            txId = ((Struct) payload.get( "source" )).getInt64( "txId" );
+            source = (Struct) payload.get( "source" );
+            txId = source.getInt64( "txId" );
             Objects.requireNonNull( txId, "TxId is null!" );
         }
         catch ( Exception e )
@@ -156,6 +245,20 @@ public class DbChangeEventHandler
         List<Object[]> entityClasses = tableNameToEntityMapping.getEntities( tableName );
         Objects.requireNonNull( entityClasses, "Failed to look up entity in entity table! Table name=" + tableName );
 
+        long eventTime = getEventTime( source );
+
+        if ( eventsCounter != null )
+        {
+            eventsCounter.increment();
+        }
+
+        // A truncate is not tied to a row, so the whole region is evicted.
+        if ( operation == Envelope.Operation.TRUNCATE )
+        {
+            buffer.addBulk( tableName, entityClasses, eventTime );
+            return;
+        }
+
         Schema keySchema = sourceRecord.keySchema();
         if ( keySchema == null )
         {
@@ -167,7 +270,38 @@ public class DbChangeEventHandler
         Serializable entityId = getEntityId( sourceRecord );
         Objects.requireNonNull( entityId, "Failed to extract entity id!" );
 
-        evictExternalEntityChanges( txId, operation, entityClasses, entityId );
+        if ( log.isDebugEnabled() )
+        {
+            log.debug( String.format( "Buffering external event! "
+                + "txId=%s, totalTxId=%s, operation=%s, entityClasses=%s, entityId=%s",
+                txId, knownTransactionsService.size(), operation, printEntityTableValue( entityClasses ), entityId ) );
+        }
+
+        if ( operation == Envelope.Operation.CREATE )
+        {
+            buffer.addCreated( tableName, entityClasses, entityId, eventTime );
+        }
+        else if ( operation == Envelope.Operation.UPDATE || operation == Envelope.Operation.DELETE )
+        {
+            buffer.addChanged( tableName, entityClasses, entityId, eventTime );
+        }
+    }
+
+    /**
+     * Returns the time of the change in the source database, or the current
+     * time if the event does not carry it.
+     */
+    private long getEventTime( Struct source )
+    {
+        try
+        {
+            Long tsMs = source.getInt64( "ts_ms" );
+            return tsMs != null ? tsMs : System.currentTimeMillis();
+        }
+        catch ( Exception e )
+        {
+            return System.currentTimeMillis();
+        }
     }
 
     /**
@@ -202,48 +336,100 @@ public class DbChangeEventHandler
         return entityId;
     }
 
-    private void evictExternalEntityChanges( Long txId, Envelope.Operation operation, List<Object[]> entityClasses,
-        Serializable entityId )
+    /**
+     * Drains the buffer and applies the pending evictions. Runs on the cache
+     * invalidation thread.
+     */
+    private void flush()
+    {
+        for ( TableChanges changes : buffer.drain() )
+        {
+            try
+            {
+                evictExternalEntityChanges( changes );
+            }
+            catch ( Exception e )
+            {
+                log.error( "Failed to evict cache for table=" + changes.getTableName(), e );
+            }
+
+            if ( lagTimer != null )
+            {
+                lagTimer.record( Math.max( 0, System.currentTimeMillis() - changes.getOldestEventTime() ),
+                    TimeUnit.MILLISECONDS );
+            }
+        }
+    }
+
+    private void evictExternalEntityChanges( TableChanges changes )
     {
+        List<Object[]> entityClasses = changes.getEntities();
+
         if ( log.isDebugEnabled() )
         {
-            log.debug( String.format( "Handling external event! "
-                + "txId=%s, totalTxId=%s, operation=%s, entityClasses=%s, entityId=%s",
-                txId, knownTransactionsService.size(), operation, printEntityTableValue( entityClasses ), entityId ) );
+            log.debug( String.format( "Evicting external changes! table=%s, events=%s, created=%s, changed=%s, "
+                + "bulk=%s, entityClasses=%s", changes.getTableName(), changes.getEventCount(),
+                changes.getCreatedIds().size(), changes.getChangedIds().size(), changes.isBulk(),
+                printEntityTableValue( entityClasses ) ) );
         }
 
         Class<?> firstEntityClass = (Class<?>) entityClasses.get( 0 )[0];
         Objects.requireNonNull( firstEntityClass, "Entity can't be null!" );
 
-        if ( operation == Envelope.Operation.CREATE )
+        Cache cache = sessionFactory.getCache();
+
+        if ( changes.isBulk() )
         {
-            // Make sure queries will re-fetch to capture the new object.
-            queryCacheManager.evictQueryCache( sessionFactory.getCache(), firstEntityClass );
-            paginationCacheManager.evictCache( firstEntityClass.getName() );
+            if ( bulkEvictionsCounter != null )
+            {
+                bulkEvictionsCounter.increment();
+            }
 
-            evictCollections( entityClasses, entityId );
+            cache.evictEntityData( firstEntityClass );
+            evictQueries( firstEntityClass );
+            evictCollections( entityClasses );
+            return;
+        }
+
+        for ( Serializable entityId : changes.getChangedIds() )
+        {
+            cache.evict( firstEntityClass, entityId );
+        }
 
-            // Try to fetch the new entity so it might get cached.
+        if ( !changes.getCreatedIds().isEmpty() )
+        {
+            // Make sure queries will re-fetch to capture the new objects.
+            evictQueries( firstEntityClass );
+        }
+
+        Set<Serializable> allIds = new LinkedHashSet<>( changes.getCreatedIds() );
+        allIds.addAll( changes.getChangedIds() );
+        evictCollections( entityClasses, allIds );
+
+        if ( !changes.getCreatedIds().isEmpty() )
+        {
+            // Try to fetch the new entities so they might get cached.
             try ( Session session = sessionFactory.openSession() )
             {
-                session.get( firstEntityClass, entityId );
+                for ( Serializable entityId : changes.getCreatedIds() )
+                {
+                    session.get( firstEntityClass, entityId );
+                }
             }
             catch ( HibernateException e )
             {
                 log.warn( "Failed to execute get query!", e );
             }
         }
-        else if ( operation == Envelope.Operation.UPDATE
-            || operation == Envelope.Operation.DELETE
-            || operation == Envelope.Operation.TRUNCATE )
-        {
-            sessionFactory.getCache().evict( firstEntityClass, entityId );
+    }
 
-            evictCollections( entityClasses, entityId );
-        }
+    private void evictQueries( Class<?> entityClass )
+    {
+        queryCacheManager.evictQueryCache( sessionFactory.getCache(), entityClass );
+        paginationCacheManager.evictCache( entityClass.getName() );
     }
 
-    private void evictCollections( List<Object[]> entityAndRoles, Serializable id )
+    private void evictCollections( List<Object[]> entityAndRoles, Set<Serializable> ids )
     {
         Object[] firstEntityAndRole = entityAndRoles.get( 0 );
         Objects.requireNonNull( firstEntityAndRole, "firstEntityAndRole can't be null!" );
@@ -251,15 +437,39 @@ public class DbChangeEventHandler
         // It's only a collection if we also have a role mapped
         if ( firstEntityAndRole.length == 2 )
         {
+            Cache cache = sessionFactory.getCache();
+
             for ( Object[] entityAndRole : entityAndRoles )
             {
                 Class<?> eKlass = (Class<?>) entityAndRole[0];
-                sessionFactory.getCache().evict( eKlass, id );
-                queryCacheManager.evictQueryCache( sessionFactory.getCache(), eKlass );
-                paginationCacheManager.evictCache( eKlass.getName() );
-
                 String role = (String) entityAndRole[1];
-                sessionFactory.getCache().evictCollectionData( role, id );
+
+                for ( Serializable id : ids )
+                {
+                    cache.evict( eKlass, id );
+                    cache.evictCollectionData( role, id );
+                }
+
+                evictQueries( eKlass );
+            }
+        }
+    }
+
+    private void evictCollections( List<Object[]> entityAndRoles )
+    {
+        Object[] firstEntityAndRole = entityAndRoles.get( 0 );
+        Objects.requireNonNull( firstEntityAndRole, "firstEntityAndRole can't be null!" );
+
+        if ( firstEntityAndRole.length == 2 )
+        {
+            Cache cache = sessionFactory.getCache();
+
+            for ( Object[] entityAndRole : entityAndRoles )
+            {
+                Class<?> eKlass = (Class<?>) entityAndRole[0];
+                cache.evictEntityData( eKlass );
+                evictQueries( eKlass );
+                cache.evictCollectionData( (String) entityAndRole[1] );
             }
         }
     }
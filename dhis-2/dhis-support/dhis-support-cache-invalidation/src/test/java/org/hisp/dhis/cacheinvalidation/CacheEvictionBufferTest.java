@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cacheinvalidation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.hisp.dhis.cacheinvalidation.CacheEvictionBuffer.TableChanges;
+import org.junit.Test;
+
+public class CacheEvictionBufferTest
+{
+    private final List<Object[]> entities = Collections.singletonList( new Object[] { String.class } );
+
+    @Test
+    public void testCoalescesEventsPerTableAndId()
+    {
+        CacheEvictionBuffer buffer = new CacheEvictionBuffer( 10 );
+
+        buffer.addChanged( "dataelement", entities, 1L, 200L );
+        buffer.addChanged( "dataelement", entities, 1L, 100L );
+        buffer.addCreated( "dataelement", entities, 2L, 300L );
+        buffer.addChanged( "indicator", entities, 1L, 400L );
+
+        assertEquals( 3, buffer.size() );
+
+        List<TableChanges> drained = buffer.drain();
+
+        assertEquals( 2, drained.size() );
+
+        TableChanges changes = drained.get( 0 );
+        assertEquals( "dataelement", changes.getTableName() );
+        assertEquals( Collections.singleton( 1L ), changes.getChangedIds() );
+        assertEquals( Collections.singleton( 2L ), changes.getCreatedIds() );
+        assertEquals( 3, changes.getEventCount() );
+        assertEquals( 100L, changes.getOldestEventTime() );
+        assertFalse( changes.isBulk() );
+
+        assertEquals( 0, buffer.size() );
+        assertTrue( buffer.drain().isEmpty() );
+    }
+
+    @Test
+    public void testSwitchesToBulkAboveThreshold()
+    {
+        CacheEvictionBuffer buffer = new CacheEvictionBuffer( 3 );
+
+        for ( long id = 0; id < 1000; id++ )
+        {
+            buffer.addChanged( "dataelement", entities, id, id );
+        }
+
+        buffer.addChanged( "indicator", entities, 1L, 0L );
+
+        assertEquals( 2, buffer.size() );
+
+        List<TableChanges> drained = buffer.drain();
+        TableChanges changes = drained.get( 0 );
+
+        assertTrue( changes.isBulk() );
+        assertTrue( changes.getChangedIds().isEmpty() );
+        assertEquals( 1000, changes.getEventCount() );
+        assertFalse( drained.get( 1 ).isBulk() );
+    }
+
+    @Test
+    public void testBulkDiscardsPendingIds()
+    {
+        CacheEvictionBuffer buffer = new CacheEvictionBuffer( 10 );
+
+        buffer.addCreated( "dataelement", entities, 1L, 0L );
+        buffer.addChanged( "dataelement", entities, 2L, 0L );
+        buffer.addBulk( "dataelement", entities, 0L );
+        buffer.addChanged( "dataelement", entities, 3L, 0L );
+
+        assertEquals( 1, buffer.size() );
+
+        TableChanges changes = buffer.drain().get( 0 );
+
+        assertTrue( changes.isBulk() );
+        assertTrue( changes.getCreatedIds().isEmpty() );
+        assertTrue( changes.getChangedIds().isEmpty() );
+    }
+}
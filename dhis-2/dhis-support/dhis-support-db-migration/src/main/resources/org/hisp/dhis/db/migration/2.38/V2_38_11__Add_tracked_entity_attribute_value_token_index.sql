@@ -0,0 +1,40 @@
+-- Token index for the query parameter of tracked entity instance searches,
+-- holding the lower cased words of every tracked entity attribute value.
+-- The table is only populated and maintained when tracker.search.index is
+-- enabled, the trigger and backfill are managed on startup by
+-- TrackedEntityAttributeValueTokenIndexPopulator.
+
+create table if not exists trackedentityattributevaluetoken (
+    trackedentityinstanceid bigint not null,
+    trackedentityattributeid bigint not null,
+    token varchar(50) not null
+);
+
+create index if not exists in_trackedentityattributevaluetoken_token
+    on trackedentityattributevaluetoken (token varchar_pattern_ops, trackedentityattributeid);
+
+create index if not exists in_trackedentityattributevaluetoken_tei_tea
+    on trackedentityattributevaluetoken (trackedentityinstanceid, trackedentityattributeid);
+
+-- Keeps the token index up to date on every write, including bulk writes
+-- which bypass the application layer, once the trigger is created.
+
+create or replace function trackedentityattributevaluetoken_update()
+returns trigger as $$
+begin
+    if (tg_op = 'UPDATE' or tg_op = 'DELETE') then
+        delete from trackedentityattributevaluetoken
+        where trackedentityinstanceid = old.trackedentityinstanceid
+        and trackedentityattributeid = old.trackedentityattributeid;
+    end if;
+
+    if (tg_op = 'INSERT' or tg_op = 'UPDATE') then
+        insert into trackedentityattributevaluetoken (trackedentityinstanceid, trackedentityattributeid, token)
+        select distinct new.trackedentityinstanceid, new.trackedentityattributeid, left(t.token, 50)
+        from regexp_split_to_table(lower(new.value), '[^[:alnum:]_]+') as t(token)
+        where t.token <> '';
+    end if;
+
+    return null;
+end;
+$$ language plpgsql;
@@ -0,0 +1,59 @@
+-- Simplified organisation unit geometries per zoom tier, served by the
+-- geo feature tiles so that map clients do not download full resolution
+-- boundaries at low zoom levels. Tier 0 covers zoom 0 to 4, tier 1 zoom 5
+-- to 7 and tier 2 zoom 8 to 10. Higher zoom levels use the full geometry.
+
+create table if not exists organisationunitgeometrytier (
+    organisationunitid bigint not null,
+    tier smallint not null,
+    geometry geometry(Geometry, 4326) not null,
+    constraint organisationunitgeometrytier_pkey primary key (organisationunitid, tier),
+    constraint fk_organisationunitgeometrytier_organisationunitid foreign key (organisationunitid)
+        references organisationunit (organisationunitid) on delete cascade
+);
+
+create index if not exists in_organisationunit_geometry
+    on organisationunit using gist (geometry);
+
+create or replace function organisationunitgeometrytier_simplify(ou_id bigint, geom geometry)
+returns void as $$
+begin
+    delete from organisationunitgeometrytier where organisationunitid = ou_id;
+
+    if (geom is not null and GeometryType(geom) not in ('POINT', 'MULTIPOINT')) then
+        insert into organisationunitgeometrytier (organisationunitid, tier, geometry)
+        select ou_id, t.tier, t.simplified
+        from (
+            select tier, ST_SimplifyPreserveTopology(geom, tolerance) as simplified
+            from (values (0, 0.01), (1, 0.002), (2, 0.0005)) as tolerances(tier, tolerance)
+        ) t
+        where not ST_IsEmpty(t.simplified);
+    end if;
+end;
+$$ language plpgsql;
+
+select organisationunitgeometrytier_simplify(organisationunitid, geometry)
+from organisationunit
+where geometry is not null;
+
+-- Recompute the tiers whenever a geometry changes, including bulk writes
+-- which bypass the application layer.
+
+create or replace function organisationunitgeometrytier_update()
+returns trigger as $$
+begin
+    if (tg_op = 'UPDATE' and old.geometry is not null and new.geometry is not null
+        and ST_OrderingEquals(old.geometry, new.geometry)) then
+        return null;
+    end if;
+
+    perform organisationunitgeometrytier_simplify(new.organisationunitid, new.geometry);
+    return null;
+end;
+$$ language plpgsql;
+
+drop trigger if exists organisationunitgeometrytier_trigger on organisationunit;
+
+create trigger organisationunitgeometrytier_trigger
+after insert or update of geometry on organisationunit
+for each row execute procedure organisationunitgeometrytier_update();
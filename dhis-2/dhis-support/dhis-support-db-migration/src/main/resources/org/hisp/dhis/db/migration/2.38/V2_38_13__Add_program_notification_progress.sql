@@ -0,0 +1,15 @@
+-- Last processed instance per template, day and instance type of the
+-- scheduled program notification job, used to resume interrupted runs
+
+CREATE TABLE IF NOT EXISTS programnotificationprogress
+(
+    programnotificationtemplateid BIGINT      NOT NULL,
+    notificationdate              DATE        NOT NULL,
+    instancetype                  VARCHAR(50) NOT NULL,
+    lastprocessedid               BIGINT      NOT NULL,
+    CONSTRAINT programnotificationprogress_pkey
+        PRIMARY KEY (programnotificationtemplateid, notificationdate, instancetype),
+    CONSTRAINT fk_programnotificationprogress_templateid
+        FOREIGN KEY (programnotificationtemplateid)
+            REFERENCES programnotificationtemplate (programnotificationtemplateid) ON DELETE CASCADE
+);
@@ -0,0 +1,36 @@
+-- Work queue for distributed analytics table generation. The node running
+-- the analytics table job publishes one run with its population and index
+-- tasks, which any node of the cluster can claim under a renewable lease
+
+CREATE TABLE IF NOT EXISTS analyticstablerun
+(
+    runid                VARCHAR(11)  NOT NULL,
+    tabletype            VARCHAR(50)  NOT NULL,
+    lastyears            INTEGER,
+    skipprograms         TEXT,
+    starttime            TIMESTAMP    NOT NULL,
+    lastsuccessfulupdate TIMESTAMP,
+    maxconcurrency       INTEGER      NOT NULL,
+    created              TIMESTAMP    NOT NULL DEFAULT now(),
+    CONSTRAINT analyticstablerun_pkey PRIMARY KEY (runid)
+);
+
+CREATE TABLE IF NOT EXISTS analyticstabletask
+(
+    taskid       BIGSERIAL    NOT NULL,
+    runid        VARCHAR(11)  NOT NULL,
+    tasktype     VARCHAR(50)  NOT NULL,
+    tablename    VARCHAR(255) NOT NULL,
+    indexcolumns TEXT,
+    indextype    VARCHAR(50),
+    status       VARCHAR(50)  NOT NULL,
+    attempts     INTEGER      NOT NULL DEFAULT 0,
+    owner        VARCHAR(255),
+    leaseexpiry  TIMESTAMP,
+    error        TEXT,
+    CONSTRAINT analyticstabletask_pkey PRIMARY KEY (taskid),
+    CONSTRAINT fk_analyticstabletask_runid
+        FOREIGN KEY (runid) REFERENCES analyticstablerun (runid) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS in_analyticstabletask_runid_status ON analyticstabletask (runid, status);
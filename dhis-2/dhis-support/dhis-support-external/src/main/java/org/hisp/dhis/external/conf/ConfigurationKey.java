@@ -86,6 +86,13 @@ public enum ConfigurationKey
      */
     SYSTEM_CACHE_CAP_PERCENTAGE( "system.cache.cap.percentage", "0", false ),
 
+    /**
+     * Size in MB of the off-heap tier of the capped local cache used for
+     * regions with large values. If set to 0, no off-heap tier is used.
+     * (default: 0).
+     */
+    SYSTEM_CACHE_OFF_HEAP_SIZE_MB( "system.cache.off_heap.size_mb", "0", false ),
+
     /**
      * Node identifier, optional, useful in clusters.
      */
@@ -455,6 +462,11 @@ public enum ConfigurationKey
      */
     MONITORING_CPU_ENABLED( "monitoring.cpu.enabled", Constants.OFF, false ),
 
+    /**
+     * Monitoring of tracker import stages and components. (default: off)
+     */
+    MONITORING_TRACKER_ENABLED( "monitoring.tracker.enabled", Constants.OFF, false ),
+
     /**
      * AppHub base URL. (default: https://apps.dhis2.org).
      */
@@ -477,6 +489,41 @@ public enum ConfigurationKey
      */
     CHANGELOG_TRACKER( "changelog.tracker", Constants.ON ),
 
+    /**
+     * Use the tracked entity attribute value token index to narrow down the
+     * query parameter of tracked entity instance searches. With the index,
+     * LIKE queries match values with a word starting with the query rather
+     * than values containing the query anywhere. The index is populated on the
+     * first startup after enabling, and removed on startup when disabled.
+     * (default: off)
+     */
+    TRACKER_SEARCH_INDEX( "tracker.search.index", Constants.OFF, false ),
+
+    /**
+     * Keep an in-memory index of metadata names, short names and codes, and
+     * use it for dashboard item search and for name and code filters of the
+     * metadata API. (default: off)
+     */
+    METADATA_NAME_INDEX( "metadata.name.index", Constants.OFF, false ),
+
+    /**
+     * Load organisation unit geometries into an in-memory spatial index at
+     * startup, and use it for organisation unit coordinate and distance
+     * lookups. (default: off)
+     */
+    ORGANISATION_UNIT_SPATIAL_INDEX( "organisationunit.spatial.index", Constants.OFF, false ),
+
+    /**
+     * Cache rendered chart and map images on disk, keyed on the analytics
+     * table update. (default: off)
+     */
+    RENDERED_IMAGE_CACHE( "rendered.image.cache", Constants.OFF, false ),
+
+    /**
+     * Max size in MB of the rendered image cache on disk. (default: 500)
+     */
+    RENDERED_IMAGE_CACHE_MAX_SIZE( "rendered.image.cache.max_size", "500", false ),
+
     /**
      * Use in-memory queue before sending audits into the Artemis queue.
      * (default: off).
@@ -607,6 +654,113 @@ public enum ConfigurationKey
      */
     ELAPSED_TIME_QUERY_LOGGING_ENABLED( "elapsed.time.query.logging.enabled", Constants.FALSE, false ),
 
+    /**
+     * Number of threads executing analytics tasks and jobs. (default: 5).
+     */
+    EXECUTOR_ANALYTICS_POOL_SIZE( "executor.analytics.pool_size", "5", false ),
+
+    /**
+     * Max number of analytics tasks waiting for a thread before new tasks are
+     * rejected, 0 means no limit. (default: 100).
+     */
+    EXECUTOR_ANALYTICS_QUEUE_LIMIT( "executor.analytics.queue_limit", "100", false ),
+
+    /**
+     * Number of threads executing asynchronous imports. (default: 10).
+     */
+    EXECUTOR_IMPORT_POOL_SIZE( "executor.import.pool_size", "10", false ),
+
+    /**
+     * Max number of imports waiting for a thread before new imports are
+     * rejected, 0 means no limit. (default: 1000).
+     */
+    EXECUTOR_IMPORT_QUEUE_LIMIT( "executor.import.queue_limit", "1000", false ),
+
+    /**
+     * Number of threads executing notification tasks and jobs. (default: 5).
+     */
+    EXECUTOR_NOTIFICATION_POOL_SIZE( "executor.notification.pool_size", "5", false ),
+
+    /**
+     * Max number of notification tasks waiting for a thread before new tasks
+     * are rejected, 0 means no limit. (default: 10000).
+     */
+    EXECUTOR_NOTIFICATION_QUEUE_LIMIT( "executor.notification.queue_limit", "10000", false ),
+
+    /**
+     * Number of threads executing maintenance jobs. (default: 3).
+     */
+    EXECUTOR_MAINTENANCE_POOL_SIZE( "executor.maintenance.pool_size", "3", false ),
+
+    /**
+     * Max number of maintenance tasks waiting for a thread before new tasks
+     * are rejected, 0 means no limit. (default: 100).
+     */
+    EXECUTOR_MAINTENANCE_QUEUE_LIMIT( "executor.maintenance.queue_limit", "100", false ),
+
+    /**
+     * Number of incoming SMS processed in parallel. Messages from the same
+     * originator are always processed in the order they were received.
+     * (default: 4).
+     */
+    SMS_INBOUND_WORKERS( "sms.inbound.workers", "4", false ),
+
+    /**
+     * Number of threads delivering outbound messages for each delivery
+     * channel. (default: 2).
+     */
+    OUTBOUND_MESSAGE_WORKERS( "outbound.message.workers", "2", false ),
+
+    /**
+     * Max number of outbound SMS sent per second, 0 means no limit. (default:
+     * 10).
+     */
+    OUTBOUND_SMS_RATE_LIMIT( "outbound.sms.rate_limit", "10", false ),
+
+    /**
+     * Max number of outbound emails sent per second, 0 means no limit.
+     * (default: 10).
+     */
+    OUTBOUND_EMAIL_RATE_LIMIT( "outbound.email.rate_limit", "10", false ),
+
+    /**
+     * Max number of delivery attempts of a failed outbound message batch.
+     * (default: 4).
+     */
+    OUTBOUND_MESSAGE_MAX_ATTEMPTS( "outbound.message.max_attempts", "4", false ),
+
+    /**
+     * Delay in seconds before the first retry of a failed outbound message
+     * batch, doubled for each further retry. (default: 5).
+     */
+    OUTBOUND_MESSAGE_RETRY_DELAY( "outbound.message.retry_delay", "5", false ),
+
+    /**
+     * Seconds after which a program message still queued for delivery, for
+     * instance because the server restarted, is queued again. Must exceed the
+     * time a message can wait for delivery and retries. (default: 600).
+     */
+    OUTBOUND_MESSAGE_RECOVERY_DELAY( "outbound.message.recovery_delay", "600", false ),
+
+    /**
+     * Enables distributing analytics table population and index creation
+     * across the nodes of the cluster through a database work queue. (default:
+     * off).
+     */
+    ANALYTICS_TABLE_DISTRIBUTED( "analytics.table.distributed", Constants.OFF, false ),
+
+    /**
+     * Number of threads each node uses to process tasks of distributed
+     * analytics table updates. (default: 2).
+     */
+    ANALYTICS_TABLE_WORKERS( "analytics.table.workers", "2", false ),
+
+    /**
+     * Max number of seconds an outlier detection query may run before it is
+     * cancelled, 0 means no limit. (default: 300).
+     */
+    OUTLIER_DETECTION_QUERY_TIMEOUT( "outlier_detection.query_timeout", "300", false ),
+
     /**
      * Database datasource pool type. Supported pool types are: c3p0 (default)
      * or hikari
@@ -676,6 +830,19 @@ public enum ConfigurationKey
      */
     DEBEZIUM_SHUTDOWN_ON_CONNECTOR_STOP( "debezium.shutdown_on.connector_stop", Constants.OFF, false ),
 
+    /**
+     * Cache invalidation feature. Time window in milliseconds in which
+     * incoming change events are buffered and coalesced before eviction.
+     */
+    DEBEZIUM_EVICTION_WINDOW_MS( "debezium.eviction.window_ms", "500", false ),
+
+    /**
+     * Cache invalidation feature. Number of distinct changed rows of a table
+     * within one window above which the whole cache region is evicted instead
+     * of the individual entries.
+     */
+    DEBEZIUM_EVICTION_BULK_THRESHOLD( "debezium.eviction.bulk_threshold", "500", false ),
+
     /**
      * API authentication feature. Enable or disable personal access tokens.
      */
@@ -46,10 +46,14 @@ public interface CacheProvider
 {
     <V> Cache<V> createAnalyticsResponseCache( Duration initialExpirationTime );
 
+    <V> Cache<V> createAnalyticsCountCache( Duration initialExpirationTime );
+
     <V> Cache<V> createDefaultObjectCache();
 
     <V> Cache<V> createIsDataApprovedCache();
 
+    <V> Cache<V> createDataApprovalStatusCache();
+
     <V> Cache<V> createAllConstantsCache();
 
     <V> Cache<V> createInUserOrgUnitHierarchyCache();
@@ -113,4 +117,10 @@ public interface CacheProvider
     <V> Cache<V> createCatOptOrgUnitAssociationCache();
 
     <V> Cache<V> createApiKeyCache();
+
+    <V> Cache<V> createFieldFilterPlanCache();
+
+    <V> Cache<V> createGistHqlCache();
+
+    <V> Cache<V> createGeoFeatureTileCache();
 }
@@ -28,6 +28,7 @@
 package org.hisp.dhis.cache;
 
 import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
 import static java.lang.Math.max;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.unmodifiableSet;
@@ -35,6 +36,7 @@ import static java.util.Collections.unmodifiableSet;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -88,6 +90,12 @@ import org.springframework.stereotype.Component;
  * in a regular interval. This list is used in case memory should be freed after
  * entries are inserted or overall memory of the JVM is reaching its maximum.
  *
+ * Regions created with {@link CacheBuilder#withLargeValues()} can use an
+ * optional off-heap second tier, see {@link OffHeapCacheTier}. Large values of
+ * such regions are stored serialised off-heap, entries freed from the heap are
+ * moved off-heap instead of being dropped and entries read repeatedly from the
+ * off-heap tier are promoted back to the heap.
+ *
  * @author Jan Bernitt
  */
 @Slf4j
@@ -100,6 +108,12 @@ public class CappedLocalCache
      */
     public static final Object EMPTY = new CacheEntry<>( null, null, null, 0L, 0L, 0L );
 
+    /**
+     * Estimated size from which values of large value regions are stored in
+     * the off-heap tier.
+     */
+    static final long OFF_HEAP_MIN_ENTRY_SIZE = 8 * 1024L;
+
     /**
      * A {@link CacheRegion} works like a {@link Cache} facade for the
      * underlying {@link CappedLocalCache} where all values share a single
@@ -129,7 +143,14 @@ public class CappedLocalCache
 
         private final AtomicLong misses = new AtomicLong();
 
-        CacheRegion( final CacheBuilder<V> builder, Sizeof sizeof, LongConsumer sizeDeltaListener )
+        private final AtomicLong offHeapHits = new AtomicLong();
+
+        private final OffHeapCacheTier offHeap;
+
+        private final boolean largeValues;
+
+        CacheRegion( final CacheBuilder<V> builder, Sizeof sizeof, LongConsumer sizeDeltaListener,
+            OffHeapCacheTier offHeap )
         {
             this.region = builder.getRegion();
             log.info( "Local capped cache instance created for region: '{}'", region );
@@ -138,6 +159,8 @@ public class CappedLocalCache
             this.sizeof = sizeof;
             this.emptyEntrySize = sizeof.sizeof( EMPTY );
             this.sizeDeltaListener = sizeDeltaListener;
+            this.offHeap = offHeap;
+            this.largeValues = builder.isLargeValues();
         }
 
         long getHits()
@@ -150,6 +173,16 @@ public class CappedLocalCache
             return misses.get();
         }
 
+        long getOffHeapHits()
+        {
+            return offHeapHits.get();
+        }
+
+        boolean usesOffHeap()
+        {
+            return largeValues && offHeap.isEnabled();
+        }
+
         @Override
         public Optional<V> getIfPresent( String key )
         {
@@ -167,6 +200,11 @@ public class CappedLocalCache
             CacheEntry<V> entry = entries.get( key );
             if ( entry == null )
             {
+                V offHeapValue = getOffHeap( key );
+                if ( offHeapValue != null )
+                {
+                    return Optional.ofNullable( value.apply( offHeapValue ) );
+                }
                 misses.incrementAndGet();
                 return Optional.empty();
             }
@@ -195,6 +233,14 @@ public class CappedLocalCache
                 hits.incrementAndGet();
                 return Optional.of( value );
             }
+            if ( entry == null )
+            {
+                value = getOffHeap( key );
+                if ( value != null )
+                {
+                    return Optional.of( value );
+                }
+            }
             misses.incrementAndGet();
             value = fetcher.apply( key );
             if ( value == null && entry != null && !entry.isExpired( now ) )
@@ -207,10 +253,43 @@ public class CappedLocalCache
             return Optional.ofNullable( value == null ? defaultValue : value );
         }
 
+        /**
+         * @param key the key to look up in the off-heap tier
+         * @return the value or null if the off-heap tier has no valid entry
+         *         for the key
+         */
+        @SuppressWarnings( "unchecked" )
+        private V getOffHeap( String key )
+        {
+            if ( !usesOffHeap() )
+            {
+                return null;
+            }
+            OffHeapCacheTier.Hit hit = offHeap.get( region, key, currentTimeMillis() );
+            if ( hit == null )
+            {
+                return null;
+            }
+            offHeapHits.incrementAndGet();
+            V value = (V) hit.value;
+            if ( hit.promoted )
+            {
+                putOnHeap( key, value, sizeof.sizeof( value ), currentTimeMillis(), hit.expires );
+            }
+            return value;
+        }
+
         @Override
         public Stream<V> getAll()
         {
-            return entries.values().stream().map( CacheEntry::read );
+            Stream<V> onHeap = entries.values().stream().map( CacheEntry::read );
+            if ( !usesOffHeap() )
+            {
+                return onHeap;
+            }
+            @SuppressWarnings( "unchecked" )
+            Stream<V> offHeapValues = offHeap.values( region, currentTimeMillis() ).stream().map( v -> (V) v );
+            return Stream.concat( onHeap, offHeapValues );
         }
 
         @Override
@@ -222,19 +301,93 @@ public class CappedLocalCache
         @Override
         public void put( String key, V value, long ttlInSeconds )
         {
-            long entrySize = emptyEntrySize + sizeof.sizeof( key ) + sizeof.sizeof( value );
             long now = currentTimeMillis();
-            CacheEntry<V> oldEntry = entries.put( key,
-                new CacheEntry<>( region, key, value, now, now + (ttlInSeconds * 1000L), entrySize ) );
-            long sizeDelta = entrySize - (oldEntry == null ? 0L : oldEntry.size);
+            long expires = now + (ttlInSeconds * 1000L);
+            long valueSize = sizeof.sizeof( value );
+            if ( usesOffHeap() )
+            {
+                if ( valueSize >= OFF_HEAP_MIN_ENTRY_SIZE
+                    && offHeap.put( region, key, value, expires ) )
+                {
+                    invalidate( entries.remove( key ), false );
+                    return;
+                }
+                offHeap.invalidate( region, key );
+            }
+            putOnHeap( key, value, valueSize, now, expires );
+        }
+
+        /**
+         * Stores all values on the heap and notifies the size change once for
+         * all of them, so that freeing memory is considered once per batch
+         * instead of once per value.
+         */
+        @Override
+        public void putAll( Map<String, V> values )
+        {
+            if ( usesOffHeap() )
+            {
+                values.forEach( this::put );
+                return;
+            }
+            long now = currentTimeMillis();
+            long expires = now + (defaultTtlInSeconds * 1000L);
+            long sizeDelta = 0L;
+            for ( Map.Entry<String, V> e : values.entrySet() )
+            {
+                sizeDelta += store( e.getKey(), e.getValue(), sizeof.sizeof( e.getValue() ), now, expires );
+            }
             totalRegionSize.addAndGet( sizeDelta );
             sizeDeltaListener.accept( sizeDelta );
         }
 
+        private void putOnHeap( String key, V value, long valueSize, long now, long expires )
+        {
+            long sizeDelta = store( key, value, valueSize, now, expires );
+            totalRegionSize.addAndGet( sizeDelta );
+            sizeDeltaListener.accept( sizeDelta );
+        }
+
+        /**
+         * @return the change in size caused by storing the entry
+         */
+        private long store( String key, V value, long valueSize, long now, long expires )
+        {
+            long entrySize = emptyEntrySize + sizeof.sizeof( key ) + valueSize;
+            CacheEntry<V> oldEntry = entries.put( key,
+                new CacheEntry<>( region, key, value, now, expires, entrySize ) );
+            return entrySize - (oldEntry == null ? 0L : oldEntry.size);
+        }
+
         @Override
         public void invalidate( String key )
         {
             invalidate( entries.remove( key ), false );
+            if ( usesOffHeap() )
+            {
+                offHeap.invalidate( region, key );
+            }
+        }
+
+        /**
+         * Frees the heap memory used by the passed entry. For regions using
+         * the off-heap tier the entry is moved off-heap instead of being
+         * dropped.
+         *
+         * @param entry the entry to evict from the heap
+         * @return true, if the entry wasn't already removed, else false
+         */
+        boolean evict( CacheEntry<?> entry )
+        {
+            if ( !invalidate( entry, true ) )
+            {
+                return false;
+            }
+            if ( usesOffHeap() && !entry.isExpired( currentTimeMillis() ) )
+            {
+                offHeap.put( region, entry.key, entry.value, entry.expires );
+            }
+            return true;
         }
 
         /**
@@ -266,6 +419,10 @@ public class CappedLocalCache
             entries.clear();
             totalRegionSize.set( 0L );
             sizeDeltaListener.accept( sizeDelta );
+            if ( usesOffHeap() )
+            {
+                offHeap.invalidateRegion( region );
+            }
         }
 
         @Override
@@ -367,6 +524,8 @@ public class CappedLocalCache
 
     private final Sizeof sizeof;
 
+    private final OffHeapCacheTier offHeap;
+
     private final AtomicLong totalSize = new AtomicLong();
 
     private final AtomicReference<Deque<CacheEntry<?>>> highBurdenEntries = new AtomicReference<>(
@@ -421,12 +580,25 @@ public class CappedLocalCache
     public CappedLocalCache( DhisConfigurationProvider config )
     {
         this( new GenericSizeof( 20L, Hibernate::unproxy ),
-            parseInt( config.getPropertyOrDefault( ConfigurationKey.SYSTEM_CACHE_CAP_PERCENTAGE, "50" ) ) );
+            parseInt( config.getPropertyOrDefault( ConfigurationKey.SYSTEM_CACHE_CAP_PERCENTAGE, "50" ) ),
+            parseLong( config.getProperty( ConfigurationKey.SYSTEM_CACHE_OFF_HEAP_SIZE_MB ) ) * 1024L * 1024L );
     }
 
     public CappedLocalCache( Sizeof sizeof, int capPercent )
+    {
+        this( sizeof, capPercent, 0L );
+    }
+
+    /**
+     * @param sizeof the size estimation used for heap entries
+     * @param capPercent the heap cap percentage
+     * @param offHeapCapSize the maximum number of bytes used by the off-heap
+     *        tier, 0 to disable the off-heap tier
+     */
+    public CappedLocalCache( Sizeof sizeof, int capPercent, long offHeapCapSize )
     {
         this.sizeof = sizeof;
+        this.offHeap = new OffHeapCacheTier( offHeapCapSize );
         this.runtime = Runtime.getRuntime();
         setCapPercent( capPercent );
     }
@@ -479,7 +651,7 @@ public class CappedLocalCache
     public <V> Cache<V> createRegion( CacheBuilder<V> builder )
     {
         return (Cache<V>) regions.computeIfAbsent( builder.getRegion(),
-            region -> new CacheRegion<>( builder, sizeof, this::sizeUpdate ) );
+            region -> new CacheRegion<>( builder, sizeof, this::sizeUpdate, offHeap ) );
     }
 
     /**
@@ -568,7 +740,7 @@ public class CappedLocalCache
             {
                 return 0; // done
             }
-            if ( e.burden( now ) > burdenThreshold && regions.get( e.region ).invalidate( e, true ) )
+            if ( e.burden( now ) > burdenThreshold && regions.get( e.region ).evict( e ) )
             {
                 sizeLeft -= e.size;
             }
@@ -597,7 +769,7 @@ public class CappedLocalCache
             CacheEntry<?> e = highBurdens.removeFirst();
             if ( e.burden( now ) > burdenThreshold )
             {
-                if ( regions.get( e.region ).invalidate( e, true ) )
+                if ( regions.get( e.region ).evict( e ) )
                 {
                     sizeLeft -= e.size;
                 }
@@ -654,8 +826,16 @@ public class CappedLocalCache
                     regionSize += e.size;
                 }
             }
-            regionsInfo.add( new CacheGroupInfo( region.region, region.entries.size(), region.getHits(),
-                region.getMisses(), regionSize, getRelativeBurden( regionBurden, regionSize ) ) );
+            CacheGroupInfo regionInfo = new CacheGroupInfo( region.region, region.entries.size(), region.getHits(),
+                region.getMisses(), regionSize, getRelativeBurden( regionBurden, regionSize ) );
+            if ( region.usesOffHeap() )
+            {
+                List<OffHeapCacheTier.Entry> offHeapEntries = offHeap.snapshot( region.region );
+                regionInfo.setOffHeapEntries( offHeapEntries.size() );
+                regionInfo.setOffHeapSize( offHeapEntries.stream().mapToLong( OffHeapCacheTier.Entry::size ).sum() );
+                regionInfo.setOffHeapHits( region.getOffHeapHits() );
+            }
+            regionsInfo.add( regionInfo );
             totalEntryCount += regionEntryCount;
             totalBurden += regionBurden;
         }
@@ -668,7 +848,8 @@ public class CappedLocalCache
 
         CacheGroupInfo total = findHighBurdens( regionsInfo, newHighBurdenEntries, newHighBurdenThreshold,
             totalBurden );
-        info.set( new CacheInfo( new CacheCapInfo( capPercent, softCapPercentage, hardCapPercentage ),
+        info.set( new CacheInfo( new CacheCapInfo( capPercent, softCapPercentage, hardCapPercentage,
+            offHeap.getCapSize() ),
             new CacheBurdenInfo( newHighBurdenEntries.size(),
                 newHighBurdenEntries.stream().mapToLong( e -> e.size ).sum(),
                 getRelativeBurden( newHighBurdenThreshold, newHighBurdenEntries.size() ) ),
@@ -696,6 +877,9 @@ public class CappedLocalCache
             totalNonExpiredSize,
             getRelativeBurden( totalBurden, totalNonExpiredSize ) );
         total.setHighBurdenEntries( regionsInfo.stream().mapToInt( CacheGroupInfo::getHighBurdenEntries ).sum() );
+        total.setOffHeapEntries( regionsInfo.stream().mapToInt( CacheGroupInfo::getOffHeapEntries ).sum() );
+        total.setOffHeapSize( regionsInfo.stream().mapToLong( CacheGroupInfo::getOffHeapSize ).sum() );
+        total.setOffHeapHits( regionsInfo.stream().mapToLong( CacheGroupInfo::getOffHeapHits ).sum() );
         return total;
     }
 
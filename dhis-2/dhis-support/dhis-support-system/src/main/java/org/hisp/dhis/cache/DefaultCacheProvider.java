@@ -86,8 +86,10 @@ public class DefaultCacheProvider
     private enum Region
     {
         analyticsResponse,
+        analyticsCount,
         defaultObjectCache,
         isDataApproved,
+        dataApprovalStatus,
         allConstantsCache,
         inUserOuHierarchy,
         isUserViewOuHierHierarchy,
@@ -118,7 +120,10 @@ public class DefaultCacheProvider
         programStageWebHookNotificationTemplateCache,
         pgmOrgUnitAssocCache,
         catOptOrgUnitAssocCache,
-        apiTokensCache
+        apiTokensCache,
+        fieldFilterPlanCache,
+        gistHqlCache,
+        geoFeatureTileCache
     }
 
     private final Map<String, Cache<?>> allCaches = new ConcurrentHashMap<>();
@@ -157,6 +162,20 @@ public class DefaultCacheProvider
         return registerCache( this.<V> newBuilder()
             .forRegion( Region.analyticsResponse.name() )
             .expireAfterWrite( initialExpirationTime.toMillis(), MILLISECONDS )
+            .withLargeValues()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
+    /**
+     * Cache for record counts of paged analytics queries, shared between pages
+     * of the same query.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsCountCache( Duration initialExpirationTime )
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsCount.name() )
+            .expireAfterWrite( initialExpirationTime.toMillis(), MILLISECONDS )
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
@@ -185,6 +204,24 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    /**
+     * Cache for data approval statuses per user, workflow, period and
+     * organisation units, used for read-only listing of approvals only.
+     * Invalidated on any approval change on this instance, the expiration
+     * bounds staleness from changes on other instances, to data set
+     * assignments and to settings.
+     */
+    @Override
+    public <V> Cache<V> createDataApprovalStatusCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.dataApprovalStatus.name() )
+            .expireAfterWrite( 10, TimeUnit.MINUTES )
+            .withInitialCapacity( (int) getActualSize( SIZE_1K ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
     @Override
     public <V> Cache<V> createAllConstantsCache()
     {
@@ -511,4 +548,49 @@ public class DefaultCacheProvider
             .forceInMemory()
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
+
+    /**
+     * Cache for compiled field filter plans, keyed by the class of the
+     * serialized objects and the field filters.
+     */
+    @Override
+    public <V> Cache<V> createFieldFilterPlanCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.fieldFilterPlanCache.name() )
+            .expireAfterAccess( 1, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( SIZE_100 ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1K ) ) ) );
+    }
+
+    /**
+     * Cache for the HQL of gist queries, keyed by the shape of the query and
+     * the access filter of the user.
+     */
+    @Override
+    public <V> Cache<V> createGistHqlCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.gistHqlCache.name() )
+            .expireAfterAccess( 1, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( SIZE_100 ) )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_1K ) ) ) );
+    }
+
+    /**
+     * Cache for geo feature tiles, keyed by tile, level and the data view
+     * hierarchy of the user. Expires on the same schedule as the HTTP cache
+     * of geo features.
+     */
+    @Override
+    public <V> Cache<V> createGeoFeatureTileCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.geoFeatureTileCache.name() )
+            .expireAfterWrite( 2, TimeUnit.HOURS )
+            .withInitialCapacity( (int) getActualSize( SIZE_100 ) )
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
 }
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.cache;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.SerializationException;
+import org.apache.commons.lang3.SerializationUtils;
+
+/**
+ * Second tier of the {@link CappedLocalCache} for regions holding large
+ * values. Entries are stored serialised in direct (off-heap) memory so that
+ * they do not contribute to the heap the garbage collector has to trace and
+ * move.
+ *
+ * The tier has its own cap in bytes which is shared by all regions. When the
+ * cap is exceeded the least recently used entries are evicted. Entries that
+ * are read repeatedly are considered hot and are handed back to the caller for
+ * promotion to the heap tier.
+ */
+@Slf4j
+final class OffHeapCacheTier
+{
+    /**
+     * Number of reads after which an off-heap entry is promoted to the heap.
+     */
+    static final int PROMOTION_READS = 2;
+
+    static final class Entry
+    {
+        final String region;
+
+        final String key;
+
+        final ByteBuffer data;
+
+        /**
+         * System time when this entry expires
+         */
+        final long expires;
+
+        /**
+         * Number of read accesses since this entry was stored
+         */
+        int reads;
+
+        Entry( String region, String key, ByteBuffer data, long expires )
+        {
+            this.region = region;
+            this.key = key;
+            this.data = data;
+            this.expires = expires;
+        }
+
+        long size()
+        {
+            return data.capacity();
+        }
+
+        boolean isExpired( long now )
+        {
+            return now >= expires;
+        }
+    }
+
+    /**
+     * A value read from the off-heap tier.
+     */
+    static final class Hit
+    {
+        final Object value;
+
+        final long expires;
+
+        /**
+         * True, if the entry was removed from the off-heap tier to be promoted
+         * to the heap
+         */
+        final boolean promoted;
+
+        Hit( Object value, long expires, boolean promoted )
+        {
+            this.value = value;
+            this.expires = expires;
+            this.promoted = promoted;
+        }
+    }
+
+    private final long capSize;
+
+    /**
+     * Entries in access order, the eldest entry is the least recently used.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private long totalSize = 0L;
+
+    OffHeapCacheTier( long capSize )
+    {
+        this.capSize = capSize;
+    }
+
+    boolean isEnabled()
+    {
+        return capSize > 0L;
+    }
+
+    /**
+     * Stores the passed value serialised in off-heap memory.
+     *
+     * @param region the region of the entry
+     * @param key the key of the entry
+     * @param value the value to store
+     * @param expires system time when the entry expires
+     * @return true, if the value was stored, false if the value could not be
+     *         serialised or is too large for the tier
+     */
+    boolean put( String region, String key, Object value, long expires )
+    {
+        if ( !isEnabled() || !(value instanceof Serializable) )
+        {
+            return false;
+        }
+        byte[] bytes;
+        try
+        {
+            bytes = SerializationUtils.serialize( (Serializable) value );
+        }
+        catch ( SerializationException ex )
+        {
+            log.debug( "Value of {}:{} is not serialisable, keeping it on heap", region, key );
+            return false;
+        }
+        if ( bytes.length > capSize / 4 )
+        {
+            return false;
+        }
+        ByteBuffer data;
+        try
+        {
+            data = ByteBuffer.allocateDirect( bytes.length );
+        }
+        catch ( OutOfMemoryError ex )
+        {
+            log.warn( "Direct memory exhausted, check -XX:MaxDirectMemorySize against the off-heap cache size" );
+            return false;
+        }
+        data.put( bytes );
+        data.flip();
+        Entry entry = new Entry( region, key, data, expires );
+        synchronized ( entries )
+        {
+            Entry oldEntry = entries.put( entryKey( region, key ), entry );
+            totalSize += entry.size() - (oldEntry == null ? 0L : oldEntry.size());
+            evictLeastRecentlyUsed();
+        }
+        return true;
+    }
+
+    /**
+     * Reads an entry from the off-heap tier. The entry is removed if it is
+     * expired or if it became hot and should be promoted to the heap.
+     *
+     * @param region the region of the entry
+     * @param key the key of the entry
+     * @param now what to consider system time of now
+     * @return the read value or null if no valid entry exists
+     */
+    Hit get( String region, String key, long now )
+    {
+        if ( !isEnabled() )
+        {
+            return null;
+        }
+        byte[] bytes;
+        long expires;
+        boolean promoted;
+        synchronized ( entries )
+        {
+            String entryKey = entryKey( region, key );
+            Entry entry = entries.get( entryKey );
+            if ( entry == null )
+            {
+                return null;
+            }
+            if ( entry.isExpired( now ) )
+            {
+                remove( entryKey );
+                return null;
+            }
+            bytes = new byte[entry.data.capacity()];
+            entry.data.duplicate().get( bytes );
+            expires = entry.expires;
+            promoted = ++entry.reads >= PROMOTION_READS;
+            if ( promoted )
+            {
+                remove( entryKey );
+            }
+        }
+        return new Hit( SerializationUtils.deserialize( bytes ), expires, promoted );
+    }
+
+    void invalidate( String region, String key )
+    {
+        if ( isEnabled() )
+        {
+            synchronized ( entries )
+            {
+                remove( entryKey( region, key ) );
+            }
+        }
+    }
+
+    void invalidateRegion( String region )
+    {
+        if ( isEnabled() )
+        {
+            synchronized ( entries )
+            {
+                Iterator<Entry> iter = entries.values().iterator();
+                while ( iter.hasNext() )
+                {
+                    Entry e = iter.next();
+                    if ( e.region.equals( region ) )
+                    {
+                        totalSize -= e.size();
+                        iter.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param region the region to read
+     * @param now what to consider system time of now
+     * @return the deserialised values of all non-expired entries of the region
+     */
+    List<Object> values( String region, long now )
+    {
+        List<byte[]> serialised = new ArrayList<>();
+        for ( Entry e : snapshot( region ) )
+        {
+            if ( !e.isExpired( now ) )
+            {
+                byte[] bytes = new byte[e.data.capacity()];
+                e.data.duplicate().get( bytes );
+                serialised.add( bytes );
+            }
+        }
+        List<Object> values = new ArrayList<>( serialised.size() );
+        serialised.forEach( bytes -> values.add( SerializationUtils.deserialize( bytes ) ) );
+        return values;
+    }
+
+    /**
+     * @param region the region to read
+     * @return the entries of the region at the time of the call
+     */
+    List<Entry> snapshot( String region )
+    {
+        List<Entry> regionEntries = new ArrayList<>();
+        if ( isEnabled() )
+        {
+            synchronized ( entries )
+            {
+                for ( Entry e : entries.values() )
+                {
+                    if ( e.region.equals( region ) )
+                    {
+                        regionEntries.add( e );
+                    }
+                }
+            }
+        }
+        return regionEntries;
+    }
+
+    long getCapSize()
+    {
+        return capSize;
+    }
+
+    long getTotalSize()
+    {
+        synchronized ( entries )
+        {
+            return totalSize;
+        }
+    }
+
+    private void remove( String entryKey )
+    {
+        Entry entry = entries.remove( entryKey );
+        if ( entry != null )
+        {
+            totalSize -= entry.size();
+        }
+    }
+
+    private void evictLeastRecentlyUsed()
+    {
+        Iterator<Map.Entry<String, Entry>> iter = entries.entrySet().iterator();
+        while ( totalSize > capSize && iter.hasNext() )
+        {
+            totalSize -= iter.next().getValue().size();
+            iter.remove();
+        }
+    }
+
+    private static String entryKey( String region, String key )
+    {
+        return region + ':' + key;
+    }
+}
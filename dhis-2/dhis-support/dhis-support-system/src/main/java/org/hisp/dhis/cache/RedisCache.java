@@ -30,13 +30,21 @@ package org.hisp.dhis.cache;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.springframework.util.Assert.hasText;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 
 /**
  * A redis backed implementation of {@link Cache}. This implementation uses a
@@ -142,6 +150,49 @@ public class RedisCache<V> implements Cache<V>
         return values == null ? Stream.empty() : values.stream();
     }
 
+    /**
+     * Reads all keys with a single MGET. If expiry is refreshed on access the
+     * expiry of the found keys is refreshed in one pipeline.
+     */
+    @Override
+    public Map<String, V> getAllIfPresent( Collection<String> keys )
+    {
+        Map<String, V> values = new HashMap<>();
+        if ( keys.isEmpty() )
+        {
+            return values;
+        }
+
+        List<String> keyList = new ArrayList<>( keys );
+        List<String> redisKeys = new ArrayList<>( keyList.size() );
+        keyList.forEach( key -> redisKeys.add( generateKey( key ) ) );
+
+        List<V> redisValues = redisTemplate.opsForValue().multiGet( redisKeys );
+        if ( redisValues == null )
+        {
+            return values;
+        }
+
+        List<String> foundRedisKeys = new ArrayList<>();
+        for ( int i = 0; i < keyList.size(); i++ )
+        {
+            V value = redisValues.get( i );
+            if ( value != null )
+            {
+                values.put( keyList.get( i ), value );
+                foundRedisKeys.add( redisKeys.get( i ) );
+            }
+        }
+
+        if ( expiryEnabled && refreshExpriryOnAccess && !foundRedisKeys.isEmpty() )
+        {
+            executePipelined( operations -> foundRedisKeys
+                .forEach( redisKey -> operations.expire( redisKey, expiryInSeconds, SECONDS ) ) );
+        }
+
+        return values;
+    }
+
     @Override
     public void put( String key, V value )
     {
@@ -172,6 +223,38 @@ public class RedisCache<V> implements Cache<V>
         redisTemplate.boundValueOps( redisKey ).set( value, ttlInSeconds, SECONDS );
     }
 
+    /**
+     * Stores all values with a single MSET, or with pipelined SETs if the
+     * values expire.
+     */
+    @Override
+    public void putAll( Map<String, V> values )
+    {
+        if ( values.values().stream().anyMatch( Objects::isNull ) )
+        {
+            throw new IllegalArgumentException( "Value cannot be null" );
+        }
+
+        if ( values.isEmpty() )
+        {
+            return;
+        }
+
+        Map<String, V> redisValues = new HashMap<>();
+        values.forEach( ( key, value ) -> redisValues.put( generateKey( key ), value ) );
+
+        if ( expiryEnabled )
+        {
+            executePipelined( operations -> redisValues
+                .forEach( ( redisKey, value ) -> operations.opsForValue().set( redisKey, value, expiryInSeconds,
+                    SECONDS ) ) );
+        }
+        else
+        {
+            redisTemplate.opsForValue().multiSet( redisValues );
+        }
+    }
+
     @Override
     public void invalidate( String key )
     {
@@ -183,6 +266,24 @@ public class RedisCache<V> implements Cache<V>
         return cacheRegion.concat( ":" ).concat( key );
     }
 
+    /**
+     * Runs the given commands in a single pipeline, which sends them in one
+     * network round trip.
+     */
+    private void executePipelined( Consumer<RedisOperations<String, V>> commands )
+    {
+        redisTemplate.executePipelined( new SessionCallback<Object>()
+        {
+            @Override
+            @SuppressWarnings( "unchecked" )
+            public <K, T> Object execute( RedisOperations<K, T> operations )
+            {
+                commands.accept( (RedisOperations<String, V>) operations );
+                return null;
+            }
+        } );
+    }
+
     @Override
     public void invalidateAll()
     {
@@ -29,6 +29,7 @@ package org.hisp.dhis.system.notification;
 
 import java.util.Date;
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
@@ -122,6 +123,12 @@ public class InMemoryNotifier implements Notifier
         return notificationMap.getNotificationsByJobId( jobType, jobId );
     }
 
+    @Override
+    public List<Notification> getNotificationsSince( JobType jobType, String jobId, long afterSequence )
+    {
+        return notificationMap.getNotificationsSince( jobType, jobId, afterSequence );
+    }
+
     @Override
     public Map<String, Deque<Notification>> getNotificationsByJobType( JobType jobType )
     {
@@ -56,6 +56,8 @@ public class Notification
 
     private boolean completed;
 
+    private long sequence;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -159,6 +161,23 @@ public class Notification
         this.completed = completed;
     }
 
+    /**
+     * Sequence number assigned by the notifier, increasing with each
+     * notification. Used to read only the notifications added since a
+     * previous read.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public long getSequence()
+    {
+        return sequence;
+    }
+
+    public void setSequence( long sequence )
+    {
+        this.sequence = sequence;
+    }
+
     // -------------------------------------------------------------------------
     // equals, hashCode, toString
     // -------------------------------------------------------------------------
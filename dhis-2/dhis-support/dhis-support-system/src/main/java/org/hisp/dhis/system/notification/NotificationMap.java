@@ -30,23 +30,37 @@ package org.hisp.dhis.system.notification;
 import static java.util.Arrays.stream;
 import static java.util.Collections.unmodifiableMap;
 
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.EnumMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
 
 /**
+ * Keeps the notifications of the most recent jobs of each job type. The
+ * notifications of a job are held newest first in a bounded buffer where the
+ * oldest notification is dropped when the buffer is full, and every
+ * notification is assigned a sequence number so that clients can read only
+ * the notifications added since their last read.
+ *
  * @author Henning Håkonsen
  */
 public class NotificationMap
 {
     public static final int MAX_POOL_TYPE_SIZE = 500;
 
+    public static final int MAX_NOTIFICATIONS_PER_JOB = 500;
+
+    private final AtomicLong sequence = new AtomicLong();
+
     private final Map<JobType, Map<String, Deque<Notification>>> notificationsWithType = new EnumMap<>( JobType.class );
 
     private final Map<JobType, Map<String, Object>> summariesWithType = new EnumMap<>( JobType.class );
@@ -77,6 +91,39 @@ public class NotificationMap
         return notifications == null ? new LinkedList<>() : new LinkedList<>( notifications );
     }
 
+    /**
+     * Returns the notifications of the given job with a sequence number
+     * greater than the given sequence number, newest first. Only the new
+     * notifications are visited.
+     *
+     * @param jobType the {@link JobType}.
+     * @param jobId the job identifier.
+     * @param afterSequence the sequence number of the last notification read
+     *        by the client, or 0 to read all notifications.
+     * @return a list of notifications.
+     */
+    public List<Notification> getNotificationsSince( JobType jobType, String jobId, long afterSequence )
+    {
+        Deque<Notification> notifications = notificationsWithType.get( jobType ).get( jobId );
+
+        List<Notification> newer = new ArrayList<>();
+
+        if ( notifications != null )
+        {
+            for ( Notification notification : notifications )
+            {
+                if ( notification.getSequence() <= afterSequence )
+                {
+                    break;
+                }
+
+                newer.add( notification );
+            }
+        }
+
+        return newer;
+    }
+
     public Map<String, Deque<Notification>> getNotificationsWithType( JobType jobType )
     {
         return unmodifiableMap( notificationsWithType.get( jobType ) );
@@ -90,15 +137,45 @@ public class NotificationMap
             return;
         }
         JobType jobType = configuration.getJobType();
-        Deque<String> notifications = notificationsJobIdOrder.get( jobType );
-        if ( notifications.size() > MAX_POOL_TYPE_SIZE )
+        Map<String, Deque<Notification>> jobs = notificationsWithType.get( jobType );
+        Deque<Notification> notifications = jobs.get( jobId );
+        if ( notifications == null )
+        {
+            Deque<Notification> created = new LinkedBlockingDeque<>( MAX_NOTIFICATIONS_PER_JOB );
+            notifications = jobs.putIfAbsent( jobId, created );
+            if ( notifications == null )
+            {
+                notifications = created;
+                addJob( jobType, jobId );
+            }
+        }
+        // Sequence numbers must be ascending from tail to head for readers
+        synchronized ( notifications )
+        {
+            notification.setSequence( sequence.incrementAndGet() );
+            while ( !notifications.offerFirst( notification ) )
+            {
+                notifications.pollLast();
+            }
+        }
+    }
+
+    /**
+     * Records the given job as the most recent job of its type and removes the
+     * notifications of the oldest jobs beyond the pool size.
+     */
+    private void addJob( JobType jobType, String jobId )
+    {
+        Deque<String> jobIds = notificationsJobIdOrder.get( jobType );
+        jobIds.addFirst( jobId );
+        while ( jobIds.size() > MAX_POOL_TYPE_SIZE )
         {
-            notificationsWithType.get( jobType ).remove( notifications.removeLast() );
+            String oldest = jobIds.pollLast();
+            if ( oldest != null )
+            {
+                notificationsWithType.get( jobType ).remove( oldest );
+            }
         }
-        notifications.addFirst( jobId );
-        notificationsWithType.get( jobType )
-            .computeIfAbsent( jobId, key -> new ConcurrentLinkedDeque<>() )
-            .addFirst( notification );
     }
 
     public void addSummary( JobConfiguration configuration, Object summary )
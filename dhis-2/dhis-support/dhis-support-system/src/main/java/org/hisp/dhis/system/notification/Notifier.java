@@ -28,6 +28,7 @@
 package org.hisp.dhis.system.notification;
 
 import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 
 import org.hisp.dhis.scheduling.JobConfiguration;
@@ -56,6 +57,19 @@ public interface Notifier
 
     Deque<Notification> getNotificationsByJobId( JobType jobType, String jobId );
 
+    /**
+     * Returns the notifications of the given job which were added after the
+     * notification with the given sequence number, newest first. Allows
+     * clients tracking the progress of a job to read only new notifications.
+     *
+     * @param jobType the {@link JobType}.
+     * @param jobId the job identifier.
+     * @param afterSequence the sequence number of the last notification read,
+     *        or 0 to read all notifications.
+     * @return a list of notifications.
+     */
+    List<Notification> getNotificationsSince( JobType jobType, String jobId, long afterSequence );
+
     Map<String, Deque<Notification>> getNotificationsByJobType( JobType jobType );
 
     Notifier clear( JobConfiguration id );
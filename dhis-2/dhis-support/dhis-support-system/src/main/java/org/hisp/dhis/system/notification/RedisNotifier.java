@@ -28,11 +28,15 @@
 package org.hisp.dhis.system.notification;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Deque;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -41,7 +45,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -72,10 +79,14 @@ public class RedisNotifier implements Notifier
 
     private static final String SUMMARY_TYPE_PREFIX = "summary:type:";
 
+    private static final String NOTIFICATION_SEQUENCE_KEY = "notification:sequence";
+
     private static final String COLON = ":";
 
     private static final int MAX_POOL_TYPE_SIZE = 500;
 
+    private static final int MAX_NOTIFICATIONS_PER_JOB = 500;
+
     private final ObjectMapper jsonMapper;
 
     public RedisNotifier(
@@ -129,16 +140,17 @@ public class RedisNotifier implements Notifier
             {
                 if ( redisTemplate.boundZSetOps( notificationOrderKey ).zCard() >= MAX_POOL_TYPE_SIZE )
                 {
-                    Set<String> deleteKeys = redisTemplate.boundZSetOps( notificationOrderKey ).range( 0, 0 );
-                    redisTemplate.delete( deleteKeys );
+                    Set<String> deleteJobIds = redisTemplate.boundZSetOps( notificationOrderKey ).range( 0, 0 );
+                    deleteJobIds.forEach(
+                        jobId -> redisTemplate.delete( generateNotificationKey( id.getJobType(), jobId ) ) );
                     redisTemplate.boundZSetOps( notificationOrderKey ).removeRange( 0, 0 );
                 }
 
-                redisTemplate.boundZSetOps( notificationKey ).add( jsonMapper.writeValueAsString( notification ),
-                    now.getTime() );
+                addNotification( notificationKey, notification );
+
                 redisTemplate.boundZSetOps( notificationOrderKey ).add( id.getUid(), now.getTime() );
             }
-            catch ( JsonProcessingException ex )
+            catch ( UncheckedIOException ex )
             {
                 log.warn( String.format( NOTIFIER_ERROR, ex.getMessage() ) );
             }
@@ -148,6 +160,72 @@ public class RedisNotifier implements Notifier
         return this;
     }
 
+    /**
+     * Adds the notification scored by the next sequence number and trims the
+     * oldest notifications beyond the maximum per job. The sequence key is
+     * watched, so the increment, add and trim are applied together and the
+     * transaction is retried if another notification took the sequence number
+     * in the meantime. Readers asking for notifications after a sequence
+     * number thereby never miss one added later with a lower number.
+     */
+    private void addNotification( String notificationKey, Notification notification )
+    {
+        List<Object> results;
+
+        do
+        {
+            results = redisTemplate.execute( new SessionCallback<List<Object>>()
+            {
+                @Override
+                @SuppressWarnings( "unchecked" )
+                public <K, V> List<Object> execute( RedisOperations<K, V> operations )
+                {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+
+                    ops.watch( NOTIFICATION_SEQUENCE_KEY );
+
+                    notification.setSequence( getSequence( ops ) + 1 );
+
+                    String value = toJson( ops, notification );
+
+                    ops.multi();
+                    ops.opsForValue().increment( NOTIFICATION_SEQUENCE_KEY );
+                    ops.opsForZSet().add( notificationKey, value, notification.getSequence() );
+                    ops.opsForZSet().removeRange( notificationKey, 0, -(MAX_NOTIFICATIONS_PER_JOB + 1) );
+
+                    return ops.exec();
+                }
+            } );
+        }
+        while ( results == null || results.isEmpty() );
+    }
+
+    /**
+     * Returns the current notification sequence number. The counter is stored
+     * as a plain number by {@code INCR}, so it is read without the value
+     * serializer of the template.
+     */
+    private static long getSequence( RedisOperations<String, String> ops )
+    {
+        byte[] sequence = ops.execute( (RedisCallback<byte[]>) connection -> connection
+            .get( NOTIFICATION_SEQUENCE_KEY.getBytes( StandardCharsets.UTF_8 ) ) );
+
+        return sequence != null ? Long.parseLong( new String( sequence, StandardCharsets.UTF_8 ) ) : 0L;
+    }
+
+    private String toJson( RedisOperations<String, String> ops, Notification notification )
+    {
+        try
+        {
+            return jsonMapper.writeValueAsString( notification );
+        }
+        catch ( JsonProcessingException ex )
+        {
+            ops.unwatch();
+            throw new UncheckedIOException( ex );
+        }
+    }
+
     @Override
     public Notifier update( JobConfiguration id, String message )
     {
@@ -199,6 +277,24 @@ public class RedisNotifier implements Notifier
         return notifications;
     }
 
+    @Override
+    public List<Notification> getNotificationsSince( JobType jobType, String jobId, long afterSequence )
+    {
+        List<Notification> notifications = new ArrayList<>();
+        redisTemplate.boundZSetOps( generateNotificationKey( jobType, jobId ) )
+            .reverseRangeByScore( afterSequence + 1, Double.POSITIVE_INFINITY ).forEach( x -> {
+                try
+                {
+                    notifications.add( jsonMapper.readValue( x, Notification.class ) );
+                }
+                catch ( IOException ex )
+                {
+                    log.warn( String.format( NOTIFIER_ERROR, ex.getMessage() ) );
+                }
+            } );
+        return notifications;
+    }
+
     @Override
     public Map<String, Deque<Notification>> getNotificationsByJobType( JobType jobType )
     {
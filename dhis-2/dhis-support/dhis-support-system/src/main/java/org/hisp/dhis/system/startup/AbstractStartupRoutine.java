@@ -57,6 +57,20 @@ public abstract class AbstractStartupRoutine
         this.skipInTests = skipInTests;
     }
 
+    private boolean parallel = false;
+
+    public void setParallel( boolean parallel )
+    {
+        this.parallel = parallel;
+    }
+
+    private boolean deferred = false;
+
+    public void setDeferred( boolean deferred )
+    {
+        this.deferred = deferred;
+    }
+
     // -------------------------------------------------------------------------
     // StartupRoutine implementation
     // -------------------------------------------------------------------------
@@ -78,4 +92,16 @@ public abstract class AbstractStartupRoutine
     {
         return skipInTests;
     }
+
+    @Override
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    @Override
+    public boolean isDeferred()
+    {
+        return deferred;
+    }
 }
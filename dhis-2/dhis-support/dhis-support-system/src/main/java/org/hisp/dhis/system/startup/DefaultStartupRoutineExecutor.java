@@ -27,7 +27,22 @@
  */
 package org.hisp.dhis.system.startup;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -35,10 +50,18 @@ import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
  * Default implementation of StartupRoutineExecutor. The execute method will
- * execute the added StartupRoutines ordered by their run levels. Startup
- * routines can be ignored from the command line by appending the below.
+ * execute the added StartupRoutines ordered by their run levels. Routines of
+ * the same run level which are marked as parallel are executed concurrently,
+ * and a run level is completed before the next one is started. Routines
+ * marked as deferred are executed in the background once all other routines
+ * are done. Startup routines can be ignored from the command line by
+ * appending the below.
  *
  * <code>-Ddhis.skip.startup=true</code>
  *
@@ -53,12 +76,17 @@ public class DefaultStartupRoutineExecutor
 
     private static final String SKIP_PROP = "dhis.skip.startup";
 
+    private static final String TIMER_NAME = "startup.routine";
+
     @Autowired
     private DhisConfigurationProvider config;
 
     @Autowired( required = false )
     private List<StartupRoutine> startupRoutines;
 
+    @Autowired( required = false )
+    private MeterRegistry meterRegistry;
+
     // -------------------------------------------------------------------------
     // Execute
     // -------------------------------------------------------------------------
@@ -98,24 +126,214 @@ public class DefaultStartupRoutineExecutor
             return;
         }
 
-        startupRoutines.sort( new StartupRoutineComparator() );
+        List<StartupRoutine> routines = startupRoutines.stream()
+            .filter( routine -> !(testing && routine.skipInTests()) )
+            .sorted( new StartupRoutineComparator() )
+            .collect( toList() );
+
+        // Deferred routines are run inline in tests to keep them deterministic
+
+        List<StartupRoutine> deferred = testing ? Collections.emptyList()
+            : routines.stream().filter( StartupRoutine::isDeferred ).collect( toList() );
+
+        Map<Integer, List<StartupRoutine>> runlevels = routines.stream()
+            .filter( routine -> !deferred.contains( routine ) )
+            .collect( groupingBy( StartupRoutine::getRunlevel, TreeMap::new, toList() ) );
+
+        Map<StartupRoutine, Long> timings = new ConcurrentHashMap<>();
+        Progress progress = new Progress( routines.size() );
+
+        for ( Map.Entry<Integer, List<StartupRoutine>> runlevel : runlevels.entrySet() )
+        {
+            executeRunlevel( runlevel.getKey(), runlevel.getValue(), progress, timings );
+        }
+
+        logTimings( timings );
+
+        log.info( "All startup routines done" );
+
+        if ( !deferred.isEmpty() )
+        {
+            executeDeferred( deferred, progress );
+        }
+    }
+
+    /**
+     * Executes the given routines of a single run level. Parallel routines are
+     * submitted to a temporary thread pool with one thread per routine, as
+     * they are typically waiting on the database, while the remaining
+     * routines are executed on the calling thread. Returns when all routines
+     * are done and rethrows the first failure.
+     */
+    private void executeRunlevel( int runlevel, List<StartupRoutine> routines, Progress progress,
+        Map<StartupRoutine, Long> timings )
+        throws Exception
+    {
+        List<StartupRoutine> parallel = routines.stream().filter( StartupRoutine::isParallel ).collect( toList() );
+        List<StartupRoutine> sequential = new ArrayList<>( routines );
+
+        if ( parallel.size() < 2 )
+        {
+            parallel = Collections.emptyList();
+        }
+
+        sequential.removeAll( parallel );
 
-        int total = startupRoutines.size();
-        int index = 1;
+        ExecutorService executor = null;
+        List<Future<?>> futures = new ArrayList<>();
 
-        for ( StartupRoutine routine : startupRoutines )
+        try
         {
-            if ( !(testing && routine.skipInTests()) )
+            if ( !parallel.isEmpty() )
             {
-                log.info( "Executing startup routine [" + index + " of " + total + ", runlevel " + routine.getRunlevel()
-                    + "]: " + routine.getName() );
+                executor = Executors.newFixedThreadPool( parallel.size(), new ThreadFactoryBuilder()
+                    .setNameFormat( "startup-runlevel-" + runlevel + "-%d" ).setDaemon( true ).build() );
 
-                routine.execute();
+                for ( StartupRoutine routine : parallel )
+                {
+                    futures.add( executor.submit( () -> {
+                        executeRoutine( routine, progress, timings );
+                        return null;
+                    } ) );
+                }
+            }
+
+            for ( StartupRoutine routine : sequential )
+            {
+                executeRoutine( routine, progress, timings );
+            }
 
-                ++index;
+            for ( Future<?> future : futures )
+            {
+                awaitRoutine( future );
+            }
+        }
+        finally
+        {
+            if ( executor != null )
+            {
+                executor.shutdownNow();
             }
         }
+    }
 
-        log.info( "All startup routines done" );
+    private void executeDeferred( List<StartupRoutine> routines, Progress progress )
+    {
+        Thread thread = new Thread( () -> {
+            Map<StartupRoutine, Long> timings = new ConcurrentHashMap<>();
+
+            for ( StartupRoutine routine : routines )
+            {
+                try
+                {
+                    executeRoutine( routine, progress, timings );
+                }
+                catch ( Exception ex )
+                {
+                    log.error( "Deferred startup routine failed: " + routine.getName(), ex );
+                }
+            }
+
+            logTimings( timings );
+
+            log.info( "All deferred startup routines done" );
+        }, "startup-deferred" );
+
+        thread.setDaemon( true );
+        thread.start();
+    }
+
+    private void executeRoutine( StartupRoutine routine, Progress progress, Map<StartupRoutine, Long> timings )
+        throws Exception
+    {
+        log.info( "Executing startup routine [" + progress.next() + " of " + progress.total + ", runlevel "
+            + routine.getRunlevel() + "]: " + routine.getName() );
+
+        long start = System.nanoTime();
+
+        try
+        {
+            routine.execute();
+        }
+        finally
+        {
+            long duration = System.nanoTime() - start;
+
+            timings.put( routine, duration );
+
+            if ( meterRegistry != null )
+            {
+                Timer.builder( TIMER_NAME )
+                    .description( "Time taken to execute a startup routine" )
+                    .tag( "routine", routine.getName() )
+                    .tag( "runlevel", String.valueOf( routine.getRunlevel() ) )
+                    .register( meterRegistry )
+                    .record( duration, TimeUnit.NANOSECONDS );
+            }
+        }
+    }
+
+    private static void awaitRoutine( Future<?> future )
+        throws Exception
+    {
+        try
+        {
+            future.get();
+        }
+        catch ( ExecutionException ex )
+        {
+            Throwable cause = ex.getCause();
+
+            if ( cause instanceof Exception )
+            {
+                throw (Exception) cause;
+            }
+
+            if ( cause instanceof Error )
+            {
+                throw (Error) cause;
+            }
+
+            throw ex;
+        }
+    }
+
+    private static void logTimings( Map<StartupRoutine, Long> timings )
+    {
+        if ( timings.isEmpty() )
+        {
+            return;
+        }
+
+        StringBuilder report = new StringBuilder( "Startup routine timings (slowest first):" );
+
+        timings.entrySet().stream()
+            .sorted( Map.Entry.<StartupRoutine, Long> comparingByValue( Comparator.reverseOrder() ) )
+            .forEach( entry -> report.append( System.lineSeparator() )
+                .append( "  " ).append( entry.getKey().getName() )
+                .append( " [runlevel " ).append( entry.getKey().getRunlevel() ).append( "]: " )
+                .append( TimeUnit.NANOSECONDS.toMillis( entry.getValue() ) ).append( " ms" ) );
+
+        log.info( report.toString() );
+    }
+
+    /**
+     * Thread-safe counter for the progress log statements.
+     */
+    private static final class Progress
+    {
+        private final int total;
+
+        private final AtomicInteger index = new AtomicInteger();
+
+        private Progress( int total )
+        {
+            this.total = total;
+        }
+
+        private int next()
+        {
+            return index.incrementAndGet();
+        }
     }
 }
@@ -67,4 +67,30 @@ public interface StartupRoutine
      * @return true if this StartupRoutine is skipped in tests, false otherwise.
      */
     boolean skipInTests();
+
+    /**
+     * Returns whether this StartupRoutine may be executed concurrently with
+     * other parallel StartupRoutines of the same runlevel. Routines which are
+     * not parallel are executed one by one on the startup thread.
+     *
+     * @return true if this StartupRoutine can run in parallel.
+     */
+    default boolean isParallel()
+    {
+        return false;
+    }
+
+    /**
+     * Returns whether this StartupRoutine can be deferred until after all
+     * other StartupRoutines have completed, in which case it is executed in
+     * the background while the system is accepting requests. Failures of
+     * deferred routines are logged and do not prevent the system from
+     * starting.
+     *
+     * @return true if this StartupRoutine can be deferred.
+     */
+    default boolean isDeferred()
+    {
+        return false;
+    }
 }
@@ -31,11 +31,21 @@ import static java.util.stream.Collectors.toList;
 import static org.hisp.dhis.utils.Assertions.assertContainsOnly;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Test;
 
 /**
@@ -55,6 +65,15 @@ public class CappedLocalCacheTest
             .expireAfterWrite( 1, TimeUnit.MINUTES )
             .forceInMemory() );
 
+    private final CappedLocalCache offHeapCache = new CappedLocalCache( sizeof, 0, 1024L * 1024L );
+
+    private final Cache<String> largeValueRegion = offHeapCache
+        .createRegion( new SimpleCacheBuilder<String>()
+            .forRegion( "large" )
+            .expireAfterWrite( 1, TimeUnit.MINUTES )
+            .withLargeValues()
+            .forceInMemory() );
+
     @Test
     public void testSizeofCacheEntry()
     {
@@ -119,4 +138,94 @@ public class CappedLocalCacheTest
         testRegion.put( "a", "b" );
         assertContainsOnly( testRegion.getAll().collect( toList() ), "y", "b" );
     }
+
+    @Test
+    public void testLargeValueIsStoredOffHeapAndPromotedWhenHot()
+    {
+        String value = StringUtils.repeat( 'x', 10_000 );
+        largeValueRegion.put( "foo", value );
+
+        String offHeapRead = largeValueRegion.get( "foo" ).get();
+        assertEquals( value, offHeapRead );
+        assertNotSame( value, offHeapRead );
+
+        String promotedRead = largeValueRegion.get( "foo" ).get();
+        assertEquals( value, promotedRead );
+        assertSame( promotedRead, largeValueRegion.get( "foo" ).get() );
+    }
+
+    @Test
+    public void testSmallValueOfLargeValueRegionStaysOnHeap()
+    {
+        String value = "bar";
+        largeValueRegion.put( "foo", value );
+        assertSame( value, largeValueRegion.get( "foo" ).get() );
+    }
+
+    @Test
+    public void testInvalidateOffHeap()
+    {
+        largeValueRegion.put( "x", StringUtils.repeat( 'x', 10_000 ) );
+        largeValueRegion.put( "a", StringUtils.repeat( 'a', 10_000 ) );
+        largeValueRegion.invalidate( "x" );
+        assertFalse( largeValueRegion.get( "x" ).isPresent() );
+        assertTrue( largeValueRegion.get( "a" ).isPresent() );
+        largeValueRegion.invalidateAll();
+        assertFalse( largeValueRegion.get( "a" ).isPresent() );
+    }
+
+    @Test
+    public void testGetAllIncludesOffHeap()
+    {
+        String large = StringUtils.repeat( 'x', 10_000 );
+        largeValueRegion.put( "x", large );
+        largeValueRegion.put( "a", "b" );
+        assertContainsOnly( largeValueRegion.getAll().collect( toList() ), large, "b" );
+    }
+
+    @Test
+    public void testOffHeapTierEvictsLeastRecentlyUsed()
+    {
+        OffHeapCacheTier tier = new OffHeapCacheTier( 100_000L );
+        long expires = System.currentTimeMillis() + 60_000L;
+        for ( int i = 0; i < 12; i++ )
+        {
+            assertTrue( tier.put( "r", "k" + i, StringUtils.repeat( 'x', 10_000 ), expires ) );
+        }
+        assertTrue( tier.getTotalSize() <= 100_000L );
+        assertNull( tier.get( "r", "k0", System.currentTimeMillis() ) );
+        assertEquals( StringUtils.repeat( 'x', 10_000 ), tier.get( "r", "k11", System.currentTimeMillis() ).value );
+    }
+
+    @Test
+    public void testGetAllLoadsMissingKeysInBulk()
+    {
+        testRegion.put( "a", "A" );
+        List<Set<String>> loaderCalls = new ArrayList<>();
+
+        Map<String, String> values = testRegion.getAll( Arrays.asList( "a", "b", "c" ), missingKeys -> {
+            loaderCalls.add( missingKeys );
+            Map<String, String> loaded = new HashMap<>();
+            loaded.put( "b", "B" );
+            return loaded;
+        } );
+
+        assertEquals( 1, loaderCalls.size() );
+        assertEquals( new HashSet<>( Arrays.asList( "b", "c" ) ), loaderCalls.get( 0 ) );
+        assertEquals( 2, values.size() );
+        assertEquals( "A", values.get( "a" ) );
+        assertEquals( "B", values.get( "b" ) );
+        assertEquals( "B", testRegion.getIfPresent( "b" ).get() );
+        assertFalse( testRegion.getIfPresent( "c" ).isPresent() );
+    }
+
+    @Test
+    public void testPutAll()
+    {
+        Map<String, String> values = new HashMap<>();
+        values.put( "x", "y" );
+        values.put( "a", "b" );
+        testRegion.putAll( values );
+        assertEquals( values, testRegion.getAllIfPresent( Arrays.asList( "x", "a", "z" ) ) );
+    }
 }
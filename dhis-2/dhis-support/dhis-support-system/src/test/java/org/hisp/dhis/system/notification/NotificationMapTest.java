@@ -28,8 +28,11 @@
 package org.hisp.dhis.system.notification;
 
 import static org.hisp.dhis.scheduling.JobType.DATAVALUE_IMPORT;
+import static org.hisp.dhis.system.notification.NotificationMap.MAX_NOTIFICATIONS_PER_JOB;
 import static org.hisp.dhis.system.notification.NotificationMap.MAX_POOL_TYPE_SIZE;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 import org.hisp.dhis.scheduling.JobConfiguration;
@@ -76,4 +79,70 @@ public class NotificationMapTest
         Assert.assertFalse( notPresentSummary.isPresent() );
 
     }
+
+    @Test
+    public void testNotificationsOfJobAreBounded()
+    {
+        JobConfiguration jobConfiguration = new JobConfiguration( null, DATAVALUE_IMPORT, "userId", false );
+        jobConfiguration.setUid( "job" );
+
+        for ( int i = 0; i < MAX_NOTIFICATIONS_PER_JOB + 10; i++ )
+        {
+            mapToTest.add( jobConfiguration, newNotification( "Message " + i ) );
+        }
+
+        Assert.assertEquals( MAX_NOTIFICATIONS_PER_JOB,
+            mapToTest.getNotificationsByJobId( DATAVALUE_IMPORT, "job" ).size() );
+        Assert.assertEquals( "Message " + (MAX_NOTIFICATIONS_PER_JOB + 9),
+            mapToTest.getNotificationsByJobId( DATAVALUE_IMPORT, "job" ).getFirst().getMessage() );
+        Assert.assertEquals( "Message 10",
+            mapToTest.getNotificationsByJobId( DATAVALUE_IMPORT, "job" ).getLast().getMessage() );
+    }
+
+    @Test
+    public void testJobWithManyNotificationsIsNotEvicted()
+    {
+        JobConfiguration jobConfiguration = new JobConfiguration( null, DATAVALUE_IMPORT, "userId", false );
+        jobConfiguration.setUid( "job" );
+
+        for ( int i = 0; i < MAX_POOL_TYPE_SIZE + 10; i++ )
+        {
+            mapToTest.add( jobConfiguration, newNotification( "Message " + i ) );
+        }
+
+        Assert.assertEquals( 1, mapToTest.getNotificationsWithType( DATAVALUE_IMPORT ).size() );
+        Assert.assertFalse( mapToTest.getNotificationsByJobId( DATAVALUE_IMPORT, "job" ).isEmpty() );
+    }
+
+    @Test
+    public void testGetNotificationsSince()
+    {
+        JobConfiguration jobConfiguration = new JobConfiguration( null, DATAVALUE_IMPORT, "userId", false );
+        jobConfiguration.setUid( "job" );
+
+        mapToTest.add( jobConfiguration, newNotification( "Started" ) );
+        mapToTest.add( jobConfiguration, newNotification( "Working" ) );
+
+        List<Notification> all = mapToTest.getNotificationsSince( DATAVALUE_IMPORT, "job", 0 );
+
+        Assert.assertEquals( 2, all.size() );
+        Assert.assertEquals( "Working", all.get( 0 ).getMessage() );
+
+        long lastSequence = all.get( 0 ).getSequence();
+
+        Assert.assertTrue( mapToTest.getNotificationsSince( DATAVALUE_IMPORT, "job", lastSequence ).isEmpty() );
+
+        mapToTest.add( jobConfiguration, newNotification( "Done" ) );
+
+        List<Notification> newer = mapToTest.getNotificationsSince( DATAVALUE_IMPORT, "job", lastSequence );
+
+        Assert.assertEquals( 1, newer.size() );
+        Assert.assertEquals( "Done", newer.get( 0 ).getMessage() );
+        Assert.assertTrue( mapToTest.getNotificationsSince( DATAVALUE_IMPORT, "unknown", 0 ).isEmpty() );
+    }
+
+    private Notification newNotification( String message )
+    {
+        return new Notification( NotificationLevel.INFO, DATAVALUE_IMPORT, new Date(), message, false );
+    }
 }
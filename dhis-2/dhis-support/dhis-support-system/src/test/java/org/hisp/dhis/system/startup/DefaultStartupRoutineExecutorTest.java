@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.system.startup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DefaultStartupRoutineExecutorTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DefaultStartupRoutineExecutor executor;
+
+    private final List<String> executed = Collections.synchronizedList( new ArrayList<>() );
+
+    @Before
+    public void setUp()
+    {
+        when( config.isReadOnlyMode() ).thenReturn( false );
+
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new DefaultStartupRoutineExecutor();
+
+        ReflectionTestUtils.setField( executor, "config", config );
+        ReflectionTestUtils.setField( executor, "meterRegistry", meterRegistry );
+    }
+
+    @Test
+    public void testExecuteInRunlevelOrder()
+        throws Exception
+    {
+        setRoutines( new TestRoutine( "C", 3 ), new TestRoutine( "A", 1 ), new TestRoutine( "B", 2 ) );
+
+        executor.execute();
+
+        assertEquals( Arrays.asList( "A", "B", "C" ), executed );
+        assertEquals( 1, meterRegistry.get( "startup.routine" ).tag( "routine", "A" ).timer().count() );
+    }
+
+    @Test
+    public void testExecuteParallelRoutinesConcurrently()
+        throws Exception
+    {
+        // Both routines wait for each other, which only completes when they
+        // run at the same time
+
+        CountDownLatch latch = new CountDownLatch( 2 );
+
+        TestRoutine routineA = new TestRoutine( "A", 1, latch );
+        TestRoutine routineB = new TestRoutine( "B", 1, latch );
+        routineA.setParallel( true );
+        routineB.setParallel( true );
+
+        setRoutines( routineA, routineB, new TestRoutine( "C", 2 ) );
+
+        executor.execute();
+
+        assertEquals( 3, executed.size() );
+        assertEquals( "C", executed.get( 2 ) );
+    }
+
+    @Test( expected = IllegalStateException.class )
+    public void testFailureInParallelRoutineIsRethrown()
+        throws Exception
+    {
+        TestRoutine failing = new TestRoutine( "A", 1 )
+        {
+            @Override
+            public void execute()
+            {
+                throw new IllegalStateException( "Failed" );
+            }
+        };
+
+        TestRoutine routineB = new TestRoutine( "B", 1 );
+        failing.setParallel( true );
+        routineB.setParallel( true );
+
+        setRoutines( failing, routineB, new TestRoutine( "C", 2 ) );
+
+        executor.execute();
+    }
+
+    @Test
+    public void testDeferredRoutineRunsAfterOthers()
+        throws Exception
+    {
+        CountDownLatch done = new CountDownLatch( 1 );
+
+        TestRoutine deferred = new TestRoutine( "A", 1 )
+        {
+            @Override
+            public void execute()
+            {
+                super.execute();
+                done.countDown();
+            }
+        };
+
+        deferred.setDeferred( true );
+
+        setRoutines( deferred, new TestRoutine( "B", 2 ) );
+
+        executor.execute();
+
+        assertTrue( done.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( Arrays.asList( "B", "A" ), executed );
+    }
+
+    @Test
+    public void testDeferredRoutineRunsInlineForTesting()
+        throws Exception
+    {
+        TestRoutine deferred = new TestRoutine( "A", 1 );
+        deferred.setDeferred( true );
+
+        TestRoutine skipped = new TestRoutine( "C", 3 );
+        skipped.setSkipInTests( true );
+
+        setRoutines( deferred, new TestRoutine( "B", 2 ), skipped );
+
+        executor.executeForTesting();
+
+        assertEquals( Arrays.asList( "A", "B" ), executed );
+    }
+
+    private void setRoutines( StartupRoutine... routines )
+    {
+        ReflectionTestUtils.setField( executor, "startupRoutines", new ArrayList<>( Arrays.asList( routines ) ) );
+    }
+
+    private class TestRoutine
+        extends AbstractStartupRoutine
+    {
+        private final CountDownLatch latch;
+
+        TestRoutine( String name, int runlevel )
+        {
+            this( name, runlevel, null );
+        }
+
+        TestRoutine( String name, int runlevel, CountDownLatch latch )
+        {
+            this.latch = latch;
+            setName( name );
+            setRunlevel( runlevel );
+        }
+
+        @Override
+        public void execute()
+        {
+            if ( latch != null )
+            {
+                latch.countDown();
+
+                try
+                {
+                    assertTrue( latch.await( 10, TimeUnit.SECONDS ) );
+                }
+                catch ( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            executed.add( getName() );
+        }
+    }
+}
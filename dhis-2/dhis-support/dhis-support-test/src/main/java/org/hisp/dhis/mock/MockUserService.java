@@ -30,7 +30,9 @@ package org.hisp.dhis.mock;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -416,4 +418,10 @@ public class MockUserService
     {
         return null;
     }
+
+    @Override
+    public Map<String, String> getDisplayNames( Collection<String> userUids )
+    {
+        return new HashMap<>();
+    }
 }
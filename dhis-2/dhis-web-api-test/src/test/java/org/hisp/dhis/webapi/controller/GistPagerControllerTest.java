@@ -86,4 +86,50 @@ public class GistPagerControllerTest extends AbstractGistControllerTest
         assertEquals( "extra4", dataSets.getObject( 1 ).getString( "name" ).string() );
         assertEquals( "extra5", dataSets.getObject( 2 ).getString( "name" ).string() );
     }
+
+    @Test
+    public void testPager_TotalEstimate_FilteredIsCounted()
+    {
+        createDataSetsForOrganisationUnit( 10, orgUnitId, "extra" );
+
+        JsonObject gist = GET( "/dataSets/gist?total=estimate&pageSize=3&filter=name:startsWith:extra" ).content();
+        assertHasPager( gist, 1, 3, 10 );
+    }
+
+    @Test
+    public void testPager_TotalEstimate_CountedWithoutStatistics()
+    {
+        createDataSetsForOrganisationUnit( 10, orgUnitId, "extra" );
+
+        // H2 has no table statistics, so the total is counted
+        int total = GET( "/dataSets/gist?total=true&pageSize=3" ).content().getObject( "pager" )
+            .getNumber( "total" ).intValue();
+        JsonObject gist = GET( "/dataSets/gist?total=estimate&pageSize=3" ).content();
+        assertHasPager( gist, 1, 3, total );
+    }
+
+    @Test
+    public void testPager_KeysetPaging()
+    {
+        createDataSetsForOrganisationUnit( 10, orgUnitId, "extra" );
+
+        String url = "/organisationUnits/{id}/dataSets/gist?pageSize=3&order=name&filter=name:startsWith:extra&after=";
+        JsonObject gist = GET( url, orgUnitId ).content();
+        JsonArray dataSets = gist.getArray( "dataSets" );
+        assertEquals( "extra2", dataSets.getObject( 2 ).getString( "name" ).string() );
+        String lastId = dataSets.getObject( 2 ).getString( "id" ).string();
+        String nextPage = gist.getObject( "pager" ).getString( "nextPage" ).string();
+        assertEquals(
+            "/organisationUnits/{id}/dataSets/gist?pageSize=3&order=name&filter=name:startsWith:extra&page=2&after={after}"
+                .replace( "{id}", orgUnitId ).replace( "{after}", lastId ),
+            nextPage );
+
+        // now page 2 starting after the last element of page 1
+        gist = GET( nextPage ).content();
+        assertHasPager( gist, 2, 3 );
+        dataSets = gist.getArray( "dataSets" );
+        assertEquals( "extra3", dataSets.getObject( 0 ).getString( "name" ).string() );
+        assertEquals( "extra4", dataSets.getObject( 1 ).getString( "name" ).string() );
+        assertEquals( "extra5", dataSets.getObject( 2 ).getString( "name" ).string() );
+    }
 }
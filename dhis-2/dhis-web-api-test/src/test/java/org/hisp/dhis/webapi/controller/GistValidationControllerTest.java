@@ -105,6 +105,21 @@ public class GistValidationControllerTest extends AbstractGistControllerTest
             GET( "/users/gist?order=userGroups" ).error( HttpStatus.BAD_REQUEST ).getMessage() );
     }
 
+    @Test
+    public void testValidation_Order_KeysetPagingOptionalProperty()
+    {
+        assertEquals( "Property `code` cannot be used as order property with keyset paging.",
+            GET( "/dataSets/gist?order=code&after=" ).error( HttpStatus.BAD_REQUEST ).getMessage() );
+        assertEquals( HttpStatus.OK, GET( "/dataSets/gist?order=code" ).status() );
+    }
+
+    @Test
+    public void testValidation_Order_KeysetPagingNestedProperty()
+    {
+        assertEquals( "Property `name` cannot be used as order property with keyset paging.",
+            GET( "/organisationUnits/gist?order=parent.name&after=" ).error( HttpStatus.BAD_REQUEST ).getMessage() );
+    }
+
     @Test
     public void testValidation_Field_UnknownPreset()
     {
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.webapi.controller;
+
+import static java.util.Collections.singletonList;
+import static org.hisp.dhis.webapi.WebClient.Accept;
+import static org.hisp.dhis.webapi.utils.ContextUtils.CONTENT_TYPE_XML;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.hisp.dhis.webapi.DhisControllerConvenienceTest;
+import org.hisp.dhis.webapi.json.JsonArray;
+import org.hisp.dhis.webapi.json.JsonObject;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+/**
+ * Tests the {@link PeriodTypeController} using (mocked) REST requests. JSON is
+ * written by the field filtering manager, other formats by the node renderers.
+ */
+public class PeriodTypeControllerTest extends DhisControllerConvenienceTest
+{
+    @Test
+    public void testGetPeriodTypes()
+    {
+        JsonArray periodTypes = GET( "/periodTypes" ).content().getArray( "periodTypes" );
+
+        assertTrue( periodTypes.size() > 10 );
+
+        JsonObject periodType = periodTypes.getObject( 0 );
+        assertTrue( periodType.has( "name", "isoDuration", "isoFormat", "frequencyOrder" ) );
+    }
+
+    @Test
+    public void testGetPeriodTypes_Fields()
+    {
+        JsonArray periodTypes = GET( "/periodTypes?fields=name" ).content().getArray( "periodTypes" );
+
+        assertEquals( singletonList( "name" ), periodTypes.getObject( 0 ).names() );
+        assertEquals( "Daily", periodTypes.getObject( 0 ).getString( "name" ).string() );
+    }
+
+    @Test
+    public void testGetPeriodTypes_Xml()
+    {
+        String content = GET( "/periodTypes", Accept( CONTENT_TYPE_XML ) ).content( MediaType.APPLICATION_XML );
+
+        assertTrue( content.startsWith( "<" ) );
+        assertTrue( content.contains( "periodTypes" ) );
+    }
+}
@@ -30,11 +30,17 @@ package org.hisp.dhis.webapi.controller;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.webapi.DhisControllerConvenienceTest;
 import org.hisp.dhis.webapi.json.JsonArray;
 import org.hisp.dhis.webapi.json.JsonObject;
 import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 /**
  * Tests the {@link SystemController} using (mocked) REST requests.
@@ -43,6 +49,9 @@ import org.springframework.http.HttpStatus;
  */
 public class SystemControllerTest extends DhisControllerConvenienceTest
 {
+    @Autowired
+    private Notifier notifier;
+
     @Test
     public void testGetTasksJson()
     {
@@ -70,6 +79,31 @@ public class SystemControllerTest extends DhisControllerConvenienceTest
         assertEquals( 0, task.size() );
     }
 
+    @Test
+    public void testStreamTask()
+        throws InterruptedException
+    {
+        JobConfiguration job = new JobConfiguration( "stream", JobType.META_DATA_SYNC, null, false );
+        notifier.notify( job, NotificationLevel.INFO, "Sync started", false );
+        notifier.notify( job, NotificationLevel.INFO, "Sync done", true );
+
+        HttpResponse response = GET( "/system/tasks/{jobType}/{jobId}/stream", "META_DATA_SYNC", job.getUid() );
+        assertEquals( HttpStatus.OK, response.status() );
+
+        // notifications are pushed asynchronously once per second
+        long deadline = System.currentTimeMillis() + 5000;
+        String events = response.content( MediaType.TEXT_EVENT_STREAM );
+
+        while ( !events.contains( "Sync done" ) && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 100 );
+            events = response.content( MediaType.TEXT_EVENT_STREAM );
+        }
+
+        assertTrue( events, events.contains( "event:notification" ) );
+        assertTrue( events, events.indexOf( "Sync started" ) < events.indexOf( "Sync done" ) );
+    }
+
     @Test
     public void testGetTaskSummaryExtendedJson()
     {
@@ -319,7 +319,7 @@ public class CompleteDataSetRegistrationController
         JobConfiguration jobId = new JobConfiguration( "inMemoryCompleteDataSetRegistrationImport",
             COMPLETE_DATA_SET_REGISTRATION_IMPORT, currentUserService.getCurrentUser().getUid(), true );
 
-        taskExecutor.executeTask(
+        taskExecutor.executeTask( COMPLETE_DATA_SET_REGISTRATION_IMPORT.getTaskPool(),
             new ImportCompleteDataSetRegistrationsTask(
                 registrationExchangeService, sessionFactory, tmpFile.getLeft(), tmpFile.getRight(), importOptions,
                 format,
@@ -320,7 +320,7 @@ public class DataValueSetController
 
         JobConfiguration jobId = new JobConfiguration( "dataValueImport", DATAVALUE_IMPORT,
             currentUserService.getCurrentUser().getUid(), true );
-        taskExecutor.executeTask(
+        taskExecutor.executeTask( DATAVALUE_IMPORT.getTaskPool(),
             new ImportDataValueTask( dataValueSetService, adxDataService, sessionFactory, inputStream, importOptions,
                 jobId, format ) );
 
@@ -29,12 +29,17 @@ package org.hisp.dhis.webapi.controller;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.hisp.dhis.common.DhisApiVersion;
-import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
+import org.hisp.dhis.fieldfiltering.FieldFilterManager;
+import org.hisp.dhis.fieldfiltering.FieldFilterParams;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.Preset;
 import org.hisp.dhis.node.types.RootNode;
@@ -48,7 +53,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -64,21 +71,53 @@ public class PeriodTypeController
 
     private final FieldFilterService fieldFilterService;
 
+    private final FieldFilterManager fieldFilterManager;
+
     public PeriodTypeController( PeriodService periodService, ContextService contextService,
-        FieldFilterService fieldFilterService )
+        FieldFilterService fieldFilterService, FieldFilterManager fieldFilterManager )
     {
         this.periodService = periodService;
         this.contextService = contextService;
         this.fieldFilterService = fieldFilterService;
+        this.fieldFilterManager = fieldFilterManager;
+    }
+
+    /**
+     * Writes the period types as JSON straight to the response, the field
+     * filters are applied while serializing.
+     */
+    @GetMapping( produces = APPLICATION_JSON_VALUE )
+    public void getPeriodTypesJson( HttpServletResponse response )
+        throws IOException
+    {
+        Set<String> fields = Sets.newHashSet( contextService.getParameterValues( "fields" ) );
+
+        if ( fields.isEmpty() )
+        {
+            fields.addAll( Preset.ALL.getFields() );
+        }
+
+        FieldFilterParams<PeriodType> params = FieldFilterParams.<PeriodType> builder()
+            .objects( getAllPeriodTypes() )
+            .filters( fields )
+            .build();
+
+        response.setContentType( APPLICATION_JSON_VALUE );
+
+        try ( JsonGenerator generator = fieldFilterManager.createGenerator( response.getOutputStream() ) )
+        {
+            generator.writeStartObject();
+            generator.writeFieldName( "periodTypes" );
+            fieldFilterManager.write( params, generator );
+            generator.writeEndObject();
+        }
     }
 
     @GetMapping
     public RootNode getPeriodTypes()
     {
         List<String> fields = Lists.newArrayList( contextService.getParameterValues( "fields" ) );
-        List<PeriodType> periodTypes = periodService.getAllPeriodTypes().stream()
-            .map( PeriodType::new )
-            .collect( Collectors.toList() );
+        List<PeriodType> periodTypes = getAllPeriodTypes();
 
         if ( fields.isEmpty() )
         {
@@ -87,11 +126,19 @@ public class PeriodTypeController
 
         RootNode rootNode = NodeUtils.createMetadata();
         rootNode.addChild(
-            fieldFilterService.toCollectionNode( PeriodType.class, new FieldFilterParams( periodTypes, fields ) ) );
+            fieldFilterService.toCollectionNode( PeriodType.class,
+                new org.hisp.dhis.fieldfilter.FieldFilterParams( periodTypes, fields ) ) );
 
         return rootNode;
     }
 
+    private List<PeriodType> getAllPeriodTypes()
+    {
+        return periodService.getAllPeriodTypes().stream()
+            .map( PeriodType::new )
+            .collect( Collectors.toList() );
+    }
+
     @GetMapping( value = "/relativePeriodTypes", produces = { APPLICATION_JSON_VALUE, "application/javascript" } )
     public @ResponseBody RelativePeriodEnum[] getRelativePeriodTypes()
     {
@@ -90,7 +90,7 @@ public class PredictionController
             JobConfiguration jobId = new JobConfiguration( "inMemoryPrediction", PREDICTOR,
                 currentUserService.getCurrentUser().getUid(), true );
 
-            taskExecutor.executeTask(
+            taskExecutor.executeTask( PREDICTOR.getTaskPool(),
                 new PredictionTask( startDate, endDate, predictors, predictorGroups, predictionService, jobId ) );
 
             return jobConfigurationReport( jobId )
@@ -34,9 +34,11 @@ import static org.springframework.http.CacheControl.noCache;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -180,10 +182,14 @@ public class SharingController
             sharing.getObject().getUser().setName( object.getCreatedBy().getDisplayName() );
         }
 
-        for ( org.hisp.dhis.user.UserGroupAccess userGroupAccess : SharingUtils
-            .getDtoUserGroupAccesses( object.getUserGroupAccesses(), object.getSharing() ) )
+        Collection<org.hisp.dhis.user.UserGroupAccess> userGroupAccesses = SharingUtils
+            .getDtoUserGroupAccesses( object.getUserGroupAccesses(), object.getSharing() );
+        Map<String, String> userGroupDisplayNames = userGroupService.getDisplayNames( userGroupAccesses.stream()
+            .map( org.hisp.dhis.user.UserGroupAccess::getId ).collect( Collectors.toSet() ) );
+
+        for ( org.hisp.dhis.user.UserGroupAccess userGroupAccess : userGroupAccesses )
         {
-            String userGroupDisplayName = userGroupService.getDisplayName( userGroupAccess.getId() );
+            String userGroupDisplayName = userGroupDisplayNames.get( userGroupAccess.getId() );
 
             if ( userGroupDisplayName == null )
             {
@@ -199,10 +205,14 @@ public class SharingController
             sharing.getObject().getUserGroupAccesses().add( sharingUserGroupAccess );
         }
 
-        for ( org.hisp.dhis.user.UserAccess userAccess : SharingUtils.getDtoUserAccesses( object.getUserAccesses(),
-            object.getSharing() ) )
+        Collection<org.hisp.dhis.user.UserAccess> userAccesses = SharingUtils
+            .getDtoUserAccesses( object.getUserAccesses(), object.getSharing() );
+        Map<String, String> userDisplayNames = userService.getDisplayNames( userAccesses.stream()
+            .map( org.hisp.dhis.user.UserAccess::getUid ).collect( Collectors.toSet() ) );
+
+        for ( org.hisp.dhis.user.UserAccess userAccess : userAccesses )
         {
-            String userDisplayName = userService.getDisplayName( userAccess.getUid() );
+            String userDisplayName = userDisplayNames.get( userAccess.getUid() );
 
             if ( userDisplayName == null )
                 continue;
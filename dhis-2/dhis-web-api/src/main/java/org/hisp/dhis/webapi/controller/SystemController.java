@@ -61,6 +61,7 @@ import org.hisp.dhis.system.notification.Notification;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
+import org.hisp.dhis.webapi.service.NotificationStreamer;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.webdomain.CodeList;
 import org.hisp.dhis.webapi.webdomain.ObjectCount;
@@ -71,10 +72,12 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.dataformat.csv.CsvFactory;
 import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
@@ -106,6 +109,9 @@ public class SystemController
     @Autowired
     private Notifier notifier;
 
+    @Autowired
+    private NotificationStreamer notificationStreamer;
+
     @Autowired
     private RenderService renderService;
 
@@ -191,15 +197,35 @@ public class SystemController
 
     @GetMapping( value = "/tasks/{jobType}/{jobId}", produces = { "*/*", APPLICATION_JSON_VALUE } )
     public ResponseEntity<Collection<Notification>> getTaskJsonByUid( @PathVariable( "jobType" ) String jobType,
-        @PathVariable( "jobId" ) String jobId )
+        @PathVariable( "jobId" ) String jobId, @RequestParam( required = false ) Long since )
     {
-        Collection<Notification> notifications = jobType == null
-            ? emptyList()
-            : notifier.getNotificationsByJobId( JobType.valueOf( jobType.toUpperCase() ), jobId );
+        Collection<Notification> notifications;
+
+        if ( jobType == null )
+        {
+            notifications = emptyList();
+        }
+        else if ( since != null )
+        {
+            notifications = notifier.getNotificationsSince( JobType.valueOf( jobType.toUpperCase() ), jobId, since );
+        }
+        else
+        {
+            notifications = notifier.getNotificationsByJobId( JobType.valueOf( jobType.toUpperCase() ), jobId );
+        }
 
         return ResponseEntity.ok().cacheControl( noStore() ).body( notifications );
     }
 
+    @GetMapping( value = "/tasks/{jobType}/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE )
+    public SseEmitter streamTask( @PathVariable( "jobType" ) String jobType, @PathVariable( "jobId" ) String jobId,
+        @RequestHeader( value = "Last-Event-ID", required = false ) Long lastEventId,
+        @RequestParam( defaultValue = "0" ) long since )
+    {
+        return notificationStreamer.subscribe( JobType.valueOf( jobType.toUpperCase() ), jobId,
+            lastEventId != null ? lastEventId : since );
+    }
+
     // -------------------------------------------------------------------------
     // Tasks summary
     // -------------------------------------------------------------------------
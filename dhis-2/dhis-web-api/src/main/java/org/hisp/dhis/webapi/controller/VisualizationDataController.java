@@ -33,6 +33,7 @@ import static org.hisp.dhis.system.util.CodecUtils.filenameEncode;
 import static org.hisp.dhis.webapi.utils.ContextUtils.CONTENT_TYPE_JSON;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
 
 import javax.servlet.http.HttpServletResponse;
@@ -59,8 +60,10 @@ import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.system.util.CodecUtils;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
 import org.hisp.dhis.visualization.ChartService;
 import org.hisp.dhis.visualization.PlotData;
+import org.hisp.dhis.visualization.RenderedImageCache;
 import org.hisp.dhis.visualization.Visualization;
 import org.hisp.dhis.visualization.VisualizationGridService;
 import org.hisp.dhis.visualization.VisualizationService;
@@ -114,6 +117,9 @@ public class VisualizationDataController
     @NonNull
     private final RenderService renderService;
 
+    @NonNull
+    private final RenderedImageCache renderedImageCache;
+
     @GetMapping( value = "/visualizations/{uid}/data.html" )
     public @ResponseBody Grid getVisualizationDataHtml( @PathVariable( "uid" ) String uid, Model model,
         @RequestParam( value = "ou", required = false ) String organisationUnitUid,
@@ -224,9 +230,15 @@ public class VisualizationDataController
         if ( visualization.isChart() && isChartSupported( visualization.getType() ) )
         {
             OrganisationUnit unit = ou != null ? organisationUnitService.getOrganisationUnit( ou ) : null;
+            User user = currentUserService.getCurrentUser();
+
+            byte[] image = renderedImageCache.getImage( visualization, Arrays.asList( date, unit, width, height ),
+                user, () -> {
+                    JFreeChart jFreeChart = chartService.getJFreeChart( new PlotData( visualization ), date, unit,
+                        i18nManager.getI18nFormat(), user );
 
-            JFreeChart jFreeChart = chartService.getJFreeChart( new PlotData( visualization ), date, unit,
-                i18nManager.getI18nFormat(), currentUserService.getCurrentUser() );
+                    return ChartUtils.encodeAsPNG( jFreeChart.createBufferedImage( width, height ) );
+                } );
 
             String filename = CodecUtils.filenameEncode( visualization.getName() ) + ".png";
 
@@ -234,7 +246,7 @@ public class VisualizationDataController
                 CacheStrategy.RESPECT_SYSTEM_SETTING,
                 filename, attachment );
 
-            ChartUtils.writeChartAsPNG( response.getOutputStream(), jFreeChart, width, height );
+            response.getOutputStream().write( image );
         }
         else
         {
@@ -392,7 +392,8 @@ public class EnrollmentController
         JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
             ENROLLMENT_IMPORT, currentUserService.getCurrentUser().getUid(), true );
         taskExecutor
-            .executeTask( new ImportEnrollmentsTask( enrollments, enrollmentService, importOptions, jobId ) );
+            .executeTask( ENROLLMENT_IMPORT.getTaskPool(),
+                new ImportEnrollmentsTask( enrollments, enrollmentService, importOptions, jobId ) );
 
         return jobConfigurationReport( jobId )
             .setLocation( "/system/tasks/" + ENROLLMENT_IMPORT );
@@ -31,6 +31,7 @@ import static org.hisp.dhis.common.DimensionalObjectUtils.getDimensions;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.notFound;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Map;
 import java.util.Set;
@@ -53,6 +54,7 @@ import org.hisp.dhis.system.util.CodecUtils;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.visualization.ChartService;
 import org.hisp.dhis.visualization.PlotData;
+import org.hisp.dhis.visualization.RenderedImageCache;
 import org.hisp.dhis.webapi.controller.AbstractCrudController;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
@@ -91,6 +93,9 @@ public class EventChartController
     @Autowired
     private ContextUtils contextUtils;
 
+    @Autowired
+    private RenderedImageCache renderedImageCache;
+
     // --------------------------------------------------------------------------
     // CRUD
     // --------------------------------------------------------------------------
@@ -131,15 +136,20 @@ public class EventChartController
 
         OrganisationUnit unit = ou != null ? organisationUnitService.getOrganisationUnit( ou ) : null;
 
-        JFreeChart jFreeChart = chartService.getJFreeChart( new PlotData( chart ), date, unit,
-            i18nManager.getI18nFormat() );
+        byte[] image = renderedImageCache.getImage( chart, Arrays.asList( date, unit, width, height ),
+            currentUserService.getCurrentUser(), () -> {
+                JFreeChart jFreeChart = chartService.getJFreeChart( new PlotData( chart ), date, unit,
+                    i18nManager.getI18nFormat() );
+
+                return ChartUtils.encodeAsPNG( jFreeChart.createBufferedImage( width, height ) );
+            } );
 
         String filename = CodecUtils.filenameEncode( chart.getName() ) + ".png";
 
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_PNG, CacheStrategy.RESPECT_SYSTEM_SETTING,
             filename, attachment );
 
-        ChartUtils.writeChartAsPNG( response.getOutputStream(), jFreeChart, width, height );
+        response.getOutputStream().write( image );
     }
 
     // --------------------------------------------------------------------------
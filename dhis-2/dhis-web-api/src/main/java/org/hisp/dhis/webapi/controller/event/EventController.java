@@ -1016,7 +1016,8 @@ public class EventController
     {
         JobConfiguration jobId = new JobConfiguration( "inMemoryEventImport",
             EVENT_IMPORT, currentUserService.getCurrentUser().getUid(), true );
-        taskExecutor.executeTask( new ImportEventsTask( events, eventService, importOptions, jobId ) );
+        taskExecutor.executeTask( EVENT_IMPORT.getTaskPool(),
+            new ImportEventsTask( events, eventService, importOptions, jobId ) );
 
         return jobConfigurationReport( jobId )
             .setLocation( "/system/tasks/" + EVENT_IMPORT );
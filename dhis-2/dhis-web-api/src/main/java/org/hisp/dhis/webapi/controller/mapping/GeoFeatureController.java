@@ -59,6 +59,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
+import org.hisp.dhis.organisationunit.OrganisationUnitTileService;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
@@ -72,6 +73,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
@@ -102,14 +104,17 @@ public class GeoFeatureController
 
     private final RenderService renderService;
 
+    private final OrganisationUnitTileService organisationUnitTileService;
+
     public GeoFeatureController( DataQueryService dataQueryService,
         OrganisationUnitGroupService organisationUnitGroupService, CurrentUserService currentUserService,
-        RenderService renderService )
+        RenderService renderService, OrganisationUnitTileService organisationUnitTileService )
     {
         this.dataQueryService = dataQueryService;
         this.organisationUnitGroupService = organisationUnitGroupService;
         this.currentUserService = currentUserService;
         this.renderService = renderService;
+        this.organisationUnitTileService = organisationUnitTileService;
     }
 
     // -------------------------------------------------------------------------
@@ -170,6 +175,26 @@ public class GeoFeatureController
         renderService.toJsonP( response.getOutputStream(), features, callback );
     }
 
+    /**
+     * Returns the organisation units intersecting the given web mercator tile
+     * as a GeoJSON feature collection, with geometries simplified for the zoom
+     * level.
+     */
+    @GetMapping( value = "/tiles/{z}/{x}/{y}", produces = ContextUtils.CONTENT_TYPE_JSON )
+    @ResponseBody
+    public ResponseEntity<String> getGeoFeatureTile(
+        @PathVariable int z, @PathVariable int x, @PathVariable int y,
+        @RequestParam( required = false ) Integer level,
+        @RequestParam( required = false ) String parent )
+    {
+        String tile = organisationUnitTileService.getTile( z, x, y, level, parent,
+            currentUserService.getCurrentUser() );
+
+        return ResponseEntity.ok()
+            .header( HttpHeaders.CACHE_CONTROL, GEOFEATURE_CACHE.getHeaderValue() )
+            .body( tile );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -32,12 +32,11 @@ import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.conflict;
 import static org.hisp.dhis.dxf2.webmessage.WebMessageUtils.notFound;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
-import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Set;
 
-import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -51,6 +50,7 @@ import org.hisp.dhis.i18n.I18nFormat;
 import org.hisp.dhis.i18n.I18nManager;
 import org.hisp.dhis.legend.LegendSet;
 import org.hisp.dhis.mapgeneration.MapGenerationService;
+import org.hisp.dhis.mapgeneration.MapUtils;
 import org.hisp.dhis.mapping.Map;
 import org.hisp.dhis.mapping.MapView;
 import org.hisp.dhis.mapping.MappingService;
@@ -64,6 +64,7 @@ import org.hisp.dhis.schema.MergeParams;
 import org.hisp.dhis.schema.descriptors.MapSchemaDescriptor;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.visualization.RenderedImageCache;
 import org.hisp.dhis.webapi.controller.AbstractCrudController;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.hisp.dhis.webapi.webdomain.WebOptions;
@@ -121,6 +122,9 @@ public class MapController
     @Autowired
     private ContextUtils contextUtils;
 
+    @Autowired
+    private RenderedImageCache renderedImageCache;
+
     // --------------------------------------------------------------------------
     // CRUD
     // --------------------------------------------------------------------------
@@ -305,14 +309,16 @@ public class MapController
         boolean attachment, HttpServletResponse response )
         throws Exception
     {
-        BufferedImage image = mapGenerationService.generateMapImage( map, date, unit, width, height );
+        byte[] image = renderedImageCache.getImage( map, Arrays.asList( date, unit, width, height ),
+            currentUserService.getCurrentUser(),
+            () -> MapUtils.toPng( mapGenerationService.generateMapImage( map, date, unit, width, height ) ) );
 
         if ( image != null )
         {
             contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_PNG,
                 CacheStrategy.RESPECT_SYSTEM_SETTING, "map.png", attachment );
 
-            ImageIO.write( image, "PNG", response.getOutputStream() );
+            response.getOutputStream().write( image );
         }
         else
         {
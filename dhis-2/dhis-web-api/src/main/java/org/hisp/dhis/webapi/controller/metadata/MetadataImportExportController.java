@@ -47,6 +47,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.common.AsyncTaskExecutor;
 import org.hisp.dhis.common.DhisApiVersion;
 import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.common.UserContext;
 import org.hisp.dhis.commons.util.StreamUtils;
 import org.hisp.dhis.dxf2.common.TranslateParams;
@@ -241,7 +242,7 @@ public class MetadataImportExportController
     {
         MetadataAsyncImporter metadataImporter = metadataAsyncImporterFactory.getObject();
         metadataImporter.setParams( params );
-        taskExecutor.executeTask( metadataImporter );
+        taskExecutor.executeTask( TaskPool.IMPORT, metadataImporter );
 
         return jobConfigurationReport( params.getId() )
             .setLocation( "/system/tasks/" + METADATA_IMPORT );
@@ -253,7 +254,7 @@ public class MetadataImportExportController
         GmlAsyncImporter gmlImporter = gmlAsyncImporterFactory.getObject();
         gmlImporter.setInputStream( request.getInputStream() );
         gmlImporter.setParams( params );
-        taskExecutor.executeTask( gmlImporter );
+        taskExecutor.executeTask( TaskPool.IMPORT, gmlImporter );
 
         return jobConfigurationReport( params.getId() )
             .setLocation( "/system/tasks/" + GML_IMPORT );
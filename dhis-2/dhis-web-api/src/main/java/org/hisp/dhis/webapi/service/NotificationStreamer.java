@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.webapi.service;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.Notification;
+import org.hisp.dhis.system.notification.Notifier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Streams the notifications of a job to clients as server-sent events. A
+ * single background thread reads the notifications of each job once per push
+ * and hands them to the subscriptions of that job, so the cost of a push is
+ * proportional to the number of jobs being watched and the number of new
+ * notifications, and not to the number of clients or the size of the job
+ * history.
+ * <p>
+ * The notifications are written to the clients by a small pool of sender
+ * threads so that a slow client cannot hold up the others. A subscription
+ * has at most one send in progress, and is dropped when a send takes longer
+ * than the send timeout. A subscription ends when a completed notification
+ * has been sent.
+ */
+@Slf4j
+@Component
+public class NotificationStreamer
+    implements DisposableBean
+{
+    private static final long TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis( 30 );
+
+    private static final long PUSH_INTERVAL_MILLIS = 1000;
+
+    private static final long SEND_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis( 10 );
+
+    private static final int SENDER_THREADS = 4;
+
+    private static final String EVENT_NAME = "notification";
+
+    private final Notifier notifier;
+
+    private final ExecutorService sender;
+
+    private final long sendTimeoutMillis;
+
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat( "notification-stream-%d" ).setDaemon( true ).build() );
+
+    @Autowired
+    public NotificationStreamer( Notifier notifier )
+    {
+        this( notifier, Executors.newFixedThreadPool( SENDER_THREADS,
+            new ThreadFactoryBuilder().setNameFormat( "notification-stream-send-%d" ).setDaemon( true ).build() ),
+            PUSH_INTERVAL_MILLIS, SEND_TIMEOUT_MILLIS );
+    }
+
+    NotificationStreamer( Notifier notifier, ExecutorService sender, long pushIntervalMillis,
+        long sendTimeoutMillis )
+    {
+        this.notifier = notifier;
+        this.sender = sender;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+
+        scheduler.scheduleWithFixedDelay( this::pushAll, pushIntervalMillis, pushIntervalMillis,
+            TimeUnit.MILLISECONDS );
+    }
+
+    /**
+     * Subscribes to the notifications of the given job.
+     *
+     * @param jobType the {@link JobType}.
+     * @param jobId the job identifier.
+     * @param afterSequence the sequence number of the last notification
+     *        received by the client, or 0 to receive all notifications.
+     * @return an {@link SseEmitter} which emits the notifications oldest first.
+     */
+    public SseEmitter subscribe( JobType jobType, String jobId, long afterSequence )
+    {
+        return subscribe( jobType, jobId, afterSequence, new SseEmitter( TIMEOUT_MILLIS ) );
+    }
+
+    SseEmitter subscribe( JobType jobType, String jobId, long afterSequence, SseEmitter emitter )
+    {
+        Subscription subscription = new Subscription( new JobKey( jobType, jobId ), afterSequence, emitter );
+
+        emitter.onCompletion( () -> subscriptions.remove( subscription ) );
+        emitter.onTimeout( () -> subscriptions.remove( subscription ) );
+        emitter.onError( ex -> subscriptions.remove( subscription ) );
+
+        subscriptions.add( subscription );
+
+        return emitter;
+    }
+
+    @Override
+    public void destroy()
+    {
+        scheduler.shutdownNow();
+        sender.shutdownNow();
+
+        subscriptions.forEach( subscription -> subscription.emitter.complete() );
+        subscriptions.clear();
+    }
+
+    /**
+     * Reads the new notifications of every watched job once and hands them to
+     * the subscriptions of the job.
+     */
+    void pushAll()
+    {
+        Map<JobKey, List<Subscription>> subscriptionsByJob = subscriptions.stream()
+            .collect( groupingBy( subscription -> subscription.job ) );
+
+        subscriptionsByJob.forEach( this::push );
+    }
+
+    private void push( JobKey job, List<Subscription> jobSubscriptions )
+    {
+        List<Subscription> idle = new ArrayList<>();
+
+        for ( Subscription subscription : jobSubscriptions )
+        {
+            if ( !subscription.isSending() )
+            {
+                idle.add( subscription );
+            }
+            else if ( subscription.isSendingLongerThan( sendTimeoutMillis ) )
+            {
+                drop( subscription, new TimeoutException( "Notification send timed out" ), true );
+            }
+        }
+
+        if ( idle.isEmpty() )
+        {
+            return;
+        }
+
+        long afterSequence = idle.stream().mapToLong( subscription -> subscription.lastSequence ).min()
+            .getAsLong();
+
+        List<Notification> notifications;
+
+        try
+        {
+            notifications = notifier.getNotificationsSince( job.jobType, job.jobId, afterSequence );
+        }
+        catch ( RuntimeException ex )
+        {
+            idle.forEach( subscription -> drop( subscription, ex, false ) );
+            return;
+        }
+
+        for ( Subscription subscription : idle )
+        {
+            List<Notification> pending = notifications.stream()
+                .filter( notification -> notification.getSequence() > subscription.lastSequence )
+                .collect( toList() );
+
+            if ( !pending.isEmpty() )
+            {
+                startSend( subscription, pending );
+            }
+        }
+    }
+
+    private void startSend( Subscription subscription, List<Notification> notifications )
+    {
+        subscription.sendStartedMillis = System.currentTimeMillis();
+
+        try
+        {
+            subscription.sendFuture = sender.submit( () -> send( subscription, notifications ) );
+        }
+        catch ( RejectedExecutionException ex )
+        {
+            subscription.sendStartedMillis = 0;
+        }
+    }
+
+    /**
+     * Sends the given notifications, which are ordered newest first, to the
+     * subscription and ends it if the job has completed.
+     */
+    private void send( Subscription subscription, List<Notification> notifications )
+    {
+        try
+        {
+            boolean completed = false;
+
+            for ( int i = notifications.size() - 1; i >= 0; i-- )
+            {
+                Notification notification = notifications.get( i );
+
+                subscription.emitter.send( SseEmitter.event()
+                    .id( String.valueOf( notification.getSequence() ) )
+                    .name( EVENT_NAME )
+                    .data( notification, MediaType.APPLICATION_JSON ) );
+
+                subscription.lastSequence = notification.getSequence();
+                completed |= notification.isCompleted();
+            }
+
+            if ( completed && subscriptions.remove( subscription ) )
+            {
+                subscription.emitter.complete();
+            }
+        }
+        catch ( IOException | RuntimeException ex )
+        {
+            drop( subscription, ex, false );
+        }
+        finally
+        {
+            subscription.sendStartedMillis = 0;
+        }
+    }
+
+    private void drop( Subscription subscription, Exception ex, boolean cancelSend )
+    {
+        if ( !subscriptions.remove( subscription ) )
+        {
+            return;
+        }
+
+        log.debug( "Notification stream closed for job: " + subscription.job.jobId, ex );
+
+        Future<?> sendFuture = subscription.sendFuture;
+
+        if ( cancelSend && sendFuture != null )
+        {
+            sendFuture.cancel( true );
+        }
+
+        subscription.emitter.completeWithError( ex );
+    }
+
+    private static final class JobKey
+    {
+        private final JobType jobType;
+
+        private final String jobId;
+
+        private JobKey( JobType jobType, String jobId )
+        {
+            this.jobType = jobType;
+            this.jobId = jobId;
+        }
+
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o )
+            {
+                return true;
+            }
+
+            if ( !(o instanceof JobKey) )
+            {
+                return false;
+            }
+
+            JobKey other = (JobKey) o;
+
+            return jobType == other.jobType && Objects.equals( jobId, other.jobId );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( jobType, jobId );
+        }
+    }
+
+    private static final class Subscription
+    {
+        private final JobKey job;
+
+        private final SseEmitter emitter;
+
+        private volatile long lastSequence;
+
+        /**
+         * Start time of the send in progress, or 0 when idle.
+         */
+        private volatile long sendStartedMillis;
+
+        private volatile Future<?> sendFuture;
+
+        private Subscription( JobKey job, long lastSequence, SseEmitter emitter )
+        {
+            this.job = job;
+            this.lastSequence = lastSequence;
+            this.emitter = emitter;
+        }
+
+        private boolean isSending()
+        {
+            return sendStartedMillis != 0;
+        }
+
+        private boolean isSendingLongerThan( long millis )
+        {
+            long started = sendStartedMillis;
+
+            return started != 0 && System.currentTimeMillis() - started > millis;
+        }
+    }
+}
@@ -88,6 +88,7 @@ public class DhisWebApiWebAppInitializer implements WebApplicationInitializer
         FilterRegistration.Dynamic openSessionInViewFilter = context.addFilter( "openSessionInViewFilter",
             OpenSessionInViewFilter.class );
         openSessionInViewFilter.setInitParameter( "sessionFactoryBeanName", "sessionFactory" );
+        openSessionInViewFilter.setAsyncSupported( true );
         openSessionInViewFilter.addMappingForUrlPatterns( null, false, "/*" );
         openSessionInViewFilter.addMappingForServletNames( null, false, "dispatcher" );
 
@@ -95,14 +96,19 @@ public class DhisWebApiWebAppInitializer implements WebApplicationInitializer
             CharacterEncodingFilter.class );
         characterEncodingFilter.setInitParameter( "encoding", "UTF-8" );
         characterEncodingFilter.setInitParameter( "forceEncoding", "true" );
+        characterEncodingFilter.setAsyncSupported( true );
         characterEncodingFilter.addMappingForUrlPatterns( null, false, "/*" );
         characterEncodingFilter.addMappingForServletNames( null, false, "dispatcher" );
 
-        context.addFilter( "RequestIdentifierFilter", new DelegatingFilterProxy( "requestIdentifierFilter" ) )
-            .addMappingForUrlPatterns( null, true, "/*" );
+        FilterRegistration.Dynamic requestIdentifierFilter = context.addFilter( "RequestIdentifierFilter",
+            new DelegatingFilterProxy( "requestIdentifierFilter" ) );
+        requestIdentifierFilter.setAsyncSupported( true );
+        requestIdentifierFilter.addMappingForUrlPatterns( null, true, "/*" );
 
-        context.addFilter( "AppOverrideFilter", new DelegatingFilterProxy( "appOverrideFilter" ) )
-            .addMappingForUrlPatterns( null, true, "/*" );
+        FilterRegistration.Dynamic appOverrideFilter = context.addFilter( "AppOverrideFilter",
+            new DelegatingFilterProxy( "appOverrideFilter" ) );
+        appOverrideFilter.setAsyncSupported( true );
+        appOverrideFilter.addMappingForUrlPatterns( null, true, "/*" );
 
         context.addListener( new StartupListener() );
     }
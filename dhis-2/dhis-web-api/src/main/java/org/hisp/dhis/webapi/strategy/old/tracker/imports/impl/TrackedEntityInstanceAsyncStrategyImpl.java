@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.util.List;
 
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.dxf2.events.trackedentity.ImportTrackedEntitiesTask;
 import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstanceService;
@@ -60,7 +61,7 @@ public class TrackedEntityInstanceAsyncStrategyImpl extends AbstractTrackedEntit
         List<TrackedEntityInstance> trackedEntityInstanceList = getTrackedEntityInstancesListByMediaType(
             trackerEntityInstanceRequest.getMediaType(), trackerEntityInstanceRequest.getInputStream() );
 
-        taskExecutor.executeTask( new ImportTrackedEntitiesTask( trackedEntityInstanceList,
+        taskExecutor.executeTask( TaskPool.IMPORT, new ImportTrackedEntitiesTask( trackedEntityInstanceList,
             trackedEntityInstanceService, trackerEntityInstanceRequest.getImportOptions(),
             trackerEntityInstanceRequest.getJobConfiguration() ) );
 
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.webapi.service;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.system.notification.Notification;
+import org.hisp.dhis.system.notification.Notifier;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests the fan-out and the slow client handling of
+ * {@link NotificationStreamer}. Pushes are triggered by the tests, the push
+ * interval is set high enough for the scheduled pushes not to interfere.
+ */
+public class NotificationStreamerTest
+{
+    private static final long NO_SCHEDULED_PUSH = TimeUnit.HOURS.toMillis( 1 );
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private Notifier notifier;
+
+    private NotificationStreamer streamer;
+
+    @After
+    public void tearDown()
+    {
+        streamer.destroy();
+    }
+
+    @Test
+    public void testReadsEachJobOncePerPush()
+    {
+        streamer = new NotificationStreamer( notifier, MoreExecutors.newDirectExecutorService(),
+            NO_SCHEDULED_PUSH, 1000 );
+
+        when( notifier.getNotificationsSince( eq( JobType.DATAVALUE_IMPORT ), eq( "jobA" ), anyLong() ) )
+            .thenReturn( asList( notification( 3 ), notification( 2 ), notification( 1 ) ) );
+        when( notifier.getNotificationsSince( eq( JobType.ANALYTICS_TABLE ), eq( "jobB" ), anyLong() ) )
+            .thenReturn( emptyList() );
+
+        RecordingEmitter fromStart = new RecordingEmitter();
+        RecordingEmitter fromSecond = new RecordingEmitter();
+        RecordingEmitter otherJob = new RecordingEmitter();
+
+        streamer.subscribe( JobType.DATAVALUE_IMPORT, "jobA", 0, fromStart );
+        streamer.subscribe( JobType.DATAVALUE_IMPORT, "jobA", 2, fromSecond );
+        streamer.subscribe( JobType.ANALYTICS_TABLE, "jobB", 0, otherJob );
+
+        streamer.pushAll();
+
+        verify( notifier, times( 1 ) ).getNotificationsSince( JobType.DATAVALUE_IMPORT, "jobA", 0 );
+        verify( notifier, times( 1 ) ).getNotificationsSince( JobType.ANALYTICS_TABLE, "jobB", 0 );
+
+        assertEquals( asList( 1L, 2L, 3L ), fromStart.sequences );
+        assertEquals( asList( 3L ), fromSecond.sequences );
+        assertTrue( otherJob.sequences.isEmpty() );
+    }
+
+    @Test
+    public void testSlowSubscriberDoesNotHoldUpOthers()
+        throws Exception
+    {
+        ExecutorService sender = Executors.newFixedThreadPool( 2 );
+        streamer = new NotificationStreamer( notifier, sender, NO_SCHEDULED_PUSH, 200 );
+
+        when( notifier.getNotificationsSince( eq( JobType.DATAVALUE_IMPORT ), eq( "jobA" ), anyLong() ) )
+            .thenReturn( asList( notification( 1 ) ) );
+
+        CountDownLatch neverReleased = new CountDownLatch( 1 );
+        RecordingEmitter stalled = new RecordingEmitter( neverReleased );
+        RecordingEmitter healthy = new RecordingEmitter();
+
+        streamer.subscribe( JobType.DATAVALUE_IMPORT, "jobA", 0, stalled );
+        streamer.subscribe( JobType.DATAVALUE_IMPORT, "jobA", 0, healthy );
+
+        streamer.pushAll();
+
+        assertTrue( healthy.sent.await( 5, TimeUnit.SECONDS ) );
+        assertEquals( asList( 1L ), healthy.sequences );
+
+        Thread.sleep( 300 );
+        streamer.pushAll();
+
+        assertTrue( stalled.failed.await( 5, TimeUnit.SECONDS ) );
+        assertTrue( stalled.sequences.isEmpty() );
+    }
+
+    private static Notification notification( long sequence )
+    {
+        Notification notification = new Notification();
+        notification.setSequence( sequence );
+        return notification;
+    }
+
+    private static final class RecordingEmitter extends SseEmitter
+    {
+        private final List<Long> sequences = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch sent = new CountDownLatch( 1 );
+
+        private final CountDownLatch failed = new CountDownLatch( 1 );
+
+        private final CountDownLatch blocker;
+
+        private RecordingEmitter()
+        {
+            this( null );
+        }
+
+        private RecordingEmitter( CountDownLatch blocker )
+        {
+            this.blocker = blocker;
+        }
+
+        @Override
+        public void send( SseEventBuilder builder )
+            throws IOException
+        {
+            if ( blocker != null )
+            {
+                try
+                {
+                    blocker.await();
+                }
+                catch ( InterruptedException ex )
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+
+            builder.build().stream()
+                .filter( data -> data.getData() instanceof Notification )
+                .forEach( data -> sequences.add( ((Notification) data.getData()).getSequence() ) );
+
+            sent.countDown();
+        }
+
+        @Override
+        public synchronized void completeWithError( Throwable ex )
+        {
+            failed.countDown();
+        }
+    }
+}
@@ -28,6 +28,7 @@
 package org.hisp.dhis.webapi.strategy.old.tracker.imports;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -38,6 +39,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.common.TaskPool;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.events.trackedentity.ImportTrackedEntitiesTask;
 import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstance;
@@ -157,7 +159,8 @@ public class TrackedEntityInstanceStrategyHandlerImplTest
         trackedEntityInstanceAsyncStrategy.mergeOrDeleteTrackedEntityInstances( trackerEntityInstanceRequest );
 
         verify( trackedEntityInstanceService, times( 1 ) ).getTrackedEntityInstancesJson( inputStream );
-        verify( taskExecutor, times( 1 ) ).executeTask( trackedEntitiesTaskArgumentCaptor.capture() );
+        verify( taskExecutor, times( 1 ) ).executeTask( eq( TaskPool.IMPORT ),
+            trackedEntitiesTaskArgumentCaptor.capture() );
     }
 
     @Test
@@ -176,7 +179,8 @@ public class TrackedEntityInstanceStrategyHandlerImplTest
         trackedEntityInstanceAsyncStrategy.mergeOrDeleteTrackedEntityInstances( trackerEntityInstanceRequest );
 
         verify( trackedEntityInstanceService, times( 1 ) ).getTrackedEntityInstancesXml( inputStream );
-        verify( taskExecutor, times( 1 ) ).executeTask( trackedEntitiesTaskArgumentCaptor.capture() );
+        verify( taskExecutor, times( 1 ) ).executeTask( eq( TaskPool.IMPORT ),
+            trackedEntitiesTaskArgumentCaptor.capture() );
     }
 
     @Test( expected = BadRequestException.class )
@@ -101,8 +101,10 @@ public class JettyEmbeddedCoreWeb extends EmbeddedJettyBase
         contextHandler.addEventListener( startupListener );
 
         // Spring Security Filter
+        FilterHolder springSecurityFilter = new FilterHolder( new DelegatingFilterProxy( DEFAULT_FILTER_NAME ) );
+        springSecurityFilter.setAsyncSupported( true );
         contextHandler.addFilter(
-            new FilterHolder( new DelegatingFilterProxy( DEFAULT_FILTER_NAME ) ),
+            springSecurityFilter,
             "/*",
             EnumSet.allOf( DispatcherType.class ) );
 
@@ -119,6 +121,7 @@ public class JettyEmbeddedCoreWeb extends EmbeddedJettyBase
         FilterRegistration.Dynamic openSessionInViewFilter = context.addFilter( "openSessionInViewFilter",
             OpenSessionInViewFilter.class );
         openSessionInViewFilter.setInitParameter( "sessionFactoryBeanName", "sessionFactory" );
+        openSessionInViewFilter.setAsyncSupported( true );
         openSessionInViewFilter.addMappingForUrlPatterns( null, false, "/*" );
         openSessionInViewFilter.addMappingForServletNames( null, false, "dispatcher" );
 
@@ -126,11 +129,14 @@ public class JettyEmbeddedCoreWeb extends EmbeddedJettyBase
             CharacterEncodingFilter.class );
         characterEncodingFilter.setInitParameter( "encoding", "UTF-8" );
         characterEncodingFilter.setInitParameter( "forceEncoding", "true" );
+        characterEncodingFilter.setAsyncSupported( true );
         characterEncodingFilter.addMappingForUrlPatterns( null, false, "/*" );
         characterEncodingFilter.addMappingForServletNames( null, false, "dispatcher" );
 
-        context.addFilter( "RequestIdentifierFilter", new DelegatingFilterProxy( "requestIdentifierFilter" ) )
-            .addMappingForUrlPatterns( null, true, "/*" );
+        FilterRegistration.Dynamic requestIdentifierFilter = context.addFilter( "RequestIdentifierFilter",
+            new DelegatingFilterProxy( "requestIdentifierFilter" ) );
+        requestIdentifierFilter.setAsyncSupported( true );
+        requestIdentifierFilter.addMappingForUrlPatterns( null, true, "/*" );
 
         return contextHandler;
     }